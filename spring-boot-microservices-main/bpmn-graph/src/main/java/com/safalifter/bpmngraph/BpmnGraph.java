@@ -0,0 +1,601 @@
+package com.safalifter.bpmngraph;
+
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.*;
+import org.camunda.bpm.model.xml.instance.ModelElementInstance;
+
+import java.util.*;
+
+/**
+ * Représentation compilée et immuable du graphe d'un modèle BPMN : les noeuds (flow nodes) sont numérotés,
+ * les identifiants conservés une seule fois, et les arcs rangés en tableaux d'adjacence compacts (CSR)
+ * dans les deux sens. Les analyses statiques parcourent ces tableaux sans repasser par l'API du modèle.
+ *
+ * Trois sortes d'arcs : les flux de séquence, l'attachement d'un événement de bordure à son activité
+ * et l'entrée d'un sous-processus vers ses événements de début.
+ */
+public final class BpmnGraph {
+
+    public enum NodeKind {
+        START_EVENT, END_EVENT, INTERMEDIATE_EVENT, BOUNDARY_EVENT,
+        USER_TASK, SERVICE_TASK, SEND_TASK, RECEIVE_TASK, SCRIPT_TASK, BUSINESS_RULE_TASK, MANUAL_TASK, TASK,
+        SUB_PROCESS, CALL_ACTIVITY,
+        EXCLUSIVE_GATEWAY, PARALLEL_GATEWAY, INCLUSIVE_GATEWAY, EVENT_BASED_GATEWAY, COMPLEX_GATEWAY,
+        OTHER;
+
+        public boolean isGateway() {
+            return compareTo(EXCLUSIVE_GATEWAY) >= 0 && compareTo(COMPLEX_GATEWAY) <= 0;
+        }
+
+        public boolean isActivity() {
+            return compareTo(USER_TASK) >= 0 && compareTo(CALL_ACTIVITY) <= 0;
+        }
+
+        public boolean isTask() {
+            return compareTo(USER_TASK) >= 0 && compareTo(TASK) <= 0;
+        }
+    }
+
+    public static final byte EDGE_FLOW = 0;
+    public static final byte EDGE_ATTACHMENT = 1;
+    public static final byte EDGE_SUB_PROCESS_START = 2;
+
+    private static final int NO_PARENT = -1;
+
+    // Noeuds
+    private final String[] nodeIds;
+    private final String[] nodeNames;
+    private final String[] nodeTypes;
+    private final NodeKind[] kinds;
+    private final int[] parents;
+    private final BitSet roots;
+    private final BitSet exitOptional;
+    private final Map<String, Integer> indexById;
+
+    // Arcs (les flux de séquence gardent leur identifiant et leur condition)
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final byte[] edgeKinds;
+    private final String[] flowIds;
+    private final String[] conditions;
+    private final BitSet defaultFlows;
+
+    // Adjacence CSR : arcs sortants de i = outEdges[outOffsets[i] .. outOffsets[i + 1]), idem en entrée
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    private BpmnGraph(Builder builder) {
+        int nodeCount = builder.nodes.size();
+        int edgeCount = builder.edgeSources.size();
+        this.nodeIds = new String[nodeCount];
+        this.nodeNames = new String[nodeCount];
+        this.nodeTypes = new String[nodeCount];
+        this.kinds = new NodeKind[nodeCount];
+        this.parents = new int[nodeCount];
+        this.roots = builder.roots;
+        this.exitOptional = builder.exitOptional;
+        this.indexById = Collections.unmodifiableMap(builder.indexById);
+        for (int i = 0; i < nodeCount; i++) {
+            FlowNode node = builder.nodes.get(i);
+            nodeIds[i] = node.getId();
+            nodeNames[i] = node.getName();
+            nodeTypes[i] = node.getElementType().getTypeName();
+            kinds[i] = kindOf(node);
+            parents[i] = builder.parents[i];
+        }
+
+        this.edgeSources = builder.edgeSources.toArray();
+        this.edgeTargets = builder.edgeTargets.toArray();
+        this.edgeKinds = new byte[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeKinds[e] = builder.edgeKinds.get(e);
+        }
+        this.flowIds = builder.flowIds.toArray(new String[0]);
+        this.conditions = builder.conditions.toArray(new String[0]);
+        this.defaultFlows = builder.defaultFlows;
+
+        this.outOffsets = new int[nodeCount + 1];
+        this.outEdges = new int[edgeCount];
+        this.inOffsets = new int[nodeCount + 1];
+        this.inEdges = new int[edgeCount];
+        buildCsr(edgeSources, outOffsets, outEdges);
+        buildCsr(edgeTargets, inOffsets, inEdges);
+    }
+
+    /**
+     * Compile le modèle : un seul parcours des flow nodes, puis un seul des flux de séquence
+     */
+    public static BpmnGraph compile(BpmnModelInstance modelInstance) {
+        Builder builder = new Builder();
+        for (FlowNode node : modelInstance.getModelElementsByType(FlowNode.class)) {
+            builder.addNode(node);
+        }
+        builder.resolveNodes();
+        for (SequenceFlow flow : modelInstance.getModelElementsByType(SequenceFlow.class)) {
+            builder.addFlow(flow);
+        }
+        return new BpmnGraph(builder);
+    }
+
+    // ----- Accès au graphe -----
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return edgeSources.length;
+    }
+
+    /**
+     * Indice du noeud, ou -1 s'il n'existe pas
+     */
+    public int indexOf(String nodeId) {
+        Integer index = indexById.get(nodeId);
+        return index != null ? index : -1;
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    /**
+     * Nom du type d'élément BPMN (userTask, exclusiveGateway...)
+     */
+    public String nodeType(int node) {
+        return nodeTypes[node];
+    }
+
+    public NodeKind kind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Sous-processus contenant le noeud, ou -1 au niveau du processus
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    public int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    public int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    public int outEdge(int position) {
+        return outEdges[position];
+    }
+
+    public int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    public int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    public int inEdge(int position) {
+        return inEdges[position];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public byte edgeKind(int edge) {
+        return edgeKinds[edge];
+    }
+
+    /**
+     * Identifiant du flux de séquence (null pour un arc implicite)
+     */
+    public String flowId(int edge) {
+        return flowIds[edge];
+    }
+
+    /**
+     * Texte de la condition du flux, ou null
+     */
+    public String condition(int edge) {
+        return conditions[edge];
+    }
+
+    /**
+     * Activité de compensation ou sous-processus événementiel : déclenché hors des flux de séquence
+     */
+    public boolean isDetached(int node) {
+        return exitOptional.get(node);
+    }
+
+    public boolean isDefaultFlow(int edge) {
+        return defaultFlows.get(edge);
+    }
+
+    /**
+     * Nombre de flux de séquence entrants (les arcs implicites ne comptent pas)
+     */
+    public int fanIn(int node) {
+        int count = 0;
+        for (int p = inOffsets[node]; p < inOffsets[node + 1]; p++) {
+            if (edgeKinds[inEdges[p]] == EDGE_FLOW) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Nombre de flux de séquence sortants
+     */
+    public int fanOut(int node) {
+        int count = 0;
+        for (int p = outOffsets[node]; p < outOffsets[node + 1]; p++) {
+            if (edgeKinds[outEdges[p]] == EDGE_FLOW) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ----- Analyses -----
+
+    /**
+     * Noeuds de départ : événements de début du processus et des sous-processus événementiels,
+     * événements intermédiaires de réception de lien
+     */
+    public BitSet roots() {
+        return (BitSet) roots.clone();
+    }
+
+    /**
+     * Noeuds atteignables depuis un noeud de départ, en suivant tous les arcs
+     */
+    public BitSet reachable() {
+        BitSet visited = new BitSet(nodeCount());
+        int[] stack = new int[nodeCount()];
+        int size = 0;
+        for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+            visited.set(root);
+            stack[size++] = root;
+        }
+        while (size > 0) {
+            int node = stack[--size];
+            for (int p = outOffsets[node]; p < outOffsets[node + 1]; p++) {
+                int target = edgeTargets[outEdges[p]];
+                if (!visited.get(target)) {
+                    visited.set(target);
+                    stack[size++] = target;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Noeuds terminaux : événements de fin et noeuds sans flux sortant (fin implicite du jeton)
+     */
+    public BitSet terminals() {
+        BitSet terminals = new BitSet(nodeCount());
+        for (int node = 0; node < nodeCount(); node++) {
+            if (kinds[node] == NodeKind.END_EVENT || !hasExit(node)) {
+                terminals.set(node);
+            }
+        }
+        return terminals;
+    }
+
+    /**
+     * Noeuds depuis lesquels un jeton peut se terminer (parcours inverse depuis les terminaux,
+     * sans les arcs d'entrée en sous-processus : un sous-processus se poursuit par ses propres flux)
+     */
+    public BitSet canTerminate() {
+        BitSet visited = terminals();
+        int[] stack = new int[nodeCount()];
+        int size = 0;
+        for (int node = visited.nextSetBit(0); node >= 0; node = visited.nextSetBit(node + 1)) {
+            stack[size++] = node;
+        }
+        while (size > 0) {
+            int node = stack[--size];
+            for (int p = inOffsets[node]; p < inOffsets[node + 1]; p++) {
+                int edge = inEdges[p];
+                int source = edgeSources[edge];
+                if (edgeKinds[edge] != EDGE_SUB_PROCESS_START && !visited.get(source)) {
+                    visited.set(source);
+                    stack[size++] = source;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Noeuds sans flux sortant qui ne sont pas des événements de fin (les activités de compensation et
+     * les sous-processus événementiels n'ont pas de flux sortant par construction)
+     */
+    public BitSet deadEnds() {
+        BitSet deadEnds = new BitSet(nodeCount());
+        for (int node = 0; node < nodeCount(); node++) {
+            if (kinds[node] != NodeKind.END_EVENT && !hasExit(node)) {
+                deadEnds.set(node);
+            }
+        }
+        return deadEnds;
+    }
+
+    /**
+     * Cycles (composantes fortement connexes non triviales) atteignables dont aucun noeud ne peut se terminer :
+     * un jeton qui y entre ne sort jamais. Chaque cycle est retourné comme la liste des indices de ses noeuds.
+     */
+    public List<int[]> cyclesWithoutExit() {
+        BitSet reachable = reachable();
+        BitSet canTerminate = canTerminate();
+        List<int[]> cycles = new ArrayList<>();
+        for (int[] component : cyclicComponents()) {
+            boolean trapped = true;
+            for (int node : component) {
+                if (!reachable.get(node) || canTerminate.get(node)) {
+                    trapped = false;
+                    break;
+                }
+            }
+            if (trapped) {
+                cycles.add(component);
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * Composantes fortement connexes contenant un cycle (Tarjan itératif, arcs de flux et d'attachement)
+     */
+    List<int[]> cyclicComponents() {
+        int n = nodeCount();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        Arrays.fill(index, -1);
+        BitSet onStack = new BitSet(n);
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callNode = new int[n];
+        int[] callPosition = new int[n];
+        int counter = 0;
+        List<int[]> components = new ArrayList<>();
+
+        for (int start = 0; start < n; start++) {
+            if (index[start] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = start;
+            callPosition[0] = outOffsets[start];
+            index[start] = lowLink[start] = counter++;
+            stack[stackSize++] = start;
+            onStack.set(start);
+
+            while (depth >= 0) {
+                int node = callNode[depth];
+                if (callPosition[depth] < outOffsets[node + 1]) {
+                    int edge = outEdges[callPosition[depth]++];
+                    if (edgeKinds[edge] == EDGE_SUB_PROCESS_START) {
+                        continue;
+                    }
+                    int target = edgeTargets[edge];
+                    if (index[target] < 0) {
+                        index[target] = lowLink[target] = counter++;
+                        stack[stackSize++] = target;
+                        onStack.set(target);
+                        depth++;
+                        callNode[depth] = target;
+                        callPosition[depth] = outOffsets[target];
+                    } else if (onStack.get(target)) {
+                        lowLink[node] = Math.min(lowLink[node], index[target]);
+                    }
+                    continue;
+                }
+                if (lowLink[node] == index[node]) {
+                    int first = stackSize;
+                    do {
+                        onStack.clear(stack[--first]);
+                    } while (stack[first] != node);
+                    int[] component = Arrays.copyOfRange(stack, first, stackSize);
+                    stackSize = first;
+                    if (component.length > 1 || hasSelfLoop(node)) {
+                        Arrays.sort(component);
+                        components.add(component);
+                    }
+                }
+                depth--;
+                if (depth >= 0) {
+                    int caller = callNode[depth];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+            }
+        }
+        return components;
+    }
+
+    private boolean hasExit(int node) {
+        for (int p = outOffsets[node]; p < outOffsets[node + 1]; p++) {
+            if (edgeKinds[outEdges[p]] != EDGE_SUB_PROCESS_START) {
+                return true;
+            }
+        }
+        return exitOptional.get(node);
+    }
+
+    private boolean hasSelfLoop(int node) {
+        for (int p = outOffsets[node]; p < outOffsets[node + 1]; p++) {
+            if (edgeTargets[outEdges[p]] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void buildCsr(int[] endpoints, int[] offsets, int[] edges) {
+        for (int endpoint : endpoints) {
+            offsets[endpoint + 1]++;
+        }
+        for (int i = 0; i < offsets.length - 1; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int edge = 0; edge < endpoints.length; edge++) {
+            edges[next[endpoints[edge]]++] = edge;
+        }
+    }
+
+    private static NodeKind kindOf(FlowNode node) {
+        if (node instanceof StartEvent) return NodeKind.START_EVENT;
+        if (node instanceof EndEvent) return NodeKind.END_EVENT;
+        if (node instanceof BoundaryEvent) return NodeKind.BOUNDARY_EVENT;
+        if (node instanceof IntermediateCatchEvent || node instanceof IntermediateThrowEvent) {
+            return NodeKind.INTERMEDIATE_EVENT;
+        }
+        if (node instanceof UserTask) return NodeKind.USER_TASK;
+        if (node instanceof ServiceTask) return NodeKind.SERVICE_TASK;
+        if (node instanceof SendTask) return NodeKind.SEND_TASK;
+        if (node instanceof ReceiveTask) return NodeKind.RECEIVE_TASK;
+        if (node instanceof ScriptTask) return NodeKind.SCRIPT_TASK;
+        if (node instanceof BusinessRuleTask) return NodeKind.BUSINESS_RULE_TASK;
+        if (node instanceof ManualTask) return NodeKind.MANUAL_TASK;
+        if (node instanceof Task) return NodeKind.TASK;
+        if (node instanceof SubProcess) return NodeKind.SUB_PROCESS;
+        if (node instanceof CallActivity) return NodeKind.CALL_ACTIVITY;
+        if (node instanceof ExclusiveGateway) return NodeKind.EXCLUSIVE_GATEWAY;
+        if (node instanceof ParallelGateway) return NodeKind.PARALLEL_GATEWAY;
+        if (node instanceof InclusiveGateway) return NodeKind.INCLUSIVE_GATEWAY;
+        if (node instanceof EventBasedGateway) return NodeKind.EVENT_BASED_GATEWAY;
+        if (node instanceof ComplexGateway) return NodeKind.COMPLEX_GATEWAY;
+        return NodeKind.OTHER;
+    }
+
+    private static final class Builder {
+        private final List<FlowNode> nodes = new ArrayList<>();
+        private final Map<String, Integer> indexById = new HashMap<>();
+        private final BitSet roots = new BitSet();
+        private final BitSet exitOptional = new BitSet();
+        private int[] parents;
+
+        private final IntList edgeSources = new IntList();
+        private final IntList edgeTargets = new IntList();
+        private final List<Byte> edgeKinds = new ArrayList<>();
+        private final List<String> flowIds = new ArrayList<>();
+        private final List<String> conditions = new ArrayList<>();
+        private final BitSet defaultFlows = new BitSet();
+        private final Set<String> defaultFlowIds = new HashSet<>();
+
+        void addNode(FlowNode node) {
+            int index = nodes.size();
+            indexById.put(node.getId(), index);
+            nodes.add(node);
+            if ((node instanceof Activity && ((Activity) node).isForCompensation())
+                    || (node instanceof SubProcess && ((SubProcess) node).triggeredByEvent())) {
+                exitOptional.set(index);
+            }
+            SequenceFlow defaultFlow = null;
+            if (node instanceof ExclusiveGateway) {
+                defaultFlow = ((ExclusiveGateway) node).getDefault();
+            } else if (node instanceof InclusiveGateway) {
+                defaultFlow = ((InclusiveGateway) node).getDefault();
+            } else if (node instanceof ComplexGateway) {
+                defaultFlow = ((ComplexGateway) node).getDefault();
+            } else if (node instanceof Activity) {
+                defaultFlow = ((Activity) node).getDefault();
+            }
+            if (defaultFlow != null) {
+                defaultFlowIds.add(defaultFlow.getId());
+            }
+        }
+
+        /**
+         * Conteneurs, arcs implicites et noeuds de départ, une fois tous les noeuds indexés
+         */
+        void resolveNodes() {
+            parents = new int[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                FlowNode node = nodes.get(i);
+                ModelElementInstance container = node.getParentElement();
+                int parent = container instanceof SubProcess
+                        ? indexById.getOrDefault(((SubProcess) container).getId(), NO_PARENT) : NO_PARENT;
+                parents[i] = parent;
+
+                if (node instanceof StartEvent) {
+                    boolean eventSubProcess = container instanceof SubProcess && ((SubProcess) container).triggeredByEvent();
+                    if (parent == NO_PARENT || eventSubProcess) {
+                        roots.set(i);
+                    } else {
+                        addEdge(parent, i, EDGE_SUB_PROCESS_START, null, null);
+                    }
+                } else if (node instanceof IntermediateCatchEvent
+                        && !((IntermediateCatchEvent) node).getChildElementsByType(LinkEventDefinition.class).isEmpty()) {
+                    roots.set(i);
+                } else if (node instanceof BoundaryEvent && ((BoundaryEvent) node).getAttachedTo() != null) {
+                    Integer attachedTo = indexById.get(((BoundaryEvent) node).getAttachedTo().getId());
+                    if (attachedTo != null) {
+                        addEdge(attachedTo, i, EDGE_ATTACHMENT, null, null);
+                    }
+                }
+            }
+        }
+
+        void addFlow(SequenceFlow flow) {
+            Integer source = flow.getSource() != null ? indexById.get(flow.getSource().getId()) : null;
+            Integer target = flow.getTarget() != null ? indexById.get(flow.getTarget().getId()) : null;
+            if (source == null || target == null) {
+                return;
+            }
+            ConditionExpression condition = flow.getConditionExpression();
+            String conditionText = condition != null ? condition.getTextContent() : null;
+            if (conditionText != null && conditionText.isBlank()) {
+                conditionText = null;
+            }
+            if (defaultFlowIds.contains(flow.getId())) {
+                defaultFlows.set(edgeSources.size());
+            }
+            addEdge(source, target, EDGE_FLOW, flow.getId(), conditionText);
+        }
+
+        private void addEdge(int source, int target, byte kind, String flowId, String condition) {
+            edgeSources.add(source);
+            edgeTargets.add(target);
+            edgeKinds.add(kind);
+            flowIds.add(flowId);
+            conditions.add(condition);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.safalifter.bpmngraph;
+
+import com.safalifter.bpmngraph.BpmnGraph.NodeKind;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BpmnGraphTest {
+
+    static final String MODEL = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"",
+            "    id=\"Definitions_1\" targetNamespace=\"http://bpmn.io/schema/bpmn\">",
+            "  <bpmn:process id=\"Process_1\" isExecutable=\"true\">",
+            "    <bpmn:startEvent id=\"Start\"/>",
+            "    <bpmn:exclusiveGateway id=\"Decision\" default=\"Flow_Loop\"/>",
+            "    <bpmn:userTask id=\"Approve\"/>",
+            "    <bpmn:boundaryEvent id=\"Timeout\" attachedToRef=\"Approve\"/>",
+            "    <bpmn:subProcess id=\"Sub\">",
+            "      <bpmn:startEvent id=\"SubStart\"/>",
+            "      <bpmn:serviceTask id=\"SubTask\"/>",
+            "      <bpmn:endEvent id=\"SubEnd\"/>",
+            "      <bpmn:sequenceFlow id=\"Flow_S1\" sourceRef=\"SubStart\" targetRef=\"SubTask\"/>",
+            "      <bpmn:sequenceFlow id=\"Flow_S2\" sourceRef=\"SubTask\" targetRef=\"SubEnd\"/>",
+            "    </bpmn:subProcess>",
+            "    <bpmn:userTask id=\"Loop1\"/>",
+            "    <bpmn:userTask id=\"Loop2\"/>",
+            "    <bpmn:userTask id=\"Stuck\"/>",
+            "    <bpmn:userTask id=\"Orphan\"/>",
+            "    <bpmn:endEvent id=\"End\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_1\" sourceRef=\"Start\" targetRef=\"Decision\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_Ok\" sourceRef=\"Decision\" targetRef=\"Approve\">",
+            "      <bpmn:conditionExpression>${ok}</bpmn:conditionExpression>",
+            "    </bpmn:sequenceFlow>",
+            "    <bpmn:sequenceFlow id=\"Flow_Stuck\" sourceRef=\"Decision\" targetRef=\"Stuck\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_Loop\" sourceRef=\"Decision\" targetRef=\"Loop1\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_2\" sourceRef=\"Approve\" targetRef=\"Sub\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_3\" sourceRef=\"Sub\" targetRef=\"End\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_4\" sourceRef=\"Timeout\" targetRef=\"End\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_L1\" sourceRef=\"Loop1\" targetRef=\"Loop2\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_L2\" sourceRef=\"Loop2\" targetRef=\"Loop1\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_5\" sourceRef=\"Orphan\" targetRef=\"End\"/>",
+            "  </bpmn:process>",
+            "</bpmn:definitions>");
+
+    static BpmnModelInstance parse(String xml) {
+        return Bpmn.readModelFromStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testCompiledAdjacency() {
+        // When
+        BpmnGraph graph = BpmnGraph.compile(parse(MODEL));
+
+        // Then
+        int decision = graph.indexOf("Decision");
+        assertEquals(NodeKind.EXCLUSIVE_GATEWAY, graph.kind(decision));
+        assertEquals("exclusiveGateway", graph.nodeType(decision));
+        assertEquals(1, graph.fanIn(decision));
+        assertEquals(3, graph.fanOut(decision));
+        assertEquals(List.of("Approve", "Loop1", "Stuck"), targets(graph, decision));
+
+        int flowOk = graph.outEdge(graph.outStart(decision));
+        for (int p = graph.outStart(decision); p < graph.outEnd(decision); p++) {
+            int edge = graph.outEdge(p);
+            assertEquals("Flow_Loop".equals(graph.flowId(edge)), graph.isDefaultFlow(edge));
+            if ("Flow_Ok".equals(graph.flowId(edge))) {
+                flowOk = edge;
+            }
+        }
+        assertEquals("${ok}", graph.condition(flowOk));
+
+        // Arcs implicites : bordure attachée à son activité, sous-processus vers son début
+        assertEquals(List.of("Sub", "Timeout"), targets(graph, graph.indexOf("Approve")));
+        assertEquals(graph.indexOf("Sub"), graph.parent(graph.indexOf("SubTask")));
+        assertEquals(1, graph.fanOut(graph.indexOf("Approve")));
+        assertEquals(-1, graph.indexOf("Unknown"));
+    }
+
+    @Test
+    void testAnalyses() {
+        // When
+        BpmnGraph graph = BpmnGraph.compile(parse(MODEL));
+
+        // Then
+        assertEquals(List.of("Start"), names(graph, graph.roots()));
+
+        BitSet reachable = graph.reachable();
+        assertFalse(reachable.get(graph.indexOf("Orphan")));
+        assertTrue(reachable.get(graph.indexOf("SubTask")));
+        assertTrue(reachable.get(graph.indexOf("Timeout")));
+
+        assertEquals(List.of("Stuck"), names(graph, graph.deadEnds()));
+
+        List<int[]> cycles = graph.cyclesWithoutExit();
+        assertEquals(1, cycles.size());
+        List<String> cycle = new ArrayList<>();
+        for (int node : cycles.get(0)) {
+            cycle.add(graph.nodeId(node));
+        }
+        assertEquals(List.of("Loop1", "Loop2"), cycle);
+
+        BitSet canTerminate = graph.canTerminate();
+        assertTrue(canTerminate.get(graph.indexOf("Start")));
+        assertFalse(canTerminate.get(graph.indexOf("Loop1")));
+    }
+
+    @Test
+    void testCycleWithExitIsAccepted() {
+        // Given: boucle de reprise qui peut sortir vers la fin
+        BpmnModelInstance model = Bpmn.createExecutableProcess("Retry")
+                .startEvent("Start")
+                .userTask("Work")
+                .exclusiveGateway("Check")
+                .condition("done", "${done}").endEvent("End")
+                .moveToLastGateway()
+                .condition("retry", "${!done}").connectTo("Work")
+                .done();
+
+        // When
+        BpmnGraph graph = BpmnGraph.compile(model);
+
+        // Then
+        assertTrue(graph.cyclesWithoutExit().isEmpty());
+        assertTrue(graph.deadEnds().isEmpty());
+        assertEquals(graph.nodeCount(), graph.reachable().cardinality());
+    }
+
+    private static List<String> targets(BpmnGraph graph, int node) {
+        List<String> targets = new ArrayList<>();
+        for (int p = graph.outStart(node); p < graph.outEnd(node); p++) {
+            targets.add(graph.nodeId(graph.edgeTarget(graph.outEdge(p))));
+        }
+        targets.sort(null);
+        return targets;
+    }
+
+    private static List<String> names(BpmnGraph graph, BitSet nodes) {
+        List<String> names = new ArrayList<>();
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            names.add(graph.nodeId(node));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.workflow.config;
+
+import com.safalifter.delegatemetrics.DelegateExecutionMetricsConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Times every JavaDelegate invocation of the engine (UserTaskDelegate, NotificationTaskDelegate and any
+ * delegate referenced by class or expression) with the shared delegate-metrics module.
+ */
+@Configuration
+@Import(DelegateExecutionMetricsConfiguration.class)
+public class DelegateMetricsConfig {
+}
@@ -1,6 +1,8 @@
 package com.example.workflow.controller;
 
 import com.example.workflow.exception.ProcessNotFoundException;
+import com.safalifter.delegatemetrics.ActivityExecutionStatsDTO;
+import com.safalifter.delegatemetrics.DelegateExecutionMetrics;
 import com.example.workflow.service.ProcessService;
 import com.example.workflow.dto.ProcessDefinitionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +28,9 @@ public class ProcessController {
     @Autowired
     private ProcessService processService;
 
+    @Autowired
+    private DelegateExecutionMetrics delegateExecutionMetrics;
+
     @GetMapping("/start-process")
     public ResponseEntity<String> startProcess(@RequestParam String processKey) {
         try {
@@ -90,6 +95,20 @@ public class ProcessController {
         }
     }
 
+    /**
+     * Returns the slowest activities since startup (service tasks running a JavaDelegate)
+     *
+     * @param limit  Maximum number of activities returned
+     * @param sortBy p95, p99, mean, max, total or errorRate
+     * @return The activities with their execution statistics
+     */
+    @GetMapping("/activities/slowest")
+    public ResponseEntity<List<ActivityExecutionStatsDTO>> getSlowestActivities(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "p95") String sortBy) {
+        return ResponseEntity.ok(delegateExecutionMetrics.slowestActivities(limit, sortBy));
+    }
+
     @ExceptionHandler(ProcessNotFoundException.class)
     public ResponseEntity<String> handleProcessNotFoundException(ProcessNotFoundException e) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
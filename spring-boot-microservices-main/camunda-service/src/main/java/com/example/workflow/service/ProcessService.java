@@ -3,17 +3,14 @@ package com.example.workflow.service;
 import com.example.workflow.exception.CustomException;
 import com.example.workflow.exception.ProcessNotFoundException;
 import com.example.workflow.dto.ProcessDefinitionDTO;
+import com.safalifter.bpmngraph.BpmnGraph;
 
 import org.camunda.bpm.engine.ParseException;
 import org.camunda.bpm.engine.RepositoryService;
 import org.camunda.bpm.engine.repository.Deployment;
 import org.camunda.bpm.model.bpmn.Bpmn;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
-import org.camunda.bpm.model.bpmn.instance.BusinessRuleTask;
-import org.camunda.bpm.model.bpmn.instance.FlowNode;
 import org.camunda.bpm.model.bpmn.instance.Gateway;
-import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
-import org.camunda.bpm.model.bpmn.instance.UserTask;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -31,7 +28,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.UUID;
-import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -78,27 +74,25 @@ public class ProcessService {
             throw new IllegalArgumentException("Invalid BPMN content");
         }
 
-        // Check for gateways with up to two incoming flows not related to user tasks
-        Collection<Gateway> gateways = modelInstance.getModelElementsByType(Gateway.class);
-        for (Gateway gatewayElement : gateways) {
-            Gateway gateway = (Gateway) gatewayElement;
-            Collection<SequenceFlow> incomingFlows = gateway.getIncoming();
-            
-            // Check gateways with up to two incoming flows
-            if (incomingFlows.size() < 2) {
-                boolean hasNonUserTaskSource = false;
-                
-                for (SequenceFlow flow : incomingFlows) {
-                    FlowNode source = flow.getSource();
-                    // Check if the source is not a UserTask
-                    if (!(source instanceof UserTask) && !(source instanceof BusinessRuleTask) && !(source instanceof Gateway)) {
-                        hasNonUserTaskSource = true;
-                        break;
-                    }
+        // Check for gateways with up to two incoming flows not related to user tasks.
+        // Gateways are checked in model order (the first invalid one is reported); the compiled graph
+        // gives their fan-in and source kinds.
+        BpmnGraph graph = BpmnGraph.compile(modelInstance);
+        for (Gateway gatewayElement : modelInstance.getModelElementsByType(Gateway.class)) {
+            int gateway = graph.indexOf(gatewayElement.getId());
+            if (gateway < 0 || graph.fanIn(gateway) >= 2) {
+                continue;
+            }
+            for (int p = graph.inStart(gateway); p < graph.inEnd(gateway); p++) {
+                int edge = graph.inEdge(p);
+                if (graph.edgeKind(edge) != BpmnGraph.EDGE_FLOW) {
+                    continue;
                 }
-                
-                if (hasNonUserTaskSource) {
-                    String gatewayName = gateway.getName() != null ? gateway.getName() : gateway.getId();
+                BpmnGraph.NodeKind source = graph.kind(graph.edgeSource(edge));
+                // Check if the source is not a UserTask
+                if (source != BpmnGraph.NodeKind.USER_TASK && source != BpmnGraph.NodeKind.BUSINESS_RULE_TASK
+                        && !source.isGateway()) {
+                    String gatewayName = graph.nodeName(gateway) != null ? graph.nodeName(gateway) : graph.nodeId(gateway);
                     throw new IllegalArgumentException("Invalid workflow configuration: Gateway " + gatewayName + " has incoming flows not valid, this is not allowed because the gateway need to get variable to make a decision , please check the workflow configuration or you can use autofix method to fix this configuration");
                 }
             }
@@ -0,0 +1,178 @@
+package com.example.workflow.config;
+
+import com.example.workflow.controller.ProcessController;
+import com.example.workflow.exception.GlobalExceptionHandler;
+import com.safalifter.delegatemetrics.ActivityExecutionStatsDTO;
+import com.safalifter.delegatemetrics.DelegateExecutionMetrics;
+import com.safalifter.delegatemetrics.DelegateExecutionMetricsPlugin;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.ProcessEngineConfiguration;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class DelegateMetricsConfigTest {
+
+    @Test
+    void testEngineInvocationsAreRecordedPerActivityAndDelegate() {
+        // Given: the service's metrics configuration and an in-memory engine running its plugin
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DelegateExecutionMetrics metrics;
+        ProcessEngine engine;
+        try (AnnotationConfigApplicationContext context = context(registry, Map.of("bpmn.delegate.metrics.max-series", 10))) {
+            metrics = context.getBean(DelegateExecutionMetrics.class);
+            engine = engine(context.getBean(DelegateExecutionMetricsPlugin.class));
+        }
+        try {
+            engine.getRepositoryService().createDeployment()
+                    .addModelInstance("loan.bpmn", Bpmn.createExecutableProcess("loan")
+                            .startEvent()
+                            .serviceTask("scoreTask").camundaClass(ScoringDelegate.class.getName())
+                            .endEvent()
+                            .done())
+                    .deploy();
+            RuntimeService runtimeService = engine.getRuntimeService();
+
+            // When: two successful executions, one failing
+            runtimeService.startProcessInstanceByKey("loan", Variables.createVariables()
+                    .putValue("amount", 500L).putValue("customer", "ACME"));
+            runtimeService.startProcessInstanceByKey("loan", Variables.createVariables()
+                    .putValue("amount", 500L).putValue("customer", "ACME"));
+            assertThrows(IllegalStateException.class, () -> runtimeService.startProcessInstanceByKey("loan",
+                    Variables.createVariables().putValue("customer", "ACME")));
+        } finally {
+            engine.close();
+        }
+
+        // Then
+        String delegateClass = ScoringDelegate.class.getName();
+        assertEquals(2, timer(registry, "loan", "scoreTask", delegateClass, "success").count());
+        assertEquals(1, timer(registry, "loan", "scoreTask", delegateClass, "error").count());
+        assertEquals(0.0, registry.get("bpmn.delegate.in.flight").tag("process", "loan").tag("activity", "scoreTask")
+                .tag("delegate", delegateClass).gauge().value());
+        // Variable sizes are not measured by default
+        assertTrue(registry.find("bpmn.delegate.payload").summaries().isEmpty());
+
+        ActivityExecutionStatsDTO stats = metrics.slowestActivities(10, "p95").get(0);
+        assertEquals(3, stats.getExecutions());
+        assertEquals(1, stats.getErrors());
+        assertEquals(0.3333, stats.getErrorRate());
+    }
+
+    @Test
+    void testDisabledMetricsLeaveEngineUntouched() {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ProcessEngine engine;
+        try (AnnotationConfigApplicationContext context = context(registry, Map.of("bpmn.delegate.metrics.enabled", false))) {
+            engine = engine(context.getBean(DelegateExecutionMetricsPlugin.class));
+        }
+        try {
+            engine.getRepositoryService().createDeployment()
+                    .addModelInstance("loan.bpmn", Bpmn.createExecutableProcess("loan")
+                            .startEvent()
+                            .serviceTask("scoreTask").camundaClass(ScoringDelegate.class.getName())
+                            .endEvent()
+                            .done())
+                    .deploy();
+
+            // When
+            engine.getRuntimeService().startProcessInstanceByKey("loan", Map.of("amount", 500L));
+        } finally {
+            engine.close();
+        }
+
+        // Then
+        assertTrue(registry.find("bpmn.delegate.execution").timers().isEmpty());
+    }
+
+    @Test
+    void testSlowestActivitiesEndpoint() throws Exception {
+        // Given: "review" has a few very slow executions, "notify" always takes 20 ms and fails one time in ten
+        DelegateExecutionMetrics metrics = new DelegateExecutionMetrics(new SimpleMeterRegistry(), true, false, 500);
+        for (int i = 0; i < 100; i++) {
+            long reviewNanos = TimeUnit.MILLISECONDS.toNanos(i < 90 ? 2 : 3_000);
+            metrics.end(metrics.begin("claims", "review", "com.example.Review"), reviewNanos, true, -1);
+            metrics.end(metrics.begin("claims", "notify", "com.example.Notify"), TimeUnit.MILLISECONDS.toNanos(20),
+                    i % 10 != 0, -1);
+        }
+        ProcessController controller = new ProcessController();
+        ReflectionTestUtils.setField(controller, "delegateExecutionMetrics", metrics);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        // When / Then
+        mockMvc.perform(get("/activities/slowest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].processDefinitionKey").value("claims"))
+                .andExpect(jsonPath("$[0].activityId").value("review"))
+                .andExpect(jsonPath("$[0].delegateClass").value("com.example.Review"))
+                .andExpect(jsonPath("$[0].p95Ms").value(3_000.0))
+                .andExpect(jsonPath("$[1].activityId").value("notify"));
+        mockMvc.perform(get("/activities/slowest").param("limit", "1").param("sortBy", "errorRate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].activityId").value("notify"))
+                .andExpect(jsonPath("$[0].errors").value(10));
+        mockMvc.perform(get("/activities/slowest").param("sortBy", "median"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/activities/slowest").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * DelegateMetricsConfig with the given bpmn.delegate.metrics.* properties
+     */
+    private static AnnotationConfigApplicationContext context(MeterRegistry registry, Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        context.registerBean(MeterRegistry.class, () -> registry);
+        context.register(DelegateMetricsConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    private static ProcessEngine engine(DelegateExecutionMetricsPlugin plugin) {
+        StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+        configuration.setJdbcUrl("jdbc:h2:mem:delegate-metrics;DB_CLOSE_DELAY=-1");
+        configuration.setHistory(ProcessEngineConfiguration.HISTORY_NONE);
+        configuration.getProcessEnginePlugins().add(plugin);
+        return configuration.buildProcessEngine();
+    }
+
+    private static Timer timer(MeterRegistry registry, String process, String activity, String delegate, String outcome) {
+        return registry.get("bpmn.delegate.execution").tag("process", process).tag("activity", activity)
+                .tag("delegate", delegate).tag("outcome", outcome).timer();
+    }
+
+    public static class ScoringDelegate implements JavaDelegate {
+        @Override
+        public void execute(DelegateExecution execution) {
+            if (execution.getVariable("amount") == null) {
+                throw new IllegalStateException("amount is missing");
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.workflow.service;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.BusinessRuleTask;
+import org.camunda.bpm.model.bpmn.instance.FlowNode;
+import org.camunda.bpm.model.bpmn.instance.Gateway;
+import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
+import org.camunda.bpm.model.bpmn.instance.UserTask;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessServiceTest {
+
+    // Repository root (tests run from the module directory)
+    private static final Path REPOSITORY_ROOT = Paths.get("").toAbsolutePath().getParent().getParent();
+    private static final Set<String> EXCLUDED_DIRECTORIES = Set.of(".git", "node_modules", "target", "test");
+
+    private final ProcessService processService = new ProcessService();
+
+    @Test
+    void testSampleWorkflowsAreValidatedAsBefore() throws IOException {
+        // Given
+        List<Path> samples = sampleWorkflows();
+        assertFalse(samples.isEmpty(), "No sample workflow found in " + REPOSITORY_ROOT);
+
+        for (Path sample : samples) {
+            String content = Files.readString(sample);
+
+            // When / Then
+            assertEquals(legacyValidation(content), validation(content), sample.toString());
+        }
+    }
+
+    @Test
+    void testGatewayFedByServiceTaskIsRejected() {
+        // Given
+        String content = model(
+                "<bpmn:serviceTask id=\"Score\"><bpmn:outgoing>F1</bpmn:outgoing></bpmn:serviceTask>",
+                "<bpmn:exclusiveGateway id=\"Decide\" name=\"Decide\"><bpmn:incoming>F1</bpmn:incoming></bpmn:exclusiveGateway>",
+                "<bpmn:sequenceFlow id=\"F1\" sourceRef=\"Score\" targetRef=\"Decide\"/>");
+
+        // When
+        String error = validation(content);
+
+        // Then
+        assertEquals(legacyValidation(content), error);
+        assertTrue(error.startsWith("Invalid workflow configuration: Gateway Decide has incoming flows not valid"));
+    }
+
+    @Test
+    void testGatewaysFedByTasksOrGatewaysOrSeveralFlowsAreAccepted() {
+        // Given
+        String content = model(
+                "<bpmn:userTask id=\"Review\"><bpmn:outgoing>F1</bpmn:outgoing></bpmn:userTask>",
+                "<bpmn:businessRuleTask id=\"Rate\"><bpmn:outgoing>F2</bpmn:outgoing></bpmn:businessRuleTask>",
+                "<bpmn:serviceTask id=\"Score\"><bpmn:outgoing>F3</bpmn:outgoing></bpmn:serviceTask>",
+                "<bpmn:exclusiveGateway id=\"G1\"><bpmn:incoming>F1</bpmn:incoming><bpmn:outgoing>F4</bpmn:outgoing></bpmn:exclusiveGateway>",
+                "<bpmn:parallelGateway id=\"G2\"><bpmn:incoming>F4</bpmn:incoming></bpmn:parallelGateway>",
+                "<bpmn:inclusiveGateway id=\"G3\"><bpmn:incoming>F2</bpmn:incoming><bpmn:incoming>F3</bpmn:incoming></bpmn:inclusiveGateway>",
+                "<bpmn:sequenceFlow id=\"F1\" sourceRef=\"Review\" targetRef=\"G1\"/>",
+                "<bpmn:sequenceFlow id=\"F2\" sourceRef=\"Rate\" targetRef=\"G3\"/>",
+                "<bpmn:sequenceFlow id=\"F3\" sourceRef=\"Score\" targetRef=\"G3\"/>",
+                "<bpmn:sequenceFlow id=\"F4\" sourceRef=\"G1\" targetRef=\"G2\"/>");
+
+        // When / Then
+        assertNull(legacyValidation(content));
+        assertNull(validation(content));
+    }
+
+    @Test
+    void testFirstInvalidGatewayIsReportedInModelOrder() {
+        // Given: an exclusive gateway declared before a parallel one, both invalid
+        String content = model(
+                "<bpmn:startEvent id=\"Start\"><bpmn:outgoing>F1</bpmn:outgoing><bpmn:outgoing>F2</bpmn:outgoing></bpmn:startEvent>",
+                "<bpmn:exclusiveGateway id=\"Exclusive\"><bpmn:incoming>F1</bpmn:incoming></bpmn:exclusiveGateway>",
+                "<bpmn:parallelGateway id=\"Parallel\"><bpmn:incoming>F2</bpmn:incoming></bpmn:parallelGateway>",
+                "<bpmn:sequenceFlow id=\"F1\" sourceRef=\"Start\" targetRef=\"Exclusive\"/>",
+                "<bpmn:sequenceFlow id=\"F2\" sourceRef=\"Start\" targetRef=\"Parallel\"/>");
+
+        // When / Then
+        String error = validation(content);
+        assertNotNull(error);
+        assertEquals(legacyValidation(content), error);
+    }
+
+    /**
+     * Error message of the validation, or null when the workflow is accepted
+     */
+    private String validation(String content) {
+        try {
+            ReflectionTestUtils.invokeMethod(processService, "validateWorkflowConfiguration", content);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Gateway check as it was written against the model API, kept as reference
+     */
+    private static String legacyValidation(String content) {
+        BpmnModelInstance modelInstance = Bpmn
+                .readModelFromStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        for (Gateway gateway : modelInstance.getModelElementsByType(Gateway.class)) {
+            if (gateway.getIncoming().size() < 2) {
+                for (SequenceFlow flow : gateway.getIncoming()) {
+                    FlowNode source = flow.getSource();
+                    if (!(source instanceof UserTask) && !(source instanceof BusinessRuleTask) && !(source instanceof Gateway)) {
+                        String gatewayName = gateway.getName() != null ? gateway.getName() : gateway.getId();
+                        return "Invalid workflow configuration: Gateway " + gatewayName + " has incoming flows not valid, this is not allowed because the gateway need to get variable to make a decision , please check the workflow configuration or you can use autofix method to fix this configuration";
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String model(String... elements) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" id=\"Definitions_1\""
+                + " targetNamespace=\"http://bpmn.io/schema/bpmn\">\n"
+                + "  <bpmn:process id=\"Process_1\" isExecutable=\"true\">\n    "
+                + String.join("\n    ", elements)
+                + "\n  </bpmn:process>\n</bpmn:definitions>\n";
+    }
+
+    /**
+     * BPMN files versioned in the repository, outside test resources and build directories
+     */
+    private static List<Path> sampleWorkflows() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(REPOSITORY_ROOT, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return EXCLUDED_DIRECTORIES.contains(dir.getFileName().toString())
+                        ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.getFileName().toString().endsWith(".bpmn")) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }
+}
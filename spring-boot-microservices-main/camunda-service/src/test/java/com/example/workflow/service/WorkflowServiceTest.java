@@ -0,0 +1,73 @@
+package com.example.workflow.service;
+
+import com.example.workflow.model.Workflow;
+import com.example.workflow.repository.WorkflowRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WorkflowServiceTest {
+
+    // Sample workflow versioned at the repository root (tests run from the module directory)
+    static final Path SAMPLE_WORKFLOW = Paths.get("../../fundRequestWFProcess.bpmn");
+
+    @Mock
+    private WorkflowRepository workflowRepository;
+
+    @InjectMocks
+    private WorkflowService workflowService;
+
+    @Test
+    void testWorkflowTasksMatchRecordedOutput() throws Exception {
+        // Given
+        when(workflowRepository.findById("wf-1")).thenReturn(Optional.of(workflow(Files.readString(SAMPLE_WORKFLOW))));
+        Map<String, List<Map<String, Object>>> expected;
+        try (InputStream json = getClass().getResourceAsStream("/workflows/fundRequestWFProcess-tasks.json")) {
+            expected = new ObjectMapper().readValue(json, new TypeReference<>() {});
+        }
+
+        // When
+        Map<String, List<Map<String, Object>>> result = workflowService.getWorkflowTasksById("wf-1");
+
+        // Then: same tasks and gateways, in the same order (by element type, then model order), with their flows
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void testWorkflowTasksAreNotSharedBetweenCalls() throws Exception {
+        // Given
+        when(workflowRepository.findById("wf-1")).thenReturn(Optional.of(workflow(Files.readString(SAMPLE_WORKFLOW))));
+
+        // When: a caller modifies its result
+        Map<String, List<Map<String, Object>>> first = workflowService.getWorkflowTasksById("wf-1");
+        first.get("tasks").clear();
+
+        // Then
+        assertFalse(workflowService.getWorkflowTasksById("wf-1").get("tasks").isEmpty());
+    }
+
+    private static Workflow workflow(String content) {
+        Workflow workflow = new Workflow();
+        workflow.setId("wf-1");
+        workflow.setTitle("Fund request");
+        workflow.setWorkflowContent(content);
+        workflow.setReadyToDeploy(false);
+        return workflow;
+    }
+}
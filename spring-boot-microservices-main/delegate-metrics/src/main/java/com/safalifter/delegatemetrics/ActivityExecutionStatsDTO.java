@@ -0,0 +1,29 @@
+package com.safalifter.delegatemetrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityExecutionStatsDTO {
+    private String processDefinitionKey;
+    private String activityId;
+    private String delegateClass;
+    private long executions;
+    private long errors;
+    private double errorRate;
+    private int inFlight;
+    // Latences depuis le démarrage (millisecondes) ; les percentiles sont les bornes des intervalles de l'histogramme
+    private double meanMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+    private double totalMs;
+    // Taille estimée des variables visibles par l'activité après l'exécution du delegate
+    private long meanPayloadBytes;
+}
@@ -0,0 +1,16 @@
+package com.safalifter.delegatemetrics;
+
+/**
+ * Classe à attribuer au delegate appelé par le moteur, lorsque l'objet invoqué n'est qu'un intermédiaire
+ * (par exemple le bean d'un registre qui exécute une classe compilée à chaud).
+ */
+@FunctionalInterface
+public interface DelegateClassResolver {
+
+    DelegateClassResolver NONE = delegate -> null;
+
+    /**
+     * Nom de la classe à étiqueter, ou null pour utiliser la classe de l'objet invoqué
+     */
+    String delegateClass(Object delegate);
+}
@@ -0,0 +1,292 @@
+package com.safalifter.delegatemetrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Métriques Micrometer des exécutions de JavaDelegates par le moteur, exposées sur /actuator/prometheus,
+ * par clé de processus, activité et classe du delegate :
+ * <ul>
+ *     <li>bpmn.delegate.execution : durée des exécutions (histogramme), par résultat (success/error)</li>
+ *     <li>bpmn.delegate.in.flight : exécutions en cours</li>
+ *     <li>bpmn.delegate.payload : taille estimée des variables visibles par l'activité après l'exécution, si
+ *     payload-size est activé (lecture des variables de toutes les portées à chaque exécution)</li>
+ * </ul>
+ * Le nombre de séries est borné : au-delà de max-series combinaisons (processus, activité, delegate), les
+ * suivantes sont regroupées sous l'étiquette "other". La version du processus n'est pas une étiquette.
+ *
+ * Les mêmes mesures sont cumulées depuis le démarrage pour le classement des activités les plus lentes.
+ * Déclarée par {@link DelegateExecutionMetricsConfiguration}.
+ */
+@Slf4j
+public class DelegateExecutionMetrics {
+
+    public static final String OTHER = "other";
+
+    public static final List<String> SORT_KEYS = List.of("p95", "p99", "mean", "max", "total", "errorRate");
+
+    private static final Duration[] LATENCY_BUCKETS = {
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5),
+            Duration.ofSeconds(10), Duration.ofSeconds(30)
+    };
+
+    private static final double[] PAYLOAD_BUCKETS = {1024, 10 * 1024, 100 * 1024, 1024 * 1024, 10 * 1024 * 1024};
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean payloadSize;
+    private final int maxSeries;
+
+    private final Map<List<String>, ActivitySeries> series = new ConcurrentHashMap<>();
+    private boolean overflowLogged;
+
+    public DelegateExecutionMetrics(MeterRegistry meterRegistry, boolean enabled, boolean payloadSize, int maxSeries) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.payloadSize = payloadSize;
+        this.maxSeries = Math.max(1, maxSeries);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isPayloadSize() {
+        return payloadSize;
+    }
+
+    /**
+     * Début d'une exécution : compte l'exécution en cours et renvoie la série à passer à {@link #end}
+     */
+    public ActivitySeries begin(String processDefinitionKey, String activityId, String delegateClass) {
+        ActivitySeries activity = seriesFor(List.of(orOther(processDefinitionKey), orOther(activityId), orOther(delegateClass)));
+        activity.inFlight.incrementAndGet();
+        return activity;
+    }
+
+    /**
+     * Fin d'une exécution
+     * @param payloadBytes taille estimée des variables, négative si elle n'a pas été mesurée
+     */
+    public void end(ActivitySeries activity, long durationNanos, boolean success, long payloadBytes) {
+        activity.inFlight.decrementAndGet();
+        activity.timer(success).record(durationNanos, TimeUnit.NANOSECONDS);
+        activity.record(durationNanos, success);
+        if (payloadBytes >= 0) {
+            activity.payload().record(payloadBytes);
+            activity.payloadBytes.add(payloadBytes);
+            activity.payloadSamples.increment();
+        }
+    }
+
+    /**
+     * Activités les plus lentes depuis le démarrage
+     * @param sortBy p95, p99, mean, max, total ou errorRate
+     */
+    public List<ActivityExecutionStatsDTO> slowestActivities(int limit, String sortBy) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit doit être positif");
+        }
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new IllegalArgumentException("Tri inconnu: " + sortBy + " (valeurs possibles: " + SORT_KEYS + ")");
+        }
+        return series.values().stream()
+                .map(ActivitySeries::toStats)
+                .filter(stats -> stats.getExecutions() > 0 || stats.getInFlight() > 0)
+                .sorted(comparator(sortBy).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static Comparator<ActivityExecutionStatsDTO> comparator(String sortBy) {
+        switch (sortBy) {
+            case "p99":
+                return Comparator.comparingDouble(ActivityExecutionStatsDTO::getP99Ms);
+            case "mean":
+                return Comparator.comparingDouble(ActivityExecutionStatsDTO::getMeanMs);
+            case "max":
+                return Comparator.comparingDouble(ActivityExecutionStatsDTO::getMaxMs);
+            case "total":
+                return Comparator.comparingDouble(ActivityExecutionStatsDTO::getTotalMs);
+            case "errorRate":
+                return Comparator.comparingDouble(ActivityExecutionStatsDTO::getErrorRate)
+                        .thenComparingLong(ActivityExecutionStatsDTO::getErrors);
+            default:
+                return Comparator.comparingDouble(ActivityExecutionStatsDTO::getP95Ms)
+                        .thenComparingDouble(ActivityExecutionStatsDTO::getMeanMs);
+        }
+    }
+
+    private ActivitySeries seriesFor(List<String> key) {
+        ActivitySeries activity = series.get(key);
+        if (activity != null) {
+            return activity;
+        }
+        synchronized (series) {
+            activity = series.get(key);
+            if (activity != null) {
+                return activity;
+            }
+            if (series.size() < maxSeries) {
+                return series.computeIfAbsent(key, ActivitySeries::new);
+            }
+            if (!overflowLogged) {
+                overflowLogged = true;
+                log.warn("Plus de {} activités mesurées, les suivantes sont regroupées sous l'étiquette '{}'",
+                        maxSeries, OTHER);
+            }
+            // La série "other" peut dépasser la limite d'une unité
+            return series.computeIfAbsent(List.of(OTHER, OTHER, OTHER), ActivitySeries::new);
+        }
+    }
+
+    private static String orOther(String value) {
+        return value != null && !value.isEmpty() ? value : OTHER;
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Compteurs, chronomètres et cumuls d'une combinaison (processus, activité, delegate), créés à la première exécution
+     */
+    public final class ActivitySeries {
+
+        private final String processDefinitionKey;
+        private final String activityId;
+        private final String delegateClass;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile Timer successTimer;
+        private volatile Timer errorTimer;
+        private volatile DistributionSummary payload;
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        // Une case par intervalle de LATENCY_BUCKETS, plus une pour les durées au-delà
+        private final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS.length + 1];
+        private final LongAdder payloadBytes = new LongAdder();
+        private final LongAdder payloadSamples = new LongAdder();
+
+        private ActivitySeries(List<String> key) {
+            this.processDefinitionKey = key.get(0);
+            this.activityId = key.get(1);
+            this.delegateClass = key.get(2);
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            Gauge.builder("bpmn.delegate.in.flight", inFlight, AtomicInteger::get)
+                    .description("Exécutions de JavaDelegates en cours")
+                    .tag("process", processDefinitionKey)
+                    .tag("activity", activityId)
+                    .tag("delegate", delegateClass)
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(boolean success) {
+            Timer timer = success ? successTimer : errorTimer;
+            if (timer != null) {
+                return timer;
+            }
+            timer = Timer.builder("bpmn.delegate.execution")
+                    .description("Durée des exécutions de JavaDelegates par le moteur")
+                    .tag("process", processDefinitionKey)
+                    .tag("activity", activityId)
+                    .tag("delegate", delegateClass)
+                    .tag("outcome", success ? "success" : "error")
+                    .serviceLevelObjectives(LATENCY_BUCKETS)
+                    .register(meterRegistry);
+            if (success) {
+                successTimer = timer;
+            } else {
+                errorTimer = timer;
+            }
+            return timer;
+        }
+
+        private DistributionSummary payload() {
+            if (payload == null) {
+                payload = DistributionSummary.builder("bpmn.delegate.payload")
+                        .description("Taille estimée des variables visibles par l'activité après l'exécution du delegate")
+                        .baseUnit("bytes")
+                        .tag("process", processDefinitionKey)
+                        .tag("activity", activityId)
+                        .tag("delegate", delegateClass)
+                        .serviceLevelObjectives(PAYLOAD_BUCKETS)
+                        .register(meterRegistry);
+            }
+            return payload;
+        }
+
+        private void record(long durationNanos, boolean success) {
+            executions.increment();
+            if (!success) {
+                errors.increment();
+            }
+            totalNanos.add(durationNanos);
+            maxNanos.accumulate(durationNanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && durationNanos > LATENCY_BUCKETS[bucket].toNanos()) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        /**
+         * Borne supérieure de l'intervalle contenant le percentile (durée maximale au-delà du dernier intervalle)
+         */
+        private double percentileNanos(double percentile, long count, long max) {
+            long rank = (long) Math.ceil(percentile * count);
+            long cumulated = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                cumulated += buckets[i].sum();
+                if (cumulated >= rank) {
+                    return Math.min(LATENCY_BUCKETS[i].toNanos(), max);
+                }
+            }
+            return max;
+        }
+
+        private ActivityExecutionStatsDTO toStats() {
+            long count = executions.sum();
+            long errorCount = errors.sum();
+            long total = totalNanos.sum();
+            long max = maxNanos.get();
+            long samples = payloadSamples.sum();
+            return ActivityExecutionStatsDTO.builder()
+                    .processDefinitionKey(processDefinitionKey)
+                    .activityId(activityId)
+                    .delegateClass(delegateClass)
+                    .executions(count)
+                    .errors(errorCount)
+                    .errorRate(count > 0 ? Math.round(errorCount * 10_000.0 / count) / 10_000.0 : 0)
+                    .inFlight(inFlight.get())
+                    .meanMs(count > 0 ? millis((double) total / count) : 0)
+                    .p50Ms(count > 0 ? millis(percentileNanos(0.50, count, max)) : 0)
+                    .p95Ms(count > 0 ? millis(percentileNanos(0.95, count, max)) : 0)
+                    .p99Ms(count > 0 ? millis(percentileNanos(0.99, count, max)) : 0)
+                    .maxMs(millis(max))
+                    .totalMs(millis(total))
+                    .meanPayloadBytes(samples > 0 ? payloadBytes.sum() / samples : 0)
+                    .build();
+        }
+    }
+}
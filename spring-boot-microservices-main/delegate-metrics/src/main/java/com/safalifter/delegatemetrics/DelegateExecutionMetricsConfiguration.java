@@ -0,0 +1,33 @@
+package com.safalifter.delegatemetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Déclaration commune aux services (à importer par {@code @Import}) : métriques et plugin du moteur, configurés
+ * par les propriétés bpmn.delegate.metrics.*. Un service peut déclarer un bean {@link DelegateClassResolver}
+ * pour étiqueter les delegates exécutés par un intermédiaire.
+ */
+@Configuration(proxyBeanMethods = false)
+public class DelegateExecutionMetricsConfiguration {
+
+    @Bean
+    public DelegateExecutionMetrics delegateExecutionMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${bpmn.delegate.metrics.enabled:true}") boolean enabled,
+            @Value("${bpmn.delegate.metrics.payload-size:false}") boolean payloadSize,
+            @Value("${bpmn.delegate.metrics.max-series:500}") int maxSeries) {
+        return new DelegateExecutionMetrics(meterRegistry, enabled, payloadSize, maxSeries);
+    }
+
+    @Bean
+    public DelegateExecutionMetricsPlugin delegateExecutionMetricsPlugin(
+            DelegateExecutionMetrics delegateExecutionMetrics,
+            ObjectProvider<DelegateClassResolver> delegateClassResolver) {
+        return new DelegateExecutionMetricsPlugin(delegateExecutionMetrics,
+                delegateClassResolver.getIfAvailable(() -> DelegateClassResolver.NONE));
+    }
+}
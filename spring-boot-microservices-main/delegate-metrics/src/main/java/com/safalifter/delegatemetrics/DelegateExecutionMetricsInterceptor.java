@@ -0,0 +1,143 @@
+package com.safalifter.delegatemetrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.bpmn.delegate.JavaDelegateInvocation;
+import org.camunda.bpm.engine.impl.delegate.DelegateInvocation;
+import org.camunda.bpm.engine.impl.interceptor.DelegateInterceptor;
+import org.camunda.bpm.engine.impl.persistence.entity.ExecutionEntity;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.value.SerializableValue;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+
+/**
+ * Intercepteur des invocations du moteur Camunda : chronomètre chaque exécution de JavaDelegate (camunda:class,
+ * camunda:delegateExpression, delegates compilés) et délègue toutes les invocations à l'intercepteur d'origine.
+ */
+@Slf4j
+public class DelegateExecutionMetricsInterceptor implements DelegateInterceptor {
+
+    // Le moteur n'expose pas l'instance appelée par une JavaDelegateInvocation
+    private static final Field DELEGATE_INSTANCE = delegateInstanceField();
+
+    private final DelegateInterceptor delegate;
+    private final DelegateExecutionMetrics metrics;
+    private final DelegateClassResolver delegateClassResolver;
+
+    public DelegateExecutionMetricsInterceptor(DelegateInterceptor delegate, DelegateExecutionMetrics metrics,
+                                               DelegateClassResolver delegateClassResolver) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.delegateClassResolver = delegateClassResolver;
+    }
+
+    @Override
+    public void handleInvocation(DelegateInvocation invocation) throws Exception {
+        if (!(invocation instanceof JavaDelegateInvocation)
+                || !(invocation.getContextExecution() instanceof DelegateExecution)) {
+            delegate.handleInvocation(invocation);
+            return;
+        }
+        DelegateExecution execution = (DelegateExecution) invocation.getContextExecution();
+        DelegateExecutionMetrics.ActivitySeries series = metrics.begin(processDefinitionKey(execution),
+                execution.getCurrentActivityId(), delegateClass(invocation, delegateClassResolver));
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.handleInvocation(invocation);
+            success = true;
+        } finally {
+            long duration = System.nanoTime() - start;
+            metrics.end(series, duration, success, success && metrics.isPayloadSize() ? payloadBytes(execution) : -1);
+        }
+    }
+
+    private static String processDefinitionKey(DelegateExecution execution) {
+        if (execution instanceof ExecutionEntity && ((ExecutionEntity) execution).getProcessDefinition() != null) {
+            return ((ExecutionEntity) execution).getProcessDefinition().getKey();
+        }
+        // Identifiant de définition : clé:version:id
+        String processDefinitionId = execution.getProcessDefinitionId();
+        return processDefinitionId != null && processDefinitionId.indexOf(':') > 0
+                ? processDefinitionId.substring(0, processDefinitionId.indexOf(':')) : processDefinitionId;
+    }
+
+    /**
+     * Classe du delegate appelé, ou celle indiquée par le resolver (delegate compilé exécuté par un bean de registre)
+     */
+    static String delegateClass(DelegateInvocation invocation, DelegateClassResolver delegateClassResolver) {
+        Object target = null;
+        if (DELEGATE_INSTANCE != null) {
+            try {
+                target = DELEGATE_INSTANCE.get(invocation);
+            } catch (IllegalAccessException e) {
+                log.debug("Delegate de l'invocation illisible", e);
+            }
+        }
+        if (target == null) {
+            return null;
+        }
+        String resolvedClassName = delegateClassResolver.delegateClass(target);
+        return resolvedClassName != null ? resolvedClassName : ClassUtils.getUserClass(target).getName();
+    }
+
+    /**
+     * Taille estimée des variables visibles par l'activité, sans désérialiser les objets. Charge les variables
+     * de toutes les portées : sur une exécution rechargée de la base, une requête par portée non encore lue.
+     */
+    static long payloadBytes(DelegateExecution execution) {
+        try {
+            VariableMap variables = execution.getVariablesTyped(false);
+            long bytes = 0;
+            for (String name : variables.keySet()) {
+                bytes += name.length() + valueBytes(variables.getValueTyped(name));
+            }
+            return bytes;
+        } catch (RuntimeException e) {
+            log.debug("Taille des variables non mesurée", e);
+            return -1;
+        }
+    }
+
+    private static long valueBytes(TypedValue value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof SerializableValue && !((SerializableValue) value).isDeserialized()) {
+            String serialized = ((SerializableValue) value).getValueSerialized();
+            return serialized != null ? serialized.length() : 0;
+        }
+        Object raw = value.getValue();
+        if (raw == null) {
+            return 0;
+        }
+        if (raw instanceof CharSequence) {
+            return ((CharSequence) raw).length();
+        }
+        if (raw instanceof byte[]) {
+            return ((byte[]) raw).length;
+        }
+        if (raw instanceof Number || raw instanceof Date) {
+            return 8;
+        }
+        if (raw instanceof Boolean) {
+            return 1;
+        }
+        return 16;
+    }
+
+    private static Field delegateInstanceField() {
+        try {
+            Field field = JavaDelegateInvocation.class.getDeclaredField("delegateInstance");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Classe des JavaDelegates non disponible pour les métriques: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.safalifter.delegatemetrics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+
+/**
+ * Branche DelegateExecutionMetrics sur le moteur Camunda : chaque exécution de JavaDelegate par une tâche
+ * de service est mesurée par un intercepteur d'invocation.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DelegateExecutionMetricsPlugin extends AbstractProcessEnginePlugin {
+
+    private final DelegateExecutionMetrics delegateExecutionMetrics;
+    private final DelegateClassResolver delegateClassResolver;
+
+    @Override
+    public void postInit(ProcessEngineConfigurationImpl configuration) {
+        if (!delegateExecutionMetrics.isEnabled()) {
+            return;
+        }
+        // L'intercepteur d'origine n'est créé qu'à l'initialisation du moteur
+        configuration.setDelegateInterceptor(new DelegateExecutionMetricsInterceptor(
+                configuration.getDelegateInterceptor(), delegateExecutionMetrics, delegateClassResolver));
+        log.info("Métriques d'exécution des JavaDelegates activées");
+    }
+}
@@ -0,0 +1,142 @@
+package com.safalifter.delegatemetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.impl.bpmn.delegate.JavaDelegateInvocation;
+import org.camunda.bpm.engine.impl.interceptor.DelegateInterceptor;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DelegateExecutionMetricsTest {
+
+    private static final DelegateInterceptor ENGINE_INTERCEPTOR = invocation -> invocation.proceed();
+
+    @Test
+    void testInterceptorRecordsExecutionsPerActivityAndDelegate() throws Exception {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DelegateExecutionMetrics metrics = new DelegateExecutionMetrics(registry, true, true, 500);
+        DelegateExecutionMetricsInterceptor interceptor = new DelegateExecutionMetricsInterceptor(ENGINE_INTERCEPTOR, metrics,
+                DelegateClassResolver.NONE);
+        DelegateExecution execution = execution("loan:3:8a1b", "scoreTask");
+
+        // When: deux exécutions réussies, une en erreur
+        interceptor.handleInvocation(new JavaDelegateInvocation(new ScoringDelegate(), execution));
+        interceptor.handleInvocation(new JavaDelegateInvocation(new ScoringDelegate(), execution));
+        when(execution.getVariable("amount")).thenReturn(null);
+        assertThrows(IllegalStateException.class, () ->
+                interceptor.handleInvocation(new JavaDelegateInvocation(new ScoringDelegate(), execution)));
+
+        // Then
+        String delegateClass = ScoringDelegate.class.getName();
+        assertEquals(2, timer(registry, "loan", "scoreTask", delegateClass, "success").count());
+        assertEquals(1, timer(registry, "loan", "scoreTask", delegateClass, "error").count());
+        assertEquals(0.0, registry.get("bpmn.delegate.in.flight").tag("process", "loan").tag("activity", "scoreTask")
+                .tag("delegate", delegateClass).gauge().value());
+        // "amount" (6 + 8) et "customer" (8 + 4), mesurés sur les exécutions réussies
+        assertEquals(2, registry.get("bpmn.delegate.payload").tag("activity", "scoreTask").summary().count());
+        assertEquals(26.0, registry.get("bpmn.delegate.payload").tag("activity", "scoreTask").summary().max());
+
+        ActivityExecutionStatsDTO stats = metrics.slowestActivities(10, "p95").get(0);
+        assertEquals(3, stats.getExecutions());
+        assertEquals(1, stats.getErrors());
+        assertEquals(0.3333, stats.getErrorRate());
+        assertEquals(26, stats.getMeanPayloadBytes());
+    }
+
+    @Test
+    void testResolvedDelegateClassIsUsedAsTag() throws Exception {
+        // Given: un resolver qui reconnaît le bean intermédiaire
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DelegateExecutionMetrics metrics = new DelegateExecutionMetrics(registry, true, false, 500);
+        DelegateExecutionMetricsInterceptor interceptor = new DelegateExecutionMetricsInterceptor(ENGINE_INTERCEPTOR, metrics,
+                delegate -> delegate instanceof ScoringDelegate ? "com.example.CompiledScoring" : null);
+
+        // When
+        interceptor.handleInvocation(new JavaDelegateInvocation(new ScoringDelegate(), execution("loan:3:8a1b", "scoreTask")));
+
+        // Then
+        assertEquals(1, timer(registry, "loan", "scoreTask", "com.example.CompiledScoring", "success").count());
+    }
+
+    @Test
+    void testSeriesAreBoundedUnderOther() {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DelegateExecutionMetrics metrics = new DelegateExecutionMetrics(registry, true, false, 2);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            metrics.end(metrics.begin("loan", "task" + i, "com.example.Delegate"), 1_000_000, true, -1);
+        }
+
+        // Then: deux activités étiquetées, les trois suivantes regroupées
+        assertEquals(3, registry.find("bpmn.delegate.execution").timers().size());
+        assertEquals(3, timer(registry, DelegateExecutionMetrics.OTHER, DelegateExecutionMetrics.OTHER,
+                DelegateExecutionMetrics.OTHER, "success").count());
+        assertTrue(registry.find("bpmn.delegate.payload").summaries().isEmpty());
+    }
+
+    @Test
+    void testSlowestActivitiesAreRankedByPercentile() {
+        // Given: "review" a quelques exécutions très lentes, "notify" est toujours à 20 ms
+        DelegateExecutionMetrics metrics = new DelegateExecutionMetrics(new SimpleMeterRegistry(), true, true, 500);
+        for (int i = 0; i < 100; i++) {
+            long reviewNanos = TimeUnit.MILLISECONDS.toNanos(i < 90 ? 2 : 3_000);
+            metrics.end(metrics.begin("claims", "review", "com.example.Review"), reviewNanos, true, 100);
+            metrics.end(metrics.begin("claims", "notify", "com.example.Notify"), TimeUnit.MILLISECONDS.toNanos(20),
+                    i % 10 != 0, -1);
+        }
+
+        // When
+        List<ActivityExecutionStatsDTO> byP95 = metrics.slowestActivities(10, "p95");
+        List<ActivityExecutionStatsDTO> byErrors = metrics.slowestActivities(1, "errorRate");
+
+        // Then
+        assertEquals(List.of("review", "notify"), byP95.stream().map(ActivityExecutionStatsDTO::getActivityId).toList());
+        // Borne de l'intervalle 2,5-5 s, ramenée à la durée maximale observée
+        assertEquals(3_000.0, byP95.get(0).getP95Ms());
+        assertEquals(2.0, byP95.get(0).getP50Ms());
+        assertEquals(3_000.0, byP95.get(0).getMaxMs());
+        assertEquals(20.0, byP95.get(1).getP95Ms());
+        assertEquals("notify", byErrors.get(0).getActivityId());
+        assertEquals(0.1, byErrors.get(0).getErrorRate());
+        assertThrows(IllegalArgumentException.class, () -> metrics.slowestActivities(10, "median"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.slowestActivities(0, "p95"));
+    }
+
+    private static DelegateExecution execution(String processDefinitionId, String activityId) {
+        DelegateExecution execution = mock(DelegateExecution.class);
+        when(execution.getProcessDefinitionId()).thenReturn(processDefinitionId);
+        when(execution.getCurrentActivityId()).thenReturn(activityId);
+        when(execution.getVariable("amount")).thenReturn(500L);
+        when(execution.getVariablesTyped(false)).thenReturn(Variables.createVariables()
+                .putValue("amount", 500L)
+                .putValue("customer", "ACME"));
+        return execution;
+    }
+
+    private static Timer timer(MeterRegistry registry, String process, String activity, String delegate, String outcome) {
+        return registry.get("bpmn.delegate.execution").tag("process", process).tag("activity", activity)
+                .tag("delegate", delegate).tag("outcome", outcome).timer();
+    }
+
+    static class ScoringDelegate implements JavaDelegate {
+        @Override
+        public void execute(DelegateExecution execution) {
+            if (execution.getVariable("amount") == null) {
+                throw new IllegalStateException("montant manquant");
+            }
+        }
+    }
+}
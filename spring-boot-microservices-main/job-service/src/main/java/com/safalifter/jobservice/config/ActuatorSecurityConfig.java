@@ -0,0 +1,17 @@
+package com.safalifter.jobservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+
+@Configuration
+public class ActuatorSecurityConfig {
+
+    // Prometheus scrape les métriques sans authentification
+    @Bean
+    public WebSecurityCustomizer actuatorWebSecurityCustomizer() {
+        return (web) -> web.ignoring().antMatchers(
+                "/actuator/health/**",
+                "/actuator/prometheus");
+    }
+}
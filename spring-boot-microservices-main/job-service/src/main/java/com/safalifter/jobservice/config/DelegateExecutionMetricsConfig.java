@@ -0,0 +1,22 @@
+package com.safalifter.jobservice.config;
+
+import com.safalifter.delegatemetrics.DelegateClassResolver;
+import com.safalifter.delegatemetrics.DelegateExecutionMetricsConfiguration;
+import com.safalifter.jobservice.service.JavaDelegateRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Métriques d'exécution des JavaDelegates (module delegate-metrics) : un delegate compilé est étiqueté par
+ * sa classe et non par le bean du registre qui l'exécute.
+ */
+@Configuration
+@Import(DelegateExecutionMetricsConfiguration.class)
+public class DelegateExecutionMetricsConfig {
+
+    @Bean
+    public DelegateClassResolver compiledDelegateClassResolver() {
+        return JavaDelegateRegistry::delegateClassName;
+    }
+}
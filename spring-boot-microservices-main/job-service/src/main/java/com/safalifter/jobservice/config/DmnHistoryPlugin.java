@@ -0,0 +1,39 @@
+package com.safalifter.jobservice.config;
+
+import com.safalifter.jobservice.service.DmnHistoryEventHandler;
+import com.safalifter.jobservice.service.DmnHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.history.handler.CompositeDbHistoryEventHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Branche DmnHistoryEventHandler sur le moteur Camunda : l'historique des décisions
+ * évaluées par les tâches métier part dans la file asynchrone, le reste de l'historique
+ * est écrit normalement.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DmnHistoryPlugin extends AbstractProcessEnginePlugin {
+
+    private final DmnHistoryService dmnHistoryService;
+
+    @Value("${dmn.history.engine-events:true}")
+    private boolean engineEvents;
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl configuration) {
+        if (!dmnHistoryService.isEnabled() || !engineEvents) {
+            return;
+        }
+        CompositeDbHistoryEventHandler dbHandler = configuration.getCustomHistoryEventHandlers() != null
+                ? new CompositeDbHistoryEventHandler(configuration.getCustomHistoryEventHandlers())
+                : new CompositeDbHistoryEventHandler();
+        configuration.setHistoryEventHandler(new DmnHistoryEventHandler(dbHandler, dmnHistoryService));
+        log.info("Historique des décisions DMN du moteur redirigé vers l'écriture asynchrone par lots");
+    }
+}
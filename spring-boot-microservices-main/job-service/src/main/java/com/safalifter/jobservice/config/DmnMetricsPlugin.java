@@ -0,0 +1,48 @@
+package com.safalifter.jobservice.config;
+
+import com.safalifter.jobservice.service.DmnMetrics;
+import com.safalifter.jobservice.service.DmnMetricsDelegateInterceptor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.springframework.stereotype.Component;
+
+/**
+ * Branche DmnMetrics sur le moteur Camunda : les règles retenues par les tâches métier sont comptées
+ * par un écouteur du moteur DMN, et la durée de chaque évaluation est mesurée par un intercepteur d'invocation.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DmnMetricsPlugin extends AbstractProcessEnginePlugin {
+
+    private final DmnMetrics dmnMetrics;
+
+    @Override
+    public void preInit(ProcessEngineConfigurationImpl configuration) {
+        if (!dmnMetrics.isEnabled()) {
+            return;
+        }
+        // Le moteur conserve les écouteurs déjà présents quand il complète la configuration DMN
+        if (configuration.getDmnEngineConfiguration() == null) {
+            configuration.setDmnEngineConfiguration(
+                    (DefaultDmnEngineConfiguration) DmnEngineConfiguration.createDefaultDmnEngineConfiguration());
+        }
+        configuration.getDmnEngineConfiguration().getCustomPostDecisionEvaluationListeners()
+                .add(dmnMetrics.ruleListener(DmnMetrics.SOURCE_ENGINE));
+    }
+
+    @Override
+    public void postInit(ProcessEngineConfigurationImpl configuration) {
+        if (!dmnMetrics.isEnabled()) {
+            return;
+        }
+        // L'intercepteur d'origine n'est créé qu'à l'initialisation du moteur
+        configuration.setDelegateInterceptor(
+                new DmnMetricsDelegateInterceptor(configuration.getDelegateInterceptor(), dmnMetrics));
+        log.info("Métriques DMN activées pour les évaluations du moteur");
+    }
+}
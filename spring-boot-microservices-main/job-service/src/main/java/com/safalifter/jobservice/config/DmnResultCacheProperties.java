@@ -0,0 +1,34 @@
+package com.safalifter.jobservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration du cache des résultats de décisions DMN.
+ * Le cache est activé décision par décision, par exemple:
+ * dmn.result-cache.decisions.eligibility.max-size=10000
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dmn.result-cache")
+public class DmnResultCacheProperties {
+
+    private Map<String, DecisionSettings> decisions = new HashMap<>();
+
+    @Data
+    public static class DecisionSettings {
+        private int maxSize = 1000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private EvictionPolicy eviction = EvictionPolicy.LRU;
+    }
+
+    public enum EvictionPolicy {
+        LRU,
+        LFU
+    }
+}
@@ -1,91 +1,84 @@
 package com.safalifter.jobservice.config;
 
 import com.safalifter.jobservice.dto.JavaDelegateRequest;
-import com.safalifter.jobservice.model.JavaDelegate;
-import com.safalifter.jobservice.repository.JavaDelegateRepository;
 import com.safalifter.jobservice.service.JavaDelegateService;
 import com.safalifter.jobservice.util.JavaDelegateTemplates;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
+/**
+ * Installe les JavaDelegates par défaut. Le travail est fait hors du chemin de démarrage, sur un thread dédié
+ * lancé une fois l'application prête : seuls les delegates dont le source a changé sont compilés, ensemble.
+ */
 @Configuration
 @RequiredArgsConstructor
 @Slf4j
 public class JavaDelegateInitializer {
 
     private final JavaDelegateService javaDelegateService;
-    private final JavaDelegateRepository javaDelegateRepository;
 
-    @Bean
-    public CommandLineRunner initJavaDelegates() {
-        return args -> {
-            log.info("Initialisation des JavaDelegates par défaut");
-
-            // Création des JavaDelegates par défaut
-            List<JavaDelegateRequest> defaultDelegates = Arrays.asList(
-                // Logger JavaDelegate
-                createDelegateRequest(
-                    "com.example.delegates.LoggerJavaDelegate",
-                    "Journalisation d'informations pendant l'exécution du processus",
-                    JavaDelegateTemplates.getLoggerTemplate("com.example.delegates", "LoggerJavaDelegate")
-                ),
-                
-                // Email Sender JavaDelegate
-                createDelegateRequest(
-                    "com.example.delegates.EmailSenderDelegate",
-                    "Envoi d'emails aux utilisateurs du système",
-                    JavaDelegateTemplates.getEmailSenderTemplate("com.example.delegates", "EmailSenderDelegate")
-                ),
-                
-                // Task Assignment JavaDelegate
-                createDelegateRequest(
-                    "com.example.delegates.TaskAssignmentDelegate",
-                    "Assignation automatique de tâches en fonction des règles métier",
-                    getTaskAssignmentDelegateSource()
-                ),
-                
-                // Data Validation JavaDelegate
-                createDelegateRequest(
-                    "com.example.delegates.DataValidationDelegate",
-                    "Validation des données saisies dans le processus",
-                    getDataValidationDelegateSource()
-                ),
-                
-                // REST Service Caller JavaDelegate
-                createDelegateRequest(
-                    "com.example.delegates.RestServiceDelegate",
-                    "Appel de services REST externes",
-                    getRestServiceDelegateSource()
-                )
-            );
+    @EventListener(ApplicationReadyEvent.class)
+    public void initJavaDelegates() {
+        Thread thread = new Thread(this::installDefaultDelegates, "java-delegate-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-            // Ajout des JavaDelegates dans la base de données
-            for (JavaDelegateRequest delegateRequest : defaultDelegates) {
-                try {
-                    // Vérifier si le JavaDelegate existe déjà
-                    Optional<JavaDelegate> existingDelegate = javaDelegateRepository.findByClassName(delegateRequest.getName());
-                    
-                    if (existingDelegate.isPresent()) {
-                        log.info("JavaDelegate {} existe déjà, mise à jour...", delegateRequest.getName());
-                        javaDelegateService.updateJavaDelegate(delegateRequest.getName(), delegateRequest);
-                    } else {
-                        log.info("Création du JavaDelegate: {}", delegateRequest.getName());
-                        javaDelegateService.createJavaDelegate(delegateRequest);
-                    }
-                } catch (Exception e) {
-                    log.error("Erreur lors de la création du JavaDelegate {}: {}", delegateRequest.getName(), e.getMessage());
-                }
-            }
+    private void installDefaultDelegates() {
+        long start = System.nanoTime();
+        try {
+            JavaDelegateService.SyncResult result = javaDelegateService.syncJavaDelegates(defaultDelegates());
+            log.info("Initialisation des JavaDelegates terminée en {} ms: {} inchangé(s), {} compilé(s), {} en échec",
+                    (System.nanoTime() - start) / 1_000_000, result.getUnchanged(), result.getCompiled(),
+                    result.getFailed());
+        } catch (Exception e) {
+            log.error("Erreur lors de l'initialisation des JavaDelegates: {}", e.getMessage(), e);
+        }
+    }
 
-            log.info("Initialisation des JavaDelegates terminée");
-        };
+    private List<JavaDelegateRequest> defaultDelegates() {
+        return Arrays.asList(
+            // Logger JavaDelegate
+            createDelegateRequest(
+                "com.example.delegates.LoggerJavaDelegate",
+                "Journalisation d'informations pendant l'exécution du processus",
+                JavaDelegateTemplates.getLoggerTemplate("com.example.delegates", "LoggerJavaDelegate")
+            ),
+            
+            // Email Sender JavaDelegate
+            createDelegateRequest(
+                "com.example.delegates.EmailSenderDelegate",
+                "Envoi d'emails aux utilisateurs du système",
+                JavaDelegateTemplates.getEmailSenderTemplate("com.example.delegates", "EmailSenderDelegate")
+            ),
+            
+            // Task Assignment JavaDelegate
+            createDelegateRequest(
+                "com.example.delegates.TaskAssignmentDelegate",
+                "Assignation automatique de tâches en fonction des règles métier",
+                getTaskAssignmentDelegateSource()
+            ),
+            
+            // Data Validation JavaDelegate
+            createDelegateRequest(
+                "com.example.delegates.DataValidationDelegate",
+                "Validation des données saisies dans le processus",
+                getDataValidationDelegateSource()
+            ),
+            
+            // REST Service Caller JavaDelegate
+            createDelegateRequest(
+                "com.example.delegates.RestServiceDelegate",
+                "Appel de services REST externes",
+                getRestServiceDelegateSource()
+            )
+        );
     }
 
     private JavaDelegateRequest createDelegateRequest(String className, String description, String sourceCode) {
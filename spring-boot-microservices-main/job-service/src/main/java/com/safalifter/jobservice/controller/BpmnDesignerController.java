@@ -2,7 +2,10 @@ package com.safalifter.jobservice.controller;
 
 import com.safalifter.jobservice.dto.*;
 import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.service.BpmnBatchEditService;
+import com.safalifter.jobservice.service.BpmnGraphService;
 import com.safalifter.jobservice.service.BpmnModelService;
+import com.safalifter.jobservice.service.BpmnProcessCatalogService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.camunda.bpm.engine.RepositoryService;
@@ -11,14 +14,15 @@ import org.camunda.bpm.engine.runtime.ProcessInstance;
 import org.camunda.bpm.model.bpmn.Bpmn;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/bpmn")
@@ -28,6 +32,9 @@ import java.util.stream.Collectors;
 public class BpmnDesignerController {
 
     private final BpmnModelService bpmnModelService;
+    private final BpmnBatchEditService bpmnBatchEditService;
+    private final BpmnProcessCatalogService bpmnProcessCatalogService;
+    private final BpmnGraphService bpmnGraphService;
     private final RepositoryService repositoryService;
     private final RuntimeService runtimeService;
 
@@ -90,17 +97,20 @@ public class BpmnDesignerController {
     }
 
     /**
-     * Récupère tous les processus actifs
+     * Catalogue paginé des processus (curseur), filtrable par catégorie, préfixe du nom et état actif
      */
     @GetMapping("/processes")
-    public ResponseEntity<?> getAllActiveProcesses() {
+    public ResponseEntity<?> getProcessCatalog(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(required = false, defaultValue = "true") Boolean active,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<BpmnProcess> processes = bpmnModelService.getAllActiveProcesses();
-            List<ProcessDTO> processDTOs = processes.stream()
-                .map(this::convertToProcessDTO)
-                .collect(Collectors.toList());
-                
-            return ResponseEntity.ok(processDTOs);
+            return ResponseEntity.ok(bpmnProcessCatalogService.getCatalogPage(
+                    category, namePrefix, active, sort, direction, cursor, size));
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des processus", e);
             return ResponseEntity.badRequest().body(Map.of(
@@ -126,17 +136,14 @@ public class BpmnDesignerController {
     }
 
     /**
-     * Récupère toutes les versions d'un processus
+     * Versions paginées d'un processus (curseur), de la plus récente à la plus ancienne
      */
     @GetMapping("/processes/{processKey}/versions")
-    public ResponseEntity<?> getProcessVersions(@PathVariable String processKey) {
+    public ResponseEntity<?> getProcessVersions(@PathVariable String processKey,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size) {
         try {
-            List<BpmnProcess> versions = bpmnModelService.getAllVersionsByProcessKey(processKey);
-            List<ProcessDTO> versionDTOs = versions.stream()
-                .map(this::convertToProcessDTO)
-                .collect(Collectors.toList());
-                
-            return ResponseEntity.ok(versionDTOs);
+            return ResponseEntity.ok(bpmnProcessCatalogService.getVersionPage(processKey, cursor, size));
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des versions", e);
             return ResponseEntity.badRequest().body(Map.of(
@@ -145,14 +152,33 @@ public class BpmnDesignerController {
         }
     }
 
+    /**
+     * XML d'une version de processus, décompressé en flux
+     */
+    @GetMapping("/processes/{id}/xml")
+    public ResponseEntity<StreamingResponseBody> getProcessXml(@PathVariable Long id) {
+        BpmnProcess process;
+        try {
+            process = bpmnModelService.getProcessById(id);
+        } catch (Exception e) {
+            log.warn("XML demandé pour un processus introuvable: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = output -> bpmnModelService.transferProcessXml(process, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_XML)
+                .body(body);
+    }
+
     /**
      * Ajoute un élément au processus BPMN
      */
     @PostMapping("/processes/{id}/elements")
-    public ResponseEntity<?> addElement(@PathVariable Long id, @RequestBody ElementRequest request) {
+    public ResponseEntity<?> addElement(@PathVariable Long id, @RequestBody ElementRequest request,
+                                        @RequestParam(defaultValue = "true") boolean publish) {
         try {
             BpmnProcess process = bpmnModelService.getProcessById(id);
-            BpmnModelInstance modelInstance = bpmnModelService.loadBpmnModel(process.getBpmnXml());
+            BpmnModelInstance modelInstance = bpmnModelService.loadProcessModel(process);
             
             switch (request.getType()) {
                 case "userTask":
@@ -188,18 +214,20 @@ public class BpmnDesignerController {
                     ));
             }
             
-            // Sauvegarder et déployer la nouvelle version
-            BpmnProcess updatedProcess = bpmnModelService.saveAndDeployBpmnModel(
+            // Sauvegarder la nouvelle version (publiée de façon asynchrone, sauf brouillon)
+            BpmnProcess updatedProcess = bpmnModelService.saveBpmnModel(
                     modelInstance, 
                     process.getName(), 
                     process.getCategory(), 
-                    process.getDescription()
+                    process.getDescription(), 
+                    publish
             );
             
             return ResponseEntity.ok(Map.of(
                 "message", "Élément ajouté avec succès",
                 "processId", updatedProcess.getId(),
-                "version", updatedProcess.getVersion()
+                "version", updatedProcess.getVersion(),
+                "deploymentStatus", updatedProcess.getDeploymentStatus()
             ));
         } catch (Exception e) {
             log.error("Erreur lors de l'ajout de l'élément", e);
@@ -214,10 +242,11 @@ public class BpmnDesignerController {
      */
     @PutMapping("/processes/{id}/user-tasks/{taskId}")
     public ResponseEntity<?> configureUserTask(@PathVariable Long id, @PathVariable String taskId, 
-                                              @RequestBody UserTaskConfigRequest request) {
+                                              @RequestBody UserTaskConfigRequest request,
+                                              @RequestParam(defaultValue = "true") boolean publish) {
         try {
             BpmnProcess process = bpmnModelService.getProcessById(id);
-            BpmnModelInstance modelInstance = bpmnModelService.loadBpmnModel(process.getBpmnXml());
+            BpmnModelInstance modelInstance = bpmnModelService.loadProcessModel(process);
             
             modelInstance = bpmnModelService.configureUserTask(modelInstance, 
                           taskId, 
@@ -229,18 +258,20 @@ public class BpmnDesignerController {
             // Sauvegarder la configuration du formulaire
             bpmnModelService.saveUserTaskFormConfiguration(process, taskId, request);
             
-            // Sauvegarder et déployer la nouvelle version
-            BpmnProcess updatedProcess = bpmnModelService.saveAndDeployBpmnModel(
+            // Sauvegarder la nouvelle version (publiée de façon asynchrone, sauf brouillon)
+            BpmnProcess updatedProcess = bpmnModelService.saveBpmnModel(
                     modelInstance, 
                     process.getName(), 
                     process.getCategory(), 
-                    process.getDescription()
+                    process.getDescription(), 
+                    publish
             );
             
             return ResponseEntity.ok(Map.of(
                 "message", "Tâche utilisateur configurée avec succès",
                 "processId", updatedProcess.getId(),
-                "version", updatedProcess.getVersion()
+                "version", updatedProcess.getVersion(),
+                "deploymentStatus", updatedProcess.getDeploymentStatus()
             ));
         } catch (Exception e) {
             log.error("Erreur lors de la configuration de la tâche utilisateur", e);
@@ -255,10 +286,11 @@ public class BpmnDesignerController {
      */
     @PutMapping("/processes/{id}/service-tasks/{taskId}")
     public ResponseEntity<?> configureServiceTask(@PathVariable Long id, @PathVariable String taskId, 
-                                                @RequestBody ServiceTaskConfigRequest request) {
+                                                @RequestBody ServiceTaskConfigRequest request,
+                                                @RequestParam(defaultValue = "true") boolean publish) {
         try {
             BpmnProcess process = bpmnModelService.getProcessById(id);
-            BpmnModelInstance modelInstance = bpmnModelService.loadBpmnModel(process.getBpmnXml());
+            BpmnModelInstance modelInstance = bpmnModelService.loadProcessModel(process);
             
             modelInstance = bpmnModelService.configureServiceTask(modelInstance, 
                           taskId, 
@@ -270,18 +302,20 @@ public class BpmnDesignerController {
             // Sauvegarder la configuration de la tâche
             bpmnModelService.saveServiceTaskConfiguration(process, taskId, request);
             
-            // Sauvegarder et déployer la nouvelle version
-            BpmnProcess updatedProcess = bpmnModelService.saveAndDeployBpmnModel(
+            // Sauvegarder la nouvelle version (publiée de façon asynchrone, sauf brouillon)
+            BpmnProcess updatedProcess = bpmnModelService.saveBpmnModel(
                     modelInstance, 
                     process.getName(), 
                     process.getCategory(), 
-                    process.getDescription()
+                    process.getDescription(), 
+                    publish
             );
             
             return ResponseEntity.ok(Map.of(
                 "message", "Tâche de service configurée avec succès",
                 "processId", updatedProcess.getId(),
-                "version", updatedProcess.getVersion()
+                "version", updatedProcess.getVersion(),
+                "deploymentStatus", updatedProcess.getDeploymentStatus()
             ));
         } catch (Exception e) {
             log.error("Erreur lors de la configuration de la tâche de service", e);
@@ -295,25 +329,28 @@ public class BpmnDesignerController {
      * Supprime un élément du processus
      */
     @DeleteMapping("/processes/{id}/elements/{elementId}")
-    public ResponseEntity<?> removeElement(@PathVariable Long id, @PathVariable String elementId) {
+    public ResponseEntity<?> removeElement(@PathVariable Long id, @PathVariable String elementId,
+                                           @RequestParam(defaultValue = "true") boolean publish) {
         try {
             BpmnProcess process = bpmnModelService.getProcessById(id);
-            BpmnModelInstance modelInstance = bpmnModelService.loadBpmnModel(process.getBpmnXml());
+            BpmnModelInstance modelInstance = bpmnModelService.loadProcessModel(process);
             
             modelInstance = bpmnModelService.removeElement(modelInstance, elementId);
             
-            // Sauvegarder et déployer la nouvelle version
-            BpmnProcess updatedProcess = bpmnModelService.saveAndDeployBpmnModel(
+            // Sauvegarder la nouvelle version (publiée de façon asynchrone, sauf brouillon)
+            BpmnProcess updatedProcess = bpmnModelService.saveBpmnModel(
                     modelInstance, 
                     process.getName(), 
                     process.getCategory(), 
-                    process.getDescription()
+                    process.getDescription(), 
+                    publish
             );
             
             return ResponseEntity.ok(Map.of(
                 "message", "Élément supprimé avec succès",
                 "processId", updatedProcess.getId(),
-                "version", updatedProcess.getVersion()
+                "version", updatedProcess.getVersion(),
+                "deploymentStatus", updatedProcess.getDeploymentStatus()
             ));
         } catch (Exception e) {
             log.error("Erreur lors de la suppression de l'élément", e);
@@ -323,6 +360,59 @@ public class BpmnDesignerController {
         }
     }
 
+    /**
+     * Applique une liste ordonnée d'opérations (add, configure, remove, connect) en une seule version
+     */
+    @PostMapping("/processes/{id}/operations")
+    public ResponseEntity<?> applyOperations(@PathVariable Long id, @RequestBody BpmnBatchEditRequest request,
+                                             @RequestParam(defaultValue = "true") boolean publish) {
+        try {
+            BpmnBatchEditResponse response = bpmnBatchEditService.applyOperations(id, request.getOperations(), publish);
+            return response.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'application du lot d'opérations", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Échec du lot d'opérations: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Publie la version enregistrée d'un processus (brouillon ou déploiement en échec)
+     */
+    @PostMapping("/processes/{id}/publish")
+    public ResponseEntity<?> publishProcess(@PathVariable Long id) {
+        try {
+            BpmnProcess process = bpmnModelService.publishProcess(id);
+            return ResponseEntity.accepted().body(Map.of(
+                "message", "Publication demandée",
+                "processId", process.getId(),
+                "version", process.getVersion(),
+                "deploymentStatus", process.getDeploymentStatus()
+            ));
+        } catch (Exception e) {
+            log.error("Erreur lors de la demande de publication", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Échec de la publication: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * État de publication d'un processus (à interroger après une sauvegarde publiée)
+     */
+    @GetMapping("/processes/{id}/deployment")
+    public ResponseEntity<?> getDeploymentStatus(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(bpmnModelService.getDeploymentStatus(id));
+        } catch (Exception e) {
+            log.error("Erreur lors de la récupération de l'état de publication", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Processus non trouvé: " + e.getMessage()
+            ));
+        }
+    }
+
     /**
      * Démarre une instance de processus
      */
@@ -393,11 +483,80 @@ public class BpmnDesignerController {
         }
     }
 
+    /**
+     * Analyse statique d'une version : éléments inaccessibles, impasses, règles des passerelles, boucles sans sortie
+     */
+    @GetMapping("/processes/{id}/validation")
+    public ResponseEntity<?> validateProcess(@PathVariable Long id) {
+        try {
+            BpmnProcess process = bpmnModelService.getProcessById(id);
+            return ResponseEntity.ok(bpmnGraphService.validate(process));
+        } catch (Exception e) {
+            log.error("Erreur lors de la validation du processus", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Échec de la validation: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Plan d'une version : éléments, voisins directs et flux de séquence
+     */
+    @GetMapping("/processes/{id}/outline")
+    public ResponseEntity<?> getProcessOutline(@PathVariable Long id) {
+        try {
+            BpmnProcess process = bpmnModelService.getProcessById(id);
+            return ResponseEntity.ok(bpmnGraphService.outline(process));
+        } catch (Exception e) {
+            log.error("Erreur lors de la récupération du plan du processus", e);
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Échec de la récupération: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Statistiques du cache des modèles BPMN parsés
+     */
+    @GetMapping("/model-cache/stats")
+    public ResponseEntity<Map<String, Object>> getModelCacheStatistics() {
+        log.info("Demande des statistiques du cache des modèles BPMN");
+        return ResponseEntity.ok(bpmnModelService.getModelCacheStatistics());
+    }
+
+    /**
+     * Statistiques du cache des graphes BPMN compilés
+     */
+    @GetMapping("/graph-cache/stats")
+    public ResponseEntity<Map<String, Object>> getGraphCacheStatistics() {
+        log.info("Demande des statistiques du cache des graphes BPMN");
+        return ResponseEntity.ok(bpmnGraphService.getStatistics());
+    }
+
+    /**
+     * Statistiques du stockage des XML de processus (contenus distincts, compression)
+     */
+    @GetMapping("/xml-store/stats")
+    public ResponseEntity<Map<String, Object>> getXmlStoreStatistics() {
+        log.info("Demande des statistiques du stockage des XML BPMN");
+        return ResponseEntity.ok(bpmnModelService.getXmlStoreStatistics());
+    }
+
+    /**
+     * Statistiques de la file de publication
+     */
+    @GetMapping("/deployment-queue/stats")
+    public ResponseEntity<Map<String, Object>> getDeploymentQueueStatistics() {
+        log.info("Demande des statistiques de la file de publication BPMN");
+        return ResponseEntity.ok(bpmnModelService.getDeploymentQueueStatistics());
+    }
+
     /**
      * Met à jour le XML d'un processus BPMN
      */
     @PutMapping("/processes/{id}/xml")
-    public ResponseEntity<?> updateProcessXml(@PathVariable Long id, @RequestBody Map<String, String> xmlData) {
+    public ResponseEntity<?> updateProcessXml(@PathVariable Long id, @RequestBody Map<String, String> xmlData,
+                                              @RequestParam(defaultValue = "true") boolean publish) {
         try {
             log.info("Début de updateProcessXml pour processus ID={}", id);
             
@@ -426,13 +585,14 @@ public class BpmnDesignerController {
                 log.info("Chargement du XML en modèle BPMN, taille={} caractères", xml.length());
                 BpmnModelInstance modelInstance = bpmnModelService.loadBpmnModel(xml);
                 
-                // Sauvegarder et déployer la nouvelle version
-                log.info("Sauvegarde et déploiement du modèle");
-                BpmnProcess updatedProcess = bpmnModelService.saveAndDeployBpmnModel(
+                // Sauvegarder la nouvelle version (publiée de façon asynchrone, sauf brouillon)
+                log.info("Sauvegarde du modèle (publication: {})", publish);
+                BpmnProcess updatedProcess = bpmnModelService.saveBpmnModel(
                         modelInstance, 
                         process.getName(), 
                         process.getCategory(), 
-                        process.getDescription()
+                        process.getDescription(), 
+                        publish
                 );
                 
                 log.info("Processus mis à jour: ID={}, version={}", updatedProcess.getId(), updatedProcess.getVersion());
@@ -441,7 +601,8 @@ public class BpmnDesignerController {
                     "id", updatedProcess.getId(),
                     "message", "Processus mis à jour avec succès",
                     "processKey", updatedProcess.getProcessKey(),
-                    "version", updatedProcess.getVersion()
+                    "version", updatedProcess.getVersion(),
+                    "deploymentStatus", updatedProcess.getDeploymentStatus()
                 ));
             } catch (Exception e) {
                 log.error("Erreur lors du traitement du XML", e);
@@ -1,5 +1,8 @@
 package com.safalifter.jobservice.controller;
 
+import com.safalifter.jobservice.dto.ArchiveImportReportDTO;
+import com.safalifter.jobservice.service.ArchiveImportService;
+import com.safalifter.delegatemetrics.DelegateExecutionMetrics;
 import org.camunda.bpm.engine.RepositoryService;
 import org.camunda.bpm.engine.RuntimeService;
 import org.camunda.bpm.engine.repository.Deployment;
@@ -10,6 +13,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -25,6 +30,12 @@ public class DeploymentController {
     @Autowired
     private RuntimeService runtimeService;
 
+    @Autowired
+    private ArchiveImportService archiveImportService;
+
+    @Autowired
+    private DelegateExecutionMetrics delegateExecutionMetrics;
+
     @PostMapping("/deploy")
     public ResponseEntity<?> deployProcess(@RequestParam("file") MultipartFile file) {
         try {
@@ -51,6 +62,24 @@ public class DeploymentController {
         }
     }
 
+    /**
+     * Importe une archive zip, tar ou tar.gz de fichiers .bpmn et .dmn envoyée comme corps de la requête
+     * (lue en flux, sans passer par un fichier multipart). Le rapport détaille le résultat de chaque fichier.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importArchive(@RequestParam(value = "name", required = false) String name,
+                                           HttpServletRequest request) {
+        try {
+            ArchiveImportReportDTO report = archiveImportService.importArchive(
+                    name != null && !name.isBlank() ? name : "archive", request.getInputStream());
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Archive illisible: " + e.getMessage()
+            ));
+        }
+    }
+
     @PostMapping("/start")
     public ResponseEntity<?> startProcess(@RequestBody Map<String, Object> request) {
         try {
@@ -117,4 +146,20 @@ public class DeploymentController {
             ));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Activités les plus lentes depuis le démarrage (tâches de service exécutant un JavaDelegate)
+     */
+    @GetMapping("/activities/slowest")
+    public ResponseEntity<?> getSlowestActivities(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "p95") String sortBy) {
+        try {
+            return ResponseEntity.ok(delegateExecutionMetrics.slowestActivities(limit, sortBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", e.getMessage()
+            ));
+        }
+    }
+}
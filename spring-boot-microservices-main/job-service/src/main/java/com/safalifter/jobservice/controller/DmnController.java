@@ -1,19 +1,32 @@
 package com.safalifter.jobservice.controller;
 
+import com.safalifter.jobservice.dto.DmnDecisionHistoryDto;
+import com.safalifter.jobservice.dto.DmnDecisionTraceDto;
 import com.safalifter.jobservice.dto.DmnDefinitionDto;
 import com.safalifter.jobservice.dto.DmnDeploymentResponseDto;
 import com.safalifter.jobservice.dto.DmnRequestDto;
 import com.safalifter.jobservice.dto.DmnXmlUpdateDto;
+import com.safalifter.jobservice.service.DmnBatchService;
+import com.safalifter.jobservice.service.DmnHistoryService;
 import com.safalifter.jobservice.service.DmnService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +38,8 @@ import java.util.Map;
 public class DmnController {
 
     private final DmnService dmnService;
+    private final DmnBatchService dmnBatchService;
+    private final DmnHistoryService dmnHistoryService;
 
     @PostMapping("/create")
     public ResponseEntity<DmnDefinitionDto> createEmptyDmn(@RequestBody DmnRequestDto requestDto) {
@@ -40,6 +55,39 @@ public class DmnController {
         return ResponseEntity.ok(definitions);
     }
 
+    /**
+     * Liste paginée des définitions DMN filtrée par catégorie, état de déploiement et préfixe du nom (sans XML)
+     */
+    @GetMapping("/definitions/search")
+    public ResponseEntity<Page<DmnDefinitionDto>> searchDmnDefinitions(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Boolean deployed,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Demande de recherche des définitions DMN");
+        return ResponseEntity.ok(dmnService.searchDmnDefinitions(category, deployed, namePrefix, page, size));
+    }
+
+    /**
+     * XML d'une définition DMN, écrit directement dans la réponse
+     */
+    @GetMapping("/definitions/{id}/xml")
+    public ResponseEntity<StreamingResponseBody> getDmnXml(@PathVariable String id) {
+        log.info("Demande du XML de la définition DMN avec l'ID: {}", id);
+        if (!dmnService.dmnDefinitionExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = output -> {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            dmnService.streamDmnXml(id, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_XML)
+                .body(body);
+    }
+
     @GetMapping("/definitions/{id}")
     public ResponseEntity<DmnDefinitionDto> getDmnDefinitionById(@PathVariable String id) {
         log.info("Demande de récupération de la définition DMN avec l'ID: {}", id);
@@ -133,6 +181,65 @@ public class DmnController {
         }
     }
 
+    /**
+     * Évalue une décision et ses décisions requises (DRD) en renvoyant la trace et les temps de chaque noeud
+     */
+    @PostMapping("/evaluate/{decisionKey}/trace")
+    public ResponseEntity<?> evaluateDecisionWithTrace(
+            @PathVariable String decisionKey,
+            @RequestBody Map<String, Object> variables) {
+        log.info("Demande d'évaluation tracée de la décision DMN avec la clé: {}", decisionKey);
+        try {
+            DmnDecisionTraceDto trace = dmnService.evaluateDecisionWithTrace(decisionKey, variables);
+            return ResponseEntity.ok(trace);
+        } catch (EntityNotFoundException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Décision non trouvée: " + decisionKey);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Erreur lors de l'évaluation de la décision: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    /**
+     * Évalue une décision pour un lot de lignes (tableau JSON, NDJSON ou CSV selon le Content-Type).
+     * Les résultats sont renvoyés en NDJSON au fil de l'eau, suivis d'une ligne de synthèse.
+     */
+    @PostMapping("/evaluate/{decisionKey}/batch")
+    public ResponseEntity<StreamingResponseBody> evaluateDecisionBatch(
+            @PathVariable String decisionKey,
+            HttpServletRequest request) throws IOException {
+        String format = DmnBatchService.detectFormat(request.getContentType());
+        log.info("Demande d'évaluation en lot de la décision DMN avec la clé: {} (format: {})", decisionKey, format);
+        
+        // Résoudre la décision avant d'ouvrir le flux pour pouvoir renvoyer 404/400 normalement
+        DmnDecision decision = dmnService.resolveDecision(decisionKey);
+        
+        InputStream input = request.getInputStream();
+        StreamingResponseBody body = output -> dmnBatchService.evaluateBatch(decisionKey, decision, format, input, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getDecisionCacheStatistics() {
+        log.info("Demande des statistiques du cache des décisions DMN");
+        return ResponseEntity.ok(dmnService.getDecisionCacheStatistics());
+    }
+
+    @GetMapping("/result-cache/stats")
+    public ResponseEntity<Map<String, Object>> getResultCacheStatistics() {
+        log.info("Demande des statistiques du cache des résultats DMN");
+        return ResponseEntity.ok(dmnService.getResultCacheStatistics());
+    }
+
     @PostMapping("/validate")
     public ResponseEntity<Map<String, Object>> validateDmnXml(@RequestBody String xml) {
         log.info("Demande de validation d'un XML DMN");
@@ -150,12 +257,22 @@ public class DmnController {
         }
     }
 
+    /**
+     * Historique paginé des évaluations d'une décision (API et tâches métier), du plus récent au plus ancien
+     */
     @GetMapping("/history/{decisionKey}")
-    public ResponseEntity<List<Map<String, Object>>> getDecisionHistory(@PathVariable String decisionKey) {
-        // Cette méthode pourrait être implémentée pour récupérer l'historique d'exécution
-        // des décisions DMN depuis Camunda, mais elle nécessiterait des développements additionnels
-        log.info("Demande d'historique de la décision DMN avec la clé: {}", decisionKey);
-        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+    public ResponseEntity<Page<DmnDecisionHistoryDto>> getDecisionHistory(
+            @PathVariable String decisionKey,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Demande d'historique de la décision DMN avec la clé: {} (page {}, taille {})", decisionKey, page, size);
+        return ResponseEntity.ok(dmnHistoryService.getHistory(decisionKey, page, size));
+    }
+
+    @GetMapping("/history-writer/stats")
+    public ResponseEntity<Map<String, Object>> getHistoryWriterStatistics() {
+        log.info("Demande des statistiques de l'écriture de l'historique DMN");
+        return ResponseEntity.ok(dmnHistoryService.getStatistics());
     }
 
     @GetMapping("/inputs/{decisionKey}")
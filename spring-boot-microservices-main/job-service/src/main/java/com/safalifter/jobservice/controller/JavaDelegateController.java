@@ -2,7 +2,9 @@ package com.safalifter.jobservice.controller;
 
 import com.safalifter.jobservice.dto.JavaDelegateDTO;
 import com.safalifter.jobservice.dto.JavaDelegateRequest;
+import com.safalifter.jobservice.dto.JavaDelegateTestResultDTO;
 import com.safalifter.jobservice.service.JavaDelegateService;
+import com.safalifter.jobservice.service.JavaDelegateTestHarness;
 import com.safalifter.jobservice.util.JavaDelegateTemplates;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +24,7 @@ import java.util.Map;
 public class JavaDelegateController {
 
     private final JavaDelegateService javaDelegateService;
+    private final JavaDelegateTestHarness javaDelegateTestHarness;
 
     /**
      * Récupère tous les JavaDelegates disponibles
@@ -81,6 +84,17 @@ public class JavaDelegateController {
         }
     }
 
+    /**
+     * Delegates exécutables par le moteur (version active, exécutions en cours) et versions en cours de déchargement
+     */
+    @GetMapping("/runtime")
+    public ResponseEntity<Map<String, Object>> getRuntimeStatistics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", javaDelegateService.getRuntimeStatistics());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Récupère un JavaDelegate par son nom de classe
      */
@@ -204,26 +218,24 @@ public class JavaDelegateController {
     }
     
     /**
-     * Teste un JavaDelegate
+     * Teste un JavaDelegate chargé : chauffe, N appels mesurés (éventuellement concurrents) sur une exécution
+     * simulée, latences p50/p95/p99, allocations par appel et variables lues/écrites
      */
     @PostMapping("/{className}/test")
     public ResponseEntity<Map<String, Object>> testJavaDelegate(
             @PathVariable String className,
-            @RequestBody Map<String, Object> testData) {
+            @RequestBody(required = false) Map<String, Object> testData) {
         try {
             log.info("Test du JavaDelegate: {}", className);
             
-            // Pour l'instant, nous simulons simplement un succès de test
-            // Une implémentation réelle nécessiterait de charger et d'exécuter le délégué
+            JavaDelegateTestResultDTO results = javaDelegateTestHarness.run(className, testData);
             
             Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Test réussi pour le JavaDelegate: " + className);
-            response.put("results", Map.of(
-                "executed", true,
-                "executionTime", 42, // milliseconds
-                "output", "Exécution simulée réussie"
-            ));
+            response.put("success", results.getErrors() == 0 && !results.isTimedOut());
+            response.put("message", results.getErrors() == 0
+                    ? "Test réussi pour le JavaDelegate: " + className
+                    : results.getErrors() + " exécution(s) en erreur pour le JavaDelegate " + className + ": " + results.getFirstError());
+            response.put("results", results);
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -233,8 +245,13 @@ public class JavaDelegateController {
             response.put("success", false);
             response.put("message", "Erreur lors du test du JavaDelegate: " + e.getMessage());
             
-            int status = e instanceof java.util.NoSuchElementException ? 
-                HttpStatus.NOT_FOUND.value() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+            int status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+            
+            if (e instanceof java.util.NoSuchElementException) {
+                status = HttpStatus.NOT_FOUND.value();
+            } else if (e instanceof IllegalArgumentException) {
+                status = HttpStatus.BAD_REQUEST.value();
+            }
             
             return ResponseEntity.status(status).body(response);
         }
@@ -0,0 +1,22 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveEntryResultDTO {
+    
+    private String name;
+    private String type;      // BPMN ou DMN
+    private String status;    // DEPLOYED ou FAILED
+    private List<String> keys;  // clés de processus ou de décision définies par le fichier
+    private String deploymentId;
+    private String error;
+}
@@ -0,0 +1,28 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveImportReportDTO {
+    
+    private String archiveName;
+    private String format;
+    private int entries;
+    private int ignored;
+    private int deployedBpmn;
+    private int deployedDmn;
+    private int failed;
+    private List<String> deploymentIds;
+    private long durationMs;
+    private boolean aborted;
+    private String abortReason;
+    private List<ArchiveEntryResultDTO> files;
+}
@@ -0,0 +1,17 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BpmnBatchEditRequest {
+
+    private List<BpmnOperationRequest> operations; // Opérations appliquées dans l'ordre
+}
@@ -0,0 +1,21 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BpmnBatchEditResponse {
+    private boolean success;
+    private String message;
+    private Long processId;
+    private Integer version;
+    private String deploymentStatus;   // DRAFT ou PENDING (publication asynchrone)
+    private List<BpmnOperationResultDto> results;
+}
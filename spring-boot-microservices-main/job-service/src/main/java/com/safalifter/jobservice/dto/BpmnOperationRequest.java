@@ -0,0 +1,23 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BpmnOperationRequest {
+
+    private String op;                           // add, configureUserTask, configureServiceTask, remove, connect
+    private String elementId;                    // Élément ciblé (configure, remove)
+    private ElementRequest element;              // Élément à ajouter (add)
+    private UserTaskConfigRequest userTask;      // Configuration de la tâche utilisateur (configureUserTask)
+    private ServiceTaskConfigRequest serviceTask; // Configuration de la tâche de service (configureServiceTask)
+    private String flowId;                       // ID du flux à créer (connect, généré si absent)
+    private String sourceId;                     // Élément source du flux (connect)
+    private String targetId;                     // Élément cible du flux (connect)
+    private String condition;                    // Condition du flux (connect, optionnelle)
+}
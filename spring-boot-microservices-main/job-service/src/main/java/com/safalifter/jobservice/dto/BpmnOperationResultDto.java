@@ -0,0 +1,18 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BpmnOperationResultDto {
+    private int index;
+    private String op;
+    private String elementId;
+    private String status;   // APPLIED, FAILED, SKIPPED
+    private String message;
+}
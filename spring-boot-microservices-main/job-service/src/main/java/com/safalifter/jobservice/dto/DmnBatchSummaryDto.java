@@ -0,0 +1,25 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DmnBatchSummaryDto {
+    private String decisionKey;
+    private String format;
+    private long rows;
+    private long succeeded;
+    private long failed;
+    private long durationMs;
+    private double rowsPerSecond;
+    private boolean aborted;
+    private String abortReason;
+    private List<DmnBatchRowErrorDto> failedRows;
+}
@@ -0,0 +1,25 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DmnDecisionHistoryDto {
+    private String id;
+    private String decisionKey;
+    private String decisionVersion;
+    private String source;
+    private String processInstanceId;
+    private String activityId;
+    private Object inputs;
+    private Object outputs;
+    private Long durationMicros;
+    private LocalDateTime evaluatedAt;
+}
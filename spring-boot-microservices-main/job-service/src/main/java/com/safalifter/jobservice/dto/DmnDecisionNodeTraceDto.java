@@ -0,0 +1,24 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DmnDecisionNodeTraceDto {
+    private String decisionKey;
+    private String decisionName;
+    private List<String> requiredDecisions;
+    private List<Map<String, Object>> results;
+    private long startMicros;
+    private long queuedMicros;
+    private long durationMicros;
+    private String thread;
+}
@@ -0,0 +1,21 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DmnDecisionTraceDto {
+    private String decisionKey;
+    private Map<String, Object> result;
+    private long durationMicros;
+    private int parallelism;
+    private List<DmnDecisionNodeTraceDto> nodes;
+}
@@ -0,0 +1,20 @@
+package com.safalifter.jobservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection d'une définition DMN sans le XML, utilisée pour les listes
+ */
+public interface DmnDefinitionSummaryView {
+    String getId();
+    String getName();
+    String getDecisionKey();
+    String getDescription();
+    String getCategory();
+    Integer getVersion();
+    String getDeploymentId();
+    boolean isDeployed();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    LocalDateTime getDeployedAt();
+}
@@ -0,0 +1,12 @@
+package com.safalifter.jobservice.dto;
+
+/**
+ * Projection légère d'une définition DMN (sans le XML) utilisée pour
+ * résoudre la version à évaluer
+ */
+public interface DmnDefinitionVersionView {
+    String getId();
+    String getDecisionKey();
+    Integer getVersion();
+    boolean isDeployed();
+}
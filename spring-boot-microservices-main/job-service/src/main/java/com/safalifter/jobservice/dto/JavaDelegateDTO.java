@@ -17,6 +17,9 @@ public class JavaDelegateDTO {
     private String description;
     private String packageName;
     private boolean compiled;
+    // Référence à utiliser dans camunda:delegateExpression="${beanName}"
+    private String beanName;
+    private boolean loaded;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,38 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JavaDelegateTestResultDTO {
+    private String className;
+    private int warmupIterations;
+    private int iterations;
+    private int concurrency;
+    private int errors;
+    private String firstError;
+    private boolean timedOut;
+    // Durée totale de la phase mesurée et débit obtenu
+    private double totalTimeMs;
+    private double throughputPerSecond;
+    // Latence d'un appel du delegate (millisecondes)
+    private double minMs;
+    private double meanMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+    // Octets alloués par appel (moyenne), null si la JVM ne mesure pas les allocations par thread
+    private Long allocatedBytesPerCall;
+    private List<String> variablesRead;
+    // Dernière valeur écrite par variable : type et valeur
+    private Map<String, Map<String, Object>> variablesWritten;
+}
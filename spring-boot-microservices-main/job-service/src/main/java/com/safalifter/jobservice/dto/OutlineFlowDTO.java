@@ -0,0 +1,19 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutlineFlowDTO {
+    
+    private String id;
+    private String sourceId;
+    private String targetId;
+    private String condition;
+    private boolean isDefault;
+}
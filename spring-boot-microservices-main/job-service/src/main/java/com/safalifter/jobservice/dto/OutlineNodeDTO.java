@@ -0,0 +1,23 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutlineNodeDTO {
+    
+    private String id;
+    private String name;
+    private String type;
+    // Sous-processus contenant l'élément (null au niveau du processus)
+    private String parentId;
+    private List<String> incoming;
+    private List<String> outgoing;
+}
@@ -0,0 +1,21 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessOutlineDTO {
+    
+    private Long processId;
+    private String processKey;
+    private Integer version;
+    private List<OutlineNodeDTO> nodes;
+    private List<OutlineFlowDTO> flows;
+}
@@ -0,0 +1,23 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page du catalogue des processus ; nextCursor (opaque) est à renvoyer pour obtenir la page suivante
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessPageDTO {
+
+    private List<ProcessDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+}
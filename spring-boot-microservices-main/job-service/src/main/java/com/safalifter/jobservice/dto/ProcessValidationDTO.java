@@ -0,0 +1,23 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessValidationDTO {
+    
+    private Long processId;
+    private String processKey;
+    private Integer version;
+    private boolean valid;
+    private int errorCount;
+    private int warningCount;
+    private List<ValidationIssueDTO> issues;
+}
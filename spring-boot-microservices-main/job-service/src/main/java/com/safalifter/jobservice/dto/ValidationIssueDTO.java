@@ -0,0 +1,21 @@
+package com.safalifter.jobservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidationIssueDTO {
+    
+    // ERROR ou WARNING
+    private String severity;
+    private String code;
+    private String message;
+    private List<String> elementIds;
+}
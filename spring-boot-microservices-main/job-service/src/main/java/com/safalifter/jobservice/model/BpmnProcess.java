@@ -3,7 +3,10 @@ package com.safalifter.jobservice.model;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -15,7 +18,16 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "bpmn_processes")
+// Seules les colonnes modifiées sont écrites : une sauvegarde du designer n'écrase pas l'état de publication
+@DynamicUpdate
+// Une version par clé (attribuée par BpmnVersionAllocator) ; la contrainte unique sert aussi d'index des
+// versions par clé au catalogue paginé (BpmnProcessCatalogRepository), avec les processus actifs et le préfixe du nom
+@Table(name = "bpmn_processes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bpmn_process_key_version", columnNames = {"processKey", "version"})
+}, indexes = {
+        @Index(name = "idx_bpmn_process_active_key", columnList = "isActive, processKey"),
+        @Index(name = "idx_bpmn_process_name", columnList = "name")
+})
 public class BpmnProcess {
     
     @Id
@@ -37,9 +49,16 @@ public class BpmnProcess {
     @Column(nullable = false)
     private Integer version;
     
-    @Lob
-    @Column(columnDefinition = "LONGTEXT")
-    private String bpmnXml;
+    // Empreinte SHA-256 du XML de la version, stocké compressé et dédupliqué dans bpmn_xml_contents
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    // Jamais chargé avec la version : l'association ne sert qu'à la clé étrangère (lecture via BpmnXmlStore)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "content_hash", insertable = false, updatable = false)
+    private BpmnXmlContent content;
     
     @Column(nullable = false)
     private LocalDateTime createdAt;
@@ -56,6 +75,17 @@ public class BpmnProcess {
     @Column
     private boolean isActive;
     
+    // DRAFT, PENDING, DEPLOYED ou FAILED (null pour les versions antérieures au déploiement asynchrone)
+    @Column(length = 16)
+    private String deploymentStatus;
+    
+    // Empreinte SHA-256 du dernier XML déployé, pour ne pas redéployer un contenu inchangé
+    @Column(length = 64)
+    private String deployedContentHash;
+    
+    @Column(length = 1000)
+    private String deploymentError;
+    
     @OneToMany(mappedBy = "process", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<UserTaskForm> userTaskForms = new HashSet<>();
     
@@ -0,0 +1,49 @@
+package com.safalifter.jobservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Dernier numéro de version attribué pour une clé de processus BPMN.
+ * Incrémenté par un seul UPDATE (BpmnVersionAllocator) : deux sauvegardes concurrentes d'une même clé
+ * obtiennent des versions distinctes, et seules les sauvegardes de cette clé attendent le verrou de la ligne.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "bpmn_version_counters")
+public class BpmnVersionCounter implements Persistable<String> {
+
+    @Id
+    @Column(name = "process_key")
+    private String processKey;
+
+    @Column(name = "last_version", nullable = false)
+    private Integer lastVersion;
+
+    // Compteur d'une clé encore inconnue : toujours inséré, une création concurrente échoue sur la clé primaire
+    @Transient
+    private boolean created;
+
+    @Override
+    public String getId() {
+        return processKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+}
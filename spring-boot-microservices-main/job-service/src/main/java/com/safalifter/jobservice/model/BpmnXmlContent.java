@@ -0,0 +1,49 @@
+package com.safalifter.jobservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Contenu XML d'un modèle BPMN, adressé par son empreinte SHA-256 et compressé (deflate).
+ * Les versions de processus au XML identique partagent la même ligne.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "bpmn_xml_contents")
+public class BpmnXmlContent {
+
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Lob
+    @ToString.Exclude
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    // Taille du XML décompressé (octets UTF-8)
+    @Column(nullable = false)
+    private Integer xmlSize;
+
+    @Column(nullable = false)
+    private Integer compressedSize;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.safalifter.jobservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Trace d'une évaluation de décision DMN (API ou tâche métier du moteur).
+ * Les lignes sont écrites par lots en JDBC par DmnHistoryService, l'entité sert à la lecture paginée.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "dmn_decision_history",
+        indexes = @Index(name = "idx_dmn_history_key_time", columnList = "decision_key, evaluated_at"))
+public class DmnDecisionHistory {
+
+    @Id
+    private String id;
+
+    @Column(name = "decision_key")
+    private String decisionKey;
+
+    @Column(name = "decision_version")
+    private String decisionVersion;
+
+    // API ou ENGINE
+    private String source;
+
+    @Column(name = "process_instance_id")
+    private String processInstanceId;
+
+    @Column(name = "activity_id")
+    private String activityId;
+
+    @Lob
+    private String inputs;
+
+    @Lob
+    private String outputs;
+
+    @Column(name = "duration_micros")
+    private Long durationMicros;
+
+    @Column(name = "evaluated_at")
+    private LocalDateTime evaluatedAt;
+}
@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = @Index(name = "idx_dmn_definition_key_version", columnList = "decisionKey, version"))
 public class DmnDefinition {
 
     @Id
@@ -34,7 +35,9 @@ public class DmnDefinition {
     
     private String deploymentId;
     
-    private String version;
+    // Numéro de version entier : le tri et la recherche de la dernière version utilisent l'index (decision_key, version)
+    @Column(nullable = false)
+    private Integer version;
     
     private LocalDateTime createdAt;
     
@@ -0,0 +1,53 @@
+package com.safalifter.jobservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Pointeur vers la dernière version d'une clé de décision DMN.
+ * Lu par clé primaire, il évite de trier les versions (et de toucher aux lignes XML) à chaque évaluation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "dmn_latest_version")
+public class DmnLatestVersion implements Persistable<String> {
+
+    @Id
+    @Column(name = "decision_key")
+    private String decisionKey;
+
+    @Column(name = "definition_id", nullable = false)
+    private String definitionId;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    private boolean deployed;
+
+    // Pointeur d'une clé encore inconnue : inséré directement, sans la lecture qui précède une fusion
+    @Transient
+    private boolean created;
+
+    @Override
+    public String getId() {
+        return decisionKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -37,6 +38,16 @@ public class JavaDelegate {
     @Column
     private String packageName;
 
+    // Empreinte SHA-256 du code source compilé : un source inchangé n'est pas recompilé
+    @Column(length = 64)
+    private String sourceHash;
+
+    // Classes produites par la compilation du source (JavaDelegateCompiler.pack)
+    @Lob
+    @ToString.Exclude
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] bytecode;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
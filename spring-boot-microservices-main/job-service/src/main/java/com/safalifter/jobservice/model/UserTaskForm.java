@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
@@ -18,7 +20,13 @@ import java.time.LocalDateTime;
 public class UserTaskForm {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Identifiants réservés par blocs de 50 (au lieu d'IDENTITY) pour que Hibernate groupe les insertions en lots JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_task_form_seq")
+    @GenericGenerator(name = "user_task_form_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "user_task_forms_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
     
     @Column(nullable = false)
@@ -0,0 +1,121 @@
+package com.safalifter.jobservice.repository;
+
+import com.safalifter.jobservice.dto.ProcessDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalogue des versions BPMN paginé par clé (keyset) : chaque page est une seule requête SQL,
+ * limitée et appuyée sur les index de bpmn_processes, quel que soit le nombre de versions.
+ * Seules les colonnes de métadonnées sont lues (ni XML, ni formulaires, ni configurations).
+ */
+@Repository
+@RequiredArgsConstructor
+public class BpmnProcessCatalogRepository {
+
+    private static final String SUMMARY_SELECT = "SELECT id, name, process_key, deployment_id, "
+            + "process_definition_id, version, created_at, last_modified_at, description, category, is_active "
+            + "FROM bpmn_processes";
+
+    private static final RowMapper<ProcessDTO> PROCESS_MAPPER = (resultSet, rowNum) -> {
+        Timestamp createdAt = resultSet.getTimestamp("created_at");
+        Timestamp lastModifiedAt = resultSet.getTimestamp("last_modified_at");
+        return ProcessDTO.builder()
+                .id(resultSet.getLong("id"))
+                .name(resultSet.getString("name"))
+                .processKey(resultSet.getString("process_key"))
+                .deploymentId(resultSet.getString("deployment_id"))
+                .processDefinitionId(resultSet.getString("process_definition_id"))
+                .version(resultSet.getInt("version"))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .lastModifiedAt(lastModifiedAt != null ? lastModifiedAt.toLocalDateTime() : null)
+                .description(resultSet.getString("description"))
+                .category(resultSet.getString("category"))
+                .isActive(resultSet.getBoolean("is_active"))
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Colonnes de tri du catalogue (toutes non nulles) ; l'identifiant départage les égalités
+     */
+    public enum SortField {
+        PROCESS_KEY("process_key"),
+        NAME("name"),
+        CREATED_AT("created_at");
+
+        private final String column;
+
+        SortField(String column) {
+            this.column = column;
+        }
+
+        public Object keyOf(ProcessDTO process) {
+            switch (this) {
+                case NAME:
+                    return process.getName();
+                case CREATED_AT:
+                    return Timestamp.valueOf(process.getCreatedAt());
+                default:
+                    return process.getProcessKey();
+            }
+        }
+    }
+
+    /**
+     * Page du catalogue après la position (afterValue, afterId), filtrée par catégorie, préfixe du nom
+     * (jokers LIKE déjà échappés avec '!') et état actif ; les filtres null sont ignorés
+     */
+    public List<ProcessDTO> findCatalogPage(String category, String namePrefix, Boolean active,
+                                            SortField sort, boolean descending,
+                                            Object afterValue, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SUMMARY_SELECT).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        if (namePrefix != null) {
+            sql.append(" AND name LIKE CONCAT(?, '%') ESCAPE '!'");
+            args.add(namePrefix);
+        }
+        if (active != null) {
+            sql.append(" AND is_active = ?");
+            args.add(active);
+        }
+        String comparison = descending ? "<" : ">";
+        if (afterId != null) {
+            sql.append(" AND (").append(sort.column).append(' ').append(comparison).append(" ? OR (")
+                    .append(sort.column).append(" = ? AND id ").append(comparison).append(" ?))");
+            args.add(afterValue);
+            args.add(afterValue);
+            args.add(afterId);
+        }
+        String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(sort.column).append(direction).append(", id").append(direction)
+                .append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), PROCESS_MAPPER, args.toArray());
+    }
+
+    /**
+     * Versions d'un processus, de la plus récente à la plus ancienne, après la position (afterVersion, afterId)
+     */
+    public List<ProcessDTO> findVersionPage(String processKey, Integer afterVersion, Long afterId, int limit) {
+        if (afterId == null) {
+            return jdbcTemplate.query(SUMMARY_SELECT + " WHERE process_key = ?"
+                    + " ORDER BY version DESC, id DESC LIMIT ?", PROCESS_MAPPER, processKey, limit);
+        }
+        return jdbcTemplate.query(SUMMARY_SELECT + " WHERE process_key = ?"
+                        + " AND (version < ? OR (version = ? AND id < ?))"
+                        + " ORDER BY version DESC, id DESC LIMIT ?",
+                PROCESS_MAPPER, processKey, afterVersion, afterVersion, afterId, limit);
+    }
+}
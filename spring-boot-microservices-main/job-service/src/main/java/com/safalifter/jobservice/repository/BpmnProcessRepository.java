@@ -2,9 +2,12 @@ package com.safalifter.jobservice.repository;
 
 import com.safalifter.jobservice.model.BpmnProcess;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,9 +26,34 @@ public interface BpmnProcessRepository extends JpaRepository<BpmnProcess, Long>
            "(SELECT MAX(p2.version) FROM BpmnProcess p2 WHERE p2.processKey = :processKey)")
     Optional<BpmnProcess> findLatestVersionByProcessKey(String processKey);
     
+    // Dernières versions de plusieurs clés en une requête (import d'archive)
+    @Query("SELECT p FROM BpmnProcess p WHERE p.processKey IN :processKeys AND p.version = " +
+           "(SELECT MAX(p2.version) FROM BpmnProcess p2 WHERE p2.processKey = p.processKey)")
+    List<BpmnProcess> findLatestVersionsByProcessKeyIn(@Param("processKeys") Collection<String> processKeys);
+    
+    @Query("SELECT MAX(p.version) FROM BpmnProcess p WHERE p.processKey = :processKey")
+    Integer findMaxVersion(@Param("processKey") String processKey);
+    
     List<BpmnProcess> findByProcessKeyOrderByVersionDesc(String processKey);
     
     Optional<BpmnProcess> findByDeploymentId(String deploymentId);
     
     Optional<BpmnProcess> findByProcessDefinitionId(String processDefinitionId);
+    
+    List<BpmnProcess> findByDeploymentStatus(String deploymentStatus);
+    
+    // Mises à jour ciblées : la publication asynchrone ne doit pas écraser une sauvegarde concurrente du XML
+    @Modifying
+    @Query("UPDATE BpmnProcess p SET p.deploymentId = :deploymentId, p.processDefinitionId = :processDefinitionId, " +
+           "p.deployedContentHash = :contentHash WHERE p.id = :id")
+    int recordDeployment(@Param("id") Long id, @Param("deploymentId") String deploymentId,
+                         @Param("processDefinitionId") String processDefinitionId,
+                         @Param("contentHash") String contentHash);
+    
+    // Le statut n'est modifié que si la version publiée est toujours la version enregistrée
+    @Modifying
+    @Query("UPDATE BpmnProcess p SET p.deploymentStatus = :status, p.deploymentError = :error " +
+           "WHERE p.id = :id AND p.version = :version")
+    int updateDeploymentStatus(@Param("id") Long id, @Param("version") Integer version,
+                               @Param("status") String status, @Param("error") String error);
 }
@@ -0,0 +1,20 @@
+package com.safalifter.jobservice.repository;
+
+import com.safalifter.jobservice.model.BpmnVersionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BpmnVersionCounterRepository extends JpaRepository<BpmnVersionCounter, String> {
+
+    // Incrément atomique : la ligne reste verrouillée jusqu'à la fin de la transaction appelante
+    @Modifying
+    @Query("UPDATE BpmnVersionCounter c SET c.lastVersion = c.lastVersion + 1 WHERE c.processKey = :processKey")
+    int increment(@Param("processKey") String processKey);
+
+    @Query("SELECT c.lastVersion FROM BpmnVersionCounter c WHERE c.processKey = :processKey")
+    Integer findLastVersion(@Param("processKey") String processKey);
+}
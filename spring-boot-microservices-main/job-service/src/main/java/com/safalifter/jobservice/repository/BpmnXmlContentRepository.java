@@ -0,0 +1,29 @@
+package com.safalifter.jobservice.repository;
+
+import com.safalifter.jobservice.model.BpmnXmlContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BpmnXmlContentRepository extends JpaRepository<BpmnXmlContent, String> {
+
+    // Totaux calculés sans lire les contenus
+    @Query("SELECT COUNT(c) AS contents, COALESCE(SUM(c.xmlSize), 0) AS xmlBytes, " +
+           "COALESCE(SUM(c.compressedSize), 0) AS compressedBytes FROM BpmnXmlContent c")
+    StorageTotals getStorageTotals();
+
+    // Supprime le contenu s'il n'est plus référencé par aucune version
+    @Modifying
+    @Query("DELETE FROM BpmnXmlContent c WHERE c.contentHash = :contentHash AND NOT EXISTS " +
+           "(SELECT p.id FROM BpmnProcess p WHERE p.contentHash = :contentHash)")
+    int deleteIfUnreferenced(@Param("contentHash") String contentHash);
+
+    interface StorageTotals {
+        long getContents();
+        long getXmlBytes();
+        long getCompressedBytes();
+    }
+}
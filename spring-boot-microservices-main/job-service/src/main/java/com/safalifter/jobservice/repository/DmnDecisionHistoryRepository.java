@@ -0,0 +1,12 @@
+package com.safalifter.jobservice.repository;
+
+import com.safalifter.jobservice.model.DmnDecisionHistory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DmnDecisionHistoryRepository extends JpaRepository<DmnDecisionHistory, String> {
+    Page<DmnDecisionHistory> findByDecisionKeyOrderByEvaluatedAtDesc(String decisionKey, Pageable pageable);
+}
@@ -1,16 +1,48 @@
 package com.safalifter.jobservice.repository;
 
+import com.safalifter.jobservice.dto.DmnDefinitionSummaryView;
+import com.safalifter.jobservice.dto.DmnDefinitionVersionView;
 import com.safalifter.jobservice.model.DmnDefinition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DmnDefinitionRepository extends JpaRepository<DmnDefinition, String> {
+
+    String SUMMARY_SELECT = "select d.id as id, d.name as name, d.decisionKey as decisionKey, "
+            + "d.description as description, d.category as category, d.version as version, "
+            + "d.deploymentId as deploymentId, d.deployed as deployed, d.createdAt as createdAt, "
+            + "d.updatedAt as updatedAt, d.deployedAt as deployedAt from DmnDefinition d";
+
+    String SUMMARY_FILTER = " where (:category is null or d.category = :category)"
+            + " and (:deployed is null or d.deployed = :deployed)"
+            + " and (:namePrefix is null or d.name like concat(:namePrefix, '%') escape '!')";
+
     Optional<DmnDefinition> findByDecisionKey(String decisionKey);
     List<DmnDefinition> findByDeployedTrue();
     List<DmnDefinition> findByName(String name);
-    Optional<DmnDefinition> findTopByDecisionKeyOrderByVersionDesc(String decisionKey);
+    Optional<DmnDefinitionVersionView> findFirstByDecisionKeyOrderByVersionDesc(String decisionKey);
+
+    @Query("select d.id as id, d.decisionKey as decisionKey, d.version as version, d.deployed as deployed "
+            + "from DmnDefinition d where d.decisionKey in :decisionKeys and d.version = "
+            + "(select max(d2.version) from DmnDefinition d2 where d2.decisionKey = d.decisionKey)")
+    List<DmnDefinitionVersionView> findLatestVersions(@Param("decisionKeys") Collection<String> decisionKeys);
+
+    @Query(SUMMARY_SELECT)
+    List<DmnDefinitionSummaryView> findAllSummaries();
+
+    @Query(value = SUMMARY_SELECT + SUMMARY_FILTER,
+            countQuery = "select count(d) from DmnDefinition d" + SUMMARY_FILTER)
+    Page<DmnDefinitionSummaryView> findSummaries(@Param("category") String category,
+                                                 @Param("deployed") Boolean deployed,
+                                                 @Param("namePrefix") String namePrefix,
+                                                 Pageable pageable);
 }
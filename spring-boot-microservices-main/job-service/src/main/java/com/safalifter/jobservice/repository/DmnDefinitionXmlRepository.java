@@ -0,0 +1,41 @@
+package com.safalifter.jobservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Lecture du XML des définitions DMN sans passer par l'entité (seule la colonne xml est chargée).
+ * Le pilote JDBC charge la ligne entière en mémoire: le XML n'est pas lu en flux depuis la base.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DmnDefinitionXmlRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Copie le XML de la définition dans le writer ; retourne false si la définition n'existe pas
+     */
+    public boolean streamXml(String id, Writer writer) {
+        Boolean found = jdbcTemplate.query("SELECT xml FROM dmn_definition WHERE id = ?", resultSet -> {
+            if (!resultSet.next()) {
+                return false;
+            }
+            try (Reader reader = resultSet.getCharacterStream(1)) {
+                if (reader != null) {
+                    reader.transferTo(writer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }, id);
+        return Boolean.TRUE.equals(found);
+    }
+}
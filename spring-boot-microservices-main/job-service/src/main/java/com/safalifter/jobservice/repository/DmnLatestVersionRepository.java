@@ -0,0 +1,9 @@
+package com.safalifter.jobservice.repository;
+
+import com.safalifter.jobservice.model.DmnLatestVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DmnLatestVersionRepository extends JpaRepository<DmnLatestVersion, String> {
+}
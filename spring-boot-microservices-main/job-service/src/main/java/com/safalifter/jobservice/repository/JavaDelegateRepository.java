@@ -4,10 +4,13 @@ import com.safalifter.jobservice.model.JavaDelegate;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface JavaDelegateRepository extends JpaRepository<JavaDelegate, Long> {
     Optional<JavaDelegate> findByClassName(String className);
     boolean existsByClassName(String className);
+    List<JavaDelegate> findByClassNameIn(Collection<String> classNames);
 }
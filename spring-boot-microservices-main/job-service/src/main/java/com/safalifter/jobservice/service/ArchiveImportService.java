@@ -0,0 +1,449 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.ArchiveEntryResultDTO;
+import com.safalifter.jobservice.dto.ArchiveImportReportDTO;
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.model.DmnDefinition;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import com.safalifter.jobservice.util.ResourceArchiveReader;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.repository.DeploymentWithDefinitions;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.Process;
+import org.camunda.bpm.model.dmn.Dmn;
+import org.camunda.bpm.model.dmn.DmnModelInstance;
+import org.camunda.bpm.model.dmn.instance.Decision;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Import d'une archive (zip, tar ou tar.gz) de fichiers BPMN et DMN. Les entrées sont lues en flux, parsées
+ * et validées en parallèle sur un pool borné, puis regroupées dans le moins de déploiements Camunda possible.
+ * Les versions (BpmnProcess, DmnDefinition) sont enregistrées par lots dans la transaction du déploiement.
+ *
+ * Un déploiement refusé par le moteur est rejoué fichier par fichier pour attribuer l'erreur au bon fichier.
+ */
+@Slf4j
+@Service
+public class ArchiveImportService {
+
+    public static final String TYPE_BPMN = "BPMN";
+    public static final String TYPE_DMN = "DMN";
+    public static final String STATUS_DEPLOYED = "DEPLOYED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String SOURCE = "archive-import";
+
+    private final RepositoryService repositoryService;
+    private final BpmnProcessRepository bpmnProcessRepository;
+    private final BpmnXmlStore bpmnXmlStore;
+    private final BpmnVersionAllocator bpmnVersionAllocator;
+    private final BpmnTaskConfigSync bpmnTaskConfigSync;
+    private final DmnService dmnService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final int maxEntryBytes;
+    private final int maxResourcesPerDeployment;
+
+    public ArchiveImportService(RepositoryService repositoryService,
+                                BpmnProcessRepository bpmnProcessRepository,
+                                BpmnXmlStore bpmnXmlStore,
+                                BpmnVersionAllocator bpmnVersionAllocator,
+                                BpmnTaskConfigSync bpmnTaskConfigSync,
+                                DmnService dmnService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${bpmn.import.parallelism:0}") int parallelism,
+                                @Value("${bpmn.import.max-entry-bytes:10485760}") int maxEntryBytes,
+                                @Value("${bpmn.import.max-resources-per-deployment:100}") int maxResourcesPerDeployment) {
+        this.repositoryService = repositoryService;
+        this.bpmnProcessRepository = bpmnProcessRepository;
+        this.bpmnXmlStore = bpmnXmlStore;
+        this.bpmnVersionAllocator = bpmnVersionAllocator;
+        this.bpmnTaskConfigSync = bpmnTaskConfigSync;
+        this.dmnService = dmnService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(threads, namedDaemonThreads("archive-import-"));
+        // Fenêtre bornée de fichiers en cours d'analyse : la mémoire ne dépend pas de la taille de l'archive
+        this.maxInFlight = threads * 4;
+        this.maxEntryBytes = maxEntryBytes;
+        this.maxResourcesPerDeployment = Math.max(1, maxResourcesPerDeployment);
+    }
+
+    /**
+     * Importe toutes les ressources BPMN et DMN de l'archive. Les autres fichiers sont ignorés.
+     * @param archiveName nom de l'archive, repris dans le nom des déploiements
+     */
+    public ArchiveImportReportDTO importArchive(String archiveName, InputStream input) throws IOException {
+        long start = System.nanoTime();
+        Import state = new Import(archiveName);
+        String abortReason = null;
+        String format;
+
+        Deque<Future<Resource>> pending = new ArrayDeque<>();
+        try (ResourceArchiveReader reader = ResourceArchiveReader.open(input, maxEntryBytes)) {
+            format = reader.getFormat();
+            try {
+                ResourceArchiveReader.Entry entry;
+                while ((entry = reader.next()) != null) {
+                    state.entries++;
+                    String type = typeOf(entry.getName());
+                    if (type == null) {
+                        state.ignored++;
+                        continue;
+                    }
+                    if (entry.isTooLarge()) {
+                        pending.addLast(CompletableFuture.completedFuture(Resource.failure(entry.getName(), type,
+                                "Fichier trop volumineux (" + entry.getSize() + " octets, maximum " + maxEntryBytes + ")")));
+                    } else {
+                        String name = entry.getName();
+                        byte[] content = entry.getContent();
+                        pending.addLast(executor.submit(() -> parse(name, type, content)));
+                    }
+                    if (pending.size() >= maxInFlight) {
+                        accept(await(pending.removeFirst()), state);
+                    }
+                }
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                // Archive illisible ou tronquée : les fichiers déjà lus sont importés
+                abortReason = e.getMessage();
+                log.warn("Lecture de l'archive {} interrompue: {}", archiveName, abortReason);
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            accept(await(pending.removeFirst()), state);
+        }
+        deployChunk(state);
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int failed = (int) state.files.stream().filter(file -> STATUS_FAILED.equals(file.getStatus())).count();
+        ArchiveImportReportDTO report = ArchiveImportReportDTO.builder()
+                .archiveName(archiveName)
+                .format(format)
+                .entries(state.entries)
+                .ignored(state.ignored)
+                .deployedBpmn(countDeployed(state.files, TYPE_BPMN))
+                .deployedDmn(countDeployed(state.files, TYPE_DMN))
+                .failed(failed)
+                .deploymentIds(state.deploymentIds)
+                .durationMs(durationMs)
+                .aborted(abortReason != null)
+                .abortReason(abortReason)
+                .files(state.files)
+                .build();
+        log.info("Archive {} importée: {} entrées, {} BPMN et {} DMN déployés en {} déploiement(s), {} échec(s), {} ms",
+                archiveName, report.getEntries(), report.getDeployedBpmn(), report.getDeployedDmn(),
+                state.deploymentIds.size(), failed, durationMs);
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Type de ressource déduit de l'extension (sensible à la casse, comme pour le moteur), null pour un fichier à ignorer
+     */
+    static String typeOf(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        // Métadonnées ajoutées par macOS aux archives (__MACOSX/, fichiers ._*)
+        if (name.startsWith("__MACOSX/") || fileName.startsWith("._")) {
+            return null;
+        }
+        if (name.endsWith(".bpmn") || name.endsWith(".bpmn20.xml")) {
+            return TYPE_BPMN;
+        }
+        if (name.endsWith(".dmn") || name.endsWith(".dmn11.xml")) {
+            return TYPE_DMN;
+        }
+        return null;
+    }
+
+    /**
+     * Analyse d'un fichier sur le pool : lecture du modèle (validation du schéma) et contrôles propres au type
+     */
+    private Resource parse(String name, String type, byte[] content) {
+        try {
+            String xml = new String(content, StandardCharsets.UTF_8);
+            if (TYPE_BPMN.equals(type)) {
+                BpmnModelInstance model = Bpmn.readModelFromStream(new ByteArrayInputStream(content));
+                List<Process> processes = model.getModelElementsByType(Process.class).stream()
+                        .filter(Process::isExecutable)
+                        .collect(Collectors.toList());
+                if (processes.isEmpty()) {
+                    return Resource.failure(name, type, "Aucun processus exécutable (isExecutable=\"true\")");
+                }
+                Resource resource = new Resource(name, type, xml);
+                resource.bpmnModel = model;
+                for (Process process : processes) {
+                    resource.keys.add(process.getId());
+                    resource.names.put(process.getId(), process.getName() != null ? process.getName() : process.getId());
+                }
+                return resource;
+            }
+            DmnModelInstance model = Dmn.readModelFromStream(new ByteArrayInputStream(content));
+            Resource resource = new Resource(name, type, xml);
+            resource.dmnDefinition = dmnService.parseDefinition(model, xml);
+            for (Decision decision : model.getModelElementsByType(Decision.class)) {
+                resource.keys.add(decision.getId());
+            }
+            return resource;
+        } catch (Exception e) {
+            return Resource.failure(name, type, e.getMessage());
+        }
+    }
+
+    /**
+     * Ajoute un fichier analysé au déploiement en cours. Une clé ou un nom de ressource déjà présent
+     * dans ce déploiement le fait partir d'abord : le moteur refuse deux définitions d'une clé par déploiement,
+     * et l'ordre de l'archive donne l'ordre des versions.
+     */
+    private void accept(Resource resource, Import state) {
+        if (resource.error != null) {
+            state.files.add(result(resource, STATUS_FAILED, null, resource.error));
+            return;
+        }
+        boolean conflict = state.chunkNames.contains(resource.name)
+                || resource.keys.stream().anyMatch(key -> state.chunkKeys.contains(resource.type + ":" + key));
+        if (conflict) {
+            deployChunk(state);
+        }
+        state.chunk.add(resource);
+        state.chunkNames.add(resource.name);
+        resource.keys.forEach(key -> state.chunkKeys.add(resource.type + ":" + key));
+        if (state.chunk.size() >= maxResourcesPerDeployment) {
+            deployChunk(state);
+        }
+    }
+
+    private void deployChunk(Import state) {
+        if (state.chunk.isEmpty()) {
+            return;
+        }
+        List<Resource> chunk = new ArrayList<>(state.chunk);
+        state.chunk.clear();
+        state.chunkNames.clear();
+        state.chunkKeys.clear();
+
+        String deploymentName = "Import " + state.archiveName + " (" + (state.deploymentIds.size() + 1) + ")";
+        try {
+            String deploymentId = deployAndRecord(deploymentName, chunk);
+            state.deploymentIds.add(deploymentId);
+            chunk.forEach(resource -> state.files.add(result(resource, STATUS_DEPLOYED, deploymentId, null)));
+            return;
+        } catch (Exception e) {
+            if (chunk.size() == 1) {
+                state.files.add(result(chunk.get(0), STATUS_FAILED, null, String.valueOf(e.getMessage())));
+                return;
+            }
+            log.warn("Déploiement groupé de {} fichiers refusé ({}), reprise fichier par fichier",
+                    chunk.size(), e.getMessage());
+        }
+
+        for (Resource resource : chunk) {
+            try {
+                String deploymentId = deployAndRecord(deploymentName + " - " + resource.name, List.of(resource));
+                state.deploymentIds.add(deploymentId);
+                state.files.add(result(resource, STATUS_DEPLOYED, deploymentId, null));
+            } catch (Exception e) {
+                state.files.add(result(resource, STATUS_FAILED, null, String.valueOf(e.getMessage())));
+            }
+        }
+    }
+
+    /**
+     * Un déploiement moteur et l'enregistrement des versions dans une même transaction
+     */
+    private String deployAndRecord(String deploymentName, List<Resource> resources) {
+        return transactionTemplate.execute(status -> {
+            DeploymentBuilder builder = repositoryService.createDeployment()
+                    .name(deploymentName)
+                    .source(SOURCE);
+            resources.forEach(resource -> builder.addString(resource.name, resource.xml));
+            DeploymentWithDefinitions deployment = builder.deployWithResult();
+
+            recordProcesses(resources, deployment);
+            // Nouvelles instances à chaque tentative : une transaction annulée ne laisse pas d'identifiant
+            List<DmnDefinition> definitions = resources.stream()
+                    .filter(resource -> resource.dmnDefinition != null)
+                    .map(resource -> DmnDefinition.builder()
+                            .name(resource.dmnDefinition.getName())
+                            .decisionKey(resource.dmnDefinition.getDecisionKey())
+                            .xml(resource.xml)
+                            .build())
+                    .collect(Collectors.toList());
+            if (!definitions.isEmpty()) {
+                dmnService.recordDeployedDefinitions(definitions, deployment.getId());
+            }
+            log.info("Déploiement {} ({}) : {} fichier(s)", deployment.getId(), deploymentName, resources.size());
+            return deployment.getId();
+        });
+    }
+
+    /**
+     * Nouvelle version de chaque processus déployé : dernières versions lues en une requête, écriture groupée
+     */
+    private void recordProcesses(List<Resource> resources, DeploymentWithDefinitions deployment) {
+        List<Resource> bpmnResources = resources.stream()
+                .filter(resource -> resource.bpmnModel != null)
+                .collect(Collectors.toList());
+        if (bpmnResources.isEmpty()) {
+            return;
+        }
+        Map<String, String> definitionIds = new HashMap<>();
+        List<ProcessDefinition> deployedDefinitions = deployment.getDeployedProcessDefinitions();
+        if (deployedDefinitions != null) {
+            deployedDefinitions.forEach(definition -> definitionIds.put(definition.getKey(), definition.getId()));
+        }
+
+        Set<String> processKeys = bpmnResources.stream()
+                .flatMap(resource -> resource.keys.stream())
+                .collect(Collectors.toSet());
+        Map<String, BpmnProcess> latest = new HashMap<>();
+        for (BpmnProcess process : bpmnProcessRepository.findLatestVersionsByProcessKeyIn(processKeys)) {
+            latest.putIfAbsent(process.getProcessKey(), process);
+        }
+        // Une clé n'apparaît qu'une fois par déploiement : une version par clé
+        Map<String, Integer> versions = bpmnVersionAllocator.nextVersions(processKeys);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BpmnProcess> rows = new ArrayList<>();
+        List<BpmnModelInstance> models = new ArrayList<>();
+        for (Resource resource : bpmnResources) {
+            String contentHash = bpmnXmlStore.store(resource.xml);
+            for (String processKey : resource.keys) {
+                BpmnProcess process = latest.get(processKey);
+                if (process == null) {
+                    process = new BpmnProcess();
+                    process.setProcessKey(processKey);
+                    process.setCreatedAt(now);
+                    process.setVersion(versions.get(processKey));
+                } else {
+                    process.setVersion(versions.get(processKey));
+                    String previousContentHash = process.getContentHash();
+                    if (previousContentHash != null && !previousContentHash.equals(contentHash)) {
+                        bpmnXmlStore.releaseAfterCommit(previousContentHash);
+                    }
+                }
+                process.setName(resource.names.get(processKey));
+                process.setContentHash(contentHash);
+                process.setDeployedContentHash(contentHash);
+                process.setDeploymentId(deployment.getId());
+                process.setProcessDefinitionId(definitionIds.getOrDefault(processKey, ""));
+                process.setDeploymentStatus(BpmnDeploymentQueue.STATUS_DEPLOYED);
+                process.setDeploymentError(null);
+                process.setLastModifiedAt(now);
+                rows.add(process);
+                models.add(resource.bpmnModel);
+            }
+        }
+        List<BpmnProcess> saved = bpmnProcessRepository.saveAll(rows);
+        for (int i = 0; i < saved.size(); i++) {
+            bpmnTaskConfigSync.sync(saved.get(i), models.get(i));
+        }
+    }
+
+    private Resource await(Future<Resource> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import d'archive interrompu");
+        } catch (ExecutionException e) {
+            throw new IOException("Erreur inattendue lors de l'analyse d'un fichier", e.getCause());
+        }
+    }
+
+    private static ArchiveEntryResultDTO result(Resource resource, String status, String deploymentId, String error) {
+        return ArchiveEntryResultDTO.builder()
+                .name(resource.name)
+                .type(resource.type)
+                .status(status)
+                .keys(resource.keys)
+                .deploymentId(deploymentId)
+                .error(error)
+                .build();
+    }
+
+    private static int countDeployed(List<ArchiveEntryResultDTO> files, String type) {
+        return (int) files.stream()
+                .filter(file -> type.equals(file.getType()) && STATUS_DEPLOYED.equals(file.getStatus()))
+                .count();
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Fichier analysé : XML et modèle à déployer, ou erreur
+     */
+    private static final class Resource {
+        private final String name;
+        private final String type;
+        private final String xml;
+        private final List<String> keys = new ArrayList<>();
+        private final Map<String, String> names = new HashMap<>();
+        private BpmnModelInstance bpmnModel;
+        private DmnDefinition dmnDefinition;
+        private String error;
+
+        private Resource(String name, String type, String xml) {
+            this.name = name;
+            this.type = type;
+            this.xml = xml;
+        }
+
+        private static Resource failure(String name, String type, String error) {
+            Resource resource = new Resource(name, type, null);
+            resource.error = error;
+            return resource;
+        }
+    }
+
+    /**
+     * État d'un import : déploiement en cours de constitution et résultats
+     */
+    private static final class Import {
+        private final String archiveName;
+        private final List<Resource> chunk = new ArrayList<>();
+        private final Set<String> chunkNames = new HashSet<>();
+        private final Set<String> chunkKeys = new HashSet<>();
+        private final List<String> deploymentIds = new ArrayList<>();
+        private final List<ArchiveEntryResultDTO> files = new ArrayList<>();
+        private int entries;
+        private int ignored;
+
+        private Import(String archiveName) {
+            this.archiveName = archiveName;
+        }
+    }
+}
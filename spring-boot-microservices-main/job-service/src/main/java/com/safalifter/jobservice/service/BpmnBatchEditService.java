@@ -0,0 +1,286 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.BpmnBatchEditResponse;
+import com.safalifter.jobservice.dto.BpmnOperationRequest;
+import com.safalifter.jobservice.dto.BpmnOperationResultDto;
+import com.safalifter.jobservice.dto.ElementRequest;
+import com.safalifter.jobservice.model.BpmnProcess;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.*;
+import org.camunda.bpm.model.bpmn.instance.Process;
+import org.camunda.bpm.model.xml.instance.ModelElementInstance;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Édition en lot d'un modèle BPMN : les opérations du designer sont appliquées dans l'ordre sur un seul
+ * modèle en mémoire, validé une fois, puis sauvegardé en une seule version et publié au plus une fois.
+ * Le lot est tout ou rien : à la première opération en échec, rien n'est persisté.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BpmnBatchEditService {
+
+    public static final String OP_ADD = "add";
+    public static final String OP_CONFIGURE_USER_TASK = "configureUserTask";
+    public static final String OP_CONFIGURE_SERVICE_TASK = "configureServiceTask";
+    public static final String OP_REMOVE = "remove";
+    public static final String OP_CONNECT = "connect";
+
+    public static final String STATUS_APPLIED = "APPLIED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_SKIPPED = "SKIPPED";
+
+    private final BpmnModelService bpmnModelService;
+
+    /**
+     * Applique les opérations sur la dernière version enregistrée du processus
+     */
+    @Transactional
+    public BpmnBatchEditResponse applyOperations(Long processId, List<BpmnOperationRequest> operations, boolean publish) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Aucune opération à appliquer");
+        }
+        BpmnProcess process = bpmnModelService.getProcessById(processId);
+        BpmnModelInstance modelInstance = bpmnModelService.loadProcessModel(process);
+
+        // Les configurations en base ne sont écrites qu'une fois le modèle sauvegardé
+        List<Consumer<BpmnProcess>> pendingConfigurations = new ArrayList<>();
+        List<BpmnOperationResultDto> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BpmnOperationRequest operation = operations.get(i);
+            try {
+                String elementId = apply(modelInstance, operation, pendingConfigurations);
+                results.add(result(i, operation, elementId, STATUS_APPLIED, null));
+            } catch (Exception e) {
+                log.warn("Opération {} ({}) en échec sur le processus {}: {}", i, operation.getOp(), processId, e.getMessage());
+                results.add(result(i, operation, targetOf(operation), STATUS_FAILED, e.getMessage()));
+                for (int j = i + 1; j < operations.size(); j++) {
+                    results.add(result(j, operations.get(j), targetOf(operations.get(j)), STATUS_SKIPPED, null));
+                }
+                return rejected(processId, "Opération " + i + " en échec, aucune modification enregistrée", results);
+            }
+        }
+
+        // Une seule validation pour tout le lot
+        try {
+            validate(modelInstance);
+        } catch (Exception e) {
+            log.warn("Modèle invalide après le lot d'opérations sur le processus {}: {}", processId, e.getMessage());
+            return rejected(processId, "Modèle invalide, aucune modification enregistrée: " + e.getMessage(), results);
+        }
+
+        BpmnProcess savedProcess = bpmnModelService.saveBpmnModel(
+                modelInstance, process.getName(), process.getCategory(), process.getDescription(), publish);
+        pendingConfigurations.forEach(configuration -> configuration.accept(savedProcess));
+
+        log.info("{} opérations appliquées au processus {} (version {})", operations.size(), savedProcess.getId(),
+                savedProcess.getVersion());
+        return BpmnBatchEditResponse.builder()
+                .success(true)
+                .message(operations.size() + " opérations appliquées")
+                .processId(savedProcess.getId())
+                .version(savedProcess.getVersion())
+                .deploymentStatus(savedProcess.getDeploymentStatus())
+                .results(results)
+                .build();
+    }
+
+    private String apply(BpmnModelInstance modelInstance, BpmnOperationRequest operation,
+                         List<Consumer<BpmnProcess>> pendingConfigurations) {
+        if (operation.getOp() == null) {
+            throw new IllegalArgumentException("Type d'opération manquant");
+        }
+        switch (operation.getOp()) {
+            case OP_ADD:
+                return add(modelInstance, operation.getElement());
+
+            case OP_CONFIGURE_USER_TASK: {
+                String taskId = operation.getElementId();
+                requireElement(modelInstance, taskId, UserTask.class);
+                if (operation.getUserTask() == null) {
+                    throw new IllegalArgumentException("Configuration de la tâche utilisateur manquante");
+                }
+                bpmnModelService.configureUserTask(modelInstance, taskId,
+                        operation.getUserTask().getAssignee(),
+                        operation.getUserTask().getCandidateGroups(),
+                        operation.getUserTask().getCandidateUsers(),
+                        operation.getUserTask().getFormKey());
+                pendingConfigurations.add(process ->
+                        bpmnModelService.saveUserTaskFormConfiguration(process, taskId, operation.getUserTask()));
+                return taskId;
+            }
+
+            case OP_CONFIGURE_SERVICE_TASK: {
+                String taskId = operation.getElementId();
+                requireElement(modelInstance, taskId, ServiceTask.class);
+                if (operation.getServiceTask() == null) {
+                    throw new IllegalArgumentException("Configuration de la tâche de service manquante");
+                }
+                bpmnModelService.configureServiceTask(modelInstance, taskId,
+                        operation.getServiceTask().getImplementation(),
+                        operation.getServiceTask().getAsyncBefore(),
+                        operation.getServiceTask().getAsyncAfter(),
+                        operation.getServiceTask().getExclusive());
+                pendingConfigurations.add(process ->
+                        bpmnModelService.saveServiceTaskConfiguration(process, taskId, operation.getServiceTask()));
+                return taskId;
+            }
+
+            case OP_REMOVE:
+                return remove(modelInstance, operation.getElementId());
+
+            case OP_CONNECT:
+                return connect(modelInstance, operation);
+
+            default:
+                throw new IllegalArgumentException("Type d'opération non supporté: " + operation.getOp());
+        }
+    }
+
+    private String add(BpmnModelInstance modelInstance, ElementRequest element) {
+        if (element == null || element.getType() == null) {
+            throw new IllegalArgumentException("Élément à ajouter manquant");
+        }
+        requireNewId(modelInstance, element.getElementId());
+        requireElement(modelInstance, element.getSourceId(), FlowNode.class);
+        if (element.getTargetId() != null) {
+            requireElement(modelInstance, element.getTargetId(), FlowNode.class);
+        }
+
+        switch (element.getType()) {
+            case "userTask":
+                bpmnModelService.addUserTask(modelInstance, element.getElementId(), element.getName(),
+                        element.getSourceId(), element.getTargetId());
+                break;
+
+            case "serviceTask":
+                bpmnModelService.addServiceTask(modelInstance, element.getElementId(), element.getName(),
+                        element.getImplementation(), element.getSourceId(), element.getTargetId());
+                break;
+
+            case "exclusiveGateway":
+                if (element.getTargetIds() == null || element.getTargetIds().isEmpty()) {
+                    throw new IllegalArgumentException("Une gateway exclusive nécessite au moins une cible");
+                }
+                for (String targetId : element.getTargetIds()) {
+                    requireElement(modelInstance, targetId, FlowNode.class);
+                }
+                bpmnModelService.addExclusiveGateway(modelInstance, element.getElementId(), element.getName(),
+                        element.getSourceId(), element.getTargetIds(), element.getConditions(),
+                        element.getDefaultTargetId());
+                break;
+
+            default:
+                throw new IllegalArgumentException("Type d'élément non supporté: " + element.getType());
+        }
+        return element.getElementId();
+    }
+
+    private String remove(BpmnModelInstance modelInstance, String elementId) {
+        ModelElementInstance element = requireElement(modelInstance, elementId, FlowElement.class);
+        if (element instanceof SequenceFlow) {
+            SequenceFlow flow = (SequenceFlow) element;
+            // Un flux par défaut supprimé ne doit pas rester référencé par sa gateway
+            FlowNode source = flow.getSource();
+            if (source instanceof ExclusiveGateway && flow.equals(((ExclusiveGateway) source).getDefault())) {
+                ((ExclusiveGateway) source).setDefault(null);
+            }
+            flow.getParentElement().removeChildElement(flow);
+        } else {
+            bpmnModelService.removeElement(modelInstance, elementId);
+        }
+        return elementId;
+    }
+
+    private String connect(BpmnModelInstance modelInstance, BpmnOperationRequest operation) {
+        FlowNode source = requireElement(modelInstance, operation.getSourceId(), FlowNode.class);
+        FlowNode target = requireElement(modelInstance, operation.getTargetId(), FlowNode.class);
+        String flowId = operation.getFlowId() != null ? operation.getFlowId()
+                : "flow_" + operation.getSourceId() + "_" + operation.getTargetId();
+        requireNewId(modelInstance, flowId);
+
+        Process process = (Process) source.getParentElement();
+        SequenceFlow flow = modelInstance.newInstance(SequenceFlow.class);
+        flow.setId(flowId);
+        flow.setSource(source);
+        flow.setTarget(target);
+        if (operation.getCondition() != null && !operation.getCondition().isEmpty()) {
+            ConditionExpression conditionExpression = modelInstance.newInstance(ConditionExpression.class);
+            conditionExpression.setTextContent(operation.getCondition());
+            flow.setConditionExpression(conditionExpression);
+        }
+        process.addChildElement(flow);
+        return flowId;
+    }
+
+    private void validate(BpmnModelInstance modelInstance) {
+        for (SequenceFlow flow : modelInstance.getModelElementsByType(SequenceFlow.class)) {
+            if (flow.getSource() == null || flow.getTarget() == null) {
+                throw new IllegalStateException("Flux sans source ou cible: " + flow.getId());
+            }
+        }
+        Bpmn.validateModel(modelInstance);
+    }
+
+    private <T extends ModelElementInstance> T requireElement(BpmnModelInstance modelInstance, String id, Class<T> type) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("ID d'élément manquant");
+        }
+        ModelElementInstance element = modelInstance.getModelElementById(id);
+        if (element == null) {
+            throw new IllegalArgumentException("Élément introuvable: " + id);
+        }
+        if (!type.isInstance(element)) {
+            throw new IllegalArgumentException("L'élément " + id + " n'est pas de type " + type.getSimpleName());
+        }
+        return type.cast(element);
+    }
+
+    private void requireNewId(BpmnModelInstance modelInstance, String id) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("ID d'élément manquant");
+        }
+        if (modelInstance.getModelElementById(id) != null) {
+            throw new IllegalArgumentException("Un élément avec l'ID " + id + " existe déjà");
+        }
+    }
+
+    private String targetOf(BpmnOperationRequest operation) {
+        if (OP_ADD.equals(operation.getOp()) && operation.getElement() != null) {
+            return operation.getElement().getElementId();
+        }
+        if (OP_CONNECT.equals(operation.getOp())) {
+            return operation.getFlowId();
+        }
+        return operation.getElementId();
+    }
+
+    private BpmnOperationResultDto result(int index, BpmnOperationRequest operation, String elementId,
+                                          String status, String message) {
+        return BpmnOperationResultDto.builder()
+                .index(index)
+                .op(operation.getOp())
+                .elementId(elementId)
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private BpmnBatchEditResponse rejected(Long processId, String message, List<BpmnOperationResultDto> results) {
+        return BpmnBatchEditResponse.builder()
+                .success(false)
+                .message(message)
+                .processId(processId)
+                .results(results)
+                .build();
+    }
+}
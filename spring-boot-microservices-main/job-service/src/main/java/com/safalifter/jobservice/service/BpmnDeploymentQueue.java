@@ -0,0 +1,268 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.DeploymentWithDefinitions;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File de publication des processus BPMN : les demandes de déploiement sont traitées hors de la requête HTTP,
+ * regroupées par clé de processus (une rafale de sauvegardes ne produit qu'un déploiement de la dernière version)
+ * et ignorées quand le XML est identique au dernier XML déployé.
+ */
+@Slf4j
+@Service
+public class BpmnDeploymentQueue {
+
+    public static final String STATUS_DRAFT = "DRAFT";
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_DEPLOYED = "DEPLOYED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final BpmnProcessRepository bpmnProcessRepository;
+    private final RepositoryService repositoryService;
+    private final BpmnXmlStore bpmnXmlStore;
+    private final BpmnTaskConfigSync bpmnTaskConfigSync;
+    private final TransactionTemplate transactionTemplate;
+    private final long debounceMs;
+    private final ScheduledThreadPoolExecutor executor;
+    // Une seule publication planifiée par clé de processus
+    private final Map<String, DeploymentTask> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong deployed = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public BpmnDeploymentQueue(BpmnProcessRepository bpmnProcessRepository,
+                               RepositoryService repositoryService,
+                               BpmnXmlStore bpmnXmlStore,
+                               BpmnTaskConfigSync bpmnTaskConfigSync,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bpmn.deployment.debounce-ms:2000}") long debounceMs) {
+        this.bpmnProcessRepository = bpmnProcessRepository;
+        this.repositoryService = repositoryService;
+        this.bpmnXmlStore = bpmnXmlStore;
+        this.bpmnTaskConfigSync = bpmnTaskConfigSync;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.debounceMs = Math.max(0, debounceMs);
+        // Un seul thread : les déploiements d'une même clé ne se chevauchent jamais
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "bpmn-deployer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Reprend les publications restées en attente lors du dernier arrêt
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<BpmnProcess> processes = bpmnProcessRepository.findByDeploymentStatus(STATUS_PENDING);
+        for (BpmnProcess process : processes) {
+            schedule(process.getProcessKey());
+        }
+        if (!processes.isEmpty()) {
+            log.info("{} publication(s) BPMN en attente reprise(s)", processes.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Demande la publication de la dernière version d'un processus.
+     * Dans une transaction, la demande n'est planifiée qu'après le commit de la sauvegarde.
+     */
+    public void publish(String processKey) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(processKey);
+                }
+            });
+        } else {
+            schedule(processKey);
+        }
+    }
+
+    /**
+     * État de publication d'une version de processus
+     */
+    public Map<String, Object> getStatus(BpmnProcess process) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("processId", process.getId());
+        status.put("processKey", process.getProcessKey());
+        status.put("version", process.getVersion());
+        status.put("status", statusOf(process));
+        status.put("queued", pending.containsKey(process.getProcessKey()));
+        status.put("deploymentId", process.getDeploymentId());
+        status.put("processDefinitionId", process.getProcessDefinitionId());
+        status.put("error", process.getDeploymentError());
+        return status;
+    }
+
+    /**
+     * Statistiques de la file (demandes, regroupements, déploiements, contenus inchangés, échecs)
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", pending.size());
+        stats.put("debounceMs", debounceMs);
+        stats.put("requested", requested.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("deployed", deployed.get());
+        stats.put("unchanged", unchanged.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private void schedule(String processKey) {
+        requested.incrementAndGet();
+        pending.compute(processKey, (key, previous) -> {
+            // Une publication pas encore démarrée est remplacée : seule la dernière version sera déployée
+            if (previous != null && previous.future.cancel(false)) {
+                coalesced.incrementAndGet();
+            }
+            DeploymentTask task = new DeploymentTask(key);
+            task.future = executor.schedule(task, debounceMs, TimeUnit.MILLISECONDS);
+            return task;
+        });
+    }
+
+    private void deployLatest(String processKey) {
+        BpmnProcess process = transactionTemplate.execute(status ->
+                bpmnProcessRepository.findLatestVersionByProcessKey(processKey).orElse(null));
+        if (process == null || process.getContentHash() == null) {
+            log.warn("Publication ignorée, processus introuvable: {}", processKey);
+            return;
+        }
+        if (!STATUS_PENDING.equals(process.getDeploymentStatus())) {
+            // Un brouillon enregistré depuis la demande remplace la version à publier
+            log.info("Publication ignorée pour {}: la version {} est à l'état {}", processKey,
+                    process.getVersion(), process.getDeploymentStatus());
+            return;
+        }
+
+        // L'empreinte stockée suffit à reconnaître un contenu inchangé, sans lire le XML
+        String contentHash = process.getContentHash();
+        if (contentHash.equals(process.getDeployedContentHash())) {
+            log.info("XML inchangé pour {} (version {}), pas de nouveau déploiement", processKey, process.getVersion());
+            transactionTemplate.executeWithoutResult(status -> bpmnProcessRepository.updateDeploymentStatus(
+                    process.getId(), process.getVersion(), STATUS_DEPLOYED, null));
+            unchanged.incrementAndGet();
+            return;
+        }
+
+        String bpmnXml = null;
+        try {
+            bpmnXml = bpmnXmlStore.load(contentHash);
+            String xml = bpmnXml;
+            transactionTemplate.executeWithoutResult(status -> deploy(process, xml, contentHash));
+            deployed.incrementAndGet();
+        } catch (Exception e) {
+            log.error("Échec du déploiement Camunda du processus {} (version {})", processKey, process.getVersion(), e);
+            if (bpmnXml != null) {
+                saveFailedXml(bpmnXml);
+            }
+            String error = String.valueOf(e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> bpmnProcessRepository.updateDeploymentStatus(
+                    process.getId(), process.getVersion(), STATUS_FAILED,
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error));
+            failed.incrementAndGet();
+        }
+    }
+
+    private void deploy(BpmnProcess process, String bpmnXml, String contentHash) {
+        // Le filtrage des doublons du moteur complète la comparaison d'empreintes
+        DeploymentWithDefinitions deployment = repositoryService.createDeployment()
+                .addString(process.getProcessKey() + ".bpmn", bpmnXml)
+                .name(process.getName())
+                .source("bpmn-designer")
+                .enableDuplicateFiltering(false)
+                .deployWithResult();
+
+        ProcessDefinition processDefinition = deployment.getDeployedProcessDefinitions() != null
+                && !deployment.getDeployedProcessDefinitions().isEmpty()
+                ? deployment.getDeployedProcessDefinitions().get(0)
+                : repositoryService.createProcessDefinitionQuery()
+                        .deploymentId(deployment.getId())
+                        .list().stream().findFirst().orElse(null);
+        String processDefinitionId = processDefinition != null ? processDefinition.getId() : "";
+
+        log.info("Déploiement réussi: processKey={}, version={}, deploymentId={}, processDefinitionId={}",
+                process.getProcessKey(), process.getVersion(), deployment.getId(), processDefinitionId);
+        bpmnProcessRepository.recordDeployment(process.getId(), deployment.getId(), processDefinitionId, contentHash);
+        // Même transaction que le déploiement : configurations et version publiée restent cohérentes
+        bpmnTaskConfigSync.sync(process, contentHash, bpmnXml);
+        bpmnProcessRepository.updateDeploymentStatus(process.getId(), process.getVersion(), STATUS_DEPLOYED, null);
+    }
+
+    // Conserve le XML refusé par le moteur pour analyse
+    private void saveFailedXml(String bpmnXml) {
+        try {
+            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+            Path file = Paths.get(System.getProperty("java.io.tmpdir"), "error_bpmn_" + timestamp + ".xml");
+            Files.write(file, bpmnXml.getBytes(StandardCharsets.UTF_8));
+            log.info("XML problématique sauvegardé dans: {}", file);
+        } catch (Exception e) {
+            log.error("Impossible de sauvegarder le XML problématique", e);
+        }
+    }
+
+    private String statusOf(BpmnProcess process) {
+        if (process.getDeploymentStatus() != null) {
+            return process.getDeploymentStatus();
+        }
+        // Versions enregistrées avant la publication asynchrone
+        return process.getDeploymentId() != null && !process.getDeploymentId().isEmpty()
+                ? STATUS_DEPLOYED : STATUS_DRAFT;
+    }
+
+    private final class DeploymentTask implements Runnable {
+        private final String processKey;
+        private volatile ScheduledFuture<?> future;
+
+        private DeploymentTask(String processKey) {
+            this.processKey = processKey;
+        }
+
+        @Override
+        public void run() {
+            pending.remove(processKey, this);
+            try {
+                deployLatest(processKey);
+            } catch (Exception e) {
+                log.error("Erreur inattendue lors de la publication du processus {}", processKey, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.*;
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.bpmngraph.BpmnGraph;
+import com.safalifter.bpmngraph.BpmnGraph.NodeKind;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Graphes compilés (BpmnGraph) des versions de processus, en cache par empreinte du XML : une version
+ * n'est compilée qu'une fois, puis la validation et le plan du processus ne lisent que les tableaux du graphe.
+ */
+@Slf4j
+@Service
+public class BpmnGraphService {
+
+    static final String ERROR = "ERROR";
+    static final String WARNING = "WARNING";
+
+    private final BpmnModelService bpmnModelService;
+    private final int maxEntries;
+    private final Map<String, BpmnGraph> graphs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public BpmnGraphService(BpmnModelService bpmnModelService,
+                            @Value("${bpmn.graph-cache.max-entries:64}") int maxEntries) {
+        this.bpmnModelService = bpmnModelService;
+        this.maxEntries = maxEntries;
+        // Le graphe est immuable : il est partagé tel quel, sans copie
+        this.graphs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BpmnGraph> eldest) {
+                return size() > BpmnGraphService.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Graphe compilé de la version, depuis le cache si elle a déjà été compilée
+     */
+    public BpmnGraph getGraph(BpmnProcess process) {
+        String key = process.getContentHash();
+        if (key == null) {
+            return BpmnGraph.compile(bpmnModelService.loadProcessModel(process));
+        }
+        synchronized (graphs) {
+            BpmnGraph graph = graphs.get(key);
+            if (graph != null) {
+                hits.incrementAndGet();
+                return graph;
+            }
+        }
+        misses.incrementAndGet();
+        BpmnGraph graph = BpmnGraph.compile(bpmnModelService.loadProcessModel(process));
+        log.debug("Graphe BPMN compilé pour {} : {} noeuds, {} arcs", key, graph.nodeCount(), graph.edgeCount());
+        synchronized (graphs) {
+            graphs.put(key, graph);
+        }
+        return graph;
+    }
+
+    /**
+     * Analyse statique de la version : accessibilité, impasses, règles des passerelles, cycles sans sortie
+     */
+    public ProcessValidationDTO validate(BpmnProcess process) {
+        List<ValidationIssueDTO> issues = analyze(getGraph(process));
+        int errors = (int) issues.stream().filter(issue -> ERROR.equals(issue.getSeverity())).count();
+        return ProcessValidationDTO.builder()
+                .processId(process.getId())
+                .processKey(process.getProcessKey())
+                .version(process.getVersion())
+                .valid(errors == 0)
+                .errorCount(errors)
+                .warningCount(issues.size() - errors)
+                .issues(issues)
+                .build();
+    }
+
+    /**
+     * Plan de la version : éléments avec leurs voisins directs et flux de séquence
+     */
+    public ProcessOutlineDTO outline(BpmnProcess process) {
+        BpmnGraph graph = getGraph(process);
+        List<OutlineNodeDTO> nodes = new ArrayList<>(graph.nodeCount());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            List<String> incoming = new ArrayList<>();
+            for (int p = graph.inStart(node); p < graph.inEnd(node); p++) {
+                int edge = graph.inEdge(p);
+                if (graph.edgeKind(edge) == BpmnGraph.EDGE_FLOW) {
+                    incoming.add(graph.nodeId(graph.edgeSource(edge)));
+                }
+            }
+            List<String> outgoing = new ArrayList<>();
+            for (int p = graph.outStart(node); p < graph.outEnd(node); p++) {
+                int edge = graph.outEdge(p);
+                if (graph.edgeKind(edge) == BpmnGraph.EDGE_FLOW) {
+                    outgoing.add(graph.nodeId(graph.edgeTarget(edge)));
+                }
+            }
+            int parent = graph.parent(node);
+            nodes.add(OutlineNodeDTO.builder()
+                    .id(graph.nodeId(node))
+                    .name(graph.nodeName(node))
+                    .type(graph.nodeType(node))
+                    .parentId(parent >= 0 ? graph.nodeId(parent) : null)
+                    .incoming(incoming)
+                    .outgoing(outgoing)
+                    .build());
+        }
+
+        List<OutlineFlowDTO> flows = new ArrayList<>();
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (graph.edgeKind(edge) == BpmnGraph.EDGE_FLOW) {
+                flows.add(OutlineFlowDTO.builder()
+                        .id(graph.flowId(edge))
+                        .sourceId(graph.nodeId(graph.edgeSource(edge)))
+                        .targetId(graph.nodeId(graph.edgeTarget(edge)))
+                        .condition(graph.condition(edge))
+                        .isDefault(graph.isDefaultFlow(edge))
+                        .build());
+            }
+        }
+        return ProcessOutlineDTO.builder()
+                .processId(process.getId())
+                .processKey(process.getProcessKey())
+                .version(process.getVersion())
+                .nodes(nodes)
+                .flows(flows)
+                .build();
+    }
+
+    /**
+     * Statistiques du cache des graphes compilés
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        synchronized (graphs) {
+            stats.put("size", graphs.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    static List<ValidationIssueDTO> analyze(BpmnGraph graph) {
+        List<ValidationIssueDTO> issues = new ArrayList<>();
+        if (graph.roots().isEmpty()) {
+            issues.add(issue(ERROR, "NO_START_EVENT", "Le processus n'a pas d'événement de début", List.of()));
+        }
+
+        BitSet reachable = graph.reachable();
+        List<String> unreachable = new ArrayList<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (!reachable.get(node) && !graph.isDetached(node) && !hasDetachedAncestor(graph, node)) {
+                unreachable.add(graph.nodeId(node));
+            }
+        }
+        if (!unreachable.isEmpty() && !graph.roots().isEmpty()) {
+            issues.add(issue(ERROR, "UNREACHABLE", "Éléments inaccessibles depuis un événement de début", unreachable));
+        }
+
+        BitSet deadEnds = graph.deadEnds();
+        if (!deadEnds.isEmpty()) {
+            issues.add(issue(WARNING, "DEAD_END",
+                    "Éléments sans flux sortant qui ne sont pas des événements de fin", ids(graph, deadEnds)));
+        }
+
+        for (int[] cycle : graph.cyclesWithoutExit()) {
+            List<String> ids = new ArrayList<>(cycle.length);
+            for (int node : cycle) {
+                ids.add(graph.nodeId(node));
+            }
+            issues.add(issue(ERROR, "CYCLE_WITHOUT_EXIT", "Boucle sans sortie vers un événement de fin", ids));
+        }
+
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.kind(node).isGateway()) {
+                checkGateway(graph, node, issues);
+            }
+        }
+        return issues;
+    }
+
+    private static void checkGateway(BpmnGraph graph, int gateway, List<ValidationIssueDTO> issues) {
+        String gatewayId = graph.nodeId(gateway);
+        NodeKind kind = graph.kind(gateway);
+        int fanIn = graph.fanIn(gateway);
+        int fanOut = graph.fanOut(gateway);
+
+        if (fanIn > 1 && fanOut > 1) {
+            issues.add(issue(WARNING, "GATEWAY_MIXED",
+                    "Passerelle à la fois convergente et divergente : séparer jointure et décision", List.of(gatewayId)));
+        } else if (fanIn <= 1 && fanOut == 1) {
+            issues.add(issue(WARNING, "GATEWAY_PASS_THROUGH",
+                    "Passerelle sans jointure ni décision (un seul flux sortant)", List.of(gatewayId)));
+        }
+
+        List<String> conditional = new ArrayList<>();
+        List<String> unconditional = new ArrayList<>();
+        for (int p = graph.outStart(gateway); p < graph.outEnd(gateway); p++) {
+            int edge = graph.outEdge(p);
+            if (graph.edgeKind(edge) != BpmnGraph.EDGE_FLOW) {
+                continue;
+            }
+            if (graph.condition(edge) != null) {
+                conditional.add(graph.flowId(edge));
+            } else if (!graph.isDefaultFlow(edge)) {
+                unconditional.add(graph.flowId(edge));
+            }
+        }
+
+        if ((kind == NodeKind.PARALLEL_GATEWAY || kind == NodeKind.EVENT_BASED_GATEWAY) && !conditional.isEmpty()) {
+            List<String> ids = new ArrayList<>(List.of(gatewayId));
+            ids.addAll(conditional);
+            issues.add(issue(ERROR, "GATEWAY_CONDITION_IGNORED",
+                    "Conditions ignorées sur les flux sortants d'une passerelle " + graph.nodeType(gateway), ids));
+        }
+        boolean decision = kind == NodeKind.EXCLUSIVE_GATEWAY || kind == NodeKind.INCLUSIVE_GATEWAY
+                || kind == NodeKind.COMPLEX_GATEWAY;
+        if (decision && fanOut > 1 && !unconditional.isEmpty()) {
+            List<String> ids = new ArrayList<>(List.of(gatewayId));
+            ids.addAll(unconditional);
+            issues.add(issue(ERROR, "MISSING_CONDITION",
+                    "Flux sortants de la décision sans condition ni flux par défaut", ids));
+        }
+    }
+
+    private static boolean hasDetachedAncestor(BpmnGraph graph, int node) {
+        for (int parent = graph.parent(node); parent >= 0; parent = graph.parent(parent)) {
+            if (graph.isDetached(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> ids(BpmnGraph graph, BitSet nodes) {
+        List<String> ids = new ArrayList<>(nodes.cardinality());
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            ids.add(graph.nodeId(node));
+        }
+        return ids;
+    }
+
+    private static ValidationIssueDTO issue(String severity, String code, String message, List<String> elementIds) {
+        return ValidationIssueDTO.builder()
+                .severity(severity)
+                .code(code)
+                .message(message)
+                .elementIds(elementIds)
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.util.BpmnXmlHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache des modèles BPMN parsés, indexé par l'empreinte SHA-256 du XML stocké.
+ * Le modèle en cache n'est jamais exposé : chaque lecture renvoie une copie que l'appelant peut modifier librement.
+ * Les entrées sont évincées au-delà de maxEntries (la moins récemment utilisée d'abord) ou après maxIdle sans accès.
+ */
+@Slf4j
+@Component
+public class BpmnModelCache {
+
+    private final int maxEntries;
+    private final long maxIdleNanos;
+    private final LongSupplier clock;
+    private final Map<String, CachedModel> models;
+    private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Autowired
+    public BpmnModelCache(@Value("${bpmn.model-cache.max-entries:32}") int maxEntries,
+                          @Value("${bpmn.model-cache.max-idle:30m}") Duration maxIdle) {
+        this(maxEntries, maxIdle, System::nanoTime);
+    }
+
+    BpmnModelCache(int maxEntries, Duration maxIdle, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.clock = clock;
+        // LinkedHashMap en ordre d'accès : l'entrée la moins récemment utilisée est en tête
+        this.models = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedModel> eldest) {
+                if (size() > BpmnModelCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    log.debug("Modèle BPMN évincé du cache: {}", eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retourne une copie du modèle parsé pour ce XML, ou le construit via le loader.
+     * Un modèle qui ne correspond pas au XML (modèle par défaut de repli) ne doit pas passer par le cache.
+     */
+    public BpmnModelInstance getOrLoad(String bpmnXml, Supplier<BpmnModelInstance> loader) {
+        return getOrLoadByHash(keyOf(bpmnXml), loader);
+    }
+
+    /**
+     * Variante indexée directement par l'empreinte du XML stocké : sur un hit, le XML n'a pas à être lu
+     */
+    public BpmnModelInstance getOrLoadByHash(String key, Supplier<BpmnModelInstance> loader) {
+        BpmnModelInstance model = get(key);
+        if (model != null) {
+            hits.incrementAndGet();
+            return copyOf(model);
+        }
+
+        // Un seul thread parse un même XML, les autres attendent le résultat
+        Object lock = loadLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                model = get(key);
+                if (model != null) {
+                    hits.incrementAndGet();
+                    return copyOf(model);
+                }
+                misses.incrementAndGet();
+                log.debug("Modèle BPMN absent du cache, parsing: {}", key);
+                model = loader.get();
+                store(key, model);
+                // L'appelant reçoit la copie, l'instance en cache reste intacte
+                return copyOf(model);
+            }
+        } finally {
+            loadLocks.remove(key, lock);
+        }
+    }
+
+    /**
+     * Place en cache un modèle correspondant exactement au XML donné (typiquement le modèle qui vient d'être
+     * sérialisé et sauvegardé), pour que la modification suivante du designer évite un nouveau parsing.
+     * Le modèle fourni est conservé tel quel : l'appelant transmet une copie qu'il ne modifie plus.
+     */
+    public void put(String bpmnXml, BpmnModelInstance model) {
+        store(keyOf(bpmnXml), model);
+    }
+
+    /**
+     * Vide entièrement le cache
+     */
+    public void clear() {
+        synchronized (models) {
+            models.clear();
+        }
+    }
+
+    /**
+     * Statistiques du cache (hits, misses, évictions par taille et par inactivité)
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        synchronized (models) {
+            stats.put("size", models.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxIdleSeconds", Duration.ofNanos(maxIdleNanos).getSeconds());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    private BpmnModelInstance get(String key) {
+        long now = clock.getAsLong();
+        synchronized (models) {
+            purgeExpired(now);
+            CachedModel cached = models.get(key);
+            if (cached == null) {
+                return null;
+            }
+            cached.lastAccess = now;
+            return cached.model;
+        }
+    }
+
+    private void store(String key, BpmnModelInstance model) {
+        long now = clock.getAsLong();
+        synchronized (models) {
+            purgeExpired(now);
+            models.put(key, new CachedModel(model, now));
+        }
+    }
+
+    // En ordre d'accès, les entrées inactives sont en tête : on s'arrête à la première encore valide
+    private void purgeExpired(long now) {
+        Iterator<Map.Entry<String, CachedModel>> iterator = models.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedModel> eldest = iterator.next();
+            if (now - eldest.getValue().lastAccess < maxIdleNanos) {
+                return;
+            }
+            iterator.remove();
+            expirations.incrementAndGet();
+            log.debug("Modèle BPMN expiré du cache: {}", eldest.getKey());
+        }
+    }
+
+    // Le DOM parsé peut s'étendre paresseusement à la lecture : les copies d'une même instance sont sérialisées
+    private static BpmnModelInstance copyOf(BpmnModelInstance model) {
+        synchronized (model) {
+            return model.clone();
+        }
+    }
+
+    private static String keyOf(String bpmnXml) {
+        return BpmnXmlHelper.contentHash(bpmnXml);
+    }
+
+    private static final class CachedModel {
+        private final BpmnModelInstance model;
+        private long lastAccess;
+
+        private CachedModel(BpmnModelInstance model, long lastAccess) {
+            this.model = model;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -11,8 +11,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.camunda.bpm.engine.RepositoryService;
 import org.camunda.bpm.engine.RuntimeService;
-import org.camunda.bpm.engine.repository.Deployment;
-import org.camunda.bpm.engine.repository.ProcessDefinition;
 import org.camunda.bpm.model.bpmn.Bpmn;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
 import org.camunda.bpm.model.bpmn.instance.*;
@@ -28,6 +26,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -53,6 +53,10 @@ public class BpmnModelService {
     private final RepositoryService repositoryService;
     private final RuntimeService runtimeService;
     private final BpmnXmlHelper bpmnXmlHelper;
+    private final BpmnModelCache bpmnModelCache;
+    private final BpmnDeploymentQueue bpmnDeploymentQueue;
+    private final BpmnXmlStore bpmnXmlStore;
+    private final BpmnVersionAllocator bpmnVersionAllocator;
 
     /**
      * Crée un modèle BPMN vide avec un processus de base
@@ -128,15 +132,28 @@ public class BpmnModelService {
     }
 
     /**
-     * Sauvegarde et déploie un modèle BPMN
+     * Sauvegarde un modèle BPMN et demande sa publication (déploiement asynchrone)
      * @param modelInstance Le modèle BPMN à sauvegarder
      * @param name Nom du processus
      * @return Le processus sauvegardé en base de données
      */
     @Transactional
     public BpmnProcess saveAndDeployBpmnModel(BpmnModelInstance modelInstance, String name, String category, String description) {
+        return saveBpmnModel(modelInstance, name, category, description, true);
+    }
+    
+    /**
+     * Sauvegarde un modèle BPMN comme nouvelle version
+     * @param modelInstance Le modèle BPMN à sauvegarder
+     * @param name Nom du processus
+     * @param publish true pour publier la version via la file de déploiement, false pour un simple brouillon
+     * @return Le processus sauvegardé en base de données
+     */
+    @Transactional
+    public BpmnProcess saveBpmnModel(BpmnModelInstance modelInstance, String name, String category, String description,
+                                     boolean publish) {
         try {
-            log.info("Début de saveAndDeployBpmnModel pour le processus: {}", name);
+            log.info("Début de saveBpmnModel pour le processus: {} (publication: {})", name, publish);
             
             // Obtenir l'élément de processus
             Process process = modelInstance.getModelElementsByType(Process.class).iterator().next();
@@ -155,10 +172,14 @@ public class BpmnModelService {
             // Exporter le modèle en XML avec encodage UTF-8 explicite
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             Bpmn.writeModelToStream(outputStream, modelInstance);
-            String bpmnXml = outputStream.toString(java.nio.charset.StandardCharsets.UTF_8.name());
+            byte[] writtenXml = outputStream.toByteArray();
+            
+            // Corriger les problèmes XML connus directement sur les octets, sans décodage intermédiaire
+            byte[] fixedXml = bpmnXmlHelper.fixCommonXmlIssues(writtenXml);
+            String bpmnXml = new String(fixedXml, java.nio.charset.StandardCharsets.UTF_8);
             
-            // Corriger les problèmes XML connus
-            bpmnXml = bpmnXmlHelper.fixCommonXmlIssues(bpmnXml);
+            // Copie du modèle tel que sérialisé, avant les modifications qui suivent (processKey)
+            BpmnModelInstance savedModel = Arrays.equals(fixedXml, writtenXml) ? modelInstance.clone() : null;
             
             log.info("XML généré pour le processus: {}, taille: {} caractères", processId, bpmnXml.length());
             
@@ -211,133 +232,54 @@ public class BpmnModelService {
                 bpmnProcess = new BpmnProcess();
                 bpmnProcess.setProcessKey(processKey);
                 bpmnProcess.setCreatedAt(LocalDateTime.now());
-                bpmnProcess.setVersion(1);
+                // Une sauvegarde concurrente de la même clé a pu créer la version 1 entre-temps
+                bpmnProcess.setVersion(bpmnVersionAllocator.nextVersion(processKey));
                 bpmnProcess.setDeploymentId(""); // Initialiser avec une valeur vide
                 bpmnProcess.setProcessDefinitionId(""); // Initialiser avec une valeur vide
             } else {
                 log.info("Mise à jour du processus existant: {}, version actuelle: {}", 
                          bpmnProcess.getProcessKey(), bpmnProcess.getVersion());
-                // Incrémenter la version
-                bpmnProcess.setVersion(bpmnProcess.getVersion() + 1);
+                // Version suivante attribuée par le compteur de la clé (unique même en cas de sauvegardes concurrentes)
+                bpmnProcess.setVersion(bpmnVersionAllocator.nextVersion(bpmnProcess.getProcessKey()));
             }
             
             // Mettre à jour les propriétés
             bpmnProcess.setName(name);
             bpmnProcess.setCategory(category);
             bpmnProcess.setDescription(description);
-            bpmnProcess.setBpmnXml(bpmnXml);
+            // XML stocké compressé, une seule fois par contenu distinct
+            String previousContentHash = bpmnProcess.getContentHash();
+            bpmnProcess.setContentHash(bpmnXmlStore.store(bpmnXml));
             bpmnProcess.setLastModifiedAt(LocalDateTime.now());
+            bpmnProcess.setDeploymentStatus(publish ? BpmnDeploymentQueue.STATUS_PENDING : BpmnDeploymentQueue.STATUS_DRAFT);
+            bpmnProcess.setDeploymentError(null);
             
             // Sauvegarder en base de données
             log.info("Sauvegarde du processus en base de données");
             BpmnProcess savedProcess = bpmnProcessRepository.save(bpmnProcess);
             
-            try {
-                // Déployer le processus en utilisant le XML corrigé plutôt que le modelInstance
-                log.info("Déploiement du processus dans Camunda");
-                Deployment deployment = repositoryService.createDeployment()
-                        .addString(processId + ".bpmn", bpmnXml)
-                        .name(name)
-                        .source("bpmn-designer")
-                        .deploy();
-                
-                // Récupérer la définition du processus déployé
-                log.info("Récupération de la définition du processus déployé");
-                ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
-                        .deploymentId(deployment.getId())
-                        .singleResult();
-                
-                log.info("Déploiement réussi: deploymentId={}, processDefinitionId={}", 
-                         deployment.getId(), processDefinition.getId());
-                
-                // Mettre à jour avec les IDs Camunda
-                savedProcess.setDeploymentId(deployment.getId());
-                savedProcess.setProcessDefinitionId(processDefinition.getId());
-                savedProcess = bpmnProcessRepository.save(savedProcess);
-            } catch (Exception e) {
-                log.error("Erreur lors du déploiement Camunda", e);
-                // Ne pas faire échouer l'opération si seul le déploiement échoue
-                // Le processus est toujours sauvegardé en base
-                log.warn("Le processus a été sauvegardé en base mais pas déployé dans Camunda");
-                
-                // Si l'erreur est liée au format XML, sauvegardons le XML problématique dans un fichier de log
-                try {
-                    // Utiliser java.text.SimpleDateFormat avec l'import correct
-                    String timestamp = new java.text.SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-                    String filename = "error_bpmn_" + timestamp + ".xml";
-                    java.nio.file.Files.write(
-                        java.nio.file.Paths.get(System.getProperty("java.io.tmpdir"), filename),
-                        bpmnXml.getBytes()
-                    );
-                    log.info("XML problématique sauvegardé dans: {}", 
-                             System.getProperty("java.io.tmpdir") + java.io.File.separator + filename);
-                } catch (Exception logError) {
-                    log.error("Impossible de sauvegarder le XML problématique", logError);
-                }
+            // La prochaine modification du designer rechargera ce XML : éviter de le parser à nouveau
+            if (savedModel != null) {
+                bpmnModelCache.put(bpmnXml, savedModel);
+            }
+            
+            // Le contenu remplacé est supprimé s'il n'est plus utilisé par aucune version
+            if (previousContentHash != null && !previousContentHash.equals(savedProcess.getContentHash())) {
+                bpmnXmlStore.releaseAfterCommit(previousContentHash);
+            }
+            
+            // Le déploiement est fait hors de la requête, regroupé par clé de processus
+            if (publish) {
+                bpmnDeploymentQueue.publish(savedProcess.getProcessKey());
             }
             
             return savedProcess;
         } catch (Exception e) {
-            log.error("Erreur lors de la sauvegarde et du déploiement du modèle BPMN", e);
+            log.error("Erreur lors de la sauvegarde du modèle BPMN", e);
             throw new RuntimeException("Échec de l'opération: " + e.getMessage(), e);
         }
     }
     
-    /**
-     * Extrait et sauvegarde les configurations des tâches du modèle BPMN
-     * @param modelInstance Le modèle BPMN
-     * @param bpmnProcess Le processus associé
-     */
-    private void extractAndSaveTaskConfigurations(BpmnModelInstance modelInstance, BpmnProcess bpmnProcess) {
-        // Extraire les userTasks
-        Collection<UserTask> userTasks = modelInstance.getModelElementsByType(UserTask.class);
-        for (UserTask userTask : userTasks) {
-            UserTaskForm userTaskForm = UserTaskForm.builder()
-                    .taskId(userTask.getId())
-                    .taskName(userTask.getName())
-                    .process(bpmnProcess)
-                    .assignee(userTask.getCamundaAssignee())
-                    .candidateGroups(userTask.getCamundaCandidateGroups())
-                    .candidateUsers(userTask.getCamundaCandidateUsers())
-                    .build();
-            
-            userTaskFormRepository.save(userTaskForm);
-        }
-        
-        // Extraire les serviceTasks
-        Collection<ServiceTask> serviceTasks = modelInstance.getModelElementsByType(ServiceTask.class);
-        for (ServiceTask serviceTask : serviceTasks) {
-            ServiceTaskConfig serviceTaskConfig = ServiceTaskConfig.builder()
-                    .taskId(serviceTask.getId())
-                    .taskName(serviceTask.getName())
-                    .process(bpmnProcess)
-                    .implementation(serviceTask.getCamundaClass())
-                    .implementationType("class") // ou "delegateExpression", "expression" selon le cas
-                    .asyncBefore(serviceTask.isCamundaAsyncBefore())
-                    .asyncAfter(serviceTask.isCamundaAsyncAfter())
-                    .exclusive(serviceTask.isCamundaExclusive())
-                    .build();
-            
-            serviceTaskConfigRepository.save(serviceTaskConfig);
-        }
-        
-        // Extraire les gateways (exclusiveGateway, inclusiveGateway, parallelGateway)
-        Collection<ExclusiveGateway> exclusiveGateways = modelInstance.getModelElementsByType(ExclusiveGateway.class);
-        for (ExclusiveGateway gateway : exclusiveGateways) {
-            GatewayConfig gatewayConfig = GatewayConfig.builder()
-                    .gatewayId(gateway.getId())
-                    .gatewayName(gateway.getName())
-                    .gatewayType("exclusive")
-                    .process(bpmnProcess)
-                    .defaultFlow(gateway.getDefault() != null ? gateway.getDefault().getId() : null)
-                    .build();
-            
-            gatewayConfigRepository.save(gatewayConfig);
-        }
-        
-        // Répéter pour les autres types de gateways...
-    }
-    
     /**
      * Charge un modèle BPMN à partir d'une chaîne XML
      * @param bpmnXml Le XML BPMN
@@ -345,38 +287,82 @@ public class BpmnModelService {
      */
     public BpmnModelInstance loadBpmnModel(String bpmnXml) {
         try {
-            log.info("Chargement du modèle BPMN à partir d'une chaîne XML de taille: {} caractères", bpmnXml.length());
             // Vérifier que le XML n'est pas vide
             if (bpmnXml == null || bpmnXml.trim().isEmpty()) {
                 throw new IllegalArgumentException("Le XML BPMN est vide ou nul");
             }
+            log.info("Chargement du modèle BPMN à partir d'une chaîne XML de taille: {} caractères", bpmnXml.length());
             
-            // Corriger les problèmes d'encodage et de caractères invalides
-            bpmnXml = bpmnXmlHelper.fixCommonXmlIssues(bpmnXml);
-            
-            // Vérifier la présence d'éléments de base BPMN
-            if (!bpmnXml.contains("<bpmn:") && !bpmnXml.contains("<bpmn2:") && !bpmnXml.contains("<semantic:")) {
-                log.warn("Le XML ne semble pas contenir d'éléments BPMN standard, tentative de correction");
-                // Si le XML ne contient pas les namespaces BPMN, utilisons un modèle par défaut
-                bpmnXml = getDefaultBpmnXml();
-            }
-            
-            // Si le XML commence par <?xml, c'est bon, sinon, ajoutons la déclaration
-            if (!bpmnXml.trim().startsWith("<?xml")) {
-                log.warn("Ajout de la déclaration XML manquante");
-                bpmnXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + bpmnXml;
+            // Le designer recharge le même XML à chaque modification : le modèle parsé est réutilisé (copie)
+            return bpmnModelCache.getOrLoad(bpmnXml, () -> parseBpmnModel(bpmnXml));
+        } catch (Exception e) {
+            return defaultBpmnModel(e);
+        }
+    }
+    
+    /**
+     * Charge le modèle BPMN d'une version enregistrée.
+     * Le cache est interrogé par l'empreinte stockée : le XML n'est lu et décompressé qu'en cas d'absence.
+     * @param process La version du processus
+     * @return Le modèle BPMN chargé
+     */
+    public BpmnModelInstance loadProcessModel(BpmnProcess process) {
+        String contentHash = process.getContentHash();
+        try {
+            if (contentHash == null) {
+                throw new IllegalArgumentException("Aucun XML BPMN associé au processus " + process.getId());
             }
-            
-            log.debug("XML à charger: {}", bpmnXml);
-            
-            // Charger le modèle avec l'encodage UTF-8 explicitement spécifié
-            return Bpmn.readModelFromStream(new ByteArrayInputStream(bpmnXml.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+            return bpmnModelCache.getOrLoadByHash(contentHash, () -> parseBpmnModel(bpmnXmlStore.load(contentHash)));
         } catch (Exception e) {
-            log.error("Erreur lors du chargement du modèle BPMN", e);
+            return defaultBpmnModel(e);
+        }
+    }
+    
+    private BpmnModelInstance defaultBpmnModel(Exception cause) {
+        if (cause instanceof NotBpmnXmlException) {
+            log.warn("Le XML ne semble pas contenir d'éléments BPMN standard, utilisation d'un modèle par défaut");
+        } else {
+            log.error("Erreur lors du chargement du modèle BPMN", cause);
             // En cas d'erreur, créer un modèle par défaut
             log.info("Création d'un modèle BPMN par défaut en raison de l'erreur");
-            return Bpmn.readModelFromStream(new ByteArrayInputStream(getDefaultBpmnXml().getBytes(java.nio.charset.StandardCharsets.UTF_8)));
         }
+        return Bpmn.readModelFromStream(new ByteArrayInputStream(getDefaultBpmnXml().getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Corrige puis parse le XML BPMN. Le modèle par défaut de repli n'est pas construit ici
+     * pour ne jamais être mis en cache à la place du XML demandé.
+     */
+    private BpmnModelInstance parseBpmnModel(String bpmnXml) {
+        // Corriger les problèmes d'encodage et de caractères invalides
+        bpmnXml = bpmnXmlHelper.fixCommonXmlIssues(bpmnXml);
+        
+        // Vérifier la présence d'éléments de base BPMN
+        if (!bpmnXml.contains("<bpmn:") && !bpmnXml.contains("<bpmn2:") && !bpmnXml.contains("<semantic:")) {
+            throw new NotBpmnXmlException();
+        }
+        
+        // Si le XML commence par <?xml, c'est bon, sinon, ajoutons la déclaration
+        if (!bpmnXml.trim().startsWith("<?xml")) {
+            log.warn("Ajout de la déclaration XML manquante");
+            bpmnXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + bpmnXml;
+        }
+        
+        log.debug("XML à charger: {}", bpmnXml);
+        
+        // Charger le modèle avec l'encodage UTF-8 explicitement spécifié
+        return Bpmn.readModelFromStream(new ByteArrayInputStream(bpmnXml.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+    }
+    
+    // Signale un XML sans éléments BPMN : l'appelant se replie sur le modèle par défaut
+    private static class NotBpmnXmlException extends RuntimeException {
+    }
+    
+    /**
+     * Statistiques du cache des modèles BPMN parsés
+     */
+    public Map<String, Object> getModelCacheStatistics() {
+        return bpmnModelCache.getStatistics();
     }
     
     /**
@@ -433,6 +419,37 @@ public class BpmnModelService {
                 .orElseThrow(() -> new RuntimeException("Processus non trouvé avec l'ID: " + processId));
     }
     
+    /**
+     * Demande la publication d'une version enregistrée (brouillon ou déploiement en échec)
+     * @param processId ID du processus
+     * @return Le processus en attente de publication
+     */
+    @Transactional
+    public BpmnProcess publishProcess(Long processId) {
+        BpmnProcess process = getProcessById(processId);
+        process.setDeploymentStatus(BpmnDeploymentQueue.STATUS_PENDING);
+        process.setDeploymentError(null);
+        BpmnProcess savedProcess = bpmnProcessRepository.save(process);
+        bpmnDeploymentQueue.publish(savedProcess.getProcessKey());
+        return savedProcess;
+    }
+    
+    /**
+     * État de publication d'un processus
+     * @param processId ID du processus
+     * @return Statut, identifiants Camunda et éventuelle erreur de déploiement
+     */
+    public Map<String, Object> getDeploymentStatus(Long processId) {
+        return bpmnDeploymentQueue.getStatus(getProcessById(processId));
+    }
+    
+    /**
+     * Statistiques de la file de publication
+     */
+    public Map<String, Object> getDeploymentQueueStatistics() {
+        return bpmnDeploymentQueue.getStatistics();
+    }
+    
     /**
      * Récupère la dernière version d'un processus par sa clé
      * @param processKey Clé du processus
@@ -444,12 +461,30 @@ public class BpmnModelService {
     }
     
     /**
-     * Récupère toutes les versions d'un processus par sa clé
-     * @param processKey Clé du processus
-     * @return Toutes les versions du processus
+     * XML BPMN d'une version enregistrée, lu et décompressé à la demande
+     * @param process La version du processus
+     * @return Le XML BPMN
      */
-    public List<BpmnProcess> getAllVersionsByProcessKey(String processKey) {
-        return bpmnProcessRepository.findByProcessKeyOrderByVersionDesc(processKey);
+    public String getProcessXml(BpmnProcess process) {
+        return bpmnXmlStore.load(process.getContentHash());
+    }
+    
+    /**
+     * Recopie le XML BPMN d'une version dans le flux, sans le matérialiser en mémoire
+     * @param process La version du processus
+     * @param out Flux de sortie
+     */
+    public void transferProcessXml(BpmnProcess process, OutputStream out) throws IOException {
+        bpmnXmlStore.transferTo(process.getContentHash(), out);
+    }
+    
+    /**
+     * Statistiques du stockage des XML (contenus distincts, tailles brutes et compressées)
+     */
+    public Map<String, Object> getXmlStoreStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>(bpmnXmlStore.getStatistics());
+        stats.put("versions", bpmnProcessRepository.count());
+        return stats;
     }
     
     /**
@@ -708,14 +743,6 @@ public class BpmnModelService {
         return modelInstance;
     }
 
-    /**
-     * Récupère tous les processus actifs
-     * @return Liste des processus actifs
-     */
-    public List<BpmnProcess> getAllActiveProcesses() {
-        return bpmnProcessRepository.findByIsActiveTrue();
-    }
-
     /**
      * Sauvegarde la configuration du formulaire d'une tâche utilisateur
      * @param process Le processus BPMN
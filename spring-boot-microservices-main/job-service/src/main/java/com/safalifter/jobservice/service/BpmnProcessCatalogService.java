@@ -0,0 +1,170 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.ProcessDTO;
+import com.safalifter.jobservice.dto.ProcessPageDTO;
+import com.safalifter.jobservice.repository.BpmnProcessCatalogRepository;
+import com.safalifter.jobservice.repository.BpmnProcessCatalogRepository.SortField;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Catalogue paginé des processus BPMN. La pagination se fait par curseur (dernière position lue) plutôt
+ * que par décalage : une page coûte une requête SQL, même loin dans le catalogue.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BpmnProcessCatalogService {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private final BpmnProcessCatalogRepository bpmnProcessCatalogRepository;
+
+    /**
+     * Page du catalogue filtrée par catégorie, préfixe du nom et état actif
+     * @param sort processKey (par défaut), name ou createdAt
+     * @param direction asc (par défaut) ou desc
+     * @param cursor curseur de la page précédente, null pour la première page
+     */
+    public ProcessPageDTO getCatalogPage(String category, String namePrefix, Boolean active,
+                                         String sort, String direction, String cursor, Integer size) {
+        SortField sortField = parseSort(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        int pageSize = pageSize(size);
+
+        Object afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor, 4);
+            if (!position[0].equals(sortField.name()) || descending != "D".equals(position[1])) {
+                throw new IllegalArgumentException("Curseur incompatible avec le tri demandé");
+            }
+            afterId = parseId(position[2]);
+            afterValue = sortField == SortField.CREATED_AT ? parseTimestamp(position[3]) : position[3];
+        }
+
+        log.debug("Catalogue BPMN (catégorie: {}, préfixe: {}, actifs: {}, tri: {} {}, taille: {})",
+                category, namePrefix, active, sortField, descending ? "desc" : "asc", pageSize);
+        List<ProcessDTO> rows = bpmnProcessCatalogRepository.findCatalogPage(emptyToNull(category),
+                escapeLikePrefix(emptyToNull(namePrefix)), active, sortField, descending,
+                afterValue, afterId, pageSize + 1);
+        return toPage(rows, pageSize, last -> encodeCursor(sortField.name(), descending ? "D" : "A",
+                String.valueOf(last.getId()), String.valueOf(sortField.keyOf(last))));
+    }
+
+    /**
+     * Page des versions d'un processus, de la plus récente à la plus ancienne
+     */
+    public ProcessPageDTO getVersionPage(String processKey, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        Integer afterVersion = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor, 2);
+            try {
+                afterVersion = Integer.valueOf(position[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            afterId = parseId(position[1]);
+        }
+        List<ProcessDTO> rows = bpmnProcessCatalogRepository.findVersionPage(processKey, afterVersion, afterId,
+                pageSize + 1);
+        return toPage(rows, pageSize, last -> encodeCursor(String.valueOf(last.getVersion()),
+                String.valueOf(last.getId())));
+    }
+
+    /**
+     * Une ligne de plus que la taille demandée est lue : sa présence indique une page suivante
+     */
+    private ProcessPageDTO toPage(List<ProcessDTO> rows, int pageSize, Function<ProcessDTO, String> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<ProcessDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        return ProcessPageDTO.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null)
+                .size(items.size())
+                .build();
+    }
+
+    private static SortField parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return SortField.PROCESS_KEY;
+        }
+        switch (sort.toLowerCase(Locale.ROOT)) {
+            case "processkey":
+                return SortField.PROCESS_KEY;
+            case "name":
+                return SortField.NAME;
+            case "createdat":
+                return SortField.CREATED_AT;
+            default:
+                throw new IllegalArgumentException("Tri non supporté: " + sort + " (processKey, name ou createdAt)");
+        }
+    }
+
+    private static int pageSize(Integer size) {
+        return size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+    }
+
+    private static String encodeCursor(String... parts) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * La dernière partie (valeur de tri) peut contenir n'importe quel caractère sauf le séparateur
+     */
+    private static String[] decodeCursor(String cursor, int parts) {
+        String[] position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", parts);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+        if (position.length != parts) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+        return position;
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    private static Timestamp parseTimestamp(String value) {
+        try {
+            return Timestamp.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /**
+     * Échappe les jokers LIKE du préfixe (caractère d'échappement '!')
+     */
+    private static String escapeLikePrefix(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,316 @@
+package com.safalifter.jobservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.model.GatewayConfig;
+import com.safalifter.jobservice.model.ServiceTaskConfig;
+import com.safalifter.jobservice.model.UserTaskForm;
+import com.safalifter.jobservice.repository.GatewayConfigRepository;
+import com.safalifter.jobservice.repository.ServiceTaskConfigRepository;
+import com.safalifter.jobservice.repository.UserTaskFormRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.*;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.camunda.bpm.model.bpmn.impl.BpmnModelConstants.CAMUNDA_NS;
+
+/**
+ * Synchronise les configurations des tâches utilisateur, tâches de service et passerelles avec le modèle
+ * publié. Les lignes existantes (version précédente du processus) sont comparées au modèle : seuls les
+ * éléments ajoutés, modifiés ou supprimés sont écrits, en une instruction groupée par type d'écriture.
+ *
+ * Le modèle ne remplace que les valeurs qu'il déclare : les réglages saisis dans le designer et absents
+ * du XML (formulaire, échéances, paramètres, tentatives...) sont conservés.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BpmnTaskConfigSync {
+
+    static final String EXCLUSIVE = "exclusive";
+    static final String INCLUSIVE = "inclusive";
+    static final String PARALLEL = "parallel";
+
+    private final UserTaskFormRepository userTaskFormRepository;
+    private final ServiceTaskConfigRepository serviceTaskConfigRepository;
+    private final GatewayConfigRepository gatewayConfigRepository;
+    private final BpmnModelCache bpmnModelCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Synchronise les configurations avec le XML déployé (le modèle parsé est repris du cache s'il y est)
+     */
+    public Changes sync(BpmnProcess process, String contentHash, String bpmnXml) {
+        BpmnModelInstance model = bpmnModelCache.getOrLoadByHash(contentHash, () ->
+                Bpmn.readModelFromStream(new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8))));
+        return sync(process, model);
+    }
+
+    /**
+     * Synchronise les configurations avec le modèle : un seul parcours des éléments du modèle,
+     * puis une lecture des lignes existantes par type
+     */
+    public Changes sync(BpmnProcess process, BpmnModelInstance model) {
+        List<UserTask> userTasks = new ArrayList<>();
+        List<ServiceTask> serviceTasks = new ArrayList<>();
+        List<Gateway> gateways = new ArrayList<>();
+        // Les références <outgoing> sont facultatives dans le XML : les conditions sont lues depuis les flux
+        Map<String, Map<String, String>> conditions = new HashMap<>();
+        for (SequenceFlow flow : model.getModelElementsByType(SequenceFlow.class)) {
+            ConditionExpression condition = flow.getConditionExpression();
+            if (flow.getSource() != null && condition != null && condition.getTextContent() != null
+                    && !condition.getTextContent().isBlank()) {
+                conditions.computeIfAbsent(flow.getSource().getId(), id -> new TreeMap<>())
+                        .put(flow.getId(), condition.getTextContent().trim());
+            }
+        }
+        for (FlowNode node : model.getModelElementsByType(FlowNode.class)) {
+            if (node instanceof UserTask) {
+                userTasks.add((UserTask) node);
+            } else if (node instanceof ServiceTask) {
+                serviceTasks.add((ServiceTask) node);
+            } else if (gatewayType(node) != null) {
+                gateways.add((Gateway) node);
+            }
+        }
+
+        Changes changes = new Changes();
+        syncUserTasks(process, userTasks, changes);
+        syncServiceTasks(process, serviceTasks, changes);
+        syncGateways(process, gateways, conditions, changes);
+        log.info("Configurations du processus {} (version {}) : {} ajoutée(s), {} modifiée(s), {} supprimée(s), {} inchangée(s)",
+                process.getProcessKey(), process.getVersion(), changes.inserted, changes.updated, changes.deleted,
+                changes.unchanged);
+        return changes;
+    }
+
+    private void syncUserTasks(BpmnProcess process, List<UserTask> userTasks, Changes changes) {
+        List<UserTaskForm> toDelete = new ArrayList<>();
+        Map<String, UserTaskForm> existing = index(userTaskFormRepository.findByProcess(process),
+                UserTaskForm::getTaskId, toDelete);
+        List<UserTaskForm> toSave = new ArrayList<>();
+        for (UserTask task : userTasks) {
+            UserTaskForm form = existing.remove(task.getId());
+            if (form == null) {
+                form = UserTaskForm.builder().process(process).taskId(task.getId()).build();
+                changes.inserted++;
+            } else if (!changes.track(differs(form.getTaskName(), nameOf(task))
+                    || differs(form.getAssignee(), task.getCamundaAssignee())
+                    || differs(form.getCandidateGroups(), task.getCamundaCandidateGroups())
+                    || differs(form.getCandidateUsers(), task.getCamundaCandidateUsers()))) {
+                continue;
+            }
+            form.setTaskName(nameOf(task));
+            setIfDeclared(task.getCamundaAssignee(), form::setAssignee);
+            setIfDeclared(task.getCamundaCandidateGroups(), form::setCandidateGroups);
+            setIfDeclared(task.getCamundaCandidateUsers(), form::setCandidateUsers);
+            toSave.add(form);
+        }
+        toDelete.addAll(existing.values());
+        write(userTaskFormRepository, toSave, toDelete, changes);
+    }
+
+    private void syncServiceTasks(BpmnProcess process, List<ServiceTask> serviceTasks, Changes changes) {
+        List<ServiceTaskConfig> toDelete = new ArrayList<>();
+        Map<String, ServiceTaskConfig> existing = index(serviceTaskConfigRepository.findByProcess(process),
+                ServiceTaskConfig::getTaskId, toDelete);
+        List<ServiceTaskConfig> toSave = new ArrayList<>();
+        for (ServiceTask task : serviceTasks) {
+            String[] implementation = implementationOf(task);
+            Boolean asyncBefore = declaredFlag(task, "asyncBefore");
+            Boolean asyncAfter = declaredFlag(task, "asyncAfter");
+            Boolean exclusive = declaredFlag(task, "exclusive");
+
+            ServiceTaskConfig config = existing.remove(task.getId());
+            if (config == null) {
+                config = ServiceTaskConfig.builder().process(process).taskId(task.getId()).build();
+                changes.inserted++;
+            } else if (!changes.track(differs(config.getTaskName(), nameOf(task))
+                    || differs(config.getImplementation(), implementation[1])
+                    || differs(config.getImplementationType(), implementation[0])
+                    || differs(config.getAsyncBefore(), asyncBefore)
+                    || differs(config.getAsyncAfter(), asyncAfter)
+                    || differs(config.getExclusive(), exclusive))) {
+                continue;
+            }
+            config.setTaskName(nameOf(task));
+            setIfDeclared(implementation[1], config::setImplementation);
+            setIfDeclared(implementation[0], config::setImplementationType);
+            setIfDeclared(asyncBefore, config::setAsyncBefore);
+            setIfDeclared(asyncAfter, config::setAsyncAfter);
+            setIfDeclared(exclusive, config::setExclusive);
+            toSave.add(config);
+        }
+        toDelete.addAll(existing.values());
+        write(serviceTaskConfigRepository, toSave, toDelete, changes);
+    }
+
+    private void syncGateways(BpmnProcess process, List<Gateway> gateways, Map<String, Map<String, String>> conditionsBySource,
+                              Changes changes) {
+        List<GatewayConfig> toDelete = new ArrayList<>();
+        Map<String, GatewayConfig> existing = index(gatewayConfigRepository.findByProcess(process),
+                GatewayConfig::getGatewayId, toDelete);
+        List<GatewayConfig> toSave = new ArrayList<>();
+        for (Gateway gateway : gateways) {
+            // Les passerelles n'ont pas de réglage propre au designer : le modèle fait foi pour tous les champs
+            String type = gatewayType(gateway);
+            String defaultFlow = defaultFlowOf(gateway);
+            String conditions = toJson(gateway, conditionsBySource.get(gateway.getId()));
+
+            GatewayConfig config = existing.remove(gateway.getId());
+            if (config == null) {
+                config = GatewayConfig.builder().process(process).gatewayId(gateway.getId()).build();
+                changes.inserted++;
+            } else if (!changes.track(!Objects.equals(config.getGatewayName(), nameOf(gateway))
+                    || !Objects.equals(config.getGatewayType(), type)
+                    || !Objects.equals(config.getDefaultFlow(), defaultFlow)
+                    || !Objects.equals(config.getConditions(), conditions))) {
+                continue;
+            }
+            config.setGatewayName(nameOf(gateway));
+            config.setGatewayType(type);
+            config.setDefaultFlow(defaultFlow);
+            config.setConditions(conditions);
+            toSave.add(config);
+        }
+        toDelete.addAll(existing.values());
+        write(gatewayConfigRepository, toSave, toDelete, changes);
+    }
+
+    /**
+     * Lignes existantes par identifiant d'élément. Les doublons laissés par d'anciennes sauvegardes
+     * sont ajoutés aux suppressions.
+     */
+    private static <T> Map<String, T> index(List<T> rows, Function<T, String> elementId, List<T> toDelete) {
+        Map<String, T> byElement = new HashMap<>();
+        for (T row : rows) {
+            if (byElement.putIfAbsent(elementId.apply(row), row) != null) {
+                toDelete.add(row);
+            }
+        }
+        return byElement;
+    }
+
+    /**
+     * Insertions et mises à jour en un appel (envoyées par lots JDBC), suppressions en une seule requête
+     */
+    private static <T> void write(JpaRepository<T, Long> repository, List<T> toSave, List<T> toDelete,
+                                  Changes changes) {
+        changes.deleted += toDelete.size();
+        if (!toSave.isEmpty()) {
+            repository.saveAll(toSave);
+        }
+        if (!toDelete.isEmpty()) {
+            repository.deleteAllInBatch(toDelete);
+        }
+    }
+
+    static String gatewayType(FlowNode node) {
+        if (node instanceof ExclusiveGateway) {
+            return EXCLUSIVE;
+        }
+        if (node instanceof InclusiveGateway) {
+            return INCLUSIVE;
+        }
+        if (node instanceof ParallelGateway) {
+            return PARALLEL;
+        }
+        return null;
+    }
+
+    private static String defaultFlowOf(Gateway gateway) {
+        SequenceFlow defaultFlow = null;
+        if (gateway instanceof ExclusiveGateway) {
+            defaultFlow = ((ExclusiveGateway) gateway).getDefault();
+        } else if (gateway instanceof InclusiveGateway) {
+            defaultFlow = ((InclusiveGateway) gateway).getDefault();
+        }
+        return defaultFlow != null ? defaultFlow.getId() : null;
+    }
+
+    /**
+     * Conditions des flux sortants en JSON ({"idDuFlux": "expression"}, triées par flux), null si aucune
+     */
+    private String toJson(Gateway gateway, Map<String, String> conditions) {
+        if (conditions == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(conditions);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Conditions de la passerelle " + gateway.getId() + " non sérialisables", e);
+        }
+    }
+
+    /**
+     * Type et valeur de l'implémentation déclarée : class, delegateExpression, expression ou external (topic)
+     */
+    private static String[] implementationOf(ServiceTask task) {
+        if (task.getCamundaClass() != null) {
+            return new String[]{"class", task.getCamundaClass()};
+        }
+        if (task.getCamundaDelegateExpression() != null) {
+            return new String[]{"delegateExpression", task.getCamundaDelegateExpression()};
+        }
+        if (task.getCamundaExpression() != null) {
+            return new String[]{"expression", task.getCamundaExpression()};
+        }
+        if ("external".equals(task.getCamundaType())) {
+            return new String[]{"external", task.getCamundaTopic()};
+        }
+        return new String[]{null, null};
+    }
+
+    // Attribut camunda:* présent dans le XML, null sinon (les accesseurs du modèle renvoient la valeur par défaut)
+    private static Boolean declaredFlag(FlowNode node, String attribute) {
+        String value = node.getAttributeValueNs(CAMUNDA_NS, attribute);
+        return value != null ? Boolean.valueOf(value) : null;
+    }
+
+    private static String nameOf(FlowNode node) {
+        return node.getName() != null && !node.getName().isBlank() ? node.getName() : node.getId();
+    }
+
+    // Vrai si le modèle déclare une valeur différente de la valeur enregistrée
+    private static boolean differs(Object current, Object declared) {
+        return declared != null && !declared.equals(current);
+    }
+
+    private static <V> void setIfDeclared(V declared, Consumer<V> setter) {
+        if (declared != null) {
+            setter.accept(declared);
+        }
+    }
+
+    /**
+     * Nombre de lignes écrites par la synchronisation
+     */
+    @Getter
+    public static class Changes {
+        private int inserted;
+        private int updated;
+        private int deleted;
+        private int unchanged;
+
+        private boolean track(boolean changed) {
+            if (changed) {
+                updated++;
+            } else {
+                unchanged++;
+            }
+            return changed;
+        }
+    }
+}
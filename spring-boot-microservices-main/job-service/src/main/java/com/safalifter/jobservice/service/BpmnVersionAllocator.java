@@ -0,0 +1,97 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.model.BpmnVersionCounter;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import com.safalifter.jobservice.repository.BpmnVersionCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Attribution des numéros de version BPMN sans verrou global : chaque clé de processus a sa ligne de
+ * compteur, incrémentée par un UPDATE atomique dans la transaction qui enregistre la version.
+ *
+ * Le verrou de ligne est conservé jusqu'au commit : deux sauvegardes d'une même clé sont ordonnées (la
+ * seconde obtient la version suivante et écrit après la première), celles de clés différentes ne s'attendent pas.
+ *
+ * Le compteur d'une clé inconnue est créé et validé avant l'UPDATE : sous MySQL (REPEATABLE READ), un UPDATE
+ * qui ne trouve pas la ligne pose un verrou d'intervalle sur la clé, et l'INSERT de la transaction de création,
+ * sur une autre connexion, attendrait alors la transaction appelante jusqu'au timeout de verrou.
+ */
+@Slf4j
+@Service
+public class BpmnVersionAllocator {
+
+    private final BpmnVersionCounterRepository bpmnVersionCounterRepository;
+    private final BpmnProcessRepository bpmnProcessRepository;
+    private final TransactionTemplate seedTransaction;
+
+    public BpmnVersionAllocator(BpmnVersionCounterRepository bpmnVersionCounterRepository,
+                                BpmnProcessRepository bpmnProcessRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.bpmnVersionCounterRepository = bpmnVersionCounterRepository;
+        this.bpmnProcessRepository = bpmnProcessRepository;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Prochaine version de la clé. Doit être appelée dans la transaction qui enregistre la version :
+     * un rollback rend le numéro (le compteur revient à sa valeur précédente).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int nextVersion(String processKey) {
+        // Lecture sans verrou : la transaction appelante ne verrouille rien tant que le compteur n'existe pas
+        if (!bpmnVersionCounterRepository.existsById(processKey)) {
+            seed(processKey);
+        }
+        if (bpmnVersionCounterRepository.increment(processKey) == 0) {
+            throw new IllegalStateException("Compteur de version introuvable pour le processus " + processKey);
+        }
+        return bpmnVersionCounterRepository.findLastVersion(processKey);
+    }
+
+    /**
+     * Versions de plusieurs clés (import d'archive). Les compteurs sont verrouillés dans l'ordre des clés
+     * pour que deux imports concurrents ne s'interbloquent pas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, Integer> nextVersions(Collection<String> processKeys) {
+        Map<String, Integer> versions = new LinkedHashMap<>();
+        for (String processKey : new TreeSet<>(processKeys)) {
+            versions.put(processKey, nextVersion(processKey));
+        }
+        return versions;
+    }
+
+    /**
+     * Crée le compteur d'une clé à partir de la plus grande version déjà enregistrée, dans une transaction
+     * séparée et validée immédiatement, avant tout verrou de la transaction appelante sur le compteur. Si une autre sauvegarde l'a créé entre-temps, l'insertion échoue
+     * sur la clé primaire et le compteur existant est utilisé.
+     */
+    private void seed(String processKey) {
+        try {
+            seedTransaction.executeWithoutResult(status -> {
+                Integer maxVersion = bpmnProcessRepository.findMaxVersion(processKey);
+                bpmnVersionCounterRepository.saveAndFlush(BpmnVersionCounter.builder()
+                        .processKey(processKey)
+                        .lastVersion(maxVersion != null ? maxVersion : 0)
+                        .created(true)
+                        .build());
+                log.info("Compteur de version créé pour le processus {} (dernière version: {})", processKey, maxVersion);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Compteur de version déjà créé pour le processus {}", processKey);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.exc.NotFoundException;
+import com.safalifter.jobservice.model.BpmnXmlContent;
+import com.safalifter.jobservice.repository.BpmnXmlContentRepository;
+import com.safalifter.jobservice.util.BpmnXmlCompression;
+import com.safalifter.jobservice.util.BpmnXmlHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stockage du XML des versions BPMN : un contenu compressé par empreinte SHA-256, partagé par toutes les
+ * versions identiques. Le XML n'est lu et décompressé que lorsqu'il est demandé explicitement.
+ */
+@Slf4j
+@Service
+public class BpmnXmlStore {
+
+    private final BpmnXmlContentRepository bpmnXmlContentRepository;
+    private final TransactionTemplate cleanupTransaction;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+
+    public BpmnXmlStore(BpmnXmlContentRepository bpmnXmlContentRepository,
+                        PlatformTransactionManager transactionManager) {
+        this.bpmnXmlContentRepository = bpmnXmlContentRepository;
+        this.cleanupTransaction = new TransactionTemplate(transactionManager);
+        this.cleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Enregistre le XML s'il n'existe pas déjà et retourne son empreinte
+     */
+    public String store(String bpmnXml) {
+        String contentHash = BpmnXmlHelper.contentHash(bpmnXml);
+        if (bpmnXmlContentRepository.existsById(contentHash)) {
+            deduplicated.incrementAndGet();
+            log.debug("Contenu XML déjà stocké: {}", contentHash);
+            return contentHash;
+        }
+        byte[] xml = bpmnXml.getBytes(StandardCharsets.UTF_8);
+        byte[] data = BpmnXmlCompression.compress(xml);
+        bpmnXmlContentRepository.save(BpmnXmlContent.builder()
+                .contentHash(contentHash)
+                .data(data)
+                .xmlSize(xml.length)
+                .compressedSize(data.length)
+                .build());
+        stored.incrementAndGet();
+        log.info("Contenu XML stocké: {} ({} octets, {} compressés)", contentHash, xml.length, data.length);
+        return contentHash;
+    }
+
+    /**
+     * XML décompressé d'un contenu
+     */
+    public String load(String contentHash) {
+        BpmnXmlContent content = find(contentHash);
+        loaded.incrementAndGet();
+        return new String(BpmnXmlCompression.decompress(content.getData(), content.getXmlSize()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Recopie le XML décompressé dans le flux, sans le matérialiser en String
+     */
+    public void transferTo(String contentHash, OutputStream out) throws IOException {
+        BpmnXmlContent content = find(contentHash);
+        loaded.incrementAndGet();
+        try (InputStream xml = BpmnXmlCompression.decompressingStream(content.getData())) {
+            xml.transferTo(out);
+        }
+    }
+
+    /**
+     * Supprime le contenu remplacé une fois la transaction courante validée, s'il n'est plus référencé.
+     * La clé étrangère des versions protège un contenu réutilisé entre-temps par une autre sauvegarde.
+     */
+    public void releaseAfterCommit(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(contentHash);
+                }
+            });
+        } else {
+            release(contentHash);
+        }
+    }
+
+    /**
+     * Statistiques du stockage : contenus distincts, tailles brutes et compressées, activité
+     */
+    public Map<String, Object> getStatistics() {
+        BpmnXmlContentRepository.StorageTotals totals = bpmnXmlContentRepository.getStorageTotals();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("contents", totals.getContents());
+        stats.put("xmlBytes", totals.getXmlBytes());
+        stats.put("compressedBytes", totals.getCompressedBytes());
+        stats.put("compressionRatio", totals.getCompressedBytes() == 0 ? 0.0
+                : (double) totals.getXmlBytes() / totals.getCompressedBytes());
+        stats.put("stored", stored.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("loaded", loaded.get());
+        stats.put("released", released.get());
+        return stats;
+    }
+
+    private BpmnXmlContent find(String contentHash) {
+        if (contentHash == null) {
+            throw new NotFoundException("Aucun contenu XML associé à cette version");
+        }
+        return bpmnXmlContentRepository.findById(contentHash)
+                .orElseThrow(() -> new NotFoundException("Contenu XML introuvable: " + contentHash));
+    }
+
+    private void release(String contentHash) {
+        try {
+            Integer deleted = cleanupTransaction.execute(status ->
+                    bpmnXmlContentRepository.deleteIfUnreferenced(contentHash));
+            if (deleted != null && deleted > 0) {
+                released.incrementAndGet();
+                log.debug("Contenu XML supprimé, plus référencé: {}", contentHash);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Réutilisé par une sauvegarde concurrente : le contenu est conservé
+            log.debug("Contenu XML toujours référencé, conservé: {}", contentHash);
+        } catch (Exception e) {
+            log.warn("Impossible de supprimer le contenu XML {}: {}", contentHash, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.safalifter.jobservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safalifter.jobservice.dto.DmnBatchRowErrorDto;
+import com.safalifter.jobservice.dto.DmnBatchSummaryDto;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Évaluation en lot d'une décision DMN : les lignes d'entrée (tableau JSON, NDJSON ou CSV)
+ * sont lues en flux, évaluées en parallèle contre une seule décision parsée et les
+ * résultats sont écrits ligne par ligne en NDJSON, dans l'ordre des lignes d'entrée.
+ */
+@Slf4j
+@Service
+public class DmnBatchService {
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {};
+
+    private final DmnService dmnService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final int maxReportedErrors;
+    private final int flushEvery;
+
+    public DmnBatchService(DmnService dmnService,
+                           ObjectMapper objectMapper,
+                           @Value("${dmn.batch.parallelism:0}") int parallelism,
+                           @Value("${dmn.batch.max-reported-errors:100}") int maxReportedErrors,
+                           @Value("${dmn.batch.flush-every:100}") int flushEvery) {
+        this.dmnService = dmnService;
+        this.objectMapper = objectMapper;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(threads, namedDaemonThreads("dmn-batch-"));
+        // Fenêtre bornée de lignes en cours : la mémoire reste constante quelle que soit la taille du lot
+        this.maxInFlight = threads * 4;
+        this.maxReportedErrors = maxReportedErrors;
+        this.flushEvery = Math.max(1, flushEvery);
+    }
+
+    /**
+     * Déduit le format d'entrée à partir du Content-Type de la requête
+     */
+    public static String detectFormat(String contentType) {
+        if (contentType == null) {
+            return FORMAT_JSON;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        if (type.contains("csv")) {
+            return FORMAT_CSV;
+        }
+        if (type.contains("ndjson") || type.contains("jsonl") || type.contains("x-json-stream")) {
+            return FORMAT_NDJSON;
+        }
+        return FORMAT_JSON;
+    }
+
+    /**
+     * Évalue toutes les lignes de l'entrée et écrit une ligne NDJSON par résultat,
+     * suivie d'une ligne de synthèse (débit, lignes en échec)
+     */
+    public DmnBatchSummaryDto evaluateBatch(String decisionKey, DmnDecision decision, String format,
+                                            InputStream input, OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        List<DmnBatchRowErrorDto> failedRows = new ArrayList<>();
+        long[] counters = new long[3]; // lignes, succès, échecs
+        String abortReason = null;
+
+        Deque<Future<RowOutcome>> pending = new ArrayDeque<>();
+        try (RowReader reader = openReader(format, input)) {
+            long rowNumber = 0;
+            while (true) {
+                Map<String, Object> variables;
+                RowOutcome parseFailure = null;
+                try {
+                    variables = reader.next();
+                } catch (RowFormatException e) {
+                    variables = null;
+                    parseFailure = RowOutcome.failure(rowNumber, e.getMessage());
+                }
+                if (variables == null && parseFailure == null) {
+                    break;
+                }
+
+                long currentRow = rowNumber++;
+                if (parseFailure != null) {
+                    pending.addLast(CompletableFuture.completedFuture(parseFailure));
+                } else {
+                    Map<String, Object> rowVariables = variables;
+                    pending.addLast(executor.submit(() -> evaluateRow(decisionKey, decision, currentRow, rowVariables)));
+                }
+
+                if (pending.size() >= maxInFlight) {
+                    writeOutcome(pending.removeFirst(), output, counters, failedRows);
+                }
+            }
+        } catch (IOException e) {
+            // Entrée illisible (JSON mal formé, flux interrompu) : on conserve les lignes déjà évaluées
+            abortReason = e.getMessage();
+            log.warn("Lot DMN interrompu pour {}: {}", decisionKey, abortReason);
+        }
+
+        while (!pending.isEmpty()) {
+            writeOutcome(pending.removeFirst(), output, counters, failedRows);
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        DmnBatchSummaryDto summary = DmnBatchSummaryDto.builder()
+                .decisionKey(decisionKey)
+                .format(format)
+                .rows(counters[0])
+                .succeeded(counters[1])
+                .failed(counters[2])
+                .durationMs(durationMs)
+                .rowsPerSecond(durationMs == 0 ? counters[0] : counters[0] * 1000.0 / durationMs)
+                .aborted(abortReason != null)
+                .abortReason(abortReason)
+                .failedRows(failedRows)
+                .build();
+
+        writeLine(output, Map.of("summary", summary));
+        output.flush();
+
+        log.info("Lot DMN évalué pour {}: {} lignes, {} échecs, {} ms ({} lignes/s)",
+                decisionKey, summary.getRows(), summary.getFailed(), durationMs, Math.round(summary.getRowsPerSecond()));
+        return summary;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private RowOutcome evaluateRow(String decisionKey, DmnDecision decision, long row, Map<String, Object> variables) {
+        try {
+            return RowOutcome.success(row, dmnService.evaluateResolvedDecision(decisionKey, decision, variables));
+        } catch (Exception e) {
+            return RowOutcome.failure(row, e.getMessage());
+        }
+    }
+
+    private void writeOutcome(Future<RowOutcome> future, OutputStream output, long[] counters,
+                              List<DmnBatchRowErrorDto> failedRows) throws IOException {
+        RowOutcome outcome;
+        try {
+            outcome = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Évaluation en lot interrompue");
+        } catch (ExecutionException e) {
+            throw new IOException("Erreur inattendue lors de l'évaluation en lot", e.getCause());
+        }
+
+        counters[0]++;
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("row", outcome.row);
+        if (outcome.error == null) {
+            counters[1]++;
+            line.put("status", "OK");
+            line.put("result", outcome.result);
+        } else {
+            counters[2]++;
+            line.put("status", "ERROR");
+            line.put("error", outcome.error);
+            if (failedRows.size() < maxReportedErrors) {
+                failedRows.add(DmnBatchRowErrorDto.builder().row(outcome.row).error(outcome.error).build());
+            }
+        }
+        writeLine(output, line);
+        if (counters[0] % flushEvery == 0) {
+            output.flush();
+        }
+    }
+
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write('\n');
+    }
+
+    private RowReader openReader(String format, InputStream input) throws IOException {
+        switch (format) {
+            case FORMAT_CSV:
+                return new CsvRowReader(input);
+            case FORMAT_NDJSON:
+                return new NdjsonRowReader(input);
+            default:
+                return new JsonArrayRowReader(input);
+        }
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Source de lignes d'entrée ; next() retourne null en fin de flux
+     */
+    private interface RowReader extends Closeable {
+        Map<String, Object> next() throws IOException;
+    }
+
+    /**
+     * Ligne individuelle illisible : elle est signalée en échec sans interrompre le lot
+     */
+    private static class RowFormatException extends IOException {
+        RowFormatException(String message) {
+            super(message);
+        }
+    }
+
+    private class JsonArrayRowReader implements RowReader {
+        private final JsonParser parser;
+
+        JsonArrayRowReader(InputStream input) throws IOException {
+            this.parser = objectMapper.getFactory().createParser(input);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Le corps de la requête doit être un tableau JSON d'objets");
+            }
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                throw new RowFormatException("Ligne ignorée: un objet JSON est attendu");
+            }
+            return parser.readValueAs(ROW_TYPE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+
+        NdjsonRowReader(InputStream input) {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            try {
+                return objectMapper.readValue(line, ROW_TYPE);
+            } catch (JsonProcessingException e) {
+                throw new RowFormatException("JSON invalide: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final List<String> headers;
+
+        CsvRowReader(InputStream input) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IOException("Fichier CSV vide: la ligne d'en-tête est obligatoire");
+            }
+            if (headerLine.startsWith("\uFEFF")) {
+                headerLine = headerLine.substring(1);
+            }
+            this.headers = splitCsvLine(headerLine);
+        }
+
+        @Override
+        public Map<String, Object> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            List<String> values = splitCsvLine(line);
+            if (values.size() != headers.size()) {
+                throw new RowFormatException("Nombre de colonnes invalide: " + values.size()
+                        + " au lieu de " + headers.size());
+            }
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                row.put(headers.get(i), convertCsvValue(values.get(i)));
+            }
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Découpe une ligne CSV (séparateur virgule, guillemets doubles avec échappement "")
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    /**
+     * Convertit une cellule CSV en booléen, entier, décimal ou chaîne
+     */
+    static Object convertCsvValue(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            long number = Long.parseLong(value);
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return (int) number;
+            }
+            return number;
+        } catch (NumberFormatException ignored) {
+            // pas un entier
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ignored) {
+            return value;
+        }
+    }
+
+    private static final class RowOutcome {
+        private final long row;
+        private final Map<String, Object> result;
+        private final String error;
+
+        private RowOutcome(long row, Map<String, Object> result, String error) {
+            this.row = row;
+            this.result = result;
+            this.error = error;
+        }
+
+        static RowOutcome success(long row, Map<String, Object> result) {
+            return new RowOutcome(row, result, null);
+        }
+
+        static RowOutcome failure(long row, String error) {
+            return new RowOutcome(row, null, error != null ? error : "Erreur inconnue");
+        }
+    }
+}
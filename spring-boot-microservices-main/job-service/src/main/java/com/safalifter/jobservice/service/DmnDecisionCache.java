@@ -0,0 +1,275 @@
+package com.safalifter.jobservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnEngine;
+import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationListener;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des décisions DMN parsées, indexé par (clé de décision, version).
+ * Le moteur DMN est construit une seule fois et partagé par toutes les évaluations.
+ * Les tables de décision sont compilées ({@link DmnIndexedDecisionTable}) au chargement de la décision.
+ */
+@Slf4j
+@Component
+public class DmnDecisionCache {
+
+    private final DmnEngine dmnEngine;
+    private final int maxEntries;
+    private final Map<CacheKey, DmnDecision> decisions;
+    private final Map<CacheKey, Object> loadLocks = new ConcurrentHashMap<>();
+    // Version de chaque décision parsée (clés faibles: suit la durée de vie des décisions)
+    private final Map<DmnDecision, String> versions = Collections.synchronizedMap(new WeakHashMap<>());
+    // Table compilée de chaque décision parsée (vide si la table n'est pas prise en charge)
+    private final Map<DmnDecision, Optional<DmnIndexedDecisionTable>> compiledTables =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    // Écouteurs notifiés après chaque évaluation (moteur standard, évaluation indexée et noeuds de DRD)
+    private final List<DmnDecisionEvaluationListener> evaluationListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public DmnDecisionCache(@Value("${dmn.cache.max-entries:256}") int maxEntries) {
+        DefaultDmnEngineConfiguration configuration =
+                (DefaultDmnEngineConfiguration) DmnEngineConfiguration.createDefaultDmnEngineConfiguration();
+        // Un seul écouteur fixé à la construction du moteur, qui relaie vers les écouteurs ajoutés ensuite
+        DmnDecisionEvaluationListener relay = this::notifyEvaluation;
+        configuration.setCustomPostDecisionEvaluationListeners(new ArrayList<>(List.of(relay)));
+        this.dmnEngine = configuration.buildEngine();
+        this.maxEntries = maxEntries;
+        // LinkedHashMap en ordre d'accès : l'entrée la moins récemment utilisée est évincée en premier
+        this.decisions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, DmnDecision> eldest) {
+                if (size() > DmnDecisionCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    log.debug("Décision DMN évincée du cache: {}", eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retourne le moteur DMN partagé
+     */
+    public DmnEngine getDmnEngine() {
+        return dmnEngine;
+    }
+
+    /**
+     * Ajoute un écouteur notifié après chaque évaluation de décision
+     */
+    public void addEvaluationListener(DmnDecisionEvaluationListener listener) {
+        evaluationListeners.add(listener);
+    }
+
+    /**
+     * Permet aux évaluations hors moteur de ne construire l'événement que s'il est écouté
+     */
+    public boolean hasEvaluationListeners() {
+        return !evaluationListeners.isEmpty();
+    }
+
+    public void notifyEvaluation(DmnDecisionEvaluationEvent event) {
+        for (DmnDecisionEvaluationListener listener : evaluationListeners) {
+            listener.notify(event);
+        }
+    }
+
+    /**
+     * Récupère la décision parsée pour (decisionKey, version) ou la construit via le loader
+     */
+    public DmnDecision getOrLoad(String decisionKey, String version, Supplier<DmnDecision> loader) {
+        CacheKey key = new CacheKey(decisionKey, version);
+        DmnDecision decision = get(key);
+        if (decision != null) {
+            hits.incrementAndGet();
+            return decision;
+        }
+
+        // Un seul thread parse une même version, les autres attendent le résultat
+        Object lock = loadLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                decision = get(key);
+                if (decision != null) {
+                    hits.incrementAndGet();
+                    return decision;
+                }
+                misses.incrementAndGet();
+                log.info("Décision DMN absente du cache, parsing: {}", key);
+                decision = loader.get();
+                versions.put(decision, version);
+                compileTables(decision);
+                synchronized (decisions) {
+                    decisions.put(key, decision);
+                }
+                return decision;
+            }
+        } finally {
+            loadLocks.remove(key, lock);
+        }
+    }
+
+    /**
+     * Table compilée de la décision, ou null si elle n'est pas prise en charge.
+     * Les décisions qui ne sont pas passées par le cache sont compilées à la première demande.
+     */
+    DmnIndexedDecisionTable getCompiledTable(DmnDecision decision) {
+        return compiledTables.computeIfAbsent(decision, this::compile).orElse(null);
+    }
+
+    /**
+     * Nombre de tables de décision compilées encore en mémoire
+     */
+    long getCompiledTableCount() {
+        synchronized (compiledTables) {
+            return compiledTables.values().stream().filter(Optional::isPresent).count();
+        }
+    }
+
+    /**
+     * Version de la définition dont est issue une décision parsée par ce cache (null si inconnue)
+     */
+    public String getVersion(DmnDecision decision) {
+        return versions.get(decision);
+    }
+
+    /**
+     * Invalide toutes les versions en cache d'une clé de décision.
+     * L'invalidation est répétée après le commit de la transaction courante pour
+     * éviter qu'une évaluation concurrente ne remette en cache l'ancien XML.
+     */
+    public void invalidate(String decisionKey) {
+        if (decisionKey == null) {
+            return;
+        }
+        evict(decisionKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(decisionKey);
+                }
+            });
+        }
+    }
+
+    /**
+     * Vide entièrement le cache
+     */
+    public void clear() {
+        synchronized (decisions) {
+            invalidations.addAndGet(decisions.size());
+            decisions.clear();
+        }
+    }
+
+    /**
+     * Statistiques du cache (hits, misses, évictions, invalidations)
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        synchronized (decisions) {
+            stats.put("size", decisions.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    /**
+     * Compile la décision chargée et les décisions dont elle dépend (DRD)
+     */
+    private void compileTables(DmnDecision decision) {
+        Deque<DmnDecision> pending = new ArrayDeque<>(List.of(decision));
+        Set<DmnDecision> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!pending.isEmpty()) {
+            DmnDecision current = pending.pop();
+            if (visited.add(current)) {
+                getCompiledTable(current);
+                pending.addAll(current.getRequiredDecisions());
+            }
+        }
+    }
+
+    private Optional<DmnIndexedDecisionTable> compile(DmnDecision decision) {
+        DmnIndexedDecisionTable table = DmnIndexedDecisionTable.compile(decision,
+                (DefaultDmnEngineConfiguration) dmnEngine.getConfiguration());
+        if (table != null) {
+            log.info("Table de décision compilée pour {} ({} règles)", decision.getKey(), table.getRuleCount());
+        } else {
+            log.info("Décision {} non compilable, évaluation standard", decision.getKey());
+        }
+        return Optional.ofNullable(table);
+    }
+
+    private DmnDecision get(CacheKey key) {
+        synchronized (decisions) {
+            return decisions.get(key);
+        }
+    }
+
+    private void evict(String decisionKey) {
+        synchronized (decisions) {
+            Iterator<CacheKey> iterator = decisions.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().decisionKey.equals(decisionKey)) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static final class CacheKey {
+        private final String decisionKey;
+        private final String version;
+
+        private CacheKey(String decisionKey, String version) {
+            this.decisionKey = decisionKey;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return decisionKey.equals(other.decisionKey) && Objects.equals(version, other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(decisionKey, version);
+        }
+
+        @Override
+        public String toString() {
+            return decisionKey + ":" + version;
+        }
+    }
+}
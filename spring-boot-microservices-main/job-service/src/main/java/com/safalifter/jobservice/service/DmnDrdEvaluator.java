@@ -0,0 +1,250 @@
+package com.safalifter.jobservice.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnDecisionContext;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.impl.evaluation.DmnDecisionLogicEvaluationHandler;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Évaluation des graphes de décisions (DRD) : chaque décision requise est évaluée une seule fois
+ * par évaluation de premier niveau, et les décisions sans dépendance mutuelle sont évaluées
+ * en parallèle sur un pool borné. Chaque noeud voit les variables d'entrée et les sorties de ses
+ * décisions requises (directes et transitives), fusionnées comme le fait le moteur DMN standard.
+ */
+@Slf4j
+@Component
+public class DmnDrdEvaluator {
+
+    private final DmnDecisionCache dmnDecisionCache;
+    private final DmnIndexedEvaluator dmnIndexedEvaluator;
+    private final NodeContext nodeContext;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    public DmnDrdEvaluator(DmnDecisionCache dmnDecisionCache,
+                           DmnIndexedEvaluator dmnIndexedEvaluator,
+                           @Value("${dmn.drd.parallelism:0}") int parallelism) {
+        this.dmnDecisionCache = dmnDecisionCache;
+        this.dmnIndexedEvaluator = dmnIndexedEvaluator;
+        this.nodeContext = new NodeContext(
+                (DefaultDmnEngineConfiguration) dmnDecisionCache.getDmnEngine().getConfiguration());
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, namedDaemonThreads("dmn-drd-"));
+    }
+
+    /**
+     * Évalue la décision ; les décisions sans décision requise passent directement par l'évaluateur indexé
+     */
+    public DmnDecisionResult evaluate(DmnDecision decision, Map<String, Object> variables) {
+        if (decision.getRequiredDecisions().isEmpty()) {
+            return dmnIndexedEvaluator.evaluate(decision, variables);
+        }
+        return evaluateGraph(decision, variables).getResult();
+    }
+
+    /**
+     * Évalue le graphe de la décision et retourne la trace de chaque noeud avec ses temps
+     */
+    public Trace trace(DmnDecision decision, Map<String, Object> variables) {
+        return evaluateGraph(decision, variables);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Trace evaluateGraph(DmnDecision root, Map<String, Object> variables) {
+        long start = System.nanoTime();
+        // Cache des sous-décisions limité à cette évaluation : un noeud partagé n'est évalué qu'une fois
+        Map<DmnDecision, CompletableFuture<NodeTrace>> evaluations = new ConcurrentHashMap<>();
+        CompletableFuture<NodeTrace> rootEvaluation = schedule(root, variables, start, evaluations, new HashSet<>());
+        try {
+            rootEvaluation.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+
+        // Trace dans l'ordre d'évaluation du moteur standard (décisions requises d'abord)
+        List<NodeTrace> nodes = new ArrayList<>();
+        for (DmnDecision decision : postOrder(root)) {
+            nodes.add(evaluations.get(decision).join());
+        }
+        return new Trace(rootEvaluation.join().getResult(), nodes, (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Planifie l'évaluation d'un noeud dès que toutes ses décisions requises sont évaluées.
+     * Les décisions requises sont planifiées (et enregistrées) avant le noeud qui les lit.
+     */
+    private CompletableFuture<NodeTrace> schedule(DmnDecision decision, Map<String, Object> variables, long start,
+                                                  Map<DmnDecision, CompletableFuture<NodeTrace>> evaluations,
+                                                  Set<DmnDecision> path) {
+        CompletableFuture<NodeTrace> existing = evaluations.get(decision);
+        if (existing != null) {
+            return existing;
+        }
+        if (!path.add(decision)) {
+            throw new IllegalStateException("Cycle dans le graphe de décisions sur " + decision.getKey());
+        }
+        List<CompletableFuture<NodeTrace>> required = new ArrayList<>();
+        for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+            required.add(schedule(requiredDecision, variables, start, evaluations, path));
+        }
+        path.remove(decision);
+
+        CompletableFuture<NodeTrace> evaluation = CompletableFuture
+                .allOf(required.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> System.nanoTime())
+                .thenApplyAsync(readyAt -> evaluateNode(decision, variables, start, readyAt, evaluations), executor);
+        evaluations.put(decision, evaluation);
+        return evaluation;
+    }
+
+    private NodeTrace evaluateNode(DmnDecision decision, Map<String, Object> variables, long start, long readyAt,
+                                   Map<DmnDecision, CompletableFuture<NodeTrace>> evaluations) {
+        long nodeStart = System.nanoTime();
+        DmnDecisionResult result;
+        if (decision.getRequiredDecisions().isEmpty()) {
+            result = dmnIndexedEvaluator.evaluate(decision, variables);
+        } else {
+            VariableMap context = Variables.fromMap(variables);
+            List<DmnDecision> dependencies = postOrder(decision);
+            // Le noeud lui-même est le dernier de la liste
+            for (DmnDecision dependency : dependencies.subList(0, dependencies.size() - 1)) {
+                nodeContext.addResult(evaluations.get(dependency).join().getResult(), context, dependency);
+            }
+            result = nodeContext.evaluateLogic(decision, context, dmnDecisionCache.hasEvaluationListeners());
+        }
+        long end = System.nanoTime();
+
+        List<String> requiredKeys = new ArrayList<>();
+        for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+            requiredKeys.add(requiredDecision.getKey());
+        }
+        return new NodeTrace(decision.getKey(), decision.getName(), requiredKeys, result,
+                (nodeStart - start) / 1000, (nodeStart - readyAt) / 1000, (end - nodeStart) / 1000,
+                Thread.currentThread().getName());
+    }
+
+    /**
+     * Décisions du graphe en ordre postfixe, sans doublon (même ordre que le moteur standard)
+     */
+    private static List<DmnDecision> postOrder(DmnDecision root) {
+        List<DmnDecision> ordered = new ArrayList<>();
+        collect(root, ordered);
+        return ordered;
+    }
+
+    private static void collect(DmnDecision decision, List<DmnDecision> ordered) {
+        if (ordered.contains(decision)) {
+            return;
+        }
+        for (DmnDecision requiredDecision : decision.getRequiredDecisions()) {
+            collect(requiredDecision, ordered);
+        }
+        ordered.add(decision);
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return e;
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Réutilise la sélection du gestionnaire d'évaluation et la fusion des résultats du moteur standard,
+     * pour évaluer un seul noeud sans réévaluer ses décisions requises
+     */
+    private static final class NodeContext extends DefaultDmnDecisionContext {
+
+        NodeContext(DefaultDmnEngineConfiguration configuration) {
+            super(configuration);
+        }
+
+        DmnDecisionResult evaluateLogic(DmnDecision decision, VariableMap variables, boolean notifyListeners) {
+            DmnDecisionLogicEvaluationHandler handler = getDecisionEvaluationHandler(decision);
+            DmnDecisionLogicEvaluationEvent event = handler.evaluate(decision, variables.asVariableContext());
+            if (notifyListeners) {
+                // Un événement par noeud : les décisions requises ont déjà notifié le leur
+                generateDecisionEvaluationEvent(new ArrayList<>(List.of(event)));
+            }
+            return handler.generateDecisionResult(event);
+        }
+
+        void addResult(DmnDecisionResult result, VariableMap variables, DmnDecision decision) {
+            addResultToVariableContext(result, variables, decision);
+        }
+    }
+
+    /**
+     * Résultat d'une évaluation de graphe : résultat de la décision racine et trace par noeud
+     */
+    @Getter
+    public static final class Trace {
+        private final DmnDecisionResult result;
+        private final List<NodeTrace> nodes;
+        private final long durationMicros;
+
+        Trace(DmnDecisionResult result, List<NodeTrace> nodes, long durationMicros) {
+            this.result = result;
+            this.nodes = nodes;
+            this.durationMicros = durationMicros;
+        }
+    }
+
+    /**
+     * Trace d'un noeud : début relatif à l'évaluation, attente d'un thread libre et durée propre
+     */
+    @Getter
+    public static final class NodeTrace {
+        private final String decisionKey;
+        private final String decisionName;
+        private final List<String> requiredDecisions;
+        private final DmnDecisionResult result;
+        private final long startMicros;
+        private final long queuedMicros;
+        private final long durationMicros;
+        private final String thread;
+
+        NodeTrace(String decisionKey, String decisionName, List<String> requiredDecisions, DmnDecisionResult result,
+                  long startMicros, long queuedMicros, long durationMicros, String thread) {
+            this.decisionKey = decisionKey;
+            this.decisionName = decisionName;
+            this.requiredDecisions = requiredDecisions;
+            this.result = result;
+            this.startMicros = startMicros;
+            this.queuedMicros = queuedMicros;
+            this.durationMicros = durationMicros;
+            this.thread = thread;
+        }
+    }
+}
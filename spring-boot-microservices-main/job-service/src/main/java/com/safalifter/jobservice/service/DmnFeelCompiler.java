@@ -0,0 +1,347 @@
+package com.safalifter.jobservice.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compile les expressions FEEL simples d'une table de décision en arbres de lambdas,
+ * une seule fois au chargement de la décision:
+ * - tests unaires: littéraux, comparaisons, intervalles, listes et not(...)
+ * - expressions d'entrée/sortie: chemins de variables (ex: client.age)
+ *
+ * Un test compilé retourne null quand le résultat dépend d'une règle FEEL non reproduite
+ * (types différents, valeur null...): l'appelant doit alors utiliser l'interpréteur FEEL.
+ */
+final class DmnFeelCompiler {
+
+    /**
+     * Valeur retournée par un chemin compilé lorsque l'interpréteur doit prendre le relais
+     */
+    static final Object UNRESOLVED = new Object();
+
+    static final UnaryTest WILDCARD = value -> Boolean.TRUE;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"([^\"\\\\]*)\"");
+    private static final String NUMBER = "(-?\\d+(?:\\.\\d+)?)";
+    private static final Pattern NUMBER_LITERAL = Pattern.compile(NUMBER);
+    private static final Pattern COMPARISON = Pattern.compile("(<=|>=|<|>)\\s*" + NUMBER);
+    private static final Pattern RANGE = Pattern.compile("([\\[\\]\\(])\\s*" + NUMBER + "\\s*\\.\\.\\s*" + NUMBER + "\\s*([\\[\\]\\)])");
+    private static final Pattern PATH = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*");
+    private static final Set<String> KEYWORDS = Set.of("true", "false", "null", "not", "and", "or", "if", "then", "else",
+            "for", "in", "return", "some", "every", "satisfies", "between", "instance", "of", "function");
+
+    private DmnFeelCompiler() {
+    }
+
+    /**
+     * Test unaire compilé: TRUE/FALSE, ou null si l'interpréteur FEEL doit décider
+     */
+    @FunctionalInterface
+    interface UnaryTest {
+        Boolean test(Object value);
+    }
+
+    /**
+     * Compile une entrée de règle; retourne null si la syntaxe n'est pas prise en charge
+     */
+    static UnaryTest compileUnaryTests(String expression) {
+        String entry = expression == null ? "" : expression.trim();
+        if (entry.isEmpty() || "-".equals(entry)) {
+            return WILDCARD;
+        }
+        if (entry.startsWith("not(") && entry.endsWith(")")) {
+            UnaryTest inner = compileList(entry.substring(4, entry.length() - 1));
+            return inner == null ? null : new Not(inner);
+        }
+        return compileList(entry);
+    }
+
+    /**
+     * Indique si l'expression est un littéral (chaîne, nombre, booléen) dont la valeur ne dépend pas du contexte
+     */
+    static boolean isLiteral(String expression) {
+        return STRING_LITERAL.matcher(expression).matches() || NUMBER_LITERAL.matcher(expression).matches()
+                || "true".equals(expression) || "false".equals(expression);
+    }
+
+    /**
+     * Compile un chemin de variables (ex: "age" ou "client.adresse.pays"); null si ce n'est pas un chemin
+     */
+    static VariablePath compilePath(String expression) {
+        String path = expression == null ? "" : expression.trim();
+        if (!PATH.matcher(path).matches()) {
+            return null;
+        }
+        String[] segments = path.split("\\.");
+        for (String segment : segments) {
+            if (KEYWORDS.contains(segment)) {
+                return null;
+            }
+        }
+        return new VariablePath(segments);
+    }
+
+    /**
+     * Reproduit la conversion des valeurs Java par FEEL en sortie d'expression
+     * (nombres entiers en Long, décimaux en Double); UNRESOLVED pour les autres types
+     */
+    static Object toFeelResult(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+        BigDecimal number = toNumber(value);
+        if (number == null) {
+            return UNRESOLVED;
+        }
+        if (number.signum() == 0 || number.stripTrailingZeros().scale() <= 0) {
+            try {
+                return number.longValueExact();
+            } catch (ArithmeticException e) {
+                return UNRESOLVED;
+            }
+        }
+        return number.doubleValue();
+    }
+
+    /**
+     * Convertit une valeur numérique comme le fait FEEL; null si le type n'est pas géré
+     */
+    static BigDecimal toNumber(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isFinite(d) ? BigDecimal.valueOf(d) : null;
+        }
+        return null;
+    }
+
+    private static UnaryTest compileList(String entry) {
+        List<String> parts = splitList(entry);
+        if (parts == null) {
+            return null;
+        }
+        List<UnaryTest> tests = new ArrayList<>(parts.size());
+        for (String part : parts) {
+            UnaryTest test = compileTest(part);
+            if (test == null) {
+                return null;
+            }
+            tests.add(test);
+        }
+        return tests.size() == 1 ? tests.get(0) : new AnyOf(tests);
+    }
+
+    private static UnaryTest compileTest(String part) {
+        Matcher matcher;
+        if ((matcher = STRING_LITERAL.matcher(part)).matches()) {
+            return new StringEquals(matcher.group(1));
+        }
+        if ("true".equals(part) || "false".equals(part)) {
+            return new BooleanEquals(Boolean.valueOf(part));
+        }
+        if (NUMBER_LITERAL.matcher(part).matches()) {
+            BigDecimal value = new BigDecimal(part);
+            return new NumericRange(value, true, value, true);
+        }
+        if ((matcher = COMPARISON.matcher(part)).matches()) {
+            BigDecimal value = new BigDecimal(matcher.group(2));
+            switch (matcher.group(1)) {
+                case "<":
+                    return new NumericRange(null, false, value, false);
+                case "<=":
+                    return new NumericRange(null, false, value, true);
+                case ">":
+                    return new NumericRange(value, false, null, false);
+                default:
+                    return new NumericRange(value, true, null, false);
+            }
+        }
+        if ((matcher = RANGE.matcher(part)).matches()) {
+            return new NumericRange(new BigDecimal(matcher.group(2)), "[".equals(matcher.group(1)),
+                    new BigDecimal(matcher.group(3)), "]".equals(matcher.group(4)));
+        }
+        return null;
+    }
+
+    /**
+     * Découpe une liste de tests unaires sur les virgules de premier niveau; null si la syntaxe est inattendue
+     */
+    private static List<String> splitList(String entry) {
+        List<String> parts = new ArrayList<>();
+        boolean inString = false;
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < entry.length(); i++) {
+            char c = entry.charAt(i);
+            if (c == '"') {
+                inString = !inString;
+            } else if (inString) {
+                continue;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                // Les intervalles ouverts "]a..b[" inversent les crochets: on ne suit que la profondeur globale
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(entry.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        if (inString) {
+            return null;
+        }
+        parts.add(entry.substring(start).trim());
+        return parts;
+    }
+
+    static final class StringEquals implements UnaryTest {
+        final String value;
+
+        private StringEquals(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public Boolean test(Object input) {
+            return input instanceof String ? value.equals(input) : null;
+        }
+    }
+
+    static final class BooleanEquals implements UnaryTest {
+        final Boolean value;
+
+        private BooleanEquals(Boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public Boolean test(Object input) {
+            return input instanceof Boolean ? value.equals(input) : null;
+        }
+    }
+
+    /**
+     * Intervalle numérique; une borne null représente l'infini
+     */
+    static final class NumericRange implements UnaryTest {
+        final BigDecimal low;
+        final boolean lowInclusive;
+        final BigDecimal high;
+        final boolean highInclusive;
+
+        private NumericRange(BigDecimal low, boolean lowInclusive, BigDecimal high, boolean highInclusive) {
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+        }
+
+        @Override
+        public Boolean test(Object input) {
+            BigDecimal number = toNumber(input);
+            if (number == null) {
+                return null;
+            }
+            if (low != null) {
+                int cmp = low.compareTo(number);
+                if (lowInclusive ? cmp > 0 : cmp >= 0) {
+                    return false;
+                }
+            }
+            if (high != null) {
+                int cmp = high.compareTo(number);
+                return highInclusive ? cmp >= 0 : cmp > 0;
+            }
+            return true;
+        }
+
+        DmnIntervalTree.Interval toInterval(int rule) {
+            return new DmnIntervalTree.Interval(low, lowInclusive, high, highInclusive, rule);
+        }
+    }
+
+    /**
+     * Liste de tests: vrai dès qu'un test est vrai, faux si tous sont faux
+     */
+    static final class AnyOf implements UnaryTest {
+        final List<UnaryTest> tests;
+
+        private AnyOf(List<UnaryTest> tests) {
+            this.tests = List.copyOf(tests);
+        }
+
+        @Override
+        public Boolean test(Object input) {
+            boolean undecided = false;
+            for (UnaryTest test : tests) {
+                Boolean result = test.test(input);
+                if (result == null) {
+                    undecided = true;
+                } else if (result) {
+                    return true;
+                }
+            }
+            return undecided ? null : false;
+        }
+    }
+
+    static final class Not implements UnaryTest {
+        final UnaryTest inner;
+
+        private Not(UnaryTest inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public Boolean test(Object input) {
+            Boolean result = inner.test(input);
+            return result == null ? null : !result;
+        }
+    }
+
+    /**
+     * Chemin de variables résolu dans les Map imbriquées; UNRESOLVED si un segment est absent
+     */
+    static final class VariablePath {
+        private final String[] segments;
+
+        private VariablePath(String[] segments) {
+            this.segments = segments;
+        }
+
+        boolean isSimpleName() {
+            return segments.length == 1;
+        }
+
+        String getRootName() {
+            return segments[0];
+        }
+
+        Object resolve(Map<String, Object> variables) {
+            Object current = variables;
+            for (String segment : segments) {
+                if (!(current instanceof Map) || !((Map<?, ?>) current).containsKey(segment)) {
+                    return UNRESOLVED;
+                }
+                current = ((Map<?, ?>) current).get(segment);
+            }
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return String.join(".", segments);
+        }
+    }
+}
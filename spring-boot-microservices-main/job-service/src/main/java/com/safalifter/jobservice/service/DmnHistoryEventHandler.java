@@ -0,0 +1,116 @@
+package com.safalifter.jobservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.history.HistoricDecisionInputInstance;
+import org.camunda.bpm.engine.history.HistoricDecisionOutputInstance;
+import org.camunda.bpm.engine.impl.history.event.HistoricDecisionEvaluationEvent;
+import org.camunda.bpm.engine.impl.history.event.HistoricDecisionInstanceEntity;
+import org.camunda.bpm.engine.impl.history.event.HistoryEvent;
+import org.camunda.bpm.engine.impl.history.handler.HistoryEventHandler;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Gestionnaire d'historique du moteur : les évaluations de décisions (tâches métier)
+ * sont transmises à la file asynchrone de DmnHistoryService au lieu d'être écrites
+ * dans la transaction d'évaluation ; les autres événements vont au gestionnaire délégué.
+ */
+@Slf4j
+public class DmnHistoryEventHandler implements HistoryEventHandler {
+
+    private final HistoryEventHandler delegate;
+    private final DmnHistoryService dmnHistoryService;
+
+    public DmnHistoryEventHandler(HistoryEventHandler delegate, DmnHistoryService dmnHistoryService) {
+        this.delegate = delegate;
+        this.dmnHistoryService = dmnHistoryService;
+    }
+
+    @Override
+    public void handleEvent(HistoryEvent historyEvent) {
+        if (historyEvent instanceof HistoricDecisionEvaluationEvent) {
+            HistoricDecisionEvaluationEvent evaluation = (HistoricDecisionEvaluationEvent) historyEvent;
+            record(evaluation.getRootHistoricDecisionInstance());
+            if (evaluation.getRequiredHistoricDecisionInstances() != null) {
+                evaluation.getRequiredHistoricDecisionInstances().forEach(this::record);
+            }
+        } else {
+            delegate.handleEvent(historyEvent);
+        }
+    }
+
+    @Override
+    public void handleEvents(List<HistoryEvent> historyEvents) {
+        for (HistoryEvent historyEvent : historyEvents) {
+            handleEvent(historyEvent);
+        }
+    }
+
+    private void record(HistoricDecisionInstanceEntity instance) {
+        if (instance == null) {
+            return;
+        }
+        // Les valeurs sont lues ici, tant que le contexte de commande est actif ;
+        // seule la sérialisation et l'écriture sont faites par le thread d'écriture
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        if (instance.getInputs() != null) {
+            for (HistoricDecisionInputInstance input : instance.getInputs()) {
+                inputs.put(input.getClauseName() != null ? input.getClauseName() : input.getClauseId(), valueOf(input));
+            }
+        }
+        // Une ligne de sortie par règle satisfaite
+        Map<String, Map<String, Object>> outputs = new LinkedHashMap<>();
+        if (instance.getOutputs() != null) {
+            for (HistoricDecisionOutputInstance output : instance.getOutputs()) {
+                outputs.computeIfAbsent(output.getRuleId(), ruleId -> new LinkedHashMap<>())
+                        .put(output.getVariableName(), valueOf(output));
+            }
+        }
+        Date evaluationTime = instance.getEvaluationTime();
+        dmnHistoryService.record(DmnHistoryService.Event.builder()
+                .decisionKey(instance.getDecisionDefinitionKey())
+                .decisionVersion(versionOf(instance))
+                .source(DmnHistoryService.SOURCE_ENGINE)
+                .processInstanceId(instance.getProcessInstanceId())
+                .activityId(instance.getActivityId())
+                .inputs(inputs)
+                .outputs(new ArrayList<>(outputs.values()))
+                .evaluatedAt(evaluationTime != null
+                        ? LocalDateTime.ofInstant(evaluationTime.toInstant(), ZoneId.systemDefault())
+                        : LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Version extraite de l'identifiant de définition Camunda (clé:version:uuid), null si absente
+     */
+    private String versionOf(HistoricDecisionInstanceEntity instance) {
+        String definitionId = instance.getDecisionDefinitionId();
+        String prefix = instance.getDecisionDefinitionKey() + ":";
+        if (definitionId == null || !definitionId.startsWith(prefix)) {
+            return null;
+        }
+        int end = definitionId.indexOf(':', prefix.length());
+        return end > prefix.length() ? definitionId.substring(prefix.length(), end) : null;
+    }
+
+    private Object valueOf(HistoricDecisionInputInstance input) {
+        try {
+            return input.getValue();
+        } catch (RuntimeException e) {
+            log.debug("Valeur d'entrée non lisible pour l'historique DMN: {}", e.getMessage());
+            return input.getErrorMessage();
+        }
+    }
+
+    private Object valueOf(HistoricDecisionOutputInstance output) {
+        try {
+            return output.getValue();
+        } catch (RuntimeException e) {
+            log.debug("Valeur de sortie non lisible pour l'historique DMN: {}", e.getMessage());
+            return output.getErrorMessage();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.safalifter.jobservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safalifter.jobservice.dto.DmnDecisionHistoryDto;
+import com.safalifter.jobservice.model.DmnDecisionHistory;
+import com.safalifter.jobservice.repository.DmnDecisionHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Historique des évaluations DMN, découplé de l'évaluation :
+ * les événements sont déposés dans une file bornée en mémoire et un thread d'écriture
+ * les insère par lots JDBC. Quand la file est pleine, l'événement est abandonné (DROP)
+ * ou l'appelant attend au plus block-timeout qu'une place se libère (BLOCK).
+ */
+@Slf4j
+@Service
+public class DmnHistoryService {
+
+    public static final String SOURCE_API = "API";
+    public static final String SOURCE_ENGINE = "ENGINE";
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final String INSERT_SQL = "INSERT INTO dmn_decision_history "
+            + "(id, decision_key, decision_version, source, process_instance_id, activity_id, "
+            + "inputs, outputs, duration_micros, evaluated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] COLUMN_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.CLOB, Types.CLOB, Types.BIGINT, Types.TIMESTAMP};
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DmnDecisionHistoryRepository historyRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final BlockingQueue<Event> queue;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public DmnHistoryService(JdbcTemplate jdbcTemplate,
+                             DmnDecisionHistoryRepository historyRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${dmn.history.enabled:true}") boolean enabled,
+                             @Value("${dmn.history.queue-capacity:10000}") int queueCapacity,
+                             @Value("${dmn.history.batch-size:200}") int batchSize,
+                             @Value("${dmn.history.flush-interval-ms:1000}") long flushIntervalMs,
+                             @Value("${dmn.history.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                             @Value("${dmn.history.block-timeout-ms:100}") long blockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.historyRepository = historyRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "dmn-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Arrête le thread d'écriture après avoir écrit les événements encore en file
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        drain();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Dépose un événement d'évaluation dans la file ; ne fait aucune entrée/sortie.
+     * Retourne false si l'événement a été abandonné faute de place.
+     */
+    public boolean record(Event event) {
+        if (!enabled) {
+            return false;
+        }
+        recorded.incrementAndGet();
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                accepted = queue.offer(event, blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(event);
+        }
+        if (!accepted) {
+            long total = dropped.incrementAndGet();
+            // Un avertissement par tranche de 1000 abandons pour ne pas saturer les logs
+            if (total % 1000 == 1) {
+                log.warn("File d'historique DMN pleine ({} places), {} événement(s) abandonné(s) au total",
+                        queue.size() + queue.remainingCapacity(), total);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Historique paginé d'une décision, du plus récent au plus ancien
+     */
+    public Page<DmnDecisionHistoryDto> getHistory(String decisionKey, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE));
+        return historyRepository.findByDecisionKeyOrderByEvaluatedAtDesc(decisionKey, pageRequest)
+                .map(this::convertToDto);
+    }
+
+    /**
+     * Statistiques de la file et du thread d'écriture
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("queueSize", queue.size());
+        stats.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        stats.put("recorded", recorded.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("batches", batches.get());
+        stats.put("failedBatches", failedBatches.get());
+        return stats;
+    }
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Event first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Arrêt demandé : les événements restants sont écrits par shutdown()
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    /**
+     * Écrit tous les événements en file (utilisé à l'arrêt et par les tests)
+     */
+    void drain() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Event> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Event event : batch) {
+            rows.add(new Object[]{
+                    UUID.randomUUID().toString(),
+                    event.getDecisionKey(),
+                    event.getDecisionVersion(),
+                    event.getSource(),
+                    event.getProcessInstanceId(),
+                    event.getActivityId(),
+                    toJson(event.getInputs()),
+                    toJson(event.getOutputs()),
+                    event.getDurationMicros(),
+                    event.getEvaluatedAt() != null ? Timestamp.valueOf(event.getEvaluatedAt()) : null
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Object[] row = rows.get(i);
+                    for (int column = 0; column < row.length; column++) {
+                        if (row[column] == null) {
+                            ps.setNull(column + 1, COLUMN_TYPES[column]);
+                        } else {
+                            ps.setObject(column + 1, row[column]);
+                        }
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+            written.addAndGet(rows.size());
+            batches.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedBatches.incrementAndGet();
+            dropped.addAndGet(rows.size());
+            log.error("Échec de l'écriture d'un lot de {} événement(s) d'historique DMN: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            return String.valueOf(value);
+        }
+    }
+
+    private Object fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (Exception e) {
+            return json;
+        }
+    }
+
+    private DmnDecisionHistoryDto convertToDto(DmnDecisionHistory history) {
+        return DmnDecisionHistoryDto.builder()
+                .id(history.getId())
+                .decisionKey(history.getDecisionKey())
+                .decisionVersion(history.getDecisionVersion())
+                .source(history.getSource())
+                .processInstanceId(history.getProcessInstanceId())
+                .activityId(history.getActivityId())
+                .inputs(fromJson(history.getInputs()))
+                .outputs(fromJson(history.getOutputs()))
+                .durationMicros(history.getDurationMicros())
+                .evaluatedAt(history.getEvaluatedAt())
+                .build();
+    }
+
+    /**
+     * Événement d'évaluation en attente d'écriture ; la sérialisation JSON
+     * des entrées et sorties est faite par le thread d'écriture
+     */
+    @lombok.Value
+    @lombok.Builder
+    public static class Event {
+        String decisionKey;
+        String decisionVersion;
+        String source;
+        String processInstanceId;
+        String activityId;
+        Object inputs;
+        Object outputs;
+        Long durationMicros;
+        @lombok.Builder.Default
+        LocalDateTime evaluatedAt = LocalDateTime.now();
+    }
+}
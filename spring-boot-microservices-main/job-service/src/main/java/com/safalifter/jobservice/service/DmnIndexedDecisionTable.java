@@ -0,0 +1,451 @@
+package com.safalifter.jobservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnDecisionResultEntries;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionResultEntriesImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionResultImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableInputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableOutputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableRuleImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnExpressionImpl;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnEvaluatedDecisionRuleImpl;
+import org.camunda.bpm.dmn.engine.impl.hitpolicy.HitPolicyEntry;
+import org.camunda.bpm.dmn.engine.impl.spi.type.DmnTypeDefinition;
+import org.camunda.bpm.dmn.feel.impl.FeelEngine;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.context.VariableContext;
+import org.camunda.bpm.engine.variable.impl.VariableMapImpl;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.camunda.bpm.model.dmn.HitPolicy;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Table de décision pré-compilée au chargement de la décision.
+ * Pour chaque colonne d'entrée, les littéraux chaîne/booléen sont indexés dans une table de hachage
+ * et les comparaisons/intervalles numériques dans un arbre d'intervalles; chaque entrée est aussi
+ * compilée en test ({@link DmnFeelCompiler}) lorsque sa syntaxe le permet.
+ * Sans index, toutes les entrées non génériques sont vérifiées règle par règle; avec l'index, seulement
+ * les entrées complexes ou dont le type ne correspond pas à la valeur reçue. Une entrée est vérifiée par
+ * son test compilé si possible (et autorisé), sinon par le moteur FEEL.
+ *
+ * evaluate() retourne null lorsque le résultat doit être délégué au moteur standard
+ * (variable absente, conflit UNIQUE/ANY, erreur FEEL...), ce qui garantit un résultat identique.
+ */
+@Slf4j
+final class DmnIndexedDecisionTable {
+
+    private static final Set<HitPolicy> SUPPORTED_HIT_POLICIES =
+            EnumSet.of(HitPolicy.FIRST, HitPolicy.UNIQUE, HitPolicy.ANY, HitPolicy.COLLECT, HitPolicy.RULE_ORDER);
+
+    private final HitPolicy hitPolicy;
+    private final int ruleCount;
+    private final DmnDecisionTableRuleImpl[] rules;
+    private final Column[] columns;
+    private final Conclusion[][] conclusions;
+    private final String[] outputNames;
+    private final DmnTypeDefinition[] outputTypes;
+    private final FeelEngine feelEngine;
+
+    private DmnIndexedDecisionTable(HitPolicy hitPolicy, DmnDecisionTableRuleImpl[] rules, Column[] columns,
+                                    Conclusion[][] conclusions, String[] outputNames, DmnTypeDefinition[] outputTypes,
+                                    FeelEngine feelEngine) {
+        this.hitPolicy = hitPolicy;
+        this.ruleCount = rules.length;
+        this.rules = rules;
+        this.columns = columns;
+        this.conclusions = conclusions;
+        this.outputNames = outputNames;
+        this.outputTypes = outputTypes;
+        this.feelEngine = feelEngine;
+    }
+
+    /**
+     * Compile la table de décision, ou retourne null si elle n'est pas prise en charge
+     * (décision littérale, DRD, agrégateur COLLECT, expressions non FEEL...)
+     */
+    static DmnIndexedDecisionTable compile(DmnDecision decision, DefaultDmnEngineConfiguration configuration) {
+        if (!(decision instanceof DmnDecisionImpl) || !decision.isDecisionTable()
+                || !decision.getRequiredDecisions().isEmpty()) {
+            return null;
+        }
+        DmnDecisionTableImpl table = (DmnDecisionTableImpl) ((DmnDecisionImpl) decision).getDecisionLogic();
+        HitPolicyEntry hitPolicyEntry = table.getHitPolicyHandler().getHitPolicyEntry();
+        if (!SUPPORTED_HIT_POLICIES.contains(hitPolicyEntry.getHitPolicy()) || hitPolicyEntry.getAggregator() != null) {
+            log.debug("Politique de hit non indexable pour la décision {}: {}", decision.getKey(), hitPolicyEntry.getHitPolicy());
+            return null;
+        }
+
+        FeelEngine feelEngine = configuration.getFeelEngine();
+        List<DmnDecisionTableRuleImpl> rules = table.getRules();
+        List<DmnDecisionTableInputImpl> inputs = table.getInputs();
+        List<DmnDecisionTableOutputImpl> outputs = table.getOutputs();
+
+        Column[] columns = new Column[inputs.size()];
+        for (int i = 0; i < inputs.size(); i++) {
+            columns[i] = compileColumn(inputs.get(i), i, rules, configuration);
+            if (columns[i] == null) {
+                log.debug("Colonne d'entrée {} non indexable pour la décision {}", i, decision.getKey());
+                return null;
+            }
+        }
+
+        String[] outputNames = new String[outputs.size()];
+        DmnTypeDefinition[] outputTypes = new DmnTypeDefinition[outputs.size()];
+        for (int j = 0; j < outputs.size(); j++) {
+            outputNames[j] = outputs.get(j).getOutputName();
+            outputTypes[j] = outputs.get(j).getTypeDefinition();
+            if (outputNames[j] == null) {
+                return null;
+            }
+        }
+
+        Conclusion[][] conclusions = new Conclusion[rules.size()][outputs.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            List<DmnExpressionImpl> ruleConclusions = rules.get(r).getConclusions();
+            for (int j = 0; j < outputs.size(); j++) {
+                DmnExpressionImpl conclusion = ruleConclusions.get(j);
+                if (!isNonEmpty(conclusion)) {
+                    continue;
+                }
+                if (!isFeel(conclusion.getExpressionLanguage(), configuration.getDefaultOutputEntryExpressionLanguage())) {
+                    return null;
+                }
+                conclusions[r][j] = compileConclusion(conclusion.getExpression().trim(), outputTypes[j], feelEngine);
+            }
+        }
+
+        return new DmnIndexedDecisionTable(hitPolicyEntry.getHitPolicy(), rules.toArray(new DmnDecisionTableRuleImpl[0]),
+                columns, conclusions, outputNames, outputTypes, feelEngine);
+    }
+
+    /**
+     * Évalue la table; retourne null si l'évaluation doit être déléguée au moteur standard
+     */
+    DmnDecisionResult evaluate(Map<String, Object> variables) {
+        return evaluate(variables, null, true, true);
+    }
+
+    /**
+     * Évalue la table et, si matchedRules n'est pas null, y ajoute les règles retenues
+     * (mêmes règles que l'événement d'évaluation du moteur standard après application de la politique de hit).
+     * Les sorties des règles ne sont pas renseignées.
+     * useIndex active la sélection par index, useCompiledExpressions les tests et chemins compilés;
+     * sans l'un ni l'autre, chaque entrée est évaluée par le moteur FEEL.
+     */
+    DmnDecisionResult evaluate(Map<String, Object> variables, List<DmnEvaluatedDecisionRule> matchedRules,
+                               boolean useIndex, boolean useCompiledExpressions) {
+        // Une variable absente a un comportement propre au langage d'expression: on délègue
+        Object[] rawInputs = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            rawInputs[i] = columns[i].inputExpression.resolve(variables);
+            if (rawInputs[i] == DmnFeelCompiler.UNRESOLVED) {
+                return null;
+            }
+        }
+
+        BitSet candidates = new BitSet(ruleCount);
+        candidates.set(0, ruleCount);
+
+        TypedValue[] inputValues = new TypedValue[columns.length];
+        Object[] values = new Object[columns.length];
+        BitSet[] toVerify = new BitSet[columns.length];
+        for (int i = 0; i < columns.length && !candidates.isEmpty(); i++) {
+            Column column = columns[i];
+            inputValues[i] = column.typeDefinition.transform(rawInputs[i]);
+            values[i] = inputValues[i] != null ? inputValues[i].getValue() : null;
+
+            if (useIndex) {
+                BitSet verify = new BitSet(ruleCount);
+                candidates.and(column.match(values[i], verify));
+                toVerify[i] = verify;
+            } else {
+                toVerify[i] = column.entryRules;
+            }
+        }
+
+        // Vérifier les entrées complexes des règles encore candidates (test compilé, sinon FEEL)
+        for (int i = 0; i < columns.length && !candidates.isEmpty(); i++) {
+            if (toVerify[i] == null) {
+                break;
+            }
+            BitSet pending = (BitSet) toVerify[i].clone();
+            pending.and(candidates);
+            if (pending.isEmpty()) {
+                continue;
+            }
+            Column column = columns[i];
+            VariableContext context = null;
+            for (int r = pending.nextSetBit(0); r >= 0; r = pending.nextSetBit(r + 1)) {
+                Boolean matched = useCompiledExpressions && column.tests[r] != null ? column.tests[r].test(values[i]) : null;
+                if (matched == null) {
+                    if (context == null) {
+                        context = new VariableMapImpl(variables)
+                                .putValueTyped(column.inputVariable, inputValues[i])
+                                .asVariableContext();
+                    }
+                    matched = feelEngine.evaluateSimpleUnaryTests(column.entries[r], column.inputVariable, context);
+                }
+                if (!matched) {
+                    candidates.clear(r);
+                }
+            }
+        }
+
+        List<DmnDecisionResultEntries> results = new ArrayList<>();
+        List<Integer> matched = matchedRules != null ? new ArrayList<>() : null;
+        for (int r = candidates.nextSetBit(0); r >= 0; r = candidates.nextSetBit(r + 1)) {
+            results.add(evaluateConclusions(r, variables, useCompiledExpressions));
+            if (matched != null) {
+                matched.add(r);
+            }
+            if (hitPolicy == HitPolicy.FIRST) {
+                break;
+            }
+        }
+
+        if (results.size() > 1) {
+            if (hitPolicy == HitPolicy.UNIQUE) {
+                // Le moteur standard lève l'exception de violation de la politique
+                return null;
+            }
+            if (hitPolicy == HitPolicy.ANY) {
+                Map<String, TypedValue> first = results.get(0).getEntryMapTyped();
+                for (DmnDecisionResultEntries other : results) {
+                    if (!first.equals(other.getEntryMapTyped())) {
+                        return null;
+                    }
+                }
+                results = results.subList(0, 1);
+                if (matched != null) {
+                    matched = matched.subList(0, 1);
+                }
+            }
+        }
+        if (matched != null) {
+            for (int r : matched) {
+                DmnEvaluatedDecisionRuleImpl rule = new DmnEvaluatedDecisionRuleImpl(rules[r]);
+                rule.setOutputEntries(Collections.emptyMap());
+                matchedRules.add(rule);
+            }
+        }
+        return new DmnDecisionResultImpl(results);
+    }
+
+    int getRuleCount() {
+        return ruleCount;
+    }
+
+    private DmnDecisionResultEntries evaluateConclusions(int rule, Map<String, Object> variables,
+                                                         boolean useCompiledExpressions) {
+        DmnDecisionResultEntriesImpl entries = new DmnDecisionResultEntriesImpl();
+        Conclusion[] ruleConclusions = conclusions[rule];
+        for (int j = 0; j < ruleConclusions.length; j++) {
+            Conclusion conclusion = ruleConclusions[j];
+            if (conclusion == null) {
+                continue;
+            }
+            TypedValue value = conclusion.literal;
+            if (value == null) {
+                Object result = useCompiledExpressions && conclusion.path != null
+                        ? DmnFeelCompiler.toFeelResult(conclusion.path.resolve(variables))
+                        : DmnFeelCompiler.UNRESOLVED;
+                if (result == DmnFeelCompiler.UNRESOLVED) {
+                    result = feelEngine.evaluateSimpleExpression(conclusion.expression, Variables.fromMap(variables).asVariableContext());
+                }
+                value = outputTypes[j].transform(result);
+            }
+            entries.putValue(outputNames[j], value);
+        }
+        return entries;
+    }
+
+    private static Conclusion compileConclusion(String expression, DmnTypeDefinition typeDefinition, FeelEngine feelEngine) {
+        if (DmnFeelCompiler.isLiteral(expression)) {
+            // Littéral: évalué une seule fois par FEEL pour obtenir exactement la même valeur que le moteur
+            Object value = feelEngine.evaluateSimpleExpression(expression, Variables.createVariables().asVariableContext());
+            return new Conclusion(expression, typeDefinition.transform(value), null);
+        }
+        return new Conclusion(expression, null, DmnFeelCompiler.compilePath(expression));
+    }
+
+    private static Column compileColumn(DmnDecisionTableInputImpl input, int index, List<DmnDecisionTableRuleImpl> rules,
+                                        DefaultDmnEngineConfiguration configuration) {
+        DmnExpressionImpl inputExpression = input.getExpression();
+        if (!isNonEmpty(inputExpression)) {
+            return null;
+        }
+        String language = inputExpression.getExpressionLanguage() != null
+                ? inputExpression.getExpressionLanguage()
+                : configuration.getDefaultInputExpressionExpressionLanguage();
+        DmnFeelCompiler.VariablePath path = DmnFeelCompiler.compilePath(inputExpression.getExpression());
+        if (path == null || !(isFeel(language, null) || (path.isSimpleName() && "juel".equalsIgnoreCase(language)))) {
+            return null;
+        }
+
+        String inputVariable = input.getInputVariable() != null
+                ? input.getInputVariable()
+                : DmnDecisionTableInputImpl.DEFAULT_INPUT_VARIABLE_NAME;
+        Column column = new Column(path, inputVariable, inputExpression.getTypeDefinition(), rules.size());
+        List<DmnIntervalTree.Interval> intervals = new ArrayList<>();
+
+        for (int r = 0; r < rules.size(); r++) {
+            DmnExpressionImpl condition = rules.get(r).getConditions().get(index);
+            if (!isNonEmpty(condition)) {
+                column.wildcard.set(r);
+                continue;
+            }
+            if (!isFeel(condition.getExpressionLanguage(), configuration.getDefaultInputEntryExpressionLanguage())) {
+                return null;
+            }
+            String entry = condition.getExpression().trim();
+            column.entries[r] = entry;
+            DmnFeelCompiler.UnaryTest test = DmnFeelCompiler.compileUnaryTests(entry);
+            if (test == DmnFeelCompiler.WILDCARD) {
+                column.wildcard.set(r);
+            } else {
+                column.entryRules.set(r);
+                if (test == null || !indexEntry(column, test, r, intervals)) {
+                    column.complex.set(r);
+                }
+                column.tests[r] = test;
+            }
+        }
+        column.numbers = new DmnIntervalTree(intervals);
+        return column;
+    }
+
+    /**
+     * Indexe une entrée composée de tests d'un même type (éventuellement une liste séparée par des virgules)
+     */
+    private static boolean indexEntry(Column column, DmnFeelCompiler.UnaryTest test, int rule,
+                                      List<DmnIntervalTree.Interval> intervals) {
+        List<DmnFeelCompiler.UnaryTest> tests = test instanceof DmnFeelCompiler.AnyOf
+                ? ((DmnFeelCompiler.AnyOf) test).tests
+                : List.of(test);
+
+        // Une liste mélangeant plusieurs types, ou une négation, reste vérifiée règle par règle
+        Class<?> kind = tests.get(0).getClass();
+        for (DmnFeelCompiler.UnaryTest part : tests) {
+            if (part.getClass() != kind) {
+                return false;
+            }
+        }
+        if (kind == DmnFeelCompiler.StringEquals.class) {
+            for (DmnFeelCompiler.UnaryTest part : tests) {
+                column.strings.computeIfAbsent(((DmnFeelCompiler.StringEquals) part).value, k -> new BitSet()).set(rule);
+            }
+            column.stringRules.set(rule);
+        } else if (kind == DmnFeelCompiler.BooleanEquals.class) {
+            for (DmnFeelCompiler.UnaryTest part : tests) {
+                column.booleans.computeIfAbsent(((DmnFeelCompiler.BooleanEquals) part).value, k -> new BitSet()).set(rule);
+            }
+            column.booleanRules.set(rule);
+        } else if (kind == DmnFeelCompiler.NumericRange.class) {
+            for (DmnFeelCompiler.UnaryTest part : tests) {
+                intervals.add(((DmnFeelCompiler.NumericRange) part).toInterval(rule));
+            }
+            column.numericRules.set(rule);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isNonEmpty(DmnExpressionImpl expression) {
+        return expression != null && expression.getExpression() != null && !expression.getExpression().trim().isEmpty();
+    }
+
+    private static boolean isFeel(String language, String defaultLanguage) {
+        String effective = language != null ? language : defaultLanguage;
+        if (effective == null) {
+            return false;
+        }
+        String lower = effective.toLowerCase(Locale.ROOT);
+        return lower.contains("feel") && !lower.contains("juel");
+    }
+
+    private static final class Column {
+        private final DmnFeelCompiler.VariablePath inputExpression;
+        private final String inputVariable;
+        private final DmnTypeDefinition typeDefinition;
+        private final String[] entries;
+        private final DmnFeelCompiler.UnaryTest[] tests;
+
+        private final BitSet wildcard = new BitSet();
+        // Règles dont l'entrée n'est pas générique (vérifiées une à une sans index)
+        private final BitSet entryRules = new BitSet();
+        private final BitSet complex = new BitSet();
+        private final BitSet stringRules = new BitSet();
+        private final BitSet booleanRules = new BitSet();
+        private final BitSet numericRules = new BitSet();
+        private final Map<String, BitSet> strings = new HashMap<>();
+        private final Map<Boolean, BitSet> booleans = new HashMap<>();
+        private DmnIntervalTree numbers;
+
+        private Column(DmnFeelCompiler.VariablePath inputExpression, String inputVariable, DmnTypeDefinition typeDefinition,
+                       int ruleCount) {
+            this.inputExpression = inputExpression;
+            this.inputVariable = inputVariable;
+            this.typeDefinition = typeDefinition;
+            this.entries = new String[ruleCount];
+            this.tests = new DmnFeelCompiler.UnaryTest[ruleCount];
+        }
+
+        /**
+         * Retourne les règles pouvant correspondre à la valeur; celles qui doivent
+         * encore être vérifiées règle par règle sont ajoutées à verify
+         */
+        private BitSet match(Object value, BitSet verify) {
+            BitSet matching = (BitSet) wildcard.clone();
+            verify.or(complex);
+
+            BigDecimal number;
+            if (value instanceof String) {
+                BitSet hits = strings.get(value);
+                if (hits != null) {
+                    matching.or(hits);
+                }
+                verify.or(booleanRules);
+                verify.or(numericRules);
+            } else if (value instanceof Boolean) {
+                BitSet hits = booleans.get(value);
+                if (hits != null) {
+                    matching.or(hits);
+                }
+                verify.or(stringRules);
+                verify.or(numericRules);
+            } else if ((number = DmnFeelCompiler.toNumber(value)) != null) {
+                numbers.stab(number, matching);
+                verify.or(stringRules);
+                verify.or(booleanRules);
+            } else {
+                // null ou type non indexé: chaque entrée typée est vérifiée individuellement
+                verify.or(stringRules);
+                verify.or(booleanRules);
+                verify.or(numericRules);
+            }
+            matching.or(verify);
+            return matching;
+        }
+    }
+
+    private static final class Conclusion {
+        private final String expression;
+        private final TypedValue literal;
+        private final DmnFeelCompiler.VariablePath path;
+
+        private Conclusion(String expression, TypedValue literal, DmnFeelCompiler.VariablePath path) {
+            this.expression = expression;
+            this.literal = literal;
+            this.path = path;
+        }
+    }
+}
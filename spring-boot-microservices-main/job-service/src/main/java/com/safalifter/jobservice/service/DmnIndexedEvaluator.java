@@ -0,0 +1,99 @@
+package com.safalifter.jobservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnDecisionEvaluationEventImpl;
+import org.camunda.bpm.dmn.engine.impl.delegate.DmnDecisionTableEvaluationEventImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Évaluation des décisions DMN par leurs tables compilées au chargement dans le cache
+ * (expressions FEEL simples compilées en lambdas, sélection indexée des règles en option).
+ * Toute table ou évaluation non prise en charge est déléguée au moteur DMN standard.
+ */
+@Slf4j
+@Component
+public class DmnIndexedEvaluator {
+
+    private final DmnDecisionCache dmnDecisionCache;
+    private final boolean enabled;
+    private final boolean compileExpressions;
+
+    private final AtomicLong indexedEvaluations = new AtomicLong();
+    private final AtomicLong compiledEvaluations = new AtomicLong();
+    private final AtomicLong standardEvaluations = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public DmnIndexedEvaluator(DmnDecisionCache dmnDecisionCache,
+                               @Value("${dmn.evaluation.indexed:false}") boolean enabled,
+                               @Value("${dmn.evaluation.compile-expressions:true}") boolean compileExpressions) {
+        this.dmnDecisionCache = dmnDecisionCache;
+        this.enabled = enabled;
+        this.compileExpressions = compileExpressions;
+    }
+
+    /**
+     * Évalue la décision par sa table compilée si possible, sinon avec le moteur standard
+     */
+    public DmnDecisionResult evaluate(DmnDecision decision, Map<String, Object> variables) {
+        if (enabled || compileExpressions) {
+            DmnIndexedDecisionTable table = dmnDecisionCache.getCompiledTable(decision);
+            if (table != null) {
+                try {
+                    List<DmnEvaluatedDecisionRule> matchedRules =
+                            dmnDecisionCache.hasEvaluationListeners() ? new ArrayList<>() : null;
+                    DmnDecisionResult result = table.evaluate(variables, matchedRules, enabled, compileExpressions);
+                    if (result != null) {
+                        (enabled ? indexedEvaluations : compiledEvaluations).incrementAndGet();
+                        if (matchedRules != null) {
+                            notifyEvaluation(decision, matchedRules);
+                        }
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    // Le moteur standard reproduira l'erreur ou produira le résultat attendu
+                    log.debug("Évaluation compilée impossible pour la décision {}: {}", decision.getKey(), e.getMessage());
+                }
+                fallbacks.incrementAndGet();
+            }
+        }
+        standardEvaluations.incrementAndGet();
+        return dmnDecisionCache.getDmnEngine().evaluateDecision(decision, variables);
+    }
+
+    /**
+     * Statistiques de l'évaluation compilée et indexée
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("compileExpressions", compileExpressions);
+        stats.put("compiledTables", dmnDecisionCache.getCompiledTableCount());
+        stats.put("indexedEvaluations", indexedEvaluations.get());
+        stats.put("compiledEvaluations", compiledEvaluations.get());
+        stats.put("standardEvaluations", standardEvaluations.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+
+    /**
+     * Notifie les écouteurs comme le ferait le moteur standard (règles retenues, sans entrées évaluées)
+     */
+    private void notifyEvaluation(DmnDecision decision, List<DmnEvaluatedDecisionRule> matchedRules) {
+        DmnDecisionTableEvaluationEventImpl tableEvent = new DmnDecisionTableEvaluationEventImpl();
+        tableEvent.setDecisionTable(decision);
+        tableEvent.setInputs(Collections.emptyList());
+        tableEvent.setMatchingRules(matchedRules);
+        DmnDecisionEvaluationEventImpl event = new DmnDecisionEvaluationEventImpl();
+        event.setDecisionResult(tableEvent);
+        event.setRequiredDecisionResults(Collections.emptyList());
+        event.setExecutedDecisionInstances(1);
+        dmnDecisionCache.notifyEvaluation(event);
+    }
+}
@@ -0,0 +1,122 @@
+package com.safalifter.jobservice.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Arbre d'intervalles statique (tableau trié par borne basse, max des bornes hautes par sous-arbre)
+ * utilisé pour retrouver en O(log n + k) les règles dont l'entrée numérique contient une valeur.
+ * Une borne null représente l'infini (ex: "< 18" devient ]-inf..18[).
+ */
+class DmnIntervalTree {
+
+    private final Interval[] intervals;
+    private final Interval[] maxHigh;
+
+    DmnIntervalTree(List<Interval> source) {
+        List<Interval> sorted = new ArrayList<>(source);
+        // A borne basse égale, les bornes inclusives d'abord pour que l'élagage à droite reste correct
+        sorted.sort(Comparator.comparing((Interval interval) -> interval.low,
+                        Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(interval -> !interval.lowInclusive));
+        this.intervals = sorted.toArray(new Interval[0]);
+        this.maxHigh = new Interval[intervals.length];
+        buildMaxHigh(0, intervals.length);
+    }
+
+    /**
+     * Ajoute au BitSet les règles dont l'intervalle contient la valeur
+     */
+    void stab(BigDecimal value, BitSet matches) {
+        stab(0, intervals.length, value, matches);
+    }
+
+    boolean isEmpty() {
+        return intervals.length == 0;
+    }
+
+    private Interval buildMaxHigh(int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Interval max = intervals[mid];
+        max = higher(max, buildMaxHigh(from, mid));
+        max = higher(max, buildMaxHigh(mid + 1, to));
+        maxHigh[mid] = max;
+        return max;
+    }
+
+    private void stab(int from, int to, BigDecimal value, BitSet matches) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        // Aucun intervalle de ce sous-arbre ne monte jusqu'à la valeur
+        if (!maxHigh[mid].isAboveOrAt(value)) {
+            return;
+        }
+        stab(from, mid, value, matches);
+
+        Interval interval = intervals[mid];
+        if (interval.contains(value)) {
+            matches.set(interval.rule);
+        }
+        // Les intervalles à droite commencent tous après celui du milieu
+        if (interval.startsAfter(value)) {
+            return;
+        }
+        stab(mid + 1, to, value, matches);
+    }
+
+    private static Interval higher(Interval a, Interval b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.high == null) return a;
+        if (b.high == null) return b;
+        int cmp = a.high.compareTo(b.high);
+        if (cmp != 0) {
+            return cmp > 0 ? a : b;
+        }
+        return a.highInclusive ? a : b;
+    }
+
+    static final class Interval {
+        private final BigDecimal low;
+        private final boolean lowInclusive;
+        private final BigDecimal high;
+        private final boolean highInclusive;
+        private final int rule;
+
+        Interval(BigDecimal low, boolean lowInclusive, BigDecimal high, boolean highInclusive, int rule) {
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            this.rule = rule;
+        }
+
+        boolean contains(BigDecimal value) {
+            return !startsAfter(value) && isAboveOrAt(value);
+        }
+
+        private boolean startsAfter(BigDecimal value) {
+            if (low == null) {
+                return false;
+            }
+            int cmp = low.compareTo(value);
+            return lowInclusive ? cmp > 0 : cmp >= 0;
+        }
+
+        private boolean isAboveOrAt(BigDecimal value) {
+            if (high == null) {
+                return true;
+            }
+            int cmp = high.compareTo(value);
+            return highInclusive ? cmp >= 0 : cmp > 0;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.safalifter.jobservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionEvaluationListener;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionLogicEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnDecisionTableEvaluationEvent;
+import org.camunda.bpm.dmn.engine.delegate.DmnEvaluatedDecisionRule;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableRuleImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques Micrometer des évaluations DMN, exposées sur /actuator/prometheus :
+ * <ul>
+ *     <li>dmn.evaluation : durée des évaluations (histogramme), par décision, source (api/engine) et résultat (success/error)</li>
+ *     <li>dmn.rule.hits : nombre de fois où chaque règle est retenue ; les règles d'une table sont enregistrées
+ *     à 0 dès sa première évaluation, une règle restée à 0 n'est jamais retenue</li>
+ *     <li>dmn.rule.no.match : évaluations d'une table sans aucune règle retenue</li>
+ * </ul>
+ * Le nombre de séries est borné : au-delà de max-decisions clés de décision (ou de max-rules-per-decision
+ * règles pour une décision), les valeurs sont regroupées sous l'étiquette "other". La version n'est pas une étiquette.
+ * Les règles ne sont comptées que pour les évaluations réelles (pas pour les résultats servis par DmnResultCache).
+ */
+@Slf4j
+@Component
+public class DmnMetrics {
+
+    public static final String SOURCE_API = "api";
+    public static final String SOURCE_ENGINE = "engine";
+
+    static final String OTHER = "other";
+
+    private static final Duration[] LATENCY_BUCKETS = {
+            Duration.ofNanos(100_000), Duration.ofNanos(250_000), Duration.ofNanos(500_000),
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5)
+    };
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxDecisions;
+    private final int maxRulesPerDecision;
+
+    private final Map<String, DecisionMeters> meters = new ConcurrentHashMap<>();
+    private final Set<String> decisionTags = new HashSet<>();
+    private boolean overflowLogged;
+
+    public DmnMetrics(MeterRegistry meterRegistry,
+                      DmnDecisionCache dmnDecisionCache,
+                      @Value("${dmn.metrics.enabled:true}") boolean enabled,
+                      @Value("${dmn.metrics.max-decisions:100}") int maxDecisions,
+                      @Value("${dmn.metrics.max-rules-per-decision:200}") int maxRulesPerDecision) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxDecisions = Math.max(1, maxDecisions);
+        this.maxRulesPerDecision = Math.max(1, maxRulesPerDecision);
+        if (enabled) {
+            dmnDecisionCache.addEvaluationListener(ruleListener(SOURCE_API));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enregistre la durée d'une évaluation de premier niveau (les décisions requises d'un DRD ne sont pas chronométrées)
+     */
+    public void recordEvaluation(String decisionKey, String source, long durationNanos, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        metersFor(decisionKey).timer(source, success).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Écouteur DMN comptant les règles retenues de chaque table évaluée (décision racine et décisions requises)
+     */
+    public DmnDecisionEvaluationListener ruleListener(String source) {
+        return event -> recordRules(event, source);
+    }
+
+    private void recordRules(DmnDecisionEvaluationEvent event, String source) {
+        if (!enabled) {
+            return;
+        }
+        recordRules(event.getDecisionResult(), source);
+        if (event.getRequiredDecisionResults() != null) {
+            for (DmnDecisionLogicEvaluationEvent required : event.getRequiredDecisionResults()) {
+                recordRules(required, source);
+            }
+        }
+    }
+
+    private void recordRules(DmnDecisionLogicEvaluationEvent event, String source) {
+        if (!(event instanceof DmnDecisionTableEvaluationEvent)) {
+            return;
+        }
+        DmnDecisionTableEvaluationEvent tableEvent = (DmnDecisionTableEvaluationEvent) event;
+        DmnDecision decision = tableEvent.getDecision();
+        DecisionMeters decisionMeters = metersFor(decision.getKey());
+        decisionMeters.registerRules(decision);
+        if (tableEvent.getMatchingRules() == null || tableEvent.getMatchingRules().isEmpty()) {
+            decisionMeters.noMatch(source).increment();
+            return;
+        }
+        for (DmnEvaluatedDecisionRule rule : tableEvent.getMatchingRules()) {
+            decisionMeters.ruleHits(rule.getId()).increment();
+        }
+    }
+
+    private DecisionMeters metersFor(String decisionKey) {
+        String key = decisionKey != null ? decisionKey : OTHER;
+        DecisionMeters decisionMeters = meters.get(key);
+        if (decisionMeters != null) {
+            return decisionMeters;
+        }
+        return meters.computeIfAbsent(isTagged(key) ? key : OTHER, DecisionMeters::new);
+    }
+
+    /**
+     * Indique si la clé a sa propre étiquette ; au-delà de max-decisions clés, les suivantes sont regroupées sous "other"
+     */
+    private boolean isTagged(String decisionKey) {
+        synchronized (decisionTags) {
+            if (decisionTags.contains(decisionKey)) {
+                return true;
+            }
+            if (decisionTags.size() < maxDecisions) {
+                decisionTags.add(decisionKey);
+                return true;
+            }
+            if (!overflowLogged) {
+                overflowLogged = true;
+                log.warn("Plus de {} décisions DMN mesurées, les suivantes sont regroupées sous l'étiquette '{}'",
+                        maxDecisions, OTHER);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Compteurs et chronomètres d'une étiquette de décision, créés à la première utilisation
+     */
+    private final class DecisionMeters {
+
+        private final String decisionTag;
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+        private final Map<String, Counter> noMatch = new ConcurrentHashMap<>();
+        private final Map<String, Counter> rules = new ConcurrentHashMap<>();
+        private volatile boolean rulesRegistered;
+
+        DecisionMeters(String decisionTag) {
+            this.decisionTag = decisionTag;
+        }
+
+        Timer timer(String source, boolean success) {
+            String outcome = success ? "success" : "error";
+            return timers.computeIfAbsent(success ? source : source + ".error", k -> Timer.builder("dmn.evaluation")
+                    .description("Durée des évaluations de décisions DMN")
+                    .tag("decision", decisionTag)
+                    .tag("source", source)
+                    .tag("outcome", outcome)
+                    .serviceLevelObjectives(LATENCY_BUCKETS)
+                    .register(meterRegistry));
+        }
+
+        Counter noMatch(String source) {
+            return noMatch.computeIfAbsent(source, k -> Counter.builder("dmn.rule.no.match")
+                    .description("Évaluations de table de décision sans règle retenue")
+                    .tag("decision", decisionTag)
+                    .tag("source", source)
+                    .register(meterRegistry));
+        }
+
+        Counter ruleHits(String ruleId) {
+            String id = ruleId != null ? ruleId : OTHER;
+            Counter counter = rules.get(id);
+            if (counter != null) {
+                return counter;
+            }
+            synchronized (rules) {
+                String tag = rules.size() < maxRulesPerDecision || OTHER.equals(id) ? id : OTHER;
+                return rules.computeIfAbsent(tag, k -> Counter.builder("dmn.rule.hits")
+                        .description("Nombre de fois où une règle de table de décision est retenue")
+                        .tag("decision", decisionTag)
+                        .tag("rule", tag)
+                        .register(meterRegistry));
+            }
+        }
+
+        /**
+         * Enregistre toutes les règles de la table à 0 pour que les règles jamais retenues soient visibles
+         */
+        void registerRules(DmnDecision decision) {
+            if (rulesRegistered || OTHER.equals(decisionTag)) {
+                return;
+            }
+            rulesRegistered = true;
+            if (decision.getDecisionLogic() instanceof DmnDecisionTableImpl) {
+                for (DmnDecisionTableRuleImpl rule : ((DmnDecisionTableImpl) decision.getDecisionLogic()).getRules()) {
+                    ruleHits(rule.getId());
+                }
+            }
+        }
+    }
+}
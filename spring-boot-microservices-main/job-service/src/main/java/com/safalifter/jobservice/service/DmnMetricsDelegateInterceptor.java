@@ -0,0 +1,37 @@
+package com.safalifter.jobservice.service;
+
+import org.camunda.bpm.engine.impl.delegate.DelegateInvocation;
+import org.camunda.bpm.engine.impl.dmn.invocation.DecisionInvocation;
+import org.camunda.bpm.engine.impl.interceptor.DelegateInterceptor;
+
+/**
+ * Intercepteur des invocations du moteur Camunda : chronomètre les évaluations de décisions
+ * (tâches métier, DecisionService) et délègue toutes les invocations à l'intercepteur d'origine.
+ */
+public class DmnMetricsDelegateInterceptor implements DelegateInterceptor {
+
+    private final DelegateInterceptor delegate;
+    private final DmnMetrics dmnMetrics;
+
+    public DmnMetricsDelegateInterceptor(DelegateInterceptor delegate, DmnMetrics dmnMetrics) {
+        this.delegate = delegate;
+        this.dmnMetrics = dmnMetrics;
+    }
+
+    @Override
+    public void handleInvocation(DelegateInvocation invocation) throws Exception {
+        if (!(invocation instanceof DecisionInvocation)) {
+            delegate.handleInvocation(invocation);
+            return;
+        }
+        String decisionKey = ((DecisionInvocation) invocation).getDecisionDefinition().getKey();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.handleInvocation(invocation);
+            success = true;
+        } finally {
+            dmnMetrics.recordEvaluation(decisionKey, DmnMetrics.SOURCE_ENGINE, System.nanoTime() - start, success);
+        }
+    }
+}
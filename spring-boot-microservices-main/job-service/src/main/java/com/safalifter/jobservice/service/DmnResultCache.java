@@ -0,0 +1,383 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.config.DmnResultCacheProperties;
+import com.safalifter.jobservice.config.DmnResultCacheProperties.DecisionSettings;
+import com.safalifter.jobservice.config.DmnResultCacheProperties.EvictionPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableInputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableRuleImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnExpressionImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache des résultats de décisions DMN pures, activé décision par décision (voir {@link DmnResultCacheProperties}).
+ * La clé est la version de la décision suivie d'un encodage canonique des seules variables lues par la table
+ * (expressions d'entrée et sorties de type chemin). Une table dont les expressions ne peuvent pas être
+ * analysées (fonctions FEEL, expressions calculées, DRD...) n'est jamais mise en cache.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DmnResultCache {
+
+    private final DmnResultCacheProperties properties;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * Retourne le résultat mémorisé pour ces entrées, ou évalue la décision et mémorise le résultat
+     */
+    public DmnDecisionResult getOrEvaluate(String decisionKey, DmnDecision decision, String version,
+                                           Map<String, Object> variables, Supplier<DmnDecisionResult> evaluation) {
+        DecisionSettings settings = properties.getDecisions().get(decisionKey);
+        if (settings == null || settings.getMaxSize() <= 0) {
+            return evaluation.get();
+        }
+
+        Segment segment = segments.computeIfAbsent(decisionKey, k -> new Segment(settings));
+        List<DmnFeelCompiler.VariablePath> reads = segment.bind(decision, version);
+        String key = reads != null ? encodeKey(version, reads, variables) : null;
+        if (key == null) {
+            segment.recordUncacheable();
+            return evaluation.get();
+        }
+
+        DmnDecisionResult cached = segment.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        DmnDecisionResult result = evaluation.get();
+        segment.put(key, result, decision);
+        return result;
+    }
+
+    /**
+     * Vide le cache d'une décision, maintenant et après le commit de la transaction courante
+     */
+    public void invalidate(String decisionKey) {
+        if (decisionKey == null) {
+            return;
+        }
+        flush(decisionKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    DmnResultCache.this.flush(decisionKey);
+                }
+            });
+        }
+    }
+
+    /**
+     * Statistiques par décision
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new TreeMap<>();
+        properties.getDecisions().forEach((decisionKey, settings) -> {
+            Segment segment = segments.get(decisionKey);
+            stats.put(decisionKey, segment != null ? segment.getStatistics() : Segment.emptyStatistics(settings));
+        });
+        return stats;
+    }
+
+    private void flush(String decisionKey) {
+        Segment segment = segments.get(decisionKey);
+        if (segment != null) {
+            segment.flush();
+            log.debug("Cache des résultats vidé pour la décision: {}", decisionKey);
+        }
+    }
+
+    /**
+     * Variables lues par la décision, ou null si la table n'est pas analysable donc pas mémorisable
+     */
+    static List<DmnFeelCompiler.VariablePath> readVariables(DmnDecision decision) {
+        if (!(decision instanceof DmnDecisionImpl) || !decision.isDecisionTable()
+                || !decision.getRequiredDecisions().isEmpty()) {
+            return null;
+        }
+        DmnDecisionTableImpl table = (DmnDecisionTableImpl) ((DmnDecisionImpl) decision).getDecisionLogic();
+        Map<String, DmnFeelCompiler.VariablePath> reads = new TreeMap<>();
+
+        for (DmnDecisionTableInputImpl input : table.getInputs()) {
+            DmnFeelCompiler.VariablePath path = DmnFeelCompiler.compilePath(input.getExpression().getExpression());
+            if (path == null) {
+                return null;
+            }
+            reads.put(path.toString(), path);
+        }
+        for (DmnDecisionTableRuleImpl rule : table.getRules()) {
+            // Une entrée non compilable peut référencer d'autres variables ou des fonctions (now(), today()...)
+            for (DmnExpressionImpl condition : rule.getConditions()) {
+                if (DmnFeelCompiler.compileUnaryTests(condition.getExpression()) == null) {
+                    return null;
+                }
+            }
+            for (DmnExpressionImpl conclusion : rule.getConclusions()) {
+                String expression = conclusion.getExpression() == null ? "" : conclusion.getExpression().trim();
+                if (expression.isEmpty() || DmnFeelCompiler.isLiteral(expression)) {
+                    continue;
+                }
+                DmnFeelCompiler.VariablePath path = DmnFeelCompiler.compilePath(expression);
+                if (path == null) {
+                    return null;
+                }
+                reads.put(path.toString(), path);
+            }
+        }
+        return new ArrayList<>(reads.values());
+    }
+
+    /**
+     * Encodage canonique "version|chemin=valeur|..."; null si une valeur n'est pas encodable
+     */
+    static String encodeKey(String version, List<DmnFeelCompiler.VariablePath> reads, Map<String, Object> variables) {
+        StringBuilder key = new StringBuilder(String.valueOf(version));
+        for (DmnFeelCompiler.VariablePath path : reads) {
+            key.append('|').append(path).append('=');
+            Object value = path.resolve(variables);
+            if (value == DmnFeelCompiler.UNRESOLVED) {
+                key.append('u');
+            } else if (!encodeValue(value, key)) {
+                return null;
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean encodeValue(Object value, StringBuilder key) {
+        if (value == null) {
+            key.append('n');
+        } else if (value instanceof String) {
+            String s = (String) value;
+            key.append('s').append(s.length()).append(':').append(s);
+        } else if (value instanceof Boolean) {
+            key.append('b').append(value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof Double || value instanceof Float || value instanceof BigDecimal
+                || value instanceof BigInteger) {
+            // Le type fait partie de la clé: 5 et 5.0 peuvent être convertis différemment par la table
+            key.append(value.getClass().getSimpleName()).append(':').append(value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!(entry.getKey() instanceof String)) {
+                    return false;
+                }
+                sorted.put((String) entry.getKey(), entry.getValue());
+            }
+            key.append('{');
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                key.append(entry.getKey().length()).append(':').append(entry.getKey()).append('=');
+                if (!encodeValue(entry.getValue(), key)) {
+                    return false;
+                }
+                key.append(',');
+            }
+            key.append('}');
+        } else if (value instanceof List) {
+            key.append('[');
+            for (Object element : (List<?>) value) {
+                if (!encodeValue(element, key)) {
+                    return false;
+                }
+                key.append(',');
+            }
+            key.append(']');
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cache borné d'une décision (LRU ou LFU, avec expiration)
+     */
+    private static final class Segment {
+        private final int maxSize;
+        private final long ttlNanos;
+        private final Duration ttl;
+        private final EvictionPolicy eviction;
+
+        private final Map<String, Entry> entries;
+        // LFU: clés regroupées par fréquence d'accès, dans l'ordre d'insertion
+        private final TreeMap<Long, LinkedHashSet<String>> frequencies = new TreeMap<>();
+
+        private DmnDecision boundDecision;
+        private String boundVersion;
+        private List<DmnFeelCompiler.VariablePath> reads;
+
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long expirations;
+        private long flushes;
+        private long uncacheable;
+
+        private Segment(DecisionSettings settings) {
+            this.maxSize = settings.getMaxSize();
+            this.ttl = settings.getTtl();
+            this.ttlNanos = ttl == null || ttl.isZero() || ttl.isNegative() ? 0 : ttl.toNanos();
+            this.eviction = settings.getEviction() == null ? EvictionPolicy.LRU : settings.getEviction();
+            this.entries = eviction == EvictionPolicy.LRU ? new LinkedHashMap<>(16, 0.75f, true) : new HashMap<>();
+        }
+
+        /**
+         * Associe le segment à la décision parsée courante; une nouvelle instance (nouvelle version
+         * ou XML modifié) vide les résultats de la précédente
+         */
+        private synchronized List<DmnFeelCompiler.VariablePath> bind(DmnDecision decision, String version) {
+            if (boundDecision != decision || !Objects.equals(boundVersion, version)) {
+                clear();
+                boundDecision = decision;
+                boundVersion = version;
+                reads = readVariables(decision);
+                if (reads == null) {
+                    log.info("Décision {} non mémorisable: expressions non analysables", decision.getKey());
+                }
+            }
+            return reads;
+        }
+
+        private synchronized DmnDecisionResult get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            if (ttlNanos > 0 && System.nanoTime() - entry.createdAt > ttlNanos) {
+                remove(key, entry);
+                expirations++;
+                misses++;
+                return null;
+            }
+            if (eviction == EvictionPolicy.LFU) {
+                touch(key, entry);
+            }
+            hits++;
+            return entry.result;
+        }
+
+        private synchronized void put(String key, DmnDecisionResult result, DmnDecision decision) {
+            // La décision a pu être remplacée pendant l'évaluation
+            if (boundDecision != decision) {
+                return;
+            }
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                remove(key, existing);
+            } else if (entries.size() >= maxSize) {
+                evictOne();
+            }
+            Entry entry = new Entry(result, System.nanoTime());
+            entries.put(key, entry);
+            if (eviction == EvictionPolicy.LFU) {
+                frequencies.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        private synchronized void flush() {
+            clear();
+            flushes++;
+            // Forcer une nouvelle analyse au prochain appel
+            boundDecision = null;
+        }
+
+        private synchronized void recordUncacheable() {
+            uncacheable++;
+        }
+
+        private void clear() {
+            entries.clear();
+            frequencies.clear();
+        }
+
+        private void evictOne() {
+            String victim;
+            if (eviction == EvictionPolicy.LFU) {
+                Map.Entry<Long, LinkedHashSet<String>> lowest = frequencies.firstEntry();
+                victim = lowest.getValue().iterator().next();
+            } else {
+                victim = entries.keySet().iterator().next();
+            }
+            remove(victim, entries.get(victim));
+            evictions++;
+        }
+
+        private void touch(String key, Entry entry) {
+            removeFrequency(key, entry.frequency);
+            entry.frequency++;
+            frequencies.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+        }
+
+        private void remove(String key, Entry entry) {
+            entries.remove(key);
+            if (eviction == EvictionPolicy.LFU) {
+                removeFrequency(key, entry.frequency);
+            }
+        }
+
+        private void removeFrequency(String key, long frequency) {
+            LinkedHashSet<String> keys = frequencies.get(frequency);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    frequencies.remove(frequency);
+                }
+            }
+        }
+
+        private synchronized Map<String, Object> getStatistics() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("size", entries.size());
+            stats.put("maxSize", maxSize);
+            stats.put("ttl", String.valueOf(ttl));
+            stats.put("eviction", eviction.name());
+            stats.put("memoizable", reads != null);
+            stats.put("readVariables", reads == null ? List.of() : reads.stream().map(Object::toString).toList());
+            stats.put("hits", hits);
+            stats.put("misses", misses);
+            stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            stats.put("evictions", evictions);
+            stats.put("expirations", expirations);
+            stats.put("flushes", flushes);
+            stats.put("uncacheable", uncacheable);
+            return stats;
+        }
+
+        private static Map<String, Object> emptyStatistics(DecisionSettings settings) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("size", 0);
+            stats.put("maxSize", settings.getMaxSize());
+            stats.put("ttl", String.valueOf(settings.getTtl()));
+            stats.put("eviction", String.valueOf(settings.getEviction()));
+            return stats;
+        }
+    }
+
+    private static final class Entry {
+        private final DmnDecisionResult result;
+        private final long createdAt;
+        private long frequency = 1;
+
+        private Entry(DmnDecisionResult result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.safalifter.jobservice.service;
 
+import com.safalifter.jobservice.dto.DmnDecisionNodeTraceDto;
+import com.safalifter.jobservice.dto.DmnDecisionTraceDto;
 import com.safalifter.jobservice.dto.DmnDefinitionDto;
+import com.safalifter.jobservice.dto.DmnDefinitionSummaryView;
+import com.safalifter.jobservice.dto.DmnDefinitionVersionView;
 import com.safalifter.jobservice.dto.DmnDeploymentResponseDto;
 import com.safalifter.jobservice.dto.DmnRequestDto;
 import com.safalifter.jobservice.dto.DmnXmlUpdateDto;
 import com.safalifter.jobservice.model.DmnDefinition;
+import com.safalifter.jobservice.model.DmnLatestVersion;
 import com.safalifter.jobservice.repository.DmnDefinitionRepository;
+import com.safalifter.jobservice.repository.DmnDefinitionXmlRepository;
+import com.safalifter.jobservice.repository.DmnLatestVersionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.camunda.bpm.dmn.engine.DmnEngine;
-import org.camunda.bpm.dmn.engine.DmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.camunda.bpm.dmn.engine.DmnDecisionResultEntries;
 import org.camunda.bpm.engine.RepositoryService;
 import org.camunda.bpm.engine.repository.Deployment;
 import org.camunda.bpm.engine.repository.DeploymentBuilder;
@@ -19,6 +27,7 @@ import org.camunda.bpm.model.dmn.HitPolicy;
 import org.camunda.bpm.model.dmn.instance.Decision;
 import org.camunda.bpm.model.dmn.instance.DecisionTable;
 import org.camunda.bpm.model.dmn.instance.Definitions;
+import org.camunda.bpm.model.dmn.instance.InformationRequirement;
 import org.camunda.bpm.model.dmn.instance.Input;
 import org.camunda.bpm.model.dmn.instance.InputEntry;
 import org.camunda.bpm.model.dmn.instance.InputExpression;
@@ -27,6 +36,9 @@ import org.camunda.bpm.model.dmn.instance.OutputEntry;
 import org.camunda.bpm.model.dmn.instance.Rule;
 import org.camunda.bpm.model.dmn.instance.Text;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -34,6 +46,7 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.persistence.EntityNotFoundException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -44,8 +57,18 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DmnService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final DmnDefinitionRepository dmnDefinitionRepository;
+    private final DmnLatestVersionRepository dmnLatestVersionRepository;
+    private final DmnDefinitionXmlRepository dmnDefinitionXmlRepository;
     private final RepositoryService repositoryService;
+    private final DmnDecisionCache dmnDecisionCache;
+    private final DmnIndexedEvaluator dmnIndexedEvaluator;
+    private final DmnResultCache dmnResultCache;
+    private final DmnHistoryService dmnHistoryService;
+    private final DmnDrdEvaluator dmnDrdEvaluator;
+    private final DmnMetrics dmnMetrics;
 
     /**
      * Crée un nouveau modèle DMN vide avec un exemple de table de décision
@@ -155,26 +178,57 @@ public class DmnService {
                 .description(requestDto.getDescription())
                 .category(requestDto.getCategory())
                 .decisionKey(decisionId)  // Utiliser l'ID généré comme clé de décision
-                .version("1")
+                .version(1)
                 .deployed(false)
                 .xml(xml)  // Stocker le XML complet
                 .build();
                 
         DmnDefinition savedDefinition = dmnDefinitionRepository.save(dmnDefinition);
+        updateLatestVersion(savedDefinition);
         return convertToDto(savedDefinition);
     }
     
     /**
-     * Récupère toutes les définitions DMN
+     * Récupère toutes les définitions DMN (projection sans le XML)
      */
     public List<DmnDefinitionDto> getAllDmnDefinitions() {
         log.info("Récupération de toutes les définitions DMN");
-        return dmnDefinitionRepository.findAll()
+        return dmnDefinitionRepository.findAllSummaries()
                 .stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Liste paginée et filtrée des définitions DMN (catégorie, déploiement, préfixe du nom), sans le XML
+     */
+    public Page<DmnDefinitionDto> searchDmnDefinitions(String category, Boolean deployed, String namePrefix,
+                                                       int page, int size) {
+        log.info("Recherche des définitions DMN (catégorie: {}, déployées: {}, préfixe: {}, page: {})",
+                category, deployed, namePrefix, page);
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE),
+                Sort.by(Sort.Direction.DESC, "updatedAt"));
+        return dmnDefinitionRepository.findSummaries(emptyToNull(category), deployed,
+                        escapeLikePrefix(emptyToNull(namePrefix)), pageRequest)
+                .map(this::convertToDto);
+    }
+    
+    /**
+     * Indique si une définition DMN existe (sans la charger)
+     */
+    public boolean dmnDefinitionExists(String id) {
+        return dmnDefinitionRepository.existsById(id);
+    }
+    
+    /**
+     * Écrit le XML d'une définition DMN dans le writer
+     */
+    public void streamDmnXml(String id, Writer writer) {
+        if (!dmnDefinitionXmlRepository.streamXml(id, writer)) {
+            throw new EntityNotFoundException("DMN définition non trouvée avec l'ID: " + id);
+        }
+    }
+    
     /**
      * Récupère une définition DMN par ID
      */
@@ -186,11 +240,13 @@ public class DmnService {
     }
     
     /**
-     * Récupère une définition DMN par clé de décision
+     * Récupère la dernière version d'une définition DMN par clé de décision
      */
     public DmnDefinitionDto getDmnDefinitionByKey(String decisionKey) {
         log.info("Récupération de la définition DMN avec la clé: {}", decisionKey);
-        DmnDefinition dmnDefinition = dmnDefinitionRepository.findByDecisionKey(decisionKey)
+        DmnLatestVersion latest = findLatestVersion(decisionKey)
+                .orElseThrow(() -> new EntityNotFoundException("DMN définition non trouvée avec la clé: " + decisionKey));
+        DmnDefinition dmnDefinition = dmnDefinitionRepository.findById(latest.getDefinitionId())
                 .orElseThrow(() -> new EntityNotFoundException("DMN définition non trouvée avec la clé: " + decisionKey));
         return convertToDto(dmnDefinition);
     }
@@ -211,6 +267,7 @@ public class DmnService {
         dmnDefinition.setUpdatedAt(LocalDateTime.now());
         
         DmnDefinition updatedDefinition = dmnDefinitionRepository.save(dmnDefinition);
+        invalidateCaches(updatedDefinition.getDecisionKey());
         return convertToDto(updatedDefinition);
     }
     
@@ -225,6 +282,21 @@ public class DmnService {
                 .orElseThrow(() -> new EntityNotFoundException("DMN définition non trouvée avec l'ID: " + id));
                 
         dmnDefinitionRepository.delete(dmnDefinition);
+        
+        // Si la dernière version est supprimée, le pointeur passe à la version précédente
+        String decisionKey = dmnDefinition.getDecisionKey();
+        dmnLatestVersionRepository.findById(decisionKey)
+                .filter(latest -> latest.getDefinitionId().equals(id))
+                .ifPresent(latest -> {
+                    Optional<DmnDefinitionVersionView> previous =
+                            dmnDefinitionRepository.findFirstByDecisionKeyOrderByVersionDesc(decisionKey);
+                    if (previous.isPresent()) {
+                        dmnLatestVersionRepository.save(toLatestVersion(previous.get()));
+                    } else {
+                        dmnLatestVersionRepository.delete(latest);
+                    }
+                });
+        invalidateCaches(decisionKey);
     }
     
     /**
@@ -244,13 +316,10 @@ public class DmnService {
         String decisionKey = extractDecisionKey(dmnModel);
         String decisionName = extractDecisionName(dmnModel);
         
-        // Incrémentation de la version
-        String version = "1";
-        Optional<DmnDefinition> latestVersion = dmnDefinitionRepository.findTopByDecisionKeyOrderByVersionDesc(decisionKey);
-        if (latestVersion.isPresent()) {
-            int versionNum = Integer.parseInt(latestVersion.get().getVersion());
-            version = String.valueOf(versionNum + 1);
-        }
+        // Incrémentation de la version à partir du pointeur de dernière version
+        int version = findLatestVersion(decisionKey)
+                .map(latest -> latest.getVersion() + 1)
+                .orElse(1);
         
         // Déployer avec Camunda
         DeploymentBuilder deploymentBuilder = repositoryService.createDeployment()
@@ -270,47 +339,184 @@ public class DmnService {
                 .deployedAt(LocalDateTime.now())
                 .build();
                 
-        dmnDefinitionRepository.save(dmnDefinition);
+        DmnDefinition savedDefinition = dmnDefinitionRepository.save(dmnDefinition);
+        updateLatestVersion(savedDefinition);
+        invalidateCaches(decisionKey);
         
         return DmnDeploymentResponseDto.builder()
                 .deploymentId(deployment.getId())
                 .decisionKey(decisionKey)
                 .name(decisionName)
-                .version(version)
+                .version(String.valueOf(version))
                 .message("Déploiement DMN réussi")
                 .build();
     }
     
+    /**
+     * Valide un fichier DMN sans l'enregistrer : modèle lu et décisions parsées par le moteur DMN.
+     * Retourne la définition à enregistrer (clé et nom de la décision racine), sans version.
+     */
+    public DmnDefinition parseDefinition(DmnModelInstance dmnModel, String xml) {
+        dmnDecisionCache.getDmnEngine().parseDecisions(dmnModel);
+        return DmnDefinition.builder()
+                .name(extractDecisionName(dmnModel))
+                .decisionKey(extractDecisionKey(dmnModel))
+                .xml(xml)
+                .build();
+    }
+    
+    /**
+     * Enregistre des définitions déjà déployées par le moteur (import d'archive) : les dernières versions
+     * sont lues en une requête, puis définitions et pointeurs sont écrits par lots.
+     */
+    @Transactional
+    public List<DmnDefinition> recordDeployedDefinitions(List<DmnDefinition> definitions, String deploymentId) {
+        Set<String> decisionKeys = definitions.stream()
+                .map(DmnDefinition::getDecisionKey)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, DmnLatestVersion> latest = new HashMap<>();
+        dmnLatestVersionRepository.findAllById(decisionKeys).forEach(pointer -> latest.put(pointer.getDecisionKey(), pointer));
+        
+        // Définitions antérieures au pointeur : une seule requête pour toutes les clés sans pointeur
+        Set<String> missing = new HashSet<>(decisionKeys);
+        missing.removeAll(latest.keySet());
+        if (!missing.isEmpty()) {
+            for (DmnDefinitionVersionView view : dmnDefinitionRepository.findLatestVersions(missing)) {
+                latest.put(view.getDecisionKey(), toLatestVersion(view));
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (DmnDefinition definition : definitions) {
+            DmnLatestVersion previous = latest.get(definition.getDecisionKey());
+            definition.setVersion(previous != null ? previous.getVersion() + 1 : 1);
+            definition.setDeploymentId(deploymentId);
+            definition.setDeployed(true);
+            definition.setDeployedAt(now);
+            // Les définitions suivantes d'une même clé partent de cette version
+            latest.put(definition.getDecisionKey(), DmnLatestVersion.builder()
+                    .decisionKey(definition.getDecisionKey())
+                    .version(definition.getVersion())
+                    .build());
+        }
+        List<DmnDefinition> saved = dmnDefinitionRepository.saveAll(definitions);
+        
+        Map<String, DmnLatestVersion> pointers = new LinkedHashMap<>();
+        for (DmnDefinition definition : saved) {
+            pointers.put(definition.getDecisionKey(), DmnLatestVersion.builder()
+                    .decisionKey(definition.getDecisionKey())
+                    .definitionId(definition.getId())
+                    .version(definition.getVersion())
+                    .deployed(true)
+                    .created(missing.contains(definition.getDecisionKey()))
+                    .build());
+        }
+        dmnLatestVersionRepository.saveAll(pointers.values());
+        decisionKeys.forEach(this::invalidateCaches);
+        return saved;
+    }
+    
     /**
      * Évalue une décision DMN en fonction des variables d'entrée
      */
     public Map<String, Object> evaluateDecision(String decisionKey, Map<String, Object> variables) {
         log.info("Évaluation de la décision DMN avec la clé: {} et les variables: {}", decisionKey, variables);
         
-        // Récupérer la dernière version déployée en utilisant la méthode qui trie par version
-        DmnDefinition dmnDefinition = dmnDefinitionRepository.findTopByDecisionKeyOrderByVersionDesc(decisionKey)
+        DmnDecision decision = resolveDecision(decisionKey);
+        return evaluateResolvedDecision(decisionKey, decision, variables);
+    }
+    
+    /**
+     * Résout la décision parsée correspondant à la dernière version déployée d'une clé
+     */
+    public DmnDecision resolveDecision(String decisionKey) {
+        // Récupérer la dernière version par le pointeur (clé primaire), sans charger le XML
+        DmnLatestVersion latest = findLatestVersion(decisionKey)
                 .orElseThrow(() -> new EntityNotFoundException("DMN définition non trouvée avec la clé: " + decisionKey));
                 
-        if (!dmnDefinition.isDeployed()) {
+        if (!latest.isDeployed()) {
             throw new IllegalStateException("La décision DMN n'est pas déployée: " + decisionKey);
         }
         
-        // Créer un moteur DMN pour évaluer la décision
-        DmnEngine dmnEngine = DmnEngineConfiguration
-                .createDefaultDmnEngineConfiguration()
-                .buildEngine();
-                
-        DmnModelInstance dmnModelInstance = Dmn.readModelFromStream(
-                new ByteArrayInputStream(dmnDefinition.getXml().getBytes(StandardCharsets.UTF_8)));
-                
-        // Extraire l'ID de la décision depuis le modèle au lieu d'utiliser directement la clé
-        String actualDecisionId = extractDecisionKey(dmnModelInstance);
-        log.info("ID de décision utilisé pour l'évaluation: {}", actualDecisionId);
+        // Réutiliser la décision parsée si cette version est déjà en cache
+        return dmnDecisionCache.getOrLoad(decisionKey, String.valueOf(latest.getVersion()),
+                () -> parseDecision(latest.getDefinitionId()));
+    }
+    
+    /**
+     * Évalue une décision déjà résolue, sans journalisation par appel (utilisé par l'évaluation en lot)
+     */
+    public Map<String, Object> evaluateResolvedDecision(String decisionKey, DmnDecision decision, Map<String, Object> variables) {
+        long start = System.nanoTime();
+        String version = dmnDecisionCache.getVersion(decision);
+        DmnDecisionResult result;
+        try {
+            result = dmnResultCache.getOrEvaluate(decisionKey, decision, version, variables,
+                    () -> dmnDrdEvaluator.evaluate(decision, variables));
+        } catch (RuntimeException e) {
+            dmnMetrics.recordEvaluation(decisionKey, DmnMetrics.SOURCE_API, System.nanoTime() - start, false);
+            throw e;
+        }
+        long durationNanos = System.nanoTime() - start;
+        long durationMicros = durationNanos / 1000;
+        dmnMetrics.recordEvaluation(decisionKey, DmnMetrics.SOURCE_API, durationNanos, true);
         
-        // Évaluer la décision avec l'ID réel de la décision dans le XML
-        org.camunda.bpm.dmn.engine.DmnDecision decision = dmnEngine.parseDecision(actualDecisionId, dmnModelInstance);
-        org.camunda.bpm.dmn.engine.DmnDecisionResult result = dmnEngine.evaluateDecision(decision, variables);
+        // L'historique est seulement mis en file : aucune écriture pendant l'évaluation
+        dmnHistoryService.record(DmnHistoryService.Event.builder()
+                .decisionKey(decisionKey)
+                .decisionVersion(version)
+                .source(DmnHistoryService.SOURCE_API)
+                .inputs(new HashMap<>(variables))
+                .outputs(result.getResultList())
+                .durationMicros(durationMicros)
+                .build());
+        return toResultMap(decisionKey, result);
+    }
+    
+    /**
+     * Évalue une décision et son graphe de décisions requises, avec la trace et les temps de chaque noeud
+     */
+    public DmnDecisionTraceDto evaluateDecisionWithTrace(String decisionKey, Map<String, Object> variables) {
+        log.info("Évaluation tracée de la décision DMN avec la clé: {} et les variables: {}", decisionKey, variables);
         
+        DmnDecision decision = resolveDecision(decisionKey);
+        DmnDrdEvaluator.Trace trace = dmnDrdEvaluator.trace(decision, variables);
+        
+        dmnHistoryService.record(DmnHistoryService.Event.builder()
+                .decisionKey(decisionKey)
+                .decisionVersion(dmnDecisionCache.getVersion(decision))
+                .source(DmnHistoryService.SOURCE_API)
+                .inputs(new HashMap<>(variables))
+                .outputs(trace.getResult().getResultList())
+                .durationMicros(trace.getDurationMicros())
+                .build());
+        
+        List<DmnDecisionNodeTraceDto> nodes = trace.getNodes().stream()
+                .map(node -> DmnDecisionNodeTraceDto.builder()
+                        .decisionKey(node.getDecisionKey())
+                        .decisionName(node.getDecisionName())
+                        .requiredDecisions(node.getRequiredDecisions())
+                        .results(node.getResult().getResultList())
+                        .startMicros(node.getStartMicros())
+                        .queuedMicros(node.getQueuedMicros())
+                        .durationMicros(node.getDurationMicros())
+                        .thread(node.getThread())
+                        .build())
+                .collect(Collectors.toList());
+        
+        return DmnDecisionTraceDto.builder()
+                .decisionKey(decisionKey)
+                .result(toResultMap(decisionKey, trace.getResult()))
+                .durationMicros(trace.getDurationMicros())
+                .parallelism(dmnDrdEvaluator.getParallelism())
+                .nodes(nodes)
+                .build();
+    }
+    
+    /**
+     * Convertit le résultat d'une évaluation DMN en Map
+     */
+    private Map<String, Object> toResultMap(String decisionKey, DmnDecisionResult result) {
         // Convertir le résultat en Map
         Map<String, Object> resultMap = new HashMap<>();
         
@@ -318,7 +524,7 @@ public class DmnService {
             // Pour chaque ligne de résultat
             for (int i = 0; i < result.size(); i++) {
                 Map<String, Object> rowMap = new HashMap<>();
-                org.camunda.bpm.dmn.engine.DmnDecisionResultEntries row = result.get(i);
+                DmnDecisionResultEntries row = result.get(i);
                 
                 // Pour chaque colonne de résultat
                 for (String outputName : row.keySet()) {
@@ -343,6 +549,85 @@ public class DmnService {
         return resultMap;
     }
     
+    /**
+     * Retourne les statistiques du cache des décisions parsées
+     */
+    public Map<String, Object> getDecisionCacheStatistics() {
+        Map<String, Object> stats = dmnDecisionCache.getStatistics();
+        stats.put("indexedEvaluation", dmnIndexedEvaluator.getStatistics());
+        return stats;
+    }
+    
+    /**
+     * Retourne les statistiques du cache des résultats, par décision
+     */
+    public Map<String, Object> getResultCacheStatistics() {
+        return dmnResultCache.getStatistics();
+    }
+    
+    /**
+     * Dernière version d'une clé de décision : lecture du pointeur par clé primaire, avec repli
+     * sur l'index (decision_key, version) pour les définitions antérieures au pointeur
+     */
+    private Optional<DmnLatestVersion> findLatestVersion(String decisionKey) {
+        Optional<DmnLatestVersion> latest = dmnLatestVersionRepository.findById(decisionKey);
+        if (latest.isPresent()) {
+            return latest;
+        }
+        return dmnDefinitionRepository.findFirstByDecisionKeyOrderByVersionDesc(decisionKey)
+                .map(this::toLatestVersion);
+    }
+    
+    /**
+     * Avance le pointeur de dernière version si la définition enregistrée est la plus récente
+     */
+    private void updateLatestVersion(DmnDefinition dmnDefinition) {
+        Optional<DmnLatestVersion> current = dmnLatestVersionRepository.findById(dmnDefinition.getDecisionKey());
+        if (current.isPresent() && current.get().getVersion() > dmnDefinition.getVersion()) {
+            return;
+        }
+        dmnLatestVersionRepository.save(DmnLatestVersion.builder()
+                .decisionKey(dmnDefinition.getDecisionKey())
+                .definitionId(dmnDefinition.getId())
+                .version(dmnDefinition.getVersion())
+                .deployed(dmnDefinition.isDeployed())
+                .build());
+    }
+    
+    private DmnLatestVersion toLatestVersion(DmnDefinitionVersionView view) {
+        return DmnLatestVersion.builder()
+                .decisionKey(view.getDecisionKey())
+                .definitionId(view.getId())
+                .version(view.getVersion())
+                .deployed(view.isDeployed())
+                .build();
+    }
+    
+    /**
+     * Invalide la décision parsée et les résultats mémorisés d'une clé de décision
+     */
+    private void invalidateCaches(String decisionKey) {
+        dmnDecisionCache.invalidate(decisionKey);
+        dmnResultCache.invalidate(decisionKey);
+    }
+    
+    /**
+     * Charge le XML d'une définition et parse la décision qu'il contient
+     */
+    private DmnDecision parseDecision(String definitionId) {
+        DmnDefinition dmnDefinition = dmnDefinitionRepository.findById(definitionId)
+                .orElseThrow(() -> new EntityNotFoundException("DMN définition non trouvée avec l'ID: " + definitionId));
+        
+        DmnModelInstance dmnModelInstance = Dmn.readModelFromStream(
+                new ByteArrayInputStream(dmnDefinition.getXml().getBytes(StandardCharsets.UTF_8)));
+                
+        // Extraire l'ID de la décision depuis le modèle au lieu d'utiliser directement la clé
+        String actualDecisionId = extractDecisionKey(dmnModelInstance);
+        log.info("ID de décision utilisé pour l'évaluation: {}", actualDecisionId);
+        
+        return dmnDecisionCache.getDmnEngine().parseDecision(actualDecisionId, dmnModelInstance);
+    }
+    
     /**
      * Génère une clé de décision unique à partir du nom
      */
@@ -373,29 +658,74 @@ public class DmnService {
      * Extrait la clé de décision du modèle DMN
      */
     private String extractDecisionKey(DmnModelInstance dmnModelInstance) {
-        Collection<Decision> decisions = dmnModelInstance.getModelElementsByType(Decision.class);
-        
-        if (decisions.isEmpty()) {
-            throw new IllegalArgumentException("Aucune décision trouvée dans le DMN");
-        }
-        
-        // Utiliser la première décision trouvée
-        return decisions.iterator().next().getId();
+        return findRootDecision(dmnModelInstance).getId();
     }
     
     /**
      * Extrait le nom de la décision du modèle DMN
      */
     private String extractDecisionName(DmnModelInstance dmnModelInstance) {
+        Decision decision = findRootDecision(dmnModelInstance);
+        return decision.getName() != null ? decision.getName() : decision.getId();
+    }
+    
+    /**
+     * Retourne la décision de premier niveau du modèle : la première décision qui n'est
+     * requise par aucune autre (pour un DRD, la racine du graphe)
+     */
+    private Decision findRootDecision(DmnModelInstance dmnModelInstance) {
         Collection<Decision> decisions = dmnModelInstance.getModelElementsByType(Decision.class);
         
         if (decisions.isEmpty()) {
             throw new IllegalArgumentException("Aucune décision trouvée dans le DMN");
         }
         
-        // Utiliser la première décision trouvée
-        Decision decision = decisions.iterator().next();
-        return decision.getName() != null ? decision.getName() : decision.getId();
+        Set<Decision> required = new HashSet<>();
+        for (Decision decision : decisions) {
+            for (InformationRequirement requirement : decision.getInformationRequirements()) {
+                if (requirement.getRequiredDecision() != null) {
+                    required.add(requirement.getRequiredDecision());
+                }
+            }
+        }
+        
+        return decisions.stream()
+                .filter(decision -> !required.contains(decision))
+                .findFirst()
+                .orElse(decisions.iterator().next());
+    }
+    
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+    
+    /**
+     * Échappe les jokers LIKE du préfixe (caractère d'échappement '!')
+     */
+    private static String escapeLikePrefix(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+    
+    /**
+     * Convertit une projection sans XML en DTO
+     */
+    private DmnDefinitionDto convertToDto(DmnDefinitionSummaryView view) {
+        return DmnDefinitionDto.builder()
+                .id(view.getId())
+                .name(view.getName())
+                .decisionKey(view.getDecisionKey())
+                .description(view.getDescription())
+                .category(view.getCategory())
+                .version(view.getVersion() != null ? String.valueOf(view.getVersion()) : null)
+                .deploymentId(view.getDeploymentId())
+                .deployed(view.isDeployed())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .deployedAt(view.getDeployedAt())
+                .build();
     }
     
     /**
@@ -408,7 +738,7 @@ public class DmnService {
                 .decisionKey(dmnDefinition.getDecisionKey())
                 .description(dmnDefinition.getDescription())
                 .category(dmnDefinition.getCategory())
-                .version(dmnDefinition.getVersion())
+                .version(dmnDefinition.getVersion() != null ? String.valueOf(dmnDefinition.getVersion()) : null)
                 .deploymentId(dmnDefinition.getDeploymentId())
                 .deployed(dmnDefinition.isDeployed())
                 .createdAt(dmnDefinition.getCreatedAt())
@@ -0,0 +1,265 @@
+package com.safalifter.jobservice.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.tools.*;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compilation en mémoire du code source des JavaDelegates : les sources et les classes produites ne passent
+ * jamais par le disque.
+ *
+ * Le gestionnaire de fichiers standard et son classpath sont créés une seule fois et partagés par toutes les
+ * compilations : javac conserve l'index des archives du classpath d'une compilation à l'autre au lieu de
+ * relire chaque jar. Ce gestionnaire n'étant pas thread-safe, les compilations sont sérialisées.
+ */
+@Slf4j
+@Service
+public class JavaDelegateCompiler {
+
+    private static final List<String> OPTIONS = List.of(
+            // Pas de recherche de processeurs d'annotations (Lombok...) dans le classpath de l'application
+            "-proc:none",
+            "-g");
+
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager standardFileManager;
+
+    public JavaDelegateCompiler() {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            log.error("Compilateur Java non disponible (JRE sans javac) : les JavaDelegates ne seront pas compilés");
+            this.standardFileManager = null;
+            return;
+        }
+        this.standardFileManager = compiler.getStandardFileManager(null, Locale.getDefault(), StandardCharsets.UTF_8);
+        List<File> classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> !entry.isEmpty())
+                .map(File::new)
+                .filter(File::exists)
+                .collect(Collectors.toList());
+        try {
+            standardFileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Classpath de compilation invalide", e);
+        }
+        log.info("Compilateur des JavaDelegates prêt ({} entrées de classpath)", classpath.size());
+    }
+
+    /**
+     * Compile une classe
+     */
+    public Result compile(String className, String sourceCode) {
+        return compile(Map.of(className, sourceCode));
+    }
+
+    /**
+     * Compile plusieurs classes en une seule passe javac (nom complet de classe -> code source).
+     * En cas d'erreur, aucune classe n'est produite et les erreurs sont rattachées à leur classe.
+     */
+    public synchronized Result compile(Map<String, String> sources) {
+        long start = System.nanoTime();
+        Result result = new Result();
+        if (compiler == null) {
+            sources.keySet().forEach(className -> result.error(className, "Compilateur Java non disponible"));
+            return result;
+        }
+
+        List<SourceObject> units = sources.entrySet().stream()
+                .map(source -> new SourceObject(source.getKey(), source.getValue()))
+                .collect(Collectors.toList());
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager fileManager = new MemoryFileManager(standardFileManager);
+        boolean success = compiler.getTask(null, fileManager, diagnostics, OPTIONS, null, units).call();
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String className = diagnostic.getSource() instanceof SourceObject
+                    ? ((SourceObject) diagnostic.getSource()).className : "";
+            String message = "ligne " + diagnostic.getLineNumber() + ": " + diagnostic.getMessage(Locale.getDefault());
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                result.error(className, message);
+            } else {
+                log.debug("Diagnostic de compilation {} {}", className, message);
+            }
+        }
+        if (success) {
+            fileManager.outputs.forEach((name, output) -> {
+                result.classes.put(name, output.toByteArray());
+                result.sources.put(name, output.source);
+            });
+        }
+        result.success = success;
+        result.durationMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Compilation de {} classe(s) en {} ms: {}", sources.size(), result.durationMs,
+                success ? "succès" : "échec " + result.errors);
+        return result;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (standardFileManager != null) {
+            standardFileManager.close();
+        }
+    }
+
+    /**
+     * Empreinte SHA-256 d'un code source, clé du bytecode enregistré avec le JavaDelegate
+     */
+    public static String sourceHash(String sourceCode) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sourceCode.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Regroupe les classes compilées (classe principale et classes internes) en un seul tableau d'octets :
+     * nombre de classes, puis pour chacune son nom, sa taille et son bytecode
+     */
+    public static byte[] pack(Map<String, byte[]> classes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Inverse de {@link #pack(Map)}
+     */
+    public static Map<String, byte[]> unpack(byte[] packed) {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(packed))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] bytecode = new byte[in.readInt()];
+                in.readFully(bytecode);
+                classes.put(name, bytecode);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Bytecode de JavaDelegate illisible", e);
+        }
+        return classes;
+    }
+
+    /**
+     * Résultat d'une compilation : bytecode par nom de classe si succès, erreurs par classe sinon
+     */
+    @Getter
+    public static class Result {
+        private boolean success;
+        private long durationMs;
+        private final Map<String, byte[]> classes = new LinkedHashMap<>();
+        private final Map<String, List<String>> errors = new LinkedHashMap<>();
+        @Getter(AccessLevel.NONE)
+        private final Map<String, String> sources = new HashMap<>();
+
+        /**
+         * Classes produites par le source d'une classe (classe elle-même, classes internes et secondaires)
+         */
+        public Map<String, byte[]> getClasses(String sourceClassName) {
+            Map<String, byte[]> produced = new LinkedHashMap<>();
+            classes.forEach((name, bytecode) -> {
+                if (sourceClassName.equals(sources.get(name))) {
+                    produced.put(name, bytecode);
+                }
+            });
+            return produced;
+        }
+
+        private void error(String className, String message) {
+            errors.computeIfAbsent(className, key -> new ArrayList<>()).add(message);
+        }
+    }
+
+    /**
+     * Code source tenu en mémoire
+     */
+    private static final class SourceObject extends SimpleJavaFileObject {
+        private final String className;
+        private final String sourceCode;
+
+        private SourceObject(String className, String sourceCode) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.className = className;
+            this.sourceCode = sourceCode;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return sourceCode;
+        }
+    }
+
+    /**
+     * Classe produite par javac, écrite en mémoire
+     */
+    private static final class ClassObject extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // Classe du source qui l'a produite
+        private final String source;
+
+        private ClassObject(String className, String source) {
+            super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.source = source;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Lit le classpath via le gestionnaire partagé et garde les classes produites en mémoire.
+     * Une instance par compilation : seule la sortie lui est propre.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ClassObject> outputs = new LinkedHashMap<>();
+
+        private MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) throws IOException {
+            if (kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+            ClassObject output = new ClassObject(className,
+                    sibling instanceof SourceObject ? ((SourceObject) sibling).className : className);
+            outputs.put(className, output);
+            return output;
+        }
+
+        @Override
+        public void close() {
+            // Le gestionnaire partagé reste ouvert pour les compilations suivantes
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.model.JavaDelegate;
+import com.safalifter.jobservice.repository.JavaDelegateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.beans.Introspector;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rend exécutables les JavaDelegates compilés, sans redémarrage : chaque delegate est enregistré comme bean
+ * (nom simple de la classe, première lettre en minuscule) et peut être référencé par
+ * camunda:delegateExpression="${nomDuBean}".
+ *
+ * Le bean enregistré est stable et délègue à la version courante. Chaque version est chargée dans son propre
+ * class loader, enfant de celui de l'application : une mise à jour remplace la version de façon atomique, les
+ * exécutions déjà commencées terminent sur l'ancienne version, qui est déchargée à la fin de la dernière.
+ */
+@Slf4j
+@Service
+public class JavaDelegateRegistry {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final JavaDelegateRepository javaDelegateRepository;
+
+    private final Map<String, DelegateHandle> handles = new ConcurrentHashMap<>();
+    private final AtomicLong loadedVersions = new AtomicLong();
+    private final AtomicLong unloadedVersions = new AtomicLong();
+    private final AtomicInteger retiredVersions = new AtomicInteger();
+
+    public JavaDelegateRegistry(ConfigurableListableBeanFactory beanFactory,
+                                JavaDelegateRepository javaDelegateRepository) {
+        this.beanFactory = beanFactory;
+        this.javaDelegateRepository = javaDelegateRepository;
+    }
+
+    /**
+     * Charge les delegates compilés au démarrage, avant que l'exécuteur de jobs ne démarre
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadCompiledDelegates() {
+        int loaded = 0;
+        for (JavaDelegate delegate : javaDelegateRepository.findAll()) {
+            if (delegate.getBytecode() != null && load(delegate.getClassName(), delegate.getSourceHash(), delegate.getBytecode())) {
+                loaded++;
+            }
+        }
+        log.info("{} JavaDelegate(s) chargé(s) au démarrage", loaded);
+    }
+
+    /**
+     * Nom du bean d'un delegate, à utiliser dans camunda:delegateExpression
+     */
+    public static String beanName(String className) {
+        return Introspector.decapitalize(className.substring(className.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * Publie la version compilée du delegate après le commit de la transaction courante
+     */
+    public void loadAfterCommit(JavaDelegate delegate) {
+        String className = delegate.getClassName();
+        String sourceHash = delegate.getSourceHash();
+        byte[] bytecode = delegate.getBytecode();
+        if (bytecode == null) {
+            return;
+        }
+        afterCommit(() -> load(className, sourceHash, bytecode));
+    }
+
+    /**
+     * Retire le delegate après le commit de la transaction courante
+     */
+    public void unloadAfterCommit(String className) {
+        afterCommit(() -> unload(className));
+    }
+
+    /**
+     * Charge une version du delegate et la rend active. Sans effet si cette version est déjà active.
+     * @return false si la classe ne peut pas être chargée ou si le nom du bean est déjà pris
+     */
+    public boolean load(String className, String sourceHash, byte[] bytecode) {
+        String beanName = beanName(className);
+        DelegateHandle handle = handles.computeIfAbsent(className, DelegateHandle::new);
+        synchronized (handle) {
+            LoadedVersion current = handle.current.get();
+            if (current != null && Objects.equals(current.sourceHash, sourceHash)) {
+                return true;
+            }
+            if (!handle.registered) {
+                if (beanFactory.containsBean(beanName)) {
+                    log.error("JavaDelegate {} non chargé: le bean {} existe déjà", className, beanName);
+                    handles.remove(className, handle);
+                    return false;
+                }
+                beanFactory.registerSingleton(beanName, handle);
+                handle.registered = true;
+            }
+
+            LoadedVersion version;
+            try {
+                version = LoadedVersion.define(className, sourceHash, handle.versions.incrementAndGet(),
+                        JavaDelegateCompiler.unpack(bytecode), getClass().getClassLoader());
+                beanFactory.autowireBean(version.delegate);
+            } catch (Exception | LinkageError e) {
+                log.error("Chargement du JavaDelegate {} impossible: {}", className, e.getMessage());
+                return false;
+            }
+            loadedVersions.incrementAndGet();
+            LoadedVersion previous = handle.current.getAndSet(version);
+            log.info("JavaDelegate {} version {} actif (bean {})", className, version.number, beanName);
+            if (previous != null) {
+                retire(previous);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Retire la version active : le bean reste enregistré mais refuse les nouvelles exécutions
+     */
+    public void unload(String className) {
+        DelegateHandle handle = handles.get(className);
+        if (handle == null) {
+            return;
+        }
+        synchronized (handle) {
+            LoadedVersion previous = handle.current.getAndSet(null);
+            if (previous != null) {
+                log.info("JavaDelegate {} retiré", className);
+                retire(previous);
+            }
+        }
+    }
+
+    /**
+     * Bean du delegate tel que l'exécute le moteur (version active)
+     */
+    public org.camunda.bpm.engine.delegate.JavaDelegate getDelegate(String className) {
+        if (!isLoaded(className)) {
+            throw new NoSuchElementException("JavaDelegate non chargé: " + className);
+        }
+        return handles.get(className);
+    }
+
+    /**
+     * Nom de la classe compilée exécutée par un bean du registre, null pour tout autre objet
+     */
+    public static String delegateClassName(Object bean) {
+        return bean instanceof DelegateHandle ? ((DelegateHandle) bean).className : null;
+    }
+
+    public boolean isLoaded(String className) {
+        DelegateHandle handle = handles.get(className);
+        return handle != null && handle.current.get() != null;
+    }
+
+    /**
+     * Versions actives, versions remplacées attendant la fin de leurs exécutions, chargements et déchargements
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> delegates = new TreeMap<>();
+        handles.forEach((className, handle) -> {
+            LoadedVersion version = handle.current.get();
+            if (version != null) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("beanName", beanName(className));
+                entry.put("version", version.number);
+                entry.put("sourceHash", version.sourceHash);
+                entry.put("inFlight", Math.max(0, version.users.get()));
+                delegates.put(className, entry);
+            }
+        });
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("delegates", delegates);
+        stats.put("retiredVersions", retiredVersions.get());
+        stats.put("loadedVersions", loadedVersions.get());
+        stats.put("unloadedVersions", unloadedVersions.get());
+        return stats;
+    }
+
+    private void retire(LoadedVersion version) {
+        retiredVersions.incrementAndGet();
+        version.retired = true;
+        tryUnload(version);
+    }
+
+    private void tryUnload(LoadedVersion version) {
+        // 0 -> -1 : plus aucune exécution en cours et plus aucune ne pourra commencer
+        if (version.retired && version.users.compareAndSet(0, -1)) {
+            version.unload();
+            retiredVersions.decrementAndGet();
+            unloadedVersions.incrementAndGet();
+            log.info("JavaDelegate {} version {} déchargé", version.className, version.number);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Bean enregistré pour un delegate : ne change jamais, seule la version qu'il exécute est remplacée
+     */
+    private final class DelegateHandle implements org.camunda.bpm.engine.delegate.JavaDelegate {
+        private final String className;
+        private final AtomicReference<LoadedVersion> current = new AtomicReference<>();
+        private final AtomicInteger versions = new AtomicInteger();
+        private boolean registered;
+
+        private DelegateHandle(String className) {
+            this.className = className;
+        }
+
+        @Override
+        public void execute(DelegateExecution execution) throws Exception {
+            LoadedVersion version = acquire();
+            Thread thread = Thread.currentThread();
+            ClassLoader previousLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(version.classLoader);
+            try {
+                version.delegate.execute(execution);
+            } finally {
+                thread.setContextClassLoader(previousLoader);
+                if (version.users.decrementAndGet() == 0) {
+                    tryUnload(version);
+                }
+            }
+        }
+
+        private LoadedVersion acquire() {
+            while (true) {
+                LoadedVersion version = current.get();
+                if (version == null) {
+                    throw new ProcessEngineException("JavaDelegate non chargé: " + className);
+                }
+                if (version.tryAcquire()) {
+                    return version;
+                }
+                // Version déchargée entre la lecture et l'acquisition : la version courante a changé
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "JavaDelegate " + className;
+        }
+    }
+
+    /**
+     * Une version chargée : son class loader, l'instance du delegate et le nombre d'exécutions en cours
+     * (-1 une fois déchargée)
+     */
+    private static final class LoadedVersion {
+        private final String className;
+        private final String sourceHash;
+        private final int number;
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile boolean retired;
+        private volatile VersionClassLoader classLoader;
+        private volatile org.camunda.bpm.engine.delegate.JavaDelegate delegate;
+
+        private LoadedVersion(String className, String sourceHash, int number, VersionClassLoader classLoader,
+                              org.camunda.bpm.engine.delegate.JavaDelegate delegate) {
+            this.className = className;
+            this.sourceHash = sourceHash;
+            this.number = number;
+            this.classLoader = classLoader;
+            this.delegate = delegate;
+        }
+
+        private static LoadedVersion define(String className, String sourceHash, int number,
+                                            Map<String, byte[]> classes, ClassLoader parent) throws Exception {
+            VersionClassLoader classLoader = new VersionClassLoader(className + "@v" + number, classes, parent);
+            Class<?> type = classLoader.loadClass(className);
+            if (!org.camunda.bpm.engine.delegate.JavaDelegate.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("La classe n'implémente pas JavaDelegate: " + className);
+            }
+            org.camunda.bpm.engine.delegate.JavaDelegate delegate =
+                    (org.camunda.bpm.engine.delegate.JavaDelegate) type.getDeclaredConstructor().newInstance();
+            return new LoadedVersion(className, sourceHash, number, classLoader, delegate);
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int count = users.get();
+                if (count < 0) {
+                    return false;
+                }
+                if (users.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Plus aucune référence vers les classes de la version : le class loader peut être collecté
+         */
+        private void unload() {
+            classLoader.classes.clear();
+            classLoader = null;
+            delegate = null;
+        }
+    }
+
+    /**
+     * Class loader d'une version : définit les classes compilées, délègue tout le reste à l'application
+     */
+    private static final class VersionClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        private VersionClassLoader(String name, Map<String, byte[]> classes, ClassLoader parent) {
+            super(name, parent);
+            this.classes = new ConcurrentHashMap<>(classes);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            // Les classes de la version sont prioritaires sur celles de l'application (même nom entre versions)
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null && classes.containsKey(name)) {
+                    type = findClass(name);
+                }
+                if (type == null) {
+                    return super.loadClass(name, resolve);
+                }
+                if (resolve) {
+                    resolveClass(type);
+                }
+                return type;
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytecode = classes.get(name);
+            if (bytecode == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
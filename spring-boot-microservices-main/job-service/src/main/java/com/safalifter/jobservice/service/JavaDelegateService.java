@@ -4,18 +4,12 @@ import com.safalifter.jobservice.dto.JavaDelegateDTO;
 import com.safalifter.jobservice.dto.JavaDelegateRequest;
 import com.safalifter.jobservice.model.JavaDelegate;
 import com.safalifter.jobservice.repository.JavaDelegateRepository;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.tools.*;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,6 +19,8 @@ import java.util.stream.Collectors;
 public class JavaDelegateService {
 
     private final JavaDelegateRepository javaDelegateRepository;
+    private final JavaDelegateCompiler javaDelegateCompiler;
+    private final JavaDelegateRegistry javaDelegateRegistry;
 
     /**
      * Récupère tous les JavaDelegates disponibles
@@ -87,6 +83,9 @@ public class JavaDelegateService {
             
             // Mettre à jour l'état de compilation
             savedDelegate = javaDelegateRepository.save(savedDelegate);
+            
+            // Exécutable par le moteur dès le commit, via camunda:delegateExpression
+            javaDelegateRegistry.loadAfterCommit(savedDelegate);
         } catch (Exception e) {
             log.error("Erreur lors de la compilation du JavaDelegate", e);
         }
@@ -134,11 +133,18 @@ public class JavaDelegateService {
             if (compiled) {
                 log.info("JavaDelegate compilé avec succès: {}", request.getName());
             } else {
+                // La version précédemment chargée reste active jusqu'à une compilation réussie
                 log.warn("Échec de compilation du JavaDelegate: {}", request.getName());
             }
             
             // Mettre à jour l'état de compilation
             updatedDelegate = javaDelegateRepository.save(updatedDelegate);
+            
+            // Remplacement atomique de la version exécutée, après le commit
+            if (!className.equals(updatedDelegate.getClassName())) {
+                javaDelegateRegistry.unloadAfterCommit(className);
+            }
+            javaDelegateRegistry.loadAfterCommit(updatedDelegate);
         } catch (Exception e) {
             log.error("Erreur lors de la compilation du JavaDelegate", e);
         }
@@ -146,6 +152,62 @@ public class JavaDelegateService {
         return convertToDTO(updatedDelegate);
     }
 
+    /**
+     * Crée ou met à jour plusieurs JavaDelegates (delegates par défaut au démarrage). Les sources dont
+     * l'empreinte correspond au bytecode enregistré ne sont pas recompilés ; les autres sont compilés
+     * ensemble, en une seule passe javac tant qu'aucun n'est en erreur.
+     */
+    @Transactional
+    public SyncResult syncJavaDelegates(List<JavaDelegateRequest> requests) {
+        SyncResult result = new SyncResult();
+        Map<String, JavaDelegate> existing = javaDelegateRepository.findByClassNameIn(requests.stream()
+                        .map(JavaDelegateRequest::getName)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(JavaDelegate::getClassName, delegate -> delegate));
+        
+        List<JavaDelegate> changed = new ArrayList<>();
+        for (JavaDelegateRequest request : requests) {
+            String packageName = extractPackageName(request.getName());
+            try {
+                validateSourceCode(request.getSourceCode(), packageName, extractSimpleClassName(request.getName()));
+            } catch (IllegalArgumentException e) {
+                log.error("JavaDelegate {} invalide: {}", request.getName(), e.getMessage());
+                result.failed++;
+                continue;
+            }
+            
+            JavaDelegate delegate = existing.get(request.getName());
+            if (delegate != null && delegate.getBytecode() != null
+                    && JavaDelegateCompiler.sourceHash(request.getSourceCode()).equals(delegate.getSourceHash())) {
+                // Entité gérée : une description modifiée est écrite au commit, sans recompilation
+                delegate.setDescription(request.getDescription());
+                result.unchanged++;
+                continue;
+            }
+            if (delegate == null) {
+                delegate = JavaDelegate.builder().className(request.getName()).build();
+            }
+            delegate.setSourceCode(request.getSourceCode());
+            delegate.setDescription(request.getDescription());
+            delegate.setPackageName(packageName);
+            changed.add(delegate);
+        }
+        if (changed.isEmpty()) {
+            return result;
+        }
+        
+        compileTogether(changed);
+        for (JavaDelegate delegate : javaDelegateRepository.saveAll(changed)) {
+            if (delegate.isCompiled()) {
+                result.compiled++;
+                javaDelegateRegistry.loadAfterCommit(delegate);
+            } else {
+                result.failed++;
+            }
+        }
+        return result;
+    }
+
     /**
      * Supprime un JavaDelegate
      */
@@ -157,6 +219,14 @@ public class JavaDelegateService {
                 .orElseThrow(() -> new NoSuchElementException("JavaDelegate not found: " + className));
         
         javaDelegateRepository.delete(delegate);
+        javaDelegateRegistry.unloadAfterCommit(className);
+    }
+
+    /**
+     * Delegates chargés dans le moteur et versions en cours de déchargement
+     */
+    public Map<String, Object> getRuntimeStatistics() {
+        return javaDelegateRegistry.getStatistics();
     }
 
     /**
@@ -169,6 +239,8 @@ public class JavaDelegateService {
                 .description(delegate.getDescription())
                 .packageName(delegate.getPackageName())
                 .compiled(delegate.isCompiled())
+                .beanName(JavaDelegateRegistry.beanName(delegate.getClassName()))
+                .loaded(javaDelegateRegistry.isLoaded(delegate.getClassName()))
                 .createdAt(delegate.getCreatedAt())
                 .updatedAt(delegate.getUpdatedAt())
                 .build();
@@ -215,7 +287,11 @@ public class JavaDelegateService {
         }
 
         // Vérifier que la classe implémente org.camunda.bpm.engine.delegate.JavaDelegate
-        if (!sourceCode.contains("implements org.camunda.bpm.engine.delegate.JavaDelegate")) {
+        // Interface nommée complètement, ou importée (cas des modèles de JavaDelegateTemplates)
+        boolean implementsDelegate = sourceCode.contains("implements org.camunda.bpm.engine.delegate.JavaDelegate")
+                || (sourceCode.contains("import org.camunda.bpm.engine.delegate.JavaDelegate;")
+                        && sourceCode.contains("implements JavaDelegate"));
+        if (!implementsDelegate) {
             throw new IllegalArgumentException("La classe doit implémenter org.camunda.bpm.engine.delegate.JavaDelegate");
         }
 
@@ -226,62 +302,70 @@ public class JavaDelegateService {
     }
 
     /**
-     * Tente de compiler le code source du JavaDelegate
+     * Compile le code source du JavaDelegate en mémoire et conserve le bytecode avec son empreinte.
+     * Un source identique à celui déjà compilé n'est pas recompilé.
      */
-    private boolean compileJavaDelegate(JavaDelegate delegate) throws IOException {
-        // Créer un dossier temporaire pour la compilation
-        Path tempDir = Files.createTempDirectory("javadelegate-");
-        
-        // Créer les dossiers de package
-        String packageDir = delegate.getPackageName().replace('.', File.separatorChar);
-        Path sourcePath = Paths.get(tempDir.toString(), packageDir);
-        Files.createDirectories(sourcePath);
-        
-        // Nom de classe simple
-        String simpleClassName = extractSimpleClassName(delegate.getClassName());
-        
-        // Créer le fichier source
-        File sourceFile = new File(sourcePath.toFile(), simpleClassName + ".java");
-        try (FileWriter writer = new FileWriter(sourceFile)) {
-            writer.write(delegate.getSourceCode());
-        }
-        
-        // Compiler le fichier source
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        if (compiler == null) {
-            log.error("Compilateur Java non disponible");
-            return false;
+    private boolean compileJavaDelegate(JavaDelegate delegate) {
+        String sourceHash = JavaDelegateCompiler.sourceHash(delegate.getSourceCode());
+        if (sourceHash.equals(delegate.getSourceHash()) && delegate.getBytecode() != null) {
+            log.info("Code source inchangé, compilation ignorée: {}", delegate.getClassName());
+            return true;
         }
         
-        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
-        
-        Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(
-                Collections.singletonList(sourceFile));
-        
-        // Options de compilation
-        List<String> options = List.of("-classpath", System.getProperty("java.class.path"));
-        
-        JavaCompiler.CompilationTask task = compiler.getTask(
-                null, fileManager, diagnostics, options, null, compilationUnits);
-        
-        boolean success = task.call();
-        
-        // Journaliser les diagnostics de compilation
-        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
-            log.info("Diagnostic: {}", diagnostic.getMessage(Locale.getDefault()));
+        JavaDelegateCompiler.Result result = javaDelegateCompiler.compile(delegate.getClassName(), delegate.getSourceCode());
+        storeBytecode(delegate, result.isSuccess() ? result.getClasses() : null);
+        return result.isSuccess();
+    }
+
+    /**
+     * Compile plusieurs delegates dans la même tâche javac. javac ne produit aucune classe dès qu'un source
+     * est en erreur : les sources en erreur sont écartés et les autres recompilés ensemble.
+     */
+    private void compileTogether(List<JavaDelegate> delegates) {
+        Map<String, JavaDelegate> byClassName = new HashMap<>();
+        Map<String, String> pending = new LinkedHashMap<>();
+        for (JavaDelegate delegate : delegates) {
+            byClassName.put(delegate.getClassName(), delegate);
+            pending.put(delegate.getClassName(), delegate.getSourceCode());
         }
         
-        // Nettoyer les fichiers temporaires
-        try {
-            Files.walk(tempDir)
-                    .sorted(Comparator.reverseOrder())
-                    .map(Path::toFile)
-                    .forEach(File::delete);
-        } catch (Exception e) {
-            log.warn("Impossible de supprimer les fichiers temporaires", e);
+        while (!pending.isEmpty()) {
+            JavaDelegateCompiler.Result result = javaDelegateCompiler.compile(new LinkedHashMap<>(pending));
+            if (result.isSuccess()) {
+                pending.keySet().forEach(className -> storeBytecode(byClassName.get(className), result.getClasses(className)));
+                return;
+            }
+            Set<String> failing = new HashSet<>(result.getErrors().keySet());
+            failing.retainAll(pending.keySet());
+            if (failing.isEmpty()) {
+                // Erreurs non rattachées à un source : chaque delegate est compilé seul
+                pending.keySet().forEach(className -> {
+                    JavaDelegateCompiler.Result single = javaDelegateCompiler.compile(className, pending.get(className));
+                    storeBytecode(byClassName.get(className), single.isSuccess() ? single.getClasses() : null);
+                });
+                return;
+            }
+            failing.forEach(className -> storeBytecode(byClassName.get(className), null));
+            pending.keySet().removeAll(failing);
         }
-        
-        return success;
+    }
+
+    /**
+     * Bytecode et empreinte du source compilé, ou rien si la compilation a échoué
+     */
+    private void storeBytecode(JavaDelegate delegate, Map<String, byte[]> classes) {
+        delegate.setCompiled(classes != null);
+        delegate.setSourceHash(classes != null ? JavaDelegateCompiler.sourceHash(delegate.getSourceCode()) : null);
+        delegate.setBytecode(classes != null ? JavaDelegateCompiler.pack(classes) : null);
+    }
+
+    /**
+     * Nombre de delegates inchangés, compilés et en échec lors d'une synchronisation
+     */
+    @Getter
+    public static class SyncResult {
+        private int unchanged;
+        private int compiled;
+        private int failed;
     }
 }
@@ -0,0 +1,362 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.JavaDelegateTestResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Banc d'essai des JavaDelegates chargés : exécute la version active du delegate (le bean appelé par le moteur)
+ * sur une exécution simulée initialisée avec les variables de la requête, après une phase de chauffe, et mesure
+ * la latence de chaque appel, les octets alloués et les variables lues et écrites.
+ *
+ * Chaque appel reçoit sa propre copie des variables : les appels concurrents ne partagent aucun état.
+ */
+@Slf4j
+@Service
+public class JavaDelegateTestHarness {
+
+    private static final String VARIABLES = "variables";
+    private static final String WARMUP_ITERATIONS = "warmupIterations";
+    private static final String ITERATIONS = "iterations";
+    private static final String CONCURRENCY = "concurrency";
+    private static final Set<String> OPTIONS = Set.of(VARIABLES, WARMUP_ITERATIONS, ITERATIONS, CONCURRENCY);
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 10;
+    private static final int DEFAULT_ITERATIONS = 100;
+    private static final String ACTIVITY_ID = "javaDelegateTest";
+
+    private final JavaDelegateRegistry javaDelegateRegistry;
+    private final int maxIterations;
+    private final int maxConcurrency;
+    private final long timeoutSeconds;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public JavaDelegateTestHarness(JavaDelegateRegistry javaDelegateRegistry,
+                                   @Value("${javadelegate.test.max-iterations:100000}") int maxIterations,
+                                   @Value("${javadelegate.test.max-concurrency:32}") int maxConcurrency,
+                                   @Value("${javadelegate.test.timeout-seconds:60}") long timeoutSeconds) {
+        this.javaDelegateRegistry = javaDelegateRegistry;
+        this.maxIterations = maxIterations;
+        this.maxConcurrency = maxConcurrency;
+        this.timeoutSeconds = timeoutSeconds;
+        this.threadMXBean = allocationCounter();
+    }
+
+    /**
+     * Exécute l'essai. Le corps de la requête contient les variables, soit sous "variables", soit directement
+     * (toutes les clés hors options), et les options warmupIterations, iterations et concurrency.
+     * @throws NoSuchElementException si le delegate n'est pas chargé
+     * @throws IllegalArgumentException si une option est invalide
+     */
+    public JavaDelegateTestResultDTO run(String className, Map<String, Object> testData) {
+        Map<String, Object> request = testData != null ? testData : Map.of();
+        int warmupIterations = intOption(request, WARMUP_ITERATIONS, DEFAULT_WARMUP_ITERATIONS, 0, maxIterations);
+        int iterations = intOption(request, ITERATIONS, DEFAULT_ITERATIONS, 1, maxIterations);
+        int concurrency = intOption(request, CONCURRENCY, 1, 1, maxConcurrency);
+        Map<String, Object> variables = variables(request);
+        JavaDelegate delegate = javaDelegateRegistry.getDelegate(className);
+
+        Recorder recorder = new Recorder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+
+        // Chauffe : laisse le JIT compiler le delegate avant la mesure, sans relever les résultats
+        Recorder warmup = new Recorder();
+        for (int i = 0; i < warmupIterations && System.nanoTime() < deadline; i++) {
+            call(delegate, execution(variables, warmup), warmup);
+        }
+
+        AtomicLongArray latencies = new AtomicLongArray(iterations);
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "java-delegate-test");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < concurrency; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                int index;
+                while ((index = next.getAndIncrement()) < iterations && System.nanoTime() < deadline) {
+                    latencies.set(index, call(delegate, execution(variables, recorder), recorder) + 1);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        boolean timedOut = false;
+        try {
+            for (Future<?> worker : workers) {
+                long remaining = deadline - System.nanoTime();
+                worker.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            timedOut = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Essai du JavaDelegate interrompu: " + className, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long totalNanos = System.nanoTime() - begin;
+
+        // Appels terminés (un essai interrompu par le délai ne mesure que ceux-ci), latence + 1 pour les distinguer
+        long[] completed = IntStream.range(0, iterations)
+                .mapToLong(latencies::get)
+                .filter(latency -> latency > 0)
+                .map(latency -> latency - 1)
+                .toArray();
+        timedOut |= completed.length < iterations;
+        Arrays.sort(completed);
+
+        JavaDelegateTestResultDTO result = JavaDelegateTestResultDTO.builder()
+                .className(className)
+                .warmupIterations(warmupIterations)
+                .iterations(completed.length)
+                .concurrency(concurrency)
+                .errors(recorder.errors.get())
+                .firstError(recorder.firstError.get())
+                .timedOut(timedOut)
+                .totalTimeMs(millis(totalNanos))
+                .throughputPerSecond(totalNanos > 0 ? round(completed.length * 1e9 / totalNanos) : 0)
+                .minMs(completed.length > 0 ? millis(completed[0]) : 0)
+                .meanMs(completed.length > 0 ? millis(Arrays.stream(completed).sum() / completed.length) : 0)
+                .p50Ms(millis(percentile(completed, 50)))
+                .p95Ms(millis(percentile(completed, 95)))
+                .p99Ms(millis(percentile(completed, 99)))
+                .maxMs(completed.length > 0 ? millis(completed[completed.length - 1]) : 0)
+                .allocatedBytesPerCall(recorder.allocationMeasured && completed.length > 0
+                        ? recorder.allocatedBytes.get() / completed.length : null)
+                .variablesRead(new ArrayList<>(new TreeSet<>(recorder.read)))
+                .variablesWritten(new TreeMap<>(recorder.written))
+                .build();
+        log.info("Essai du JavaDelegate {}: {} appel(s), {} erreur(s), p50 {} ms, p99 {} ms", className,
+                completed.length, result.getErrors(), result.getP50Ms(), result.getP99Ms());
+        return result;
+    }
+
+    /**
+     * Un appel du delegate : latence en nanosecondes, octets alloués et erreur éventuelle
+     */
+    private long call(JavaDelegate delegate, DelegateExecution execution, Recorder recorder) {
+        long allocatedBefore = threadMXBean != null ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+        long start = System.nanoTime();
+        try {
+            delegate.execute(execution);
+        } catch (Exception | LinkageError e) {
+            recorder.errors.incrementAndGet();
+            recorder.firstError.compareAndSet(null, e.getClass().getName() + ": " + e.getMessage());
+        }
+        long latency = System.nanoTime() - start;
+        if (allocatedBefore >= 0) {
+            long allocatedAfter = threadMXBean.getCurrentThreadAllocatedBytes();
+            if (allocatedAfter >= 0) {
+                recorder.allocatedBytes.addAndGet(allocatedAfter - allocatedBefore);
+                recorder.allocationMeasured = true;
+            }
+        }
+        return latency;
+    }
+
+    /**
+     * Exécution simulée : variables en mémoire, identifiants fictifs, null pour le reste (moteur, modèle...)
+     */
+    private static DelegateExecution execution(Map<String, Object> variables, Recorder recorder) {
+        Map<String, Object> values = new HashMap<>(variables);
+        InvocationHandler handler = (proxy, method, args) -> invoke(values, recorder, proxy, method, args);
+        return (DelegateExecution) Proxy.newProxyInstance(JavaDelegateTestHarness.class.getClassLoader(),
+                new Class<?>[]{DelegateExecution.class}, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object invoke(Map<String, Object> values, Recorder recorder, Object proxy, Method method,
+                                 Object[] args) {
+        String name = method.getName();
+        Object first = args != null && args.length > 0 ? args[0] : null;
+        switch (name) {
+            case "getVariable":
+            case "getVariableLocal":
+                recorder.read.add((String) first);
+                return values.get(first);
+            case "getVariableTyped":
+            case "getVariableLocalTyped":
+                recorder.read.add((String) first);
+                return values.containsKey(first) ? Variables.untypedValue(values.get(first)) : null;
+            case "getVariables":
+            case "getVariablesLocal":
+                recorder.read.addAll(values.keySet());
+                return new HashMap<>(values);
+            case "getVariablesTyped":
+            case "getVariablesLocalTyped":
+                recorder.read.addAll(values.keySet());
+                return Variables.fromMap(new HashMap<>(values));
+            case "hasVariable":
+            case "hasVariableLocal":
+                recorder.read.add((String) first);
+                return values.containsKey(first);
+            case "hasVariables":
+            case "hasVariablesLocal":
+                return !values.isEmpty();
+            case "getVariableNames":
+            case "getVariableNamesLocal":
+                return new HashSet<>(values.keySet());
+            case "setVariable":
+            case "setVariableLocal":
+                write(values, recorder, (String) first, args[1]);
+                return null;
+            case "setVariables":
+            case "setVariablesLocal":
+                if (first != null) {
+                    ((Map<String, Object>) first).forEach((key, value) -> write(values, recorder, key, value));
+                }
+                return null;
+            case "removeVariable":
+            case "removeVariableLocal":
+                values.remove(first);
+                return null;
+            case "removeVariables":
+            case "removeVariablesLocal":
+                if (first != null) {
+                    ((Collection<String>) first).forEach(values::remove);
+                } else {
+                    values.clear();
+                }
+                return null;
+            case "getId":
+            case "getActivityInstanceId":
+                return "test-execution";
+            case "getProcessInstanceId":
+                return "test-process-instance";
+            case "getCurrentActivityId":
+                return ACTIVITY_ID;
+            case "getEventName":
+                return "start";
+            case "toString":
+                return "DelegateExecution de test";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == first;
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private static void write(Map<String, Object> values, Recorder recorder, String name, Object value) {
+        Object plain = value instanceof TypedValue ? ((TypedValue) value).getValue() : value;
+        values.put(name, plain);
+        Map<String, Object> written = new LinkedHashMap<>();
+        written.put("type", plain != null ? plain.getClass().getSimpleName() : "Null");
+        written.put("value", plain == null || plain instanceof String || plain instanceof Number
+                || plain instanceof Boolean ? plain : String.valueOf(plain));
+        recorder.written.put(name, written);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> variables(Map<String, Object> request) {
+        Object variables = request.get(VARIABLES);
+        if (variables instanceof Map) {
+            return (Map<String, Object>) variables;
+        }
+        if (variables != null) {
+            throw new IllegalArgumentException("\"" + VARIABLES + "\" doit être un objet");
+        }
+        Map<String, Object> inline = new HashMap<>(request);
+        inline.keySet().removeAll(OPTIONS);
+        return inline;
+    }
+
+    private static int intOption(Map<String, Object> request, String name, int defaultValue, int min, int max) {
+        Object value = request.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed;
+        try {
+            parsed = value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("\"" + name + "\" doit être un entier: " + value);
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException("\"" + name + "\" doit être compris entre " + min + " et " + max);
+        }
+        return parsed;
+    }
+
+    /**
+     * Rang le plus proche sur des latences triées
+     */
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        log.warn("Mesure des allocations par thread non disponible: allocatedBytesPerCall ne sera pas renseigné");
+        return null;
+    }
+
+    /**
+     * Résultats partagés par les appels d'un essai
+     */
+    private static final class Recorder {
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+        private volatile boolean allocationMeasured;
+        private final Set<String> read = ConcurrentHashMap.newKeySet();
+        private final Map<String, Map<String, Object>> written = new ConcurrentHashMap<>();
+    }
+}
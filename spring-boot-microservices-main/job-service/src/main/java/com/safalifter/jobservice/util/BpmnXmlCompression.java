@@ -0,0 +1,69 @@
+package com.safalifter.jobservice.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression deflate (format zlib) du XML BPMN stocké en base.
+ * Le XML est très répétitif (noms de balises, namespaces, coordonnées DI) : le gain est en général de 5 à 10x.
+ */
+public final class BpmnXmlCompression {
+
+    private BpmnXmlCompression() {
+    }
+
+    public static byte[] compress(byte[] xml) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(xml);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, xml.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Décompresse en une seule allocation de la taille d'origine (connue à l'écriture)
+     */
+    public static byte[] decompress(byte[] data, int originalSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] xml = new byte[originalSize];
+            int length = 0;
+            while (length < originalSize && !inflater.finished()) {
+                int read = inflater.inflate(xml, length, originalSize - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != originalSize || !inflater.finished()) {
+                throw new IllegalStateException("Contenu XML compressé corrompu (" + length + "/" + originalSize + " octets)");
+            }
+            return xml;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Contenu XML compressé invalide", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Flux décompressé, pour recopier le XML vers une réponse sans le matérialiser
+     */
+    public static InputStream decompressingStream(byte[] data) {
+        return new InflaterInputStream(new ByteArrayInputStream(data));
+    }
+}
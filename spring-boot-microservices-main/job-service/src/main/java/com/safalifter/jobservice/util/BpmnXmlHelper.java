@@ -10,8 +10,9 @@ import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 /**
  * Classe utilitaire pour la manipulation des éléments XML BPMN
@@ -169,6 +170,18 @@ public class BpmnXmlHelper {
         }
     }
     
+    /**
+     * Empreinte SHA-256 (hexadécimale) d'un XML, utilisée pour reconnaître un contenu inchangé
+     */
+    public static String contentHash(String xml) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(xml.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+    
     /**
      * Corrige les problèmes courants dans les XML BPMN
      * - Caractères non-UTF8
@@ -176,6 +189,7 @@ public class BpmnXmlHelper {
      * - Balises XML mal formées
      * - Problèmes d'encodage
      * - Namespaces manquants ou incorrects
+     * Les corrections sont faites en une seule passe par {@link BpmnXmlSanitizer}.
      * 
      * @param xml Le XML à corriger
      * @return Le XML corrigé
@@ -186,82 +200,11 @@ public class BpmnXmlHelper {
             return xml;
         }
         
-        log.info("Correction du XML BPMN, taille initiale: {} caractères", xml.length());
-        
         try {
-            // 1. S'assurer que l'encodage est UTF-8
-            byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
-            xml = new String(bytes, StandardCharsets.UTF_8);
-            
-            // 2. Supprimer les caractères de contrôle invalides (non imprimables)
-            StringBuilder sb = new StringBuilder(xml.length());
-            for (int i = 0; i < xml.length(); i++) {
-                char c = xml.charAt(i);
-                // Ne garder que les caractères valides pour XML 1.0
-                // https://www.w3.org/TR/xml/#charsets
-                if (c == 0x9 || c == 0xA || c == 0xD || 
-                    (c >= 0x20 && c <= 0xD7FF) || 
-                    (c >= 0xE000 && c <= 0xFFFD) || 
-                    (c >= 0x10000 && c <= 0x10FFFF)) {
-                    sb.append(c);
-                } else {
-                    log.debug("Caractère invalide supprimé à la position {}: {}", i, (int)c);
-                }
-            }
-            xml = sb.toString();
-            
-            // 3. Vérifier les déclarations d'encodage et les corriger si nécessaires
-            Pattern encodingPattern = Pattern.compile("encoding=[\"']([^\"']*)[\"']");
-            Matcher encodingMatcher = encodingPattern.matcher(xml);
-            if (encodingMatcher.find()) {
-                String encoding = encodingMatcher.group(1);
-                if (!encoding.equalsIgnoreCase("UTF-8")) {
-                    log.warn("Encodage déclaré non-UTF8 trouvé: {}, correction en UTF-8", encoding);
-                    xml = xml.replace(encoding, "UTF-8");
-                }
-            }
-            
-            // 4. S'assurer que les namespaces BPMN essentiels sont présents
-            if (!xml.contains("xmlns:bpmn") && !xml.contains("xmlns=\"http://www.omg.org/spec/BPMN")) {
-                log.warn("Namespaces BPMN manquants, ajout des namespaces standards");
-                
-                // Rechercher la balise de définitions pour ajouter les namespaces
-                Pattern definitionsPattern = Pattern.compile("<(?:bpmn:)?definitions[^>]*>");
-                Matcher definitionsMatcher = definitionsPattern.matcher(xml);
-                
-                if (definitionsMatcher.find()) {
-                    String definitionsTag = definitionsMatcher.group(0);
-                    String newDefinitionsTag = definitionsTag;
-                    
-                    // Ajouter les namespaces manquants si non présents
-                    if (!definitionsTag.contains("xmlns")) {
-                        newDefinitionsTag = definitionsTag.replace(">", 
-                            " xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"" +
-                            " xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"" +
-                            " xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\"" +
-                            " xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\"" +
-                            " xmlns:di=\"http://www.omg.org/spec/DD/20100524/DI\"" +
-                            " xmlns:camunda=\"http://camunda.org/schema/1.0/bpmn\">");
-                    }
-                    
-                    xml = xml.replace(definitionsTag, newDefinitionsTag);
-                } else {
-                    log.warn("Balise definitions non trouvée, impossible d'ajouter les namespaces automatiquement");
-                }
-            }
-            
-            // 5. Vérifier que le XML est bien formé (balises fermées)
-            int openingTags = countOccurrences(xml, "<");
-            int closingTags = countOccurrences(xml, "</") + countOccurrences(xml, "/>");
-            
-            if (openingTags - closingTags > 0) {
-                log.warn("Possible problème de balises non fermées: {} ouvertures, {} fermetures", 
-                         openingTags, closingTags);
-            }
-            
-            log.info("XML corrigé avec succès, nouvelle taille: {} caractères", xml.length());
-            return xml;
-            
+            BpmnXmlSanitizer.Report report = new BpmnXmlSanitizer.Report();
+            String fixed = BpmnXmlSanitizer.sanitize(xml, report);
+            logReport(report, xml.length(), fixed.length());
+            return fixed;
         } catch (Exception e) {
             log.error("Erreur lors de la correction du XML: {}", e.getMessage(), e);
             // En cas d'erreur, retourner le XML d'origine
@@ -270,20 +213,45 @@ public class BpmnXmlHelper {
     }
     
     /**
-     * Compte le nombre d'occurrences d'une sous-chaîne dans une chaîne
+     * Corrige les problèmes courants d'un XML BPMN encodé en UTF-8, sans passer par une chaîne intermédiaire
+     * 
+     * @param xml Le XML à corriger (octets UTF-8)
+     * @return Le XML corrigé (octets UTF-8)
      */
-    private int countOccurrences(String str, String subStr) {
-        int count = 0;
-        int lastIndex = 0;
-        
-        while (lastIndex != -1) {
-            lastIndex = str.indexOf(subStr, lastIndex);
-            if (lastIndex != -1) {
-                count++;
-                lastIndex += subStr.length();
-            }
+    public byte[] fixCommonXmlIssues(byte[] xml) {
+        if (xml == null || xml.length == 0) {
+            log.error("XML vide ou null, impossible de corriger");
+            return xml;
         }
         
-        return count;
+        try {
+            BpmnXmlSanitizer.Report report = new BpmnXmlSanitizer.Report();
+            byte[] fixed = BpmnXmlSanitizer.sanitize(xml, report);
+            logReport(report, xml.length, fixed.length);
+            return fixed;
+        } catch (Exception e) {
+            log.error("Erreur lors de la correction du XML: {}", e.getMessage(), e);
+            return xml;
+        }
+    }
+    
+    private void logReport(BpmnXmlSanitizer.Report report, int initialSize, int fixedSize) {
+        if (report.getRemovedCharacters() > 0 || report.getInvalidSequences() > 0) {
+            log.warn("Caractères invalides supprimés: {} caractère(s), {} séquence(s) UTF-8 invalide(s)",
+                    report.getRemovedCharacters(), report.getInvalidSequences());
+        }
+        if (report.getReplacedEncoding() != null) {
+            log.warn("Encodage déclaré non-UTF8 trouvé: {}, correction en UTF-8", report.getReplacedEncoding());
+        }
+        if (report.isNamespacesAdded()) {
+            log.warn("Namespaces BPMN manquants, ajout des namespaces standards");
+        } else if (!report.isDefinitionsRoot()) {
+            log.warn("Balise definitions non trouvée à la racine (élément racine: {})", report.getRootElement());
+        }
+        if (report.getOpeningTags() > report.getClosingTags()) {
+            log.warn("Possible problème de balises non fermées: {} ouvertures, {} fermetures",
+                    report.getOpeningTags(), report.getClosingTags());
+        }
+        log.debug("XML corrigé, taille {} -> {}", initialSize, fixedSize);
     }
 }
@@ -0,0 +1,639 @@
+package com.safalifter.jobservice.util;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Nettoyage d'un XML BPMN en une seule passe et en flux, sans expression régulière ni copie intermédiaire :
+ * <ul>
+ *   <li>décodage UTF-8 strict (séquences invalides supprimées) et suppression des caractères interdits en XML 1.0,
+ *       paires de substitution comprises</li>
+ *   <li>suppression du BOM et déclaration d'encodage du prologue ramenée à UTF-8</li>
+ *   <li>ajout des namespaces BPMN standards sur la balise definitions racine si elle n'en déclare aucun</li>
+ *   <li>comptage des balises ouvrantes et fermantes (hors commentaires, CDATA et instructions)</li>
+ * </ul>
+ * La mémoire utilisée en plus de la sortie est bornée (tampons de taille fixe), quelle que soit la taille du document.
+ */
+public final class BpmnXmlSanitizer {
+
+    static final String BPMN_NAMESPACES =
+            " xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"" +
+            " xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"" +
+            " xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\"" +
+            " xmlns:dc=\"http://www.omg.org/spec/DD/20100524/DC\"" +
+            " xmlns:di=\"http://www.omg.org/spec/DD/20100524/DI\"" +
+            " xmlns:camunda=\"http://camunda.org/schema/1.0/bpmn\"";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DECLARATION_LENGTH = 256;
+    private static final int MAX_NAME_LENGTH = 128;
+
+    private BpmnXmlSanitizer() {
+    }
+
+    /**
+     * Nettoie un flux UTF-8 vers un flux UTF-8
+     */
+    public static Report sanitize(InputStream in, OutputStream out) throws IOException {
+        Report report = new Report();
+        Utf8Output output = new Utf8Output(out);
+        Machine machine = new Machine(output, report);
+        Utf8Input input = new Utf8Input(machine, report);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            feed(buffer, read, input, machine, output);
+        }
+        input.finish();
+        machine.finish();
+        output.flush();
+        return report;
+    }
+
+    /**
+     * Nettoie un document UTF-8 en mémoire (report peut être null)
+     */
+    public static byte[] sanitize(byte[] xml, Report report) {
+        Report target = report != null ? report : new Report();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length + BPMN_NAMESPACES.length());
+        try {
+            Utf8Output output = new Utf8Output(out);
+            Machine machine = new Machine(output, target);
+            Utf8Input input = new Utf8Input(machine, target);
+            feed(xml, xml.length, input, machine, output);
+            input.finish();
+            machine.finish();
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Nettoie un document déjà décodé (report peut être null)
+     */
+    public static String sanitize(String xml, Report report) {
+        Report target = report != null ? report : new Report();
+        StringBuilder out = new StringBuilder(xml.length() + BPMN_NAMESPACES.length());
+        Machine machine = new Machine(out::appendCodePoint, target);
+        int length = xml.length();
+        int i = 0;
+        while (i < length) {
+            int end = machine.passThroughRun(xml, i, length);
+            if (end > i) {
+                out.append(xml, i, end);
+                i = end;
+                continue;
+            }
+            char c = xml.charAt(i++);
+            if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(xml.charAt(i))) {
+                machine.accept(Character.toCodePoint(c, xml.charAt(i++)));
+            } else {
+                // Un demi-caractère isolé n'est pas un caractère XML : il est supprimé par la machine
+                machine.accept(c);
+            }
+        }
+        machine.finish();
+        return out.toString();
+    }
+
+    // Les suites d'octets ASCII sans effet sur l'automate sont recopiées en bloc
+    private static void feed(byte[] bytes, int length, Utf8Input input, Machine machine, Utf8Output output)
+            throws IOException {
+        int i = 0;
+        while (i < length) {
+            if (input.isIdle()) {
+                int end = machine.passThroughRun(bytes, i, length);
+                if (end > i) {
+                    output.write(bytes, i, end - i);
+                    i = end;
+                    continue;
+                }
+            }
+            input.accept(bytes[i++]);
+            output.flushIfFull();
+        }
+    }
+
+    static boolean isXmlChar(int cp) {
+        return cp == 0x9 || cp == 0xA || cp == 0xD
+                || (cp >= 0x20 && cp <= 0xD7FF)
+                || (cp >= 0xE000 && cp <= 0xFFFD)
+                || (cp >= 0x10000 && cp <= 0x10FFFF);
+    }
+
+    /**
+     * Bilan des corrections appliquées
+     */
+    @Getter
+    public static final class Report {
+        private long removedCharacters;
+        private long invalidSequences;
+        private boolean bomRemoved;
+        private String replacedEncoding;
+        private boolean namespacesAdded;
+        private String rootElement;
+        private long openingTags;
+        private long closingTags;
+
+        public boolean isModified() {
+            return removedCharacters > 0 || invalidSequences > 0 || bomRemoved
+                    || replacedEncoding != null || namespacesAdded;
+        }
+
+        public boolean isDefinitionsRoot() {
+            return "definitions".equals(rootElement);
+        }
+    }
+
+    private interface CodePointSink {
+        void write(int cp);
+    }
+
+    /**
+     * Décodeur UTF-8 strict octet par octet : séquences tronquées, trop longues ou hors Unicode supprimées
+     */
+    private static final class Utf8Input {
+        private final Machine machine;
+        private final Report report;
+        private int codePoint;
+        private int remaining;
+        private int minimum;
+
+        private Utf8Input(Machine machine, Report report) {
+            this.machine = machine;
+            this.report = report;
+        }
+
+        private void accept(byte b) {
+            int value = b & 0xFF;
+            if (remaining > 0) {
+                if ((value & 0xC0) == 0x80) {
+                    codePoint = (codePoint << 6) | (value & 0x3F);
+                    if (--remaining == 0) {
+                        if (codePoint < minimum || codePoint > 0x10FFFF || (codePoint >= 0xD800 && codePoint <= 0xDFFF)) {
+                            report.invalidSequences++;
+                        } else {
+                            machine.accept(codePoint);
+                        }
+                    }
+                    return;
+                }
+                // Séquence interrompue : l'octet courant recommence un caractère
+                report.invalidSequences++;
+                remaining = 0;
+            }
+            if (value < 0x80) {
+                machine.accept(value);
+            } else if (value >= 0xC2 && value <= 0xDF) {
+                start(value & 0x1F, 1, 0x80);
+            } else if (value >= 0xE0 && value <= 0xEF) {
+                start(value & 0x0F, 2, 0x800);
+            } else if (value >= 0xF0 && value <= 0xF4) {
+                start(value & 0x07, 3, 0x10000);
+            } else {
+                report.invalidSequences++;
+            }
+        }
+
+        private void start(int bits, int continuationBytes, int minimumCodePoint) {
+            codePoint = bits;
+            remaining = continuationBytes;
+            minimum = minimumCodePoint;
+        }
+
+        private boolean isIdle() {
+            return remaining == 0;
+        }
+
+        private void finish() {
+            if (remaining > 0) {
+                report.invalidSequences++;
+                remaining = 0;
+            }
+        }
+    }
+
+    /**
+     * Encodeur UTF-8 avec un tampon de taille fixe
+     */
+    private static final class Utf8Output implements CodePointSink {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        private Utf8Output(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int cp) {
+            if (cp < 0x80) {
+                buffer[position++] = (byte) cp;
+            } else if (cp < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (cp >> 6));
+                buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (cp < 0x10000) {
+                buffer[position++] = (byte) (0xE0 | (cp >> 12));
+                buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xF0 | (cp >> 18));
+                buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+            }
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - position) {
+                flush();
+                if (length > buffer.length) {
+                    out.write(bytes, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        // Appelé entre deux caractères source : l'insertion des namespaces (< 512 octets) tient toujours
+        private void flushIfFull() throws IOException {
+            if (position > BUFFER_SIZE - 1024) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Automate de lecture du document, caractère par caractère
+     */
+    private static final class Machine {
+        private static final int TEXT = 0;
+        private static final int MARKUP = 1;
+        private static final int START_TAG_NAME = 2;
+        private static final int START_TAG = 3;
+        private static final int END_TAG = 4;
+        private static final int PROCESSING_INSTRUCTION = 5;
+        private static final int XML_DECLARATION = 6;
+        private static final int BANG = 7;
+        private static final int COMMENT = 8;
+        private static final int CDATA = 9;
+        private static final int DOCTYPE = 10;
+
+        private static final String COMMENT_START = "--";
+        private static final String CDATA_START = "[CDATA[";
+        private static final String XMLNS = "xmlns";
+
+        private final CodePointSink out;
+        private final Report report;
+
+        private int state = TEXT;
+        private boolean documentStart = true;
+        private boolean rootSeen;
+        private boolean inRoot;
+        private boolean rootHasNamespace;
+        private boolean pendingSlash;
+        private int quote;
+        private int xmlnsMatch;
+        private int previous;
+        private int beforePrevious;
+        private int bangLength;
+        private String bangPrefix;
+        private boolean resetHistory;
+        private int doctypeDepth;
+        private final StringBuilder name = new StringBuilder(MAX_NAME_LENGTH);
+        private final StringBuilder declaration = new StringBuilder(MAX_DECLARATION_LENGTH);
+
+        private Machine(CodePointSink out, Report report) {
+            this.out = out;
+            this.report = report;
+        }
+
+        private void accept(int cp) {
+            if (cp >= 0x20 && cp < 0xD800 && passesThrough(cp)) {
+                out.write(cp);
+                return;
+            }
+            if (!isXmlChar(cp)) {
+                report.removedCharacters++;
+                return;
+            }
+            if (documentStart && state == TEXT && cp == 0xFEFF) {
+                report.bomRemoved = true;
+                return;
+            }
+            switch (state) {
+                case TEXT:
+                    if (cp == '<') {
+                        // Le '<' est émis une fois le type de balise connu
+                        state = MARKUP;
+                    } else {
+                        documentStart = false;
+                        out.write(cp);
+                    }
+                    break;
+                case MARKUP:
+                    markup(cp);
+                    break;
+                case START_TAG_NAME:
+                    startTagName(cp);
+                    break;
+                case START_TAG:
+                    startTag(cp);
+                    break;
+                case END_TAG:
+                    out.write(cp);
+                    if (cp == '>') {
+                        state = TEXT;
+                    }
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    out.write(cp);
+                    if (cp == '>' && previous == '?') {
+                        state = TEXT;
+                    }
+                    break;
+                case XML_DECLARATION:
+                    xmlDeclaration(cp);
+                    break;
+                case BANG:
+                    bang(cp);
+                    break;
+                case COMMENT:
+                    out.write(cp);
+                    if (cp == '>' && previous == '-' && beforePrevious == '-') {
+                        state = TEXT;
+                    }
+                    break;
+                case CDATA:
+                    out.write(cp);
+                    if (cp == '>' && previous == ']' && beforePrevious == ']') {
+                        state = TEXT;
+                    }
+                    break;
+                case DOCTYPE:
+                    doctype(cp);
+                    break;
+                default:
+                    throw new IllegalStateException("État inconnu: " + state);
+            }
+            if (resetHistory) {
+                // Le délimiteur ouvrant ne doit pas être pris pour le délimiteur fermant
+                previous = 0;
+                beforePrevious = 0;
+                resetHistory = false;
+            } else {
+                beforePrevious = previous;
+                previous = cp;
+            }
+        }
+
+        /**
+         * Chemin rapide : caractère recopié tel quel, sans changement d'état.
+         * Limité aux états qui n'utilisent pas l'historique des caractères précédents.
+         */
+        private boolean passesThrough(int cp) {
+            switch (state) {
+                case TEXT:
+                    return cp != '<' && !documentStart;
+                case START_TAG_NAME:
+                    return !inRoot && cp != ' ' && cp != '>' && cp != '/';
+                case START_TAG:
+                    if (quote != 0) {
+                        return cp != quote;
+                    }
+                    return !inRoot && !pendingSlash && cp != '/' && cp != '>' && cp != '"' && cp != '\'';
+                case END_TAG:
+                    return cp != '>';
+                default:
+                    return false;
+            }
+        }
+
+        // Fin de la suite de caractères ASCII recopiables tels quels à partir de from
+        private int passThroughRun(byte[] bytes, int from, int to) {
+            int i = from;
+            // Les octets non ASCII sont négatifs
+            while (i < to && bytes[i] >= 0x20 && passesThrough(bytes[i])) {
+                i++;
+            }
+            return i;
+        }
+
+        private int passThroughRun(String text, int from, int to) {
+            int i = from;
+            char c;
+            while (i < to && (c = text.charAt(i)) >= 0x20 && c < 0xD800 && passesThrough(c)) {
+                i++;
+            }
+            return i;
+        }
+
+        private void markup(int cp) {
+            boolean atStart = documentStart;
+            documentStart = false;
+            if (cp == '/') {
+                write("</");
+                report.closingTags++;
+                state = END_TAG;
+            } else if (cp == '?') {
+                if (atStart) {
+                    // Le prologue est retenu (taille bornée) pour corriger la déclaration d'encodage
+                    declaration.setLength(0);
+                    declaration.append("<?");
+                    state = XML_DECLARATION;
+                } else {
+                    write("<?");
+                    state = PROCESSING_INSTRUCTION;
+                }
+                resetHistory = true;
+            } else if (cp == '!') {
+                write("<!");
+                bangLength = 0;
+                state = BANG;
+            } else {
+                out.write('<');
+                report.openingTags++;
+                inRoot = !rootSeen;
+                rootSeen = true;
+                rootHasNamespace = false;
+                xmlnsMatch = 0;
+                name.setLength(0);
+                state = START_TAG_NAME;
+                startTagName(cp);
+            }
+        }
+
+        private void startTagName(int cp) {
+            if (cp == '>' || cp == '/' || cp == ' ' || cp == '\t' || cp == '\n' || cp == '\r') {
+                if (inRoot) {
+                    int colon = name.lastIndexOf(":");
+                    report.rootElement = colon >= 0 ? name.substring(colon + 1) : name.toString();
+                }
+                state = START_TAG;
+                startTag(cp);
+                return;
+            }
+            if (inRoot && name.length() < MAX_NAME_LENGTH) {
+                name.appendCodePoint(cp);
+            }
+            out.write(cp);
+        }
+
+        private void startTag(int cp) {
+            if (quote != 0) {
+                out.write(cp);
+                if (cp == quote) {
+                    quote = 0;
+                }
+                return;
+            }
+            if (cp == '/') {
+                // Retenu jusqu'au caractère suivant : les namespaces s'insèrent avant "/>"
+                if (pendingSlash) {
+                    out.write('/');
+                }
+                pendingSlash = true;
+                return;
+            }
+            if (cp == '>') {
+                if (inRoot && report.isDefinitionsRoot() && !rootHasNamespace) {
+                    write(BPMN_NAMESPACES);
+                    report.namespacesAdded = true;
+                }
+                if (pendingSlash) {
+                    out.write('/');
+                    report.closingTags++;
+                    pendingSlash = false;
+                }
+                out.write('>');
+                inRoot = false;
+                state = TEXT;
+                return;
+            }
+            if (pendingSlash) {
+                out.write('/');
+                pendingSlash = false;
+            }
+            if (cp == '"' || cp == '\'') {
+                quote = cp;
+                xmlnsMatch = 0;
+            } else if (inRoot && !rootHasNamespace) {
+                xmlnsMatch = cp == XMLNS.charAt(xmlnsMatch) ? xmlnsMatch + 1 : (cp == 'x' ? 1 : 0);
+                if (xmlnsMatch == XMLNS.length()) {
+                    rootHasNamespace = true;
+                }
+            }
+            out.write(cp);
+        }
+
+        private void xmlDeclaration(int cp) {
+            declaration.appendCodePoint(cp);
+            if (cp == '>' && previous == '?') {
+                writeDeclaration();
+                state = TEXT;
+            } else if (declaration.length() >= MAX_DECLARATION_LENGTH) {
+                // Instruction trop longue pour être une déclaration : recopiée telle quelle
+                write(declaration);
+                declaration.setLength(0);
+                state = PROCESSING_INSTRUCTION;
+            }
+        }
+
+        private void writeDeclaration() {
+            if (declaration.length() > 6 && declaration.indexOf("<?xml") == 0
+                    && Character.isWhitespace(declaration.charAt(5))) {
+                int attribute = declaration.indexOf("encoding", 5);
+                if (attribute > 0) {
+                    int i = attribute + "encoding".length();
+                    while (i < declaration.length() && Character.isWhitespace(declaration.charAt(i))) i++;
+                    if (i < declaration.length() && declaration.charAt(i) == '=') {
+                        i++;
+                        while (i < declaration.length() && Character.isWhitespace(declaration.charAt(i))) i++;
+                        if (i < declaration.length() && (declaration.charAt(i) == '"' || declaration.charAt(i) == '\'')) {
+                            char delimiter = declaration.charAt(i);
+                            int end = declaration.indexOf(String.valueOf(delimiter), i + 1);
+                            if (end > 0) {
+                                String encoding = declaration.substring(i + 1, end);
+                                if (!encoding.equalsIgnoreCase("UTF-8")) {
+                                    report.replacedEncoding = encoding;
+                                    declaration.replace(i + 1, end, "UTF-8");
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            write(declaration);
+            declaration.setLength(0);
+        }
+
+        private void bang(int cp) {
+            out.write(cp);
+            if (bangLength == 0) {
+                bangPrefix = cp == '-' ? COMMENT_START : cp == '[' ? CDATA_START : null;
+            }
+            if (bangPrefix != null && cp == bangPrefix.charAt(bangLength)) {
+                if (++bangLength == bangPrefix.length()) {
+                    state = bangPrefix.equals(COMMENT_START) ? COMMENT : CDATA;
+                    resetHistory = true;
+                }
+                return;
+            }
+            // DOCTYPE ou autre déclaration : jusqu'au '>' de premier niveau
+            state = DOCTYPE;
+            doctypeDepth = 0;
+            doctypeAfterWrite(cp);
+        }
+
+        private void doctype(int cp) {
+            out.write(cp);
+            doctypeAfterWrite(cp);
+        }
+
+        private void doctypeAfterWrite(int cp) {
+            if (quote != 0) {
+                if (cp == quote) {
+                    quote = 0;
+                }
+            } else if (cp == '"' || cp == '\'') {
+                quote = cp;
+            } else if (cp == '[') {
+                doctypeDepth++;
+            } else if (cp == ']') {
+                doctypeDepth--;
+            } else if (cp == '>' && doctypeDepth <= 0) {
+                state = TEXT;
+            }
+        }
+
+        private void finish() {
+            if (state == MARKUP) {
+                out.write('<');
+            } else if (state == XML_DECLARATION) {
+                write(declaration);
+            }
+            if (pendingSlash) {
+                out.write('/');
+            }
+        }
+
+        private void write(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                out.write(text.charAt(i));
+            }
+        }
+    }
+}
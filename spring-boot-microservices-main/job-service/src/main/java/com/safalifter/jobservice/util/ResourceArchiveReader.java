@@ -0,0 +1,284 @@
+package com.safalifter.jobservice.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Lecture en flux des fichiers d'une archive zip, tar ou tar.gz : une seule entrée est en mémoire à la fois
+ * et l'archive n'est jamais chargée entièrement. Le format est reconnu aux premiers octets du flux.
+ *
+ * Le contenu d'une entrée plus grande que la taille maximale n'est pas lu (il est sauté) : l'entrée est
+ * retournée sans contenu pour être signalée par l'appelant.
+ */
+public final class ResourceArchiveReader implements Closeable {
+
+    public static final String FORMAT_ZIP = "zip";
+    public static final String FORMAT_TAR = "tar";
+    public static final String FORMAT_TAR_GZ = "tar.gz";
+
+    private static final int TAR_BLOCK = 512;
+
+    private final String format;
+    private final int maxEntryBytes;
+    private final ZipInputStream zip;
+    private final InputStream tar;
+    private final byte[] header = new byte[TAR_BLOCK];
+    private boolean finished;
+
+    private ResourceArchiveReader(String format, InputStream input, int maxEntryBytes) {
+        this.format = format;
+        this.maxEntryBytes = maxEntryBytes;
+        this.zip = FORMAT_ZIP.equals(format) ? new ZipInputStream(input, StandardCharsets.UTF_8) : null;
+        this.tar = FORMAT_ZIP.equals(format) ? null : input;
+    }
+
+    /**
+     * Ouvre l'archive : zip (PK\3\4), tar compressé gzip (1F 8B) ou tar
+     */
+    public static ResourceArchiveReader open(InputStream input, int maxEntryBytes) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, 64 * 1024);
+        buffered.mark(4);
+        byte[] magic = buffered.readNBytes(4);
+        buffered.reset();
+        if (magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return new ResourceArchiveReader(FORMAT_ZIP, buffered, maxEntryBytes);
+        }
+        if (magic.length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return new ResourceArchiveReader(FORMAT_TAR_GZ,
+                    new BufferedInputStream(new GZIPInputStream(buffered, 64 * 1024), 64 * 1024), maxEntryBytes);
+        }
+        return new ResourceArchiveReader(FORMAT_TAR, buffered, maxEntryBytes);
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Fichier suivant de l'archive (les répertoires et liens sont ignorés), null en fin d'archive
+     */
+    public Entry next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        Entry entry = zip != null ? nextZipEntry() : nextTarEntry();
+        if (entry == null) {
+            finished = true;
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (zip != null) {
+            zip.close();
+        } else {
+            tar.close();
+        }
+    }
+
+    private Entry nextZipEntry() throws IOException {
+        ZipEntry zipEntry;
+        while ((zipEntry = zip.getNextEntry()) != null) {
+            if (!zipEntry.isDirectory()) {
+                return readContent(zipEntry.getName(), zip, -1);
+            }
+        }
+        return null;
+    }
+
+    private Entry nextTarEntry() throws IOException {
+        String longName = null;
+        while (true) {
+            int read = tar.readNBytes(header, 0, TAR_BLOCK);
+            if (read == 0 || isZeroBlock(header, read)) {
+                // Deux blocs nuls marquent la fin de l'archive ; un flux tronqué en limite de bloc est accepté
+                return null;
+            }
+            if (read < TAR_BLOCK) {
+                throw new EOFException("Archive tar tronquée");
+            }
+            if (!isTarHeader(header)) {
+                throw new IOException("Format d'archive non reconnu (zip, tar ou tar.gz attendu)");
+            }
+
+            long size = tarSize(header);
+            long padding = (TAR_BLOCK - size % TAR_BLOCK) % TAR_BLOCK;
+            char type = (char) header[156];
+            switch (type) {
+                case 'L':
+                    // Nom long GNU : le contenu est le nom de l'entrée suivante
+                    longName = trimNul(new String(readFully(size), StandardCharsets.UTF_8));
+                    tar.skipNBytes(padding);
+                    continue;
+                case 'x':
+                    longName = paxPath(readFully(size), longName);
+                    tar.skipNBytes(padding);
+                    continue;
+                case '0':
+                case '\0':
+                case '7':
+                    String name = longName != null ? longName : ustarName(header);
+                    Entry entry = readContent(name, tar, size);
+                    tar.skipNBytes(padding);
+                    return entry;
+                default:
+                    // Répertoires, liens, en-têtes globaux : contenu sauté
+                    longName = null;
+                    tar.skipNBytes(size + padding);
+            }
+        }
+    }
+
+    /**
+     * Lit au plus maxEntryBytes octets de l'entrée ; au-delà le reste est sauté sans être conservé
+     * @param size taille annoncée (tar), -1 si inconnue (zip)
+     */
+    private Entry readContent(String name, InputStream input, long size) throws IOException {
+        if (size > maxEntryBytes) {
+            input.skipNBytes(size);
+            return new Entry(name, null, size);
+        }
+        int limit = size >= 0 ? (int) size : maxEntryBytes + 1;
+        byte[] content = input.readNBytes(limit);
+        if (size >= 0 && content.length < size) {
+            throw new EOFException("Archive tronquée dans l'entrée " + name);
+        }
+        if (content.length > maxEntryBytes) {
+            long skipped = content.length;
+            byte[] buffer = new byte[8192];
+            for (int n; (n = input.read(buffer)) > 0; ) {
+                skipped += n;
+            }
+            return new Entry(name, null, skipped);
+        }
+        return new Entry(name, content, content.length);
+    }
+
+    private byte[] readFully(long size) throws IOException {
+        if (size > maxEntryBytes) {
+            throw new IOException("En-tête tar étendu trop grand (" + size + " octets)");
+        }
+        byte[] data = tar.readNBytes((int) size);
+        if (data.length < size) {
+            throw new EOFException("Archive tar tronquée");
+        }
+        return data;
+    }
+
+    private static boolean isZeroBlock(byte[] block, int length) {
+        for (int i = 0; i < length; i++) {
+            if (block[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vérifie la somme de contrôle de l'en-tête (octets non signés, champ checksum compté comme des espaces)
+     */
+    private static boolean isTarHeader(byte[] block) {
+        long expected;
+        try {
+            expected = parseOctal(block, 148, 8);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long sum = 0;
+        for (int i = 0; i < TAR_BLOCK; i++) {
+            sum += i >= 148 && i < 156 ? ' ' : block[i] & 0xff;
+        }
+        return sum == expected;
+    }
+
+    private static long tarSize(byte[] block) throws IOException {
+        if ((block[124] & 0x80) != 0) {
+            // Encodage binaire GNU pour les tailles supérieures à 8 Go
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (block[i] & 0xff);
+            }
+            return size;
+        }
+        try {
+            return parseOctal(block, 124, 12);
+        } catch (NumberFormatException e) {
+            throw new IOException("Taille d'entrée tar invalide");
+        }
+    }
+
+    private static long parseOctal(byte[] block, int offset, int length) {
+        String value = new String(block, offset, length, StandardCharsets.US_ASCII).replace('\0', ' ').trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value, 8);
+    }
+
+    private static String ustarName(byte[] block) {
+        String name = field(block, 0, 100);
+        boolean ustar = new String(block, 257, 5, StandardCharsets.US_ASCII).equals("ustar");
+        String prefix = ustar ? field(block, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private static String field(byte[] block, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && block[end] != 0) {
+            end++;
+        }
+        return new String(block, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Enregistrements PAX "longueur clé=valeur\n" : seul le chemin (path) est retenu
+     */
+    private static String paxPath(byte[] data, String current) {
+        String records = new String(data, StandardCharsets.UTF_8);
+        for (String record : records.split("\n")) {
+            int space = record.indexOf(' ');
+            int equals = record.indexOf('=', space + 1);
+            if (space > 0 && equals > space && record.substring(space + 1, equals).equals("path")) {
+                return record.substring(equals + 1);
+            }
+        }
+        return current;
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf('\0');
+        return nul >= 0 ? value.substring(0, nul) : value;
+    }
+
+    /**
+     * Fichier de l'archive ; le contenu est null quand la taille maximale est dépassée
+     */
+    public static final class Entry {
+        private final String name;
+        private final byte[] content;
+        private final long size;
+
+        private Entry(String name, byte[] content, long size) {
+            this.name = name;
+            this.content = content;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public boolean isTooLarge() {
+            return content == null;
+        }
+    }
+}
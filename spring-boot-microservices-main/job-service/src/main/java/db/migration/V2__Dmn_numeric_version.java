@@ -0,0 +1,102 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.*;
+
+/**
+ * Passe dmn_definition.version en entier, ajoute l'index (decision_key, version)
+ * et crée le pointeur de dernière version (dmn_latest_version) rempli à partir des données existantes.
+ *
+ * Sur une base vierge la table n'existe pas encore (elle est créée ensuite par Hibernate avec
+ * le bon type et l'index) : la migration ne fait alors rien. Elle est en V2 car
+ * baseline-on-migrate marque la V1 comme appliquée sur une base existante.
+ */
+public class V2__Dmn_numeric_version extends BaseJavaMigration {
+
+    private static final String TABLE = "dmn_definition";
+    private static final String INDEX = "idx_dmn_definition_key_version";
+    private static final String LATEST_TABLE = "dmn_latest_version";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!tableExists(connection, TABLE)) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (!isIntegerColumn(connection, TABLE, "version")) {
+                // Les anciennes versions non numériques sont ramenées à 1 avant la conversion
+                statement.executeUpdate("UPDATE " + TABLE + " SET version = '1' "
+                        + "WHERE version IS NULL OR version NOT REGEXP '^[0-9]+$'");
+                statement.executeUpdate("ALTER TABLE " + TABLE + " MODIFY COLUMN version INT NOT NULL");
+            }
+            if (!indexExists(connection, TABLE, INDEX)) {
+                statement.executeUpdate("CREATE INDEX " + INDEX + " ON " + TABLE + " (decision_key, version)");
+            }
+            if (!tableExists(connection, LATEST_TABLE)) {
+                statement.executeUpdate("CREATE TABLE " + LATEST_TABLE + " ("
+                        + "decision_key VARCHAR(255) NOT NULL PRIMARY KEY, "
+                        + "definition_id VARCHAR(255) NOT NULL, "
+                        + "version INT NOT NULL, "
+                        + "deployed BIT NOT NULL)");
+                fillLatestVersions(connection);
+            }
+        }
+    }
+
+    /**
+     * Une ligne par clé de décision : la plus haute version (le XML n'est pas lu)
+     */
+    private void fillLatestVersions(Connection connection) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT decision_key, id, version, deployed FROM " + TABLE
+                     + " WHERE decision_key IS NOT NULL ORDER BY decision_key, version DESC");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + LATEST_TABLE
+                     + " (decision_key, definition_id, version, deployed) VALUES (?, ?, ?, ?)")) {
+            String previousKey = null;
+            while (rows.next()) {
+                String decisionKey = rows.getString(1);
+                if (decisionKey.equals(previousKey)) {
+                    continue;
+                }
+                previousKey = decisionKey;
+                insert.setString(1, decisionKey);
+                insert.setString(2, rows.getString(2));
+                insert.setInt(3, rows.getInt(3));
+                insert.setBoolean(4, rows.getBoolean(4));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private boolean isIntegerColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            if (!columns.next()) {
+                return false;
+            }
+            int type = columns.getInt("DATA_TYPE");
+            return type == Types.INTEGER || type == Types.BIGINT || type == Types.SMALLINT;
+        }
+    }
+
+    private boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
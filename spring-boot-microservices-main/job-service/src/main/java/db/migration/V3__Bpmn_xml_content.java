@@ -0,0 +1,119 @@
+package db.migration;
+
+import com.safalifter.jobservice.util.BpmnXmlCompression;
+import com.safalifter.jobservice.util.BpmnXmlHelper;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sort le XML des versions BPMN de bpmn_processes : chaque contenu distinct est stocké une seule fois,
+ * compressé, dans bpmn_xml_contents (clé : empreinte SHA-256), et la version n'en garde que l'empreinte.
+ * La colonne bpmn_xml est ensuite supprimée.
+ *
+ * Sur une base vierge la table n'existe pas encore (elle est créée ensuite par Hibernate) : la migration
+ * ne fait alors rien. La clé étrangère content_hash est ajoutée par Hibernate au démarrage.
+ */
+public class V3__Bpmn_xml_content extends BaseJavaMigration {
+
+    private static final String TABLE = "bpmn_processes";
+    private static final String CONTENT_TABLE = "bpmn_xml_contents";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!tableExists(connection, TABLE)) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (!tableExists(connection, CONTENT_TABLE)) {
+                statement.executeUpdate("CREATE TABLE " + CONTENT_TABLE + " ("
+                        + "content_hash VARCHAR(64) NOT NULL PRIMARY KEY, "
+                        + "data LONGBLOB NOT NULL, "
+                        + "xml_size INT NOT NULL, "
+                        + "compressed_size INT NOT NULL, "
+                        + "created_at DATETIME(6) NOT NULL)");
+            }
+            if (!columnExists(connection, TABLE, "content_hash")) {
+                statement.executeUpdate("ALTER TABLE " + TABLE + " ADD COLUMN content_hash VARCHAR(64)");
+            }
+            if (columnExists(connection, TABLE, "bpmn_xml")) {
+                moveContents(connection);
+                statement.executeUpdate("ALTER TABLE " + TABLE + " DROP COLUMN bpmn_xml");
+            }
+        }
+    }
+
+    /**
+     * Une version à la fois (le pilote MySQL charge un ResultSet entier en mémoire) : seuls le XML courant,
+     * les identifiants et les empreintes déjà écrites sont conservés
+     */
+    private void moveContents(Connection connection) throws SQLException {
+        Set<String> stored = new HashSet<>();
+        try (Statement existing = connection.createStatement();
+             ResultSet hashes = existing.executeQuery("SELECT content_hash FROM " + CONTENT_TABLE)) {
+            while (hashes.next()) {
+                stored.add(hashes.getString(1));
+            }
+        }
+        List<Long> ids = new ArrayList<>();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id FROM " + TABLE
+                     + " WHERE bpmn_xml IS NOT NULL AND content_hash IS NULL")) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+
+        try (PreparedStatement select = connection.prepareStatement("SELECT bpmn_xml FROM " + TABLE + " WHERE id = ?");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + CONTENT_TABLE
+                     + " (content_hash, data, xml_size, compressed_size, created_at) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement update = connection.prepareStatement("UPDATE " + TABLE
+                     + " SET content_hash = ? WHERE id = ?")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (Long id : ids) {
+                String bpmnXml;
+                select.setLong(1, id);
+                try (ResultSet row = select.executeQuery()) {
+                    if (!row.next()) {
+                        continue;
+                    }
+                    bpmnXml = row.getString(1);
+                }
+                String contentHash = BpmnXmlHelper.contentHash(bpmnXml);
+                if (stored.add(contentHash)) {
+                    byte[] xml = bpmnXml.getBytes(StandardCharsets.UTF_8);
+                    byte[] data = BpmnXmlCompression.compress(xml);
+                    insert.setString(1, contentHash);
+                    insert.setBytes(2, data);
+                    insert.setInt(3, xml.length);
+                    insert.setInt(4, data.length);
+                    insert.setTimestamp(5, now);
+                    insert.executeUpdate();
+                }
+                update.setString(1, contentHash);
+                update.setLong(2, id);
+                update.executeUpdate();
+            }
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return columns.next();
+        }
+    }
+}
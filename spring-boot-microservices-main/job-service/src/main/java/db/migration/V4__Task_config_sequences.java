@@ -0,0 +1,43 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.*;
+
+/**
+ * Les identifiants de user_task_forms, service_task_configs et gateway_configs ne sont plus générés par
+ * AUTO_INCREMENT mais par une séquence réservée par blocs (sous MySQL, une table nom_seq à une colonne next_val).
+ * La séquence est créée et positionnée après le plus grand identifiant existant.
+ *
+ * Sur une base vierge les tables n'existent pas encore (Hibernate crée ensuite tables et séquences) :
+ * la migration ne fait alors rien.
+ */
+public class V4__Task_config_sequences extends BaseJavaMigration {
+
+    private static final String[] TABLES = {"user_task_forms", "service_task_configs", "gateway_configs"};
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+            if (!tableExists(connection, table) || tableExists(connection, sequence)) {
+                continue;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE " + sequence + " (next_val BIGINT)");
+                statement.executeUpdate("INSERT INTO " + sequence
+                        + " SELECT COALESCE(MAX(id), 0) + 1 FROM " + table);
+                // Hibernate fournit désormais l'identifiant à l'insertion
+                statement.executeUpdate("ALTER TABLE " + table + " MODIFY COLUMN id BIGINT NOT NULL");
+            }
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+}
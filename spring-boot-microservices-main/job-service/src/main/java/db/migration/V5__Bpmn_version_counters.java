@@ -0,0 +1,111 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Les versions BPMN sont désormais attribuées par un compteur par clé (bpmn_version_counters) et
+ * (process_key, version) devient unique.
+ *
+ * Les doublons créés par des sauvegardes concurrentes sont d'abord renumérotés : la plus ancienne ligne
+ * garde sa version, les suivantes reçoivent les versions après la plus grande de la clé. Les compteurs
+ * sont ensuite créés à partir de la plus grande version de chaque clé, et l'index non unique
+ * idx_bpmn_process_key_version est remplacé par la contrainte unique.
+ *
+ * Sur une base vierge la table n'existe pas encore (Hibernate crée ensuite tables et contrainte) :
+ * la migration ne fait alors rien.
+ */
+public class V5__Bpmn_version_counters extends BaseJavaMigration {
+
+    private static final String TABLE = "bpmn_processes";
+    private static final String COUNTER_TABLE = "bpmn_version_counters";
+    private static final String OLD_INDEX = "idx_bpmn_process_key_version";
+    private static final String UNIQUE_INDEX = "uk_bpmn_process_key_version";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!tableExists(connection, TABLE)) {
+            return;
+        }
+
+        renumberDuplicates(connection);
+        try (Statement statement = connection.createStatement()) {
+            if (!tableExists(connection, COUNTER_TABLE)) {
+                statement.executeUpdate("CREATE TABLE " + COUNTER_TABLE + " ("
+                        + "process_key VARCHAR(255) NOT NULL PRIMARY KEY, "
+                        + "last_version INT NOT NULL)");
+            }
+            statement.executeUpdate("INSERT INTO " + COUNTER_TABLE + " (process_key, last_version) "
+                    + "SELECT p.process_key, MAX(p.version) FROM " + TABLE + " p "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM " + COUNTER_TABLE + " c WHERE c.process_key = p.process_key) "
+                    + "GROUP BY p.process_key");
+            if (indexExists(connection, OLD_INDEX)) {
+                statement.executeUpdate("ALTER TABLE " + TABLE + " DROP INDEX " + OLD_INDEX);
+            }
+            if (!indexExists(connection, UNIQUE_INDEX)) {
+                statement.executeUpdate("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + UNIQUE_INDEX
+                        + " UNIQUE (process_key, version)");
+            }
+        }
+    }
+
+    private void renumberDuplicates(Connection connection) throws SQLException {
+        List<String> processKeys = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT DISTINCT process_key FROM " + TABLE
+                     + " GROUP BY process_key, version HAVING COUNT(*) > 1")) {
+            while (rows.next()) {
+                processKeys.add(rows.getString(1));
+            }
+        }
+
+        try (PreparedStatement select = connection.prepareStatement("SELECT id, version FROM " + TABLE
+                + " WHERE process_key = ? ORDER BY version, id");
+             PreparedStatement update = connection.prepareStatement("UPDATE " + TABLE
+                     + " SET version = ? WHERE id = ?")) {
+            for (String processKey : processKeys) {
+                List<Long> duplicates = new ArrayList<>();
+                int maxVersion = 0;
+                Integer previous = null;
+                select.setString(1, processKey);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        int version = rows.getInt(2);
+                        if (previous != null && previous == version) {
+                            duplicates.add(rows.getLong(1));
+                        }
+                        previous = version;
+                        maxVersion = Math.max(maxVersion, version);
+                    }
+                }
+                for (Long id : duplicates) {
+                    update.setInt(1, ++maxVersion);
+                    update.setLong(2, id);
+                    update.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private boolean indexExists(Connection connection, String index) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, TABLE, false, false)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,126 @@
+package com.safalifter.jobservice.benchmark;
+
+import com.safalifter.jobservice.util.BpmnXmlSanitizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Comparaison du nettoyage XML en une passe ({@link BpmnXmlSanitizer}) avec l'ancienne implémentation
+ * de BpmnXmlHelper.fixCommonXmlIssues (regex et copies successives), recopiée ici sans les logs.
+ *
+ * Lancement : mvn test-compile puis
+ * java -cp target/test-classes:target/classes:$(classpath de test) com.safalifter.jobservice.benchmark.BpmnXmlSanitizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BpmnXmlSanitizerBenchmark {
+
+    // Nombre de tâches du processus généré (~100 octets par tâche)
+    @Param({"50", "2000"})
+    private int tasks;
+
+    private String xml;
+    private byte[] xmlBytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" id=\"Defs\">\n")
+                .append("  <bpmn:process id=\"Process_1\" isExecutable=\"true\">\n");
+        for (int i = 0; i < tasks; i++) {
+            sb.append("    <bpmn:userTask id=\"Task_").append(i).append("\" name=\"Révision n°").append(i)
+                    .append(" \u0001\"/>\n");
+        }
+        xml = sb.append("  </bpmn:process>\n</bpmn:definitions>\n").toString();
+        xmlBytes = xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String legacyString() {
+        return legacyFix(xml);
+    }
+
+    @Benchmark
+    public String sanitizerString() {
+        return BpmnXmlSanitizer.sanitize(xml, null);
+    }
+
+    @Benchmark
+    public byte[] legacyBytes() {
+        return legacyFix(new String(xmlBytes, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] sanitizerBytes() {
+        return BpmnXmlSanitizer.sanitize(xmlBytes, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BpmnXmlSanitizerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    private static String legacyFix(String xml) {
+        byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+        xml = new String(bytes, StandardCharsets.UTF_8);
+
+        StringBuilder sb = new StringBuilder(xml.length());
+        for (int i = 0; i < xml.length(); i++) {
+            char c = xml.charAt(i);
+            if (c == 0x9 || c == 0xA || c == 0xD ||
+                (c >= 0x20 && c <= 0xD7FF) ||
+                (c >= 0xE000 && c <= 0xFFFD)) {
+                sb.append(c);
+            }
+        }
+        xml = sb.toString();
+
+        Matcher encodingMatcher = Pattern.compile("encoding=[\"']([^\"']*)[\"']").matcher(xml);
+        if (encodingMatcher.find()) {
+            String encoding = encodingMatcher.group(1);
+            if (!encoding.equalsIgnoreCase("UTF-8")) {
+                xml = xml.replace(encoding, "UTF-8");
+            }
+        }
+
+        if (!xml.contains("xmlns:bpmn") && !xml.contains("xmlns=\"http://www.omg.org/spec/BPMN")) {
+            Matcher definitionsMatcher = Pattern.compile("<(?:bpmn:)?definitions[^>]*>").matcher(xml);
+            if (definitionsMatcher.find()) {
+                String definitionsTag = definitionsMatcher.group(0);
+                if (!definitionsTag.contains("xmlns")) {
+                    xml = xml.replace(definitionsTag, definitionsTag.replace(">", " xmlns=\"x\">"));
+                }
+            }
+        }
+
+        int openingTags = countOccurrences(xml, "<");
+        int closingTags = countOccurrences(xml, "</") + countOccurrences(xml, "/>");
+        if (openingTags < closingTags) {
+            throw new IllegalStateException();
+        }
+        return xml;
+    }
+
+    private static int countOccurrences(String str, String subStr) {
+        int count = 0;
+        int lastIndex = str.indexOf(subStr);
+        while (lastIndex != -1) {
+            count++;
+            lastIndex = str.indexOf(subStr, lastIndex + subStr.length());
+        }
+        return count;
+    }
+}
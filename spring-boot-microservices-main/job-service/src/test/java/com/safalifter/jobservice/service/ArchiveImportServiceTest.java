@@ -0,0 +1,208 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.ArchiveEntryResultDTO;
+import com.safalifter.jobservice.dto.ArchiveImportReportDTO;
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.model.DmnDefinition;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.camunda.bpm.engine.repository.DeploymentWithDefinitions;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ArchiveImportServiceTest {
+
+    private static final String DMN = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"Definitions_1\" name=\"DRD\"",
+            "    namespace=\"http://camunda.org/schema/1.0/dmn\">",
+            "  <decision id=\"rules\" name=\"Règles\">",
+            "    <decisionTable id=\"Table_1\">",
+            "      <input id=\"Input_1\"><inputExpression id=\"Expr_1\" typeRef=\"string\"><text>a</text></inputExpression></input>",
+            "      <output id=\"Output_1\" name=\"r\" typeRef=\"string\"/>",
+            "    </decisionTable>",
+            "  </decision>",
+            "</definitions>");
+
+    private RepositoryService repositoryService;
+    private DeploymentBuilder deploymentBuilder;
+    private BpmnProcessRepository bpmnProcessRepository;
+    private DmnService dmnService;
+    private ArchiveImportService archiveImportService;
+
+    @BeforeEach
+    void setUp() {
+        repositoryService = mock(RepositoryService.class);
+        deploymentBuilder = mock(DeploymentBuilder.class, RETURNS_SELF);
+        when(repositoryService.createDeployment()).thenReturn(deploymentBuilder);
+        bpmnProcessRepository = mock(BpmnProcessRepository.class);
+        when(bpmnProcessRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        BpmnXmlStore bpmnXmlStore = mock(BpmnXmlStore.class);
+        when(bpmnXmlStore.store(anyString())).thenAnswer(invocation -> "hash-" + invocation.getArgument(0).hashCode());
+        BpmnVersionAllocator bpmnVersionAllocator = mock(BpmnVersionAllocator.class);
+        when(bpmnVersionAllocator.nextVersions(any())).thenAnswer(invocation -> {
+            Map<String, Integer> versions = new HashMap<>();
+            for (String processKey : invocation.<Collection<String>>getArgument(0)) {
+                versions.put(processKey, "loan".equals(processKey) ? 3 : 1);
+            }
+            return versions;
+        });
+        dmnService = mock(DmnService.class);
+        when(dmnService.parseDefinition(any(), anyString())).thenReturn(DmnDefinition.builder()
+                .name("Règles").decisionKey("rules").build());
+
+        archiveImportService = new ArchiveImportService(repositoryService, bpmnProcessRepository, bpmnXmlStore,
+                bpmnVersionAllocator, mock(BpmnTaskConfigSync.class), dmnService, mock(PlatformTransactionManager.class), 2, 1024 * 1024, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiveImportService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testValidResourcesShareOneDeployment() throws IOException {
+        // Given: une version existante de "loan", un fichier invalide et un fichier étranger
+        BpmnProcess existing = new BpmnProcess();
+        existing.setId(7L);
+        existing.setProcessKey("loan");
+        existing.setVersion(2);
+        when(bpmnProcessRepository.findLatestVersionsByProcessKeyIn(any())).thenReturn(List.of(existing));
+        DeploymentWithDefinitions deployment = deployment("dep-1", "loan", "claims");
+        when(deploymentBuilder.deployWithResult()).thenReturn(deployment);
+        byte[] archive = zip(Map.of(
+                "processes/loan.bpmn", bpmn("loan"),
+                "processes/claims.bpmn", bpmn("claims"),
+                "processes/broken.bpmn", "<pas du bpmn",
+                "rules/rules.dmn", DMN,
+                "README.md", "catalogue"));
+
+        // When
+        ArchiveImportReportDTO report = archiveImportService.importArchive("catalogue", new ByteArrayInputStream(archive));
+
+        // Then
+        assertEquals(5, report.getEntries());
+        assertEquals(1, report.getIgnored());
+        assertEquals(2, report.getDeployedBpmn());
+        assertEquals(1, report.getDeployedDmn());
+        assertEquals(1, report.getFailed());
+        assertEquals(List.of("dep-1"), report.getDeploymentIds());
+        assertEquals(ArchiveImportService.STATUS_FAILED, byName(report).get("processes/broken.bpmn").getStatus());
+        verify(deploymentBuilder, times(3)).addString(anyString(), anyString());
+        verify(deploymentBuilder, times(1)).deployWithResult();
+
+        ArgumentCaptor<List<BpmnProcess>> rows = ArgumentCaptor.forClass(List.class);
+        verify(bpmnProcessRepository).saveAll(rows.capture());
+        Map<String, BpmnProcess> byKey = rows.getValue().stream()
+                .collect(Collectors.toMap(BpmnProcess::getProcessKey, Function.identity()));
+        assertEquals(3, byKey.get("loan").getVersion());
+        assertEquals(7L, byKey.get("loan").getId());
+        assertEquals(1, byKey.get("claims").getVersion());
+        assertEquals("claims:1:dep-1", byKey.get("claims").getProcessDefinitionId());
+        assertEquals(BpmnDeploymentQueue.STATUS_DEPLOYED, byKey.get("claims").getDeploymentStatus());
+        verify(dmnService).recordDeployedDefinitions(argThat(definitions -> definitions.size() == 1
+                && "rules".equals(definitions.get(0).getDecisionKey())), eq("dep-1"));
+    }
+
+    @Test
+    void testRejectedDeploymentIsRetriedFileByFile() throws IOException {
+        // Given: le déploiement groupé échoue, puis seul le second fichier est refusé
+        DeploymentWithDefinitions deployment = deployment("dep-2", "loan");
+        when(deploymentBuilder.deployWithResult())
+                .thenThrow(new ProcessEngineException("ENGINE-09005 Could not parse BPMN process"))
+                .thenReturn(deployment)
+                .thenThrow(new ProcessEngineException("ENGINE-09005 Could not parse BPMN process"));
+        byte[] archive = zip(Map.of("a/loan.bpmn", bpmn("loan"), "b/claims.bpmn", bpmn("claims")));
+
+        // When
+        ArchiveImportReportDTO report = archiveImportService.importArchive("catalogue", new ByteArrayInputStream(archive));
+
+        // Then
+        assertEquals(List.of("dep-2"), report.getDeploymentIds());
+        Map<String, ArchiveEntryResultDTO> files = byName(report);
+        assertEquals(ArchiveImportService.STATUS_DEPLOYED, files.get("a/loan.bpmn").getStatus());
+        assertEquals(ArchiveImportService.STATUS_FAILED, files.get("b/claims.bpmn").getStatus());
+        assertTrue(files.get("b/claims.bpmn").getError().contains("ENGINE-09005"));
+        verify(deploymentBuilder, times(3)).deployWithResult();
+    }
+
+    @Test
+    void testSameKeyTwiceStartsNewDeployment() throws IOException {
+        // Given: deux versions d'un même processus dans l'archive
+        DeploymentWithDefinitions first = deployment("dep-1", "loan");
+        DeploymentWithDefinitions second = deployment("dep-2", "loan");
+        when(deploymentBuilder.deployWithResult()).thenReturn(first, second);
+        byte[] archive = zip(Map.of("v1/loan.bpmn", bpmn("loan"), "v2/loan.bpmn", bpmn("loan")));
+
+        // When
+        ArchiveImportReportDTO report = archiveImportService.importArchive("catalogue", new ByteArrayInputStream(archive));
+
+        // Then
+        assertEquals(List.of("dep-1", "dep-2"), report.getDeploymentIds());
+        assertEquals(0, report.getFailed());
+    }
+
+    private static DeploymentWithDefinitions deployment(String id, String... processKeys) {
+        DeploymentWithDefinitions deployment = mock(DeploymentWithDefinitions.class);
+        when(deployment.getId()).thenReturn(id);
+        List<ProcessDefinition> definitions = java.util.Arrays.stream(processKeys).map(key -> {
+            ProcessDefinition definition = mock(ProcessDefinition.class);
+            when(definition.getKey()).thenReturn(key);
+            when(definition.getId()).thenReturn(key + ":1:" + id);
+            return definition;
+        }).collect(Collectors.toList());
+        when(deployment.getDeployedProcessDefinitions()).thenReturn(definitions);
+        return deployment;
+    }
+
+    private static Map<String, ArchiveEntryResultDTO> byName(ArchiveImportReportDTO report) {
+        return report.getFiles().stream().collect(Collectors.toMap(ArchiveEntryResultDTO::getName, Function.identity()));
+    }
+
+    private static String bpmn(String processKey) {
+        return String.join("\n",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"",
+                "    id=\"Definitions_" + processKey + "\" targetNamespace=\"http://bpmn.io/schema/bpmn\">",
+                "  <bpmn:process id=\"" + processKey + "\" isExecutable=\"true\">",
+                "    <bpmn:startEvent id=\"Start\"/>",
+                "  </bpmn:process>",
+                "</bpmn:definitions>");
+    }
+
+    private static byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String name : new java.util.TreeSet<>(files.keySet())) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(files.get(name).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
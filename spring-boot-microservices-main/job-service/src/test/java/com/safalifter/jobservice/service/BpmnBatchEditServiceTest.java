@@ -0,0 +1,142 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.BpmnBatchEditResponse;
+import com.safalifter.jobservice.dto.BpmnOperationRequest;
+import com.safalifter.jobservice.dto.ElementRequest;
+import com.safalifter.jobservice.dto.UserTaskConfigRequest;
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import com.safalifter.jobservice.repository.GatewayConfigRepository;
+import com.safalifter.jobservice.repository.ServiceTaskConfigRepository;
+import com.safalifter.jobservice.repository.UserTaskFormRepository;
+import com.safalifter.jobservice.util.BpmnXmlHelper;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.SequenceFlow;
+import org.camunda.bpm.model.bpmn.instance.UserTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BpmnBatchEditServiceTest {
+
+    private BpmnModelService bpmnModelService;
+    private BpmnBatchEditService bpmnBatchEditService;
+    private BpmnProcess process;
+
+    @BeforeEach
+    void setUp() {
+        BpmnXmlStore bpmnXmlStore = mock(BpmnXmlStore.class);
+        bpmnModelService = spy(new BpmnModelService(mock(BpmnProcessRepository.class),
+                mock(UserTaskFormRepository.class), mock(ServiceTaskConfigRepository.class),
+                mock(GatewayConfigRepository.class), mock(RepositoryService.class), mock(RuntimeService.class),
+                new BpmnXmlHelper(), new BpmnModelCache(8, Duration.ofMinutes(30)), mock(BpmnDeploymentQueue.class),
+                bpmnXmlStore, mock(BpmnVersionAllocator.class)));
+        bpmnBatchEditService = new BpmnBatchEditService(bpmnModelService);
+
+        process = new BpmnProcess();
+        process.setId(1L);
+        process.setName("Demande");
+        process.setVersion(3);
+        process.setContentHash("review-v3");
+        when(bpmnXmlStore.load("review-v3")).thenReturn(String.join("\n",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"",
+                "    xmlns:camunda=\"http://camunda.org/schema/1.0/bpmn\" id=\"Definitions_1\"",
+                "    targetNamespace=\"http://bpmn.io/schema/bpmn\">",
+                "  <bpmn:process id=\"Process_1\" isExecutable=\"true\">",
+                "    <bpmn:startEvent id=\"Start_1\"/>",
+                "    <bpmn:userTask id=\"Review\" name=\"Revue\"/>",
+                "    <bpmn:endEvent id=\"End_1\"/>",
+                "    <bpmn:sequenceFlow id=\"Flow_1\" sourceRef=\"Start_1\" targetRef=\"Review\"/>",
+                "    <bpmn:sequenceFlow id=\"Flow_2\" sourceRef=\"Review\" targetRef=\"End_1\"/>",
+                "  </bpmn:process>",
+                "</bpmn:definitions>"));
+        doReturn(process).when(bpmnModelService).getProcessById(1L);
+    }
+
+    @Test
+    void testOperationsAreSavedAndPublishedOnce() {
+        // Given
+        BpmnProcess saved = new BpmnProcess();
+        saved.setId(1L);
+        saved.setVersion(4);
+        saved.setDeploymentStatus(BpmnDeploymentQueue.STATUS_PENDING);
+        doReturn(saved).when(bpmnModelService).saveBpmnModel(any(), any(), any(), any(), anyBoolean());
+        doNothing().when(bpmnModelService).saveUserTaskFormConfiguration(any(), any(), any());
+        UserTaskConfigRequest approvalConfig = UserTaskConfigRequest.builder().assignee("manager").build();
+
+        List<BpmnOperationRequest> operations = List.of(
+                BpmnOperationRequest.builder().op("add").element(ElementRequest.builder()
+                        .type("userTask").elementId("Approve").name("Validation").sourceId("Review").build()).build(),
+                BpmnOperationRequest.builder().op("configureUserTask").elementId("Approve")
+                        .userTask(approvalConfig).build(),
+                BpmnOperationRequest.builder().op("connect").sourceId("Approve").targetId("End_1").build(),
+                BpmnOperationRequest.builder().op("remove").elementId("Flow_2").build());
+
+        // When
+        BpmnBatchEditResponse response = bpmnBatchEditService.applyOperations(1L, operations, true);
+
+        // Then
+        assertTrue(response.isSuccess());
+        assertEquals(4, response.getVersion());
+        assertEquals(BpmnDeploymentQueue.STATUS_PENDING, response.getDeploymentStatus());
+        assertTrue(response.getResults().stream().allMatch(r -> "APPLIED".equals(r.getStatus())));
+        assertEquals("flow_Approve_End_1", response.getResults().get(2).getElementId());
+
+        ArgumentCaptor<BpmnModelInstance> model = ArgumentCaptor.forClass(BpmnModelInstance.class);
+        verify(bpmnModelService, times(1)).saveBpmnModel(model.capture(), eq("Demande"), any(), any(), eq(true));
+        UserTask approve = model.getValue().getModelElementById("Approve");
+        assertEquals("manager", approve.getCamundaAssignee());
+        SequenceFlow connected = model.getValue().getModelElementById("flow_Approve_End_1");
+        assertEquals(approve, connected.getSource());
+        assertEquals("End_1", connected.getTarget().getId());
+        assertNull(model.getValue().getModelElementById("Flow_2"));
+        assertEquals(3, model.getValue().getModelElementsByType(SequenceFlow.class).size());
+        verify(bpmnModelService).saveUserTaskFormConfiguration(saved, "Approve", approvalConfig);
+    }
+
+    @Test
+    void testFailingOperationPersistsNothing() {
+        // Given
+        List<BpmnOperationRequest> operations = List.of(
+                BpmnOperationRequest.builder().op("add").element(ElementRequest.builder()
+                        .type("userTask").elementId("Approve").sourceId("Review").build()).build(),
+                BpmnOperationRequest.builder().op("remove").elementId("Unknown").build(),
+                BpmnOperationRequest.builder().op("connect").sourceId("Approve").targetId("End_1").build());
+
+        // When
+        BpmnBatchEditResponse response = bpmnBatchEditService.applyOperations(1L, operations, true);
+
+        // Then
+        assertFalse(response.isSuccess());
+        assertEquals(List.of("APPLIED", "FAILED", "SKIPPED"),
+                response.getResults().stream().map(r -> r.getStatus()).collect(java.util.stream.Collectors.toList()));
+        assertTrue(response.getResults().get(1).getMessage().contains("Unknown"));
+        verify(bpmnModelService, never()).saveBpmnModel(any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void testDuplicateIdIsRejected() {
+        // Given
+        List<BpmnOperationRequest> operations = List.of(
+                BpmnOperationRequest.builder().op("add").element(ElementRequest.builder()
+                        .type("serviceTask").elementId("Review").sourceId("Start_1").build()).build());
+
+        // When
+        BpmnBatchEditResponse response = bpmnBatchEditService.applyOperations(1L, operations, true);
+
+        // Then
+        assertFalse(response.isSuccess());
+        assertEquals("FAILED", response.getResults().get(0).getStatus());
+        verify(bpmnModelService, never()).saveBpmnModel(any(), any(), any(), any(), anyBoolean());
+    }
+}
@@ -0,0 +1,133 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import com.safalifter.jobservice.util.BpmnXmlHelper;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.DeploymentWithDefinitions;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BpmnDeploymentQueueTest {
+
+    private static final String XML = "<bpmn:definitions/>";
+
+    private BpmnProcessRepository bpmnProcessRepository;
+    private RepositoryService repositoryService;
+    private BpmnXmlStore bpmnXmlStore;
+    private BpmnDeploymentQueue bpmnDeploymentQueue;
+    private BpmnProcess process;
+
+    @BeforeEach
+    void setUp() {
+        bpmnProcessRepository = mock(BpmnProcessRepository.class);
+        repositoryService = mock(RepositoryService.class, RETURNS_DEEP_STUBS);
+        bpmnXmlStore = mock(BpmnXmlStore.class);
+        when(bpmnXmlStore.load(BpmnXmlHelper.contentHash(XML))).thenReturn(XML);
+        bpmnDeploymentQueue = new BpmnDeploymentQueue(bpmnProcessRepository, repositoryService, bpmnXmlStore,
+                mock(BpmnTaskConfigSync.class), mock(PlatformTransactionManager.class), 100);
+
+        process = new BpmnProcess();
+        process.setId(1L);
+        process.setName("Demande de prêt");
+        process.setProcessKey("loan");
+        process.setVersion(2);
+        process.setContentHash(BpmnXmlHelper.contentHash(XML));
+        process.setDeploymentStatus(BpmnDeploymentQueue.STATUS_PENDING);
+        when(bpmnProcessRepository.findLatestVersionByProcessKey("loan")).thenReturn(Optional.of(process));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bpmnDeploymentQueue.shutdown();
+    }
+
+    @Test
+    void testBurstOfSavesIsDeployedOnce() throws InterruptedException {
+        // Given
+        ProcessDefinition definition = mock(ProcessDefinition.class);
+        when(definition.getId()).thenReturn("loan:3:abc");
+        DeploymentWithDefinitions deployment = mock(DeploymentWithDefinitions.class);
+        when(deployment.getId()).thenReturn("deployment-3");
+        when(deployment.getDeployedProcessDefinitions()).thenReturn(List.of(definition));
+        when(repositoryService.createDeployment().addString(anyString(), anyString()).name(anyString())
+                .source(anyString()).enableDuplicateFiltering(false).deployWithResult()).thenReturn(deployment);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            bpmnDeploymentQueue.publish("loan");
+        }
+        awaitStatistic("deployed", 1);
+
+        // Then
+        assertEquals(4L, bpmnDeploymentQueue.getStatistics().get("coalesced"));
+        verify(bpmnProcessRepository).recordDeployment(1L, "deployment-3", "loan:3:abc", BpmnXmlHelper.contentHash(XML));
+        verify(bpmnProcessRepository).updateDeploymentStatus(1L, 2, BpmnDeploymentQueue.STATUS_DEPLOYED, null);
+    }
+
+    @Test
+    void testUnchangedContentIsNotRedeployed() throws InterruptedException {
+        // Given
+        process.setDeployedContentHash(BpmnXmlHelper.contentHash(XML));
+
+        // When
+        bpmnDeploymentQueue.publish("loan");
+        awaitStatistic("unchanged", 1);
+
+        // Then: ni déploiement ni lecture du XML
+        verify(repositoryService, never()).createDeployment();
+        verify(bpmnXmlStore, never()).load(any());
+        verify(bpmnProcessRepository).updateDeploymentStatus(1L, 2, BpmnDeploymentQueue.STATUS_DEPLOYED, null);
+    }
+
+    @Test
+    void testFailedDeploymentIsReported() throws InterruptedException {
+        // Given
+        when(repositoryService.createDeployment().addString(anyString(), anyString()).name(anyString())
+                .source(anyString()).enableDuplicateFiltering(false).deployWithResult())
+                .thenThrow(new IllegalStateException("XML invalide"));
+
+        // When
+        bpmnDeploymentQueue.publish("loan");
+        awaitStatistic("failed", 1);
+
+        // Then
+        verify(bpmnProcessRepository).updateDeploymentStatus(1L, 2, BpmnDeploymentQueue.STATUS_FAILED, "XML invalide");
+        verify(bpmnProcessRepository, never()).recordDeployment(any(), any(), any(), any());
+    }
+
+    @Test
+    void testDraftSavedAfterPublishIsNotDeployed() throws InterruptedException {
+        // Given: un brouillon a remplacé la version à publier
+        process.setDeploymentStatus(BpmnDeploymentQueue.STATUS_DRAFT);
+
+        // When
+        bpmnDeploymentQueue.publish("loan");
+        awaitStatistic("queued", 0);
+        Thread.sleep(100);
+
+        // Then
+        verify(repositoryService, never()).createDeployment();
+        verify(bpmnProcessRepository, never()).updateDeploymentStatus(any(), any(), any(), any());
+    }
+
+    private void awaitStatistic(String name, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((Number) bpmnDeploymentQueue.getStatistics().get(name)).longValue() != expected) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Statistique " + name + " attendue à " + expected + ": " + bpmnDeploymentQueue.getStatistics());
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.OutlineNodeDTO;
+import com.safalifter.jobservice.dto.ProcessOutlineDTO;
+import com.safalifter.jobservice.dto.ProcessValidationDTO;
+import com.safalifter.jobservice.dto.ValidationIssueDTO;
+import com.safalifter.jobservice.model.BpmnProcess;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BpmnGraphServiceTest {
+
+    private static final String MODEL = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"",
+            "    id=\"Definitions_1\" targetNamespace=\"http://bpmn.io/schema/bpmn\">",
+            "  <bpmn:process id=\"Process_1\" isExecutable=\"true\">",
+            "    <bpmn:startEvent id=\"Start\"/>",
+            "    <bpmn:exclusiveGateway id=\"Decision\"/>",
+            "    <bpmn:userTask id=\"Approve\"/>",
+            "    <bpmn:userTask id=\"Reject\"/>",
+            "    <bpmn:parallelGateway id=\"Join\"/>",
+            "    <bpmn:userTask id=\"Orphan\"/>",
+            "    <bpmn:endEvent id=\"End\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_1\" sourceRef=\"Start\" targetRef=\"Decision\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_Ok\" sourceRef=\"Decision\" targetRef=\"Approve\">",
+            "      <bpmn:conditionExpression>${ok}</bpmn:conditionExpression>",
+            "    </bpmn:sequenceFlow>",
+            "    <bpmn:sequenceFlow id=\"Flow_Ko\" sourceRef=\"Decision\" targetRef=\"Reject\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_2\" sourceRef=\"Approve\" targetRef=\"Join\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_3\" sourceRef=\"Reject\" targetRef=\"Join\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_4\" sourceRef=\"Join\" targetRef=\"End\">",
+            "      <bpmn:conditionExpression>${true}</bpmn:conditionExpression>",
+            "    </bpmn:sequenceFlow>",
+            "  </bpmn:process>",
+            "</bpmn:definitions>");
+
+    private BpmnModelService bpmnModelService;
+    private BpmnGraphService bpmnGraphService;
+    private BpmnProcess process;
+
+    @BeforeEach
+    void setUp() {
+        bpmnModelService = mock(BpmnModelService.class);
+        bpmnGraphService = new BpmnGraphService(bpmnModelService, 8);
+        process = BpmnProcess.builder().id(1L).processKey("loan").version(2).contentHash("loan-v2").build();
+        when(bpmnModelService.loadProcessModel(process)).thenAnswer(invocation ->
+                Bpmn.readModelFromStream(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testValidationReportsGraphIssues() {
+        // When
+        ProcessValidationDTO validation = bpmnGraphService.validate(process);
+
+        // Then
+        Map<String, List<String>> issues = validation.getIssues().stream()
+                .collect(Collectors.toMap(ValidationIssueDTO::getCode, ValidationIssueDTO::getElementIds));
+        assertFalse(validation.isValid());
+        assertEquals(List.of("Orphan"), issues.get("UNREACHABLE"));
+        assertEquals(List.of("Orphan"), issues.get("DEAD_END"));
+        assertEquals(List.of("Decision", "Flow_Ko"), issues.get("MISSING_CONDITION"));
+        assertEquals(List.of("Join", "Flow_4"), issues.get("GATEWAY_CONDITION_IGNORED"));
+        assertFalse(issues.containsKey("CYCLE_WITHOUT_EXIT"));
+        assertEquals(3, validation.getErrorCount());
+        assertEquals(1, validation.getWarningCount());
+    }
+
+    @Test
+    void testGraphIsCompiledOncePerVersion() {
+        // When
+        bpmnGraphService.validate(process);
+        ProcessOutlineDTO outline = bpmnGraphService.outline(process);
+
+        // Then
+        verify(bpmnModelService, times(1)).loadProcessModel(process);
+        assertEquals(1L, bpmnGraphService.getStatistics().get("hits"));
+        OutlineNodeDTO join = outline.getNodes().stream().filter(node -> "Join".equals(node.getId())).findFirst().orElseThrow();
+        assertEquals("parallelGateway", join.getType());
+        assertEquals(List.of("Approve", "Reject"), join.getIncoming().stream().sorted().collect(Collectors.toList()));
+        assertEquals(List.of("End"), join.getOutgoing());
+        assertEquals(6, outline.getFlows().size());
+    }
+}
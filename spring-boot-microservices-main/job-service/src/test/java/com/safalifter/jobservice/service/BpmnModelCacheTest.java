@@ -0,0 +1,117 @@
+package com.safalifter.jobservice.service;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.instance.UserTask;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BpmnModelCacheTest {
+
+    @Test
+    void testCachedModelIsNeverModifiedByCallers() {
+        // Given
+        BpmnModelCache cache = new BpmnModelCache(8, Duration.ofMinutes(30), System::nanoTime);
+        String xml = processXml("Process_A");
+        AtomicInteger parses = new AtomicInteger();
+
+        // When: le premier appelant modifie sa copie
+        BpmnModelInstance first = cache.getOrLoad(xml, () -> parse(xml, parses));
+        first.getModelElementById("Task_1").setAttributeValue("name", "Modifiée");
+        first.getModelElementById("Task_1").getParentElement()
+                .addChildElement(first.newInstance(UserTask.class));
+        BpmnModelInstance second = cache.getOrLoad(xml, () -> parse(xml, parses));
+
+        // Then
+        assertEquals(1, parses.get());
+        assertNotSame(first, second);
+        assertEquals("Tâche", second.getModelElementById("Task_1").getAttributeValue("name"));
+        assertEquals(1, second.getModelElementsByType(UserTask.class).size());
+        assertEquals(1L, cache.getStatistics().get("hits"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedModelIsEvictedBeyondMaxEntries() {
+        // Given
+        BpmnModelCache cache = new BpmnModelCache(2, Duration.ofMinutes(30), System::nanoTime);
+        String a = processXml("Process_A");
+        String b = processXml("Process_B");
+        String c = processXml("Process_C");
+        AtomicInteger parses = new AtomicInteger();
+
+        // When
+        cache.getOrLoad(a, () -> parse(a, parses));
+        cache.getOrLoad(b, () -> parse(b, parses));
+        cache.getOrLoad(a, () -> parse(a, parses));
+        cache.getOrLoad(c, () -> parse(c, parses));
+        cache.getOrLoad(a, () -> parse(a, parses));
+        cache.getOrLoad(b, () -> parse(b, parses));
+
+        // Then: B, le moins récemment utilisé, a été évincé par C puis reparsé
+        assertEquals(4, parses.get());
+        assertEquals(2L, cache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    void testIdleModelsExpire() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        BpmnModelCache cache = new BpmnModelCache(8, Duration.ofMinutes(30), now::get);
+        String a = processXml("Process_A");
+        String b = processXml("Process_B");
+        AtomicInteger parses = new AtomicInteger();
+        cache.getOrLoad(a, () -> parse(a, parses));
+        cache.getOrLoad(b, () -> parse(b, parses));
+
+        // When: A reste utilisé, B devient inactif
+        now.addAndGet(Duration.ofMinutes(20).toNanos());
+        cache.getOrLoad(a, () -> parse(a, parses));
+        now.addAndGet(Duration.ofMinutes(20).toNanos());
+        cache.getOrLoad(a, () -> parse(a, parses));
+        cache.getOrLoad(b, () -> parse(b, parses));
+
+        // Then
+        assertEquals(3, parses.get());
+        assertEquals(1L, cache.getStatistics().get("expirations"));
+    }
+
+    @Test
+    void testSavedModelIsServedWithoutParsing() {
+        // Given
+        BpmnModelCache cache = new BpmnModelCache(8, Duration.ofMinutes(30), System::nanoTime);
+        BpmnModelInstance edited = Bpmn.readModelFromStream(
+                new ByteArrayInputStream(processXml("Process_A").getBytes(StandardCharsets.UTF_8)));
+        edited.getModelElementById("Task_1").setAttributeValue("name", "Renommée");
+        String savedXml = Bpmn.convertToString(edited);
+
+        // When
+        cache.put(savedXml, edited.clone());
+        BpmnModelInstance reloaded = cache.getOrLoad(savedXml, () -> {
+            throw new AssertionError("Le modèle sauvegardé ne doit pas être reparsé");
+        });
+
+        // Then
+        assertEquals("Renommée", reloaded.getModelElementById("Task_1").getAttributeValue("name"));
+        assertEquals(savedXml, Bpmn.convertToString(reloaded));
+    }
+
+    private String processXml(String processId) {
+        return Bpmn.convertToString(Bpmn.createExecutableProcess(processId)
+                .startEvent("Start_1")
+                .userTask("Task_1").name("Tâche")
+                .endEvent("End_1")
+                .done());
+    }
+
+    private BpmnModelInstance parse(String xml, AtomicInteger parses) {
+        parses.incrementAndGet();
+        return Bpmn.readModelFromStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
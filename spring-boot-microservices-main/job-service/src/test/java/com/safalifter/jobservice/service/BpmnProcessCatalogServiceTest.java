@@ -0,0 +1,121 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.ProcessDTO;
+import com.safalifter.jobservice.dto.ProcessPageDTO;
+import com.safalifter.jobservice.repository.BpmnProcessCatalogRepository;
+import com.safalifter.jobservice.repository.BpmnProcessCatalogRepository.SortField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class BpmnProcessCatalogServiceTest {
+
+    private BpmnProcessCatalogRepository bpmnProcessCatalogRepository;
+    private BpmnProcessCatalogService bpmnProcessCatalogService;
+
+    @BeforeEach
+    void setUp() {
+        bpmnProcessCatalogRepository = mock(BpmnProcessCatalogRepository.class);
+        bpmnProcessCatalogService = new BpmnProcessCatalogService(bpmnProcessCatalogRepository);
+    }
+
+    @Test
+    void testCursorResumesAfterLastItem() {
+        // Given: 3 lignes lues pour une page de 2
+        when(bpmnProcessCatalogRepository.findCatalogPage(any(), any(), any(), any(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(processes(1, 3));
+
+        // When
+        ProcessPageDTO first = bpmnProcessCatalogService.getCatalogPage(null, null, true, "name", "desc", null, 2);
+        bpmnProcessCatalogService.getCatalogPage(null, null, true, "name", "desc", first.getNextCursor(), 2);
+
+        // Then
+        assertTrue(first.isHasMore());
+        assertEquals(List.of(1L, 2L), first.getItems().stream().map(ProcessDTO::getId).collect(Collectors.toList()));
+        verify(bpmnProcessCatalogRepository).findCatalogPage(null, null, true, SortField.NAME, true, null, null, 3);
+        verify(bpmnProcessCatalogRepository).findCatalogPage(null, null, true, SortField.NAME, true, "Process 2", 2L, 3);
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        // Given
+        when(bpmnProcessCatalogRepository.findVersionPage(eq("loan"), isNull(), isNull(), eq(21)))
+                .thenReturn(processes(1, 5));
+
+        // When
+        ProcessPageDTO page = bpmnProcessCatalogService.getVersionPage("loan", null, null);
+
+        // Then
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertEquals(5, page.getSize());
+    }
+
+    @Test
+    void testVersionCursorCarriesVersionAndId() {
+        // Given
+        when(bpmnProcessCatalogRepository.findVersionPage(any(), any(), any(), anyInt())).thenReturn(processes(7, 2));
+
+        // When
+        ProcessPageDTO page = bpmnProcessCatalogService.getVersionPage("loan", null, 1);
+        bpmnProcessCatalogService.getVersionPage("loan", page.getNextCursor(), 1);
+
+        // Then
+        verify(bpmnProcessCatalogRepository).findVersionPage("loan", 7, 7L, 2);
+    }
+
+    @Test
+    void testFiltersAreNormalized() {
+        // Given
+        when(bpmnProcessCatalogRepository.findCatalogPage(any(), any(), any(), any(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(List.of());
+
+        // When
+        bpmnProcessCatalogService.getCatalogPage(" ", "crédit_50%", null, null, null, null, 1000);
+
+        // Then: préfixe échappé, taille plafonnée, tri par clé croissant
+        verify(bpmnProcessCatalogRepository).findCatalogPage(null, "crédit!_50!%", null, SortField.PROCESS_KEY, false,
+                null, null, BpmnProcessCatalogService.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void testCursorFromAnotherSortIsRejected() {
+        // Given
+        when(bpmnProcessCatalogRepository.findCatalogPage(any(), any(), any(), any(), anyBoolean(), any(), any(), anyInt()))
+                .thenReturn(processes(1, 2));
+        String cursor = bpmnProcessCatalogService.getCatalogPage(null, null, true, "name", null, null, 1).getNextCursor();
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> bpmnProcessCatalogService.getCatalogPage(null, null, true, "createdAt", null, cursor, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> bpmnProcessCatalogService.getCatalogPage(null, null, true, "name", null, "pas-un-curseur", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> bpmnProcessCatalogService.getCatalogPage(null, null, true, "xml", null, null, 1));
+    }
+
+    private static List<ProcessDTO> processes(int firstId, int count) {
+        return IntStream.range(firstId, firstId + count)
+                .mapToObj(i -> ProcessDTO.builder()
+                        .id((long) i)
+                        .name("Process " + i)
+                        .processKey("loan")
+                        .version(i)
+                        .createdAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i))
+                        .isActive(true)
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
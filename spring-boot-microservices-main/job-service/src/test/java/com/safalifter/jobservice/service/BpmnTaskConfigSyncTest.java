@@ -0,0 +1,158 @@
+package com.safalifter.jobservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.model.GatewayConfig;
+import com.safalifter.jobservice.model.ServiceTaskConfig;
+import com.safalifter.jobservice.model.UserTaskForm;
+import com.safalifter.jobservice.repository.GatewayConfigRepository;
+import com.safalifter.jobservice.repository.ServiceTaskConfigRepository;
+import com.safalifter.jobservice.repository.UserTaskFormRepository;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class BpmnTaskConfigSyncTest {
+
+    private static final String MODEL = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"",
+            "    xmlns:camunda=\"http://camunda.org/schema/1.0/bpmn\"",
+            "    id=\"Definitions_1\" targetNamespace=\"http://bpmn.io/schema/bpmn\">",
+            "  <bpmn:process id=\"loan\" isExecutable=\"true\">",
+            "    <bpmn:startEvent id=\"Start\"/>",
+            "    <bpmn:exclusiveGateway id=\"Amount\" name=\"Montant ?\" default=\"Flow_Big\"/>",
+            "    <bpmn:userTask id=\"Review\" name=\"Revue\" camunda:assignee=\"alice\"/>",
+            "    <bpmn:parallelGateway id=\"Fork\"/>",
+            "    <bpmn:serviceTask id=\"Score\" camunda:delegateExpression=\"${scoring}\" camunda:asyncBefore=\"true\"/>",
+            "    <bpmn:serviceTask id=\"Notify\" camunda:type=\"external\" camunda:topic=\"notify\"/>",
+            "    <bpmn:inclusiveGateway id=\"Checks\"/>",
+            "    <bpmn:endEvent id=\"End\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_1\" sourceRef=\"Start\" targetRef=\"Amount\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_Small\" sourceRef=\"Amount\" targetRef=\"Review\">",
+            "      <bpmn:conditionExpression>${amount &lt; 1000}</bpmn:conditionExpression>",
+            "    </bpmn:sequenceFlow>",
+            "    <bpmn:sequenceFlow id=\"Flow_Big\" sourceRef=\"Amount\" targetRef=\"Fork\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_2\" sourceRef=\"Fork\" targetRef=\"Score\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_3\" sourceRef=\"Fork\" targetRef=\"Notify\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_4\" sourceRef=\"Score\" targetRef=\"Checks\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_5\" sourceRef=\"Notify\" targetRef=\"Checks\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_6\" sourceRef=\"Review\" targetRef=\"End\"/>",
+            "    <bpmn:sequenceFlow id=\"Flow_7\" sourceRef=\"Checks\" targetRef=\"End\"/>",
+            "  </bpmn:process>",
+            "</bpmn:definitions>");
+
+    private UserTaskFormRepository userTaskFormRepository;
+    private ServiceTaskConfigRepository serviceTaskConfigRepository;
+    private GatewayConfigRepository gatewayConfigRepository;
+    private BpmnTaskConfigSync bpmnTaskConfigSync;
+    private BpmnProcess process;
+
+    @BeforeEach
+    void setUp() {
+        userTaskFormRepository = mock(UserTaskFormRepository.class);
+        serviceTaskConfigRepository = mock(ServiceTaskConfigRepository.class);
+        gatewayConfigRepository = mock(GatewayConfigRepository.class);
+        bpmnTaskConfigSync = new BpmnTaskConfigSync(userTaskFormRepository, serviceTaskConfigRepository,
+                gatewayConfigRepository, mock(BpmnModelCache.class), new ObjectMapper());
+
+        process = new BpmnProcess();
+        process.setId(1L);
+        process.setProcessKey("loan");
+        process.setVersion(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFirstDeploymentInsertsAllElements() {
+        // Given: aucune configuration enregistrée
+
+        // When
+        BpmnTaskConfigSync.Changes changes = bpmnTaskConfigSync.sync(process, model());
+
+        // Then: une seule écriture groupée par type
+        assertEquals(6, changes.getInserted());
+        ArgumentCaptor<List<GatewayConfig>> gateways = ArgumentCaptor.forClass(List.class);
+        verify(gatewayConfigRepository).saveAll(gateways.capture());
+        Map<String, GatewayConfig> byId = byKey(gateways.getValue(), GatewayConfig::getGatewayId);
+        assertEquals("exclusive", byId.get("Amount").getGatewayType());
+        assertEquals("Montant ?", byId.get("Amount").getGatewayName());
+        assertEquals("Flow_Big", byId.get("Amount").getDefaultFlow());
+        assertEquals("{\"Flow_Small\":\"${amount < 1000}\"}", byId.get("Amount").getConditions());
+        assertEquals("parallel", byId.get("Fork").getGatewayType());
+        assertEquals("inclusive", byId.get("Checks").getGatewayType());
+        assertEquals("Checks", byId.get("Checks").getGatewayName());
+
+        ArgumentCaptor<List<ServiceTaskConfig>> serviceTasks = ArgumentCaptor.forClass(List.class);
+        verify(serviceTaskConfigRepository).saveAll(serviceTasks.capture());
+        Map<String, ServiceTaskConfig> tasks = byKey(serviceTasks.getValue(), ServiceTaskConfig::getTaskId);
+        assertEquals("delegateExpression", tasks.get("Score").getImplementationType());
+        assertEquals("${scoring}", tasks.get("Score").getImplementation());
+        assertTrue(tasks.get("Score").getAsyncBefore());
+        assertNull(tasks.get("Score").getAsyncAfter());
+        assertEquals("external", tasks.get("Notify").getImplementationType());
+        assertEquals("notify", tasks.get("Notify").getImplementation());
+
+        verify(userTaskFormRepository).saveAll(anyList());
+        verify(gatewayConfigRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRedeploymentWritesOnlyChangedElements() {
+        // Given: tâche utilisateur inchangée, tâche de service modifiée, passerelle supprimée du modèle
+        when(userTaskFormRepository.findByProcess(process)).thenReturn(List.of(UserTaskForm.builder()
+                .id(10L).taskId("Review").taskName("Revue").assignee("alice").priority(50).build()));
+        ServiceTaskConfig score = ServiceTaskConfig.builder()
+                .id(20L).taskId("Score").taskName("Score").implementationType("class")
+                .implementation("com.example.Scoring").asyncBefore(true).retries(5).build();
+        ServiceTaskConfig notify = ServiceTaskConfig.builder()
+                .id(21L).taskId("Notify").taskName("Notify").implementationType("external")
+                .implementation("notify").build();
+        ServiceTaskConfig duplicate = ServiceTaskConfig.builder().id(22L).taskId("Notify").taskName("Notify").build();
+        when(serviceTaskConfigRepository.findByProcess(process)).thenReturn(List.of(score, notify, duplicate));
+        GatewayConfig removed = GatewayConfig.builder()
+                .id(30L).gatewayId("Old").gatewayName("Old").gatewayType("exclusive").build();
+        when(gatewayConfigRepository.findByProcess(process)).thenReturn(List.of(removed));
+
+        // When
+        BpmnTaskConfigSync.Changes changes = bpmnTaskConfigSync.sync(process, model());
+
+        // Then
+        verify(userTaskFormRepository, never()).saveAll(anyList());
+        ArgumentCaptor<List<ServiceTaskConfig>> saved = ArgumentCaptor.forClass(List.class);
+        verify(serviceTaskConfigRepository).saveAll(saved.capture());
+        assertEquals(List.of(score), saved.getValue());
+        assertEquals("delegateExpression", score.getImplementationType());
+        assertEquals(5, score.getRetries());
+        verify(serviceTaskConfigRepository).deleteAllInBatch(List.of(duplicate));
+        verify(gatewayConfigRepository).deleteAllInBatch(List.of(removed));
+
+        assertEquals(3, changes.getInserted());
+        assertEquals(1, changes.getUpdated());
+        assertEquals(2, changes.getDeleted());
+        assertEquals(2, changes.getUnchanged());
+    }
+
+    private static BpmnModelInstance model() {
+        return Bpmn.readModelFromStream(new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static <T> Map<String, T> byKey(List<T> rows, Function<T, String> key) {
+        return rows.stream().collect(Collectors.toMap(key, Function.identity()));
+    }
+}
@@ -0,0 +1,176 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.model.BpmnProcess;
+import com.safalifter.jobservice.repository.BpmnProcessRepository;
+import com.safalifter.jobservice.repository.BpmnVersionCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(BpmnVersionAllocator.class)
+// Chaque sauvegarde valide sa propre transaction, comme une requête du designer
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BpmnVersionAllocatorTest {
+
+    private static final int THREADS = 8;
+    private static final int SAVES_PER_THREAD = 25;
+
+    @Autowired
+    private BpmnVersionAllocator bpmnVersionAllocator;
+
+    @Autowired
+    private BpmnProcessRepository bpmnProcessRepository;
+
+    @Autowired
+    private BpmnVersionCounterRepository bpmnVersionCounterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        bpmnProcessRepository.deleteAll();
+        bpmnVersionCounterRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentSavesOfOneKeyGetDistinctVersions() throws Exception {
+        // Given: une version 5 enregistrée avant la création du compteur
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> bpmnProcessRepository.save(process("loan", 5)));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        // When: toutes les sauvegardes démarrent ensemble, y compris la création du compteur
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < SAVES_PER_THREAD; i++) {
+                    transaction.executeWithoutResult(status ->
+                            bpmnProcessRepository.save(process("loan", bpmnVersionAllocator.nextVersion("loan"))));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then: versions 6 à 205 sans doublon ni trou
+        List<Integer> versions = bpmnProcessRepository.findByProcessKeyOrderByVersionDesc("loan").stream()
+                .map(BpmnProcess::getVersion)
+                .sorted()
+                .collect(Collectors.toList());
+        List<Integer> expected = IntStream.rangeClosed(5, 5 + THREADS * SAVES_PER_THREAD).boxed()
+                .collect(Collectors.toList());
+        assertEquals(expected, versions);
+        assertEquals(5 + THREADS * SAVES_PER_THREAD, bpmnVersionCounterRepository.findLastVersion("loan"));
+    }
+
+    @Test
+    void testRolledBackSaveReleasesVersion() {
+        // Given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> bpmnVersionAllocator.nextVersion("claims"));
+
+        // When: la sauvegarde échoue après l'attribution
+        transaction.executeWithoutResult(status -> {
+            assertEquals(2, bpmnVersionAllocator.nextVersion("claims"));
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertEquals(Integer.valueOf(2), transaction.execute(status -> bpmnVersionAllocator.nextVersion("claims")));
+    }
+
+    @Test
+    void testDuplicateVersionIsRejected() {
+        // Given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> bpmnProcessRepository.save(process("loan", 1)));
+
+        // When / Then
+        assertThrows(DataIntegrityViolationException.class, () -> transaction.executeWithoutResult(status ->
+                bpmnProcessRepository.saveAndFlush(process("loan", 1))));
+    }
+
+    @Test
+    void testCounterOfNewKeyIsCreatedBeforeIncrement() {
+        // Given: une clé sans compteur, avec une version 2 déjà enregistrée
+        BpmnVersionCounterRepository counters = mock(BpmnVersionCounterRepository.class);
+        BpmnProcessRepository processes = mock(BpmnProcessRepository.class);
+        PlatformTransactionManager seedTransactions = mock(PlatformTransactionManager.class);
+        when(seedTransactions.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(counters.existsById("loan")).thenReturn(false);
+        when(processes.findMaxVersion("loan")).thenReturn(2);
+        when(counters.increment("loan")).thenReturn(1);
+        when(counters.findLastVersion("loan")).thenReturn(3);
+        BpmnVersionAllocator allocator = new BpmnVersionAllocator(counters, processes, seedTransactions);
+
+        // When
+        int version = allocator.nextVersion("loan");
+
+        // Then: le compteur est validé avant l'UPDATE, qui ne pose donc jamais de verrou d'intervalle (MySQL)
+        assertEquals(3, version);
+        InOrder order = inOrder(counters, seedTransactions);
+        order.verify(counters).existsById("loan");
+        order.verify(counters).saveAndFlush(any());
+        order.verify(seedTransactions).commit(any());
+        order.verify(counters).increment("loan");
+    }
+
+    @Test
+    void testExistingCounterIsIncrementedWithoutSeedTransaction() {
+        // Given
+        BpmnVersionCounterRepository counters = mock(BpmnVersionCounterRepository.class);
+        PlatformTransactionManager seedTransactions = mock(PlatformTransactionManager.class);
+        when(counters.existsById("loan")).thenReturn(true);
+        when(counters.increment("loan")).thenReturn(1);
+        when(counters.findLastVersion("loan")).thenReturn(7);
+        BpmnVersionAllocator allocator = new BpmnVersionAllocator(counters, mock(BpmnProcessRepository.class),
+                seedTransactions);
+
+        // When / Then
+        assertEquals(7, allocator.nextVersion("loan"));
+        verifyNoInteractions(seedTransactions);
+        verify(counters, never()).saveAndFlush(any());
+    }
+
+    private static BpmnProcess process(String processKey, int version) {
+        BpmnProcess process = new BpmnProcess();
+        process.setName(processKey);
+        process.setProcessKey(processKey);
+        process.setVersion(version);
+        process.setDeploymentId("");
+        process.setProcessDefinitionId("");
+        process.setCreatedAt(LocalDateTime.now());
+        return process;
+    }
+}
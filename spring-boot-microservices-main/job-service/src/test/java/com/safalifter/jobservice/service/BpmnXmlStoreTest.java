@@ -0,0 +1,86 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.model.BpmnXmlContent;
+import com.safalifter.jobservice.repository.BpmnXmlContentRepository;
+import com.safalifter.jobservice.util.BpmnXmlHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BpmnXmlStoreTest {
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<bpmn:definitions id=\"Défs\">" + "<bpmn:userTask id=\"Task\"/>".repeat(200) + "</bpmn:definitions>";
+
+    private BpmnXmlContentRepository bpmnXmlContentRepository;
+    private BpmnXmlStore bpmnXmlStore;
+
+    @BeforeEach
+    void setUp() {
+        bpmnXmlContentRepository = mock(BpmnXmlContentRepository.class);
+        bpmnXmlStore = new BpmnXmlStore(bpmnXmlContentRepository, mock(PlatformTransactionManager.class));
+        when(bpmnXmlContentRepository.getStorageTotals()).thenReturn(mock(BpmnXmlContentRepository.StorageTotals.class));
+    }
+
+    @Test
+    void testContentIsCompressedAndReadBack() throws Exception {
+        // Given
+        when(bpmnXmlContentRepository.existsById(any())).thenReturn(false);
+
+        // When
+        String contentHash = bpmnXmlStore.store(XML);
+
+        // Then
+        ArgumentCaptor<BpmnXmlContent> content = ArgumentCaptor.forClass(BpmnXmlContent.class);
+        verify(bpmnXmlContentRepository).save(content.capture());
+        assertEquals(BpmnXmlHelper.contentHash(XML), contentHash);
+        assertEquals(XML.getBytes(StandardCharsets.UTF_8).length, content.getValue().getXmlSize());
+        assertTrue(content.getValue().getCompressedSize() < content.getValue().getXmlSize() / 5);
+
+        when(bpmnXmlContentRepository.findById(contentHash)).thenReturn(Optional.of(content.getValue()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bpmnXmlStore.transferTo(contentHash, out);
+        assertEquals(XML, bpmnXmlStore.load(contentHash));
+        assertEquals(XML, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testIdenticalContentIsStoredOnce() {
+        // Given
+        when(bpmnXmlContentRepository.existsById(BpmnXmlHelper.contentHash(XML))).thenReturn(true);
+
+        // When
+        String contentHash = bpmnXmlStore.store(XML);
+
+        // Then
+        assertEquals(BpmnXmlHelper.contentHash(XML), contentHash);
+        verify(bpmnXmlContentRepository, never()).save(any());
+        assertEquals(1L, bpmnXmlStore.getStatistics().get("deduplicated"));
+    }
+
+    @Test
+    void testContentStillReferencedIsKept() {
+        // Given: une sauvegarde concurrente référence à nouveau le contenu (clé étrangère)
+        when(bpmnXmlContentRepository.deleteIfUnreferenced("old")).thenThrow(new DataIntegrityViolationException("fk"));
+        when(bpmnXmlContentRepository.deleteIfUnreferenced("orphan")).thenReturn(1);
+
+        // When
+        bpmnXmlStore.releaseAfterCommit("old");
+        bpmnXmlStore.releaseAfterCommit("orphan");
+
+        // Then
+        verify(bpmnXmlContentRepository).deleteIfUnreferenced("old");
+        verify(bpmnXmlContentRepository).deleteIfUnreferenced("orphan");
+        assertEquals(1L, bpmnXmlStore.getStatistics().get("released"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.safalifter.jobservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safalifter.jobservice.config.DmnResultCacheProperties;
+import com.safalifter.jobservice.dto.DmnBatchSummaryDto;
+import com.safalifter.jobservice.repository.DmnDefinitionRepository;
+import com.safalifter.jobservice.repository.DmnDefinitionXmlRepository;
+import com.safalifter.jobservice.repository.DmnLatestVersionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.engine.RepositoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DmnBatchServiceTest {
+
+    @Mock
+    private DmnDefinitionRepository dmnDefinitionRepository;
+
+    @Mock
+    private DmnLatestVersionRepository dmnLatestVersionRepository;
+
+    @Mock
+    private DmnDefinitionXmlRepository dmnDefinitionXmlRepository;
+
+    @Mock
+    private RepositoryService repositoryService;
+
+    @Mock
+    private DmnHistoryService dmnHistoryService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DmnBatchService dmnBatchService;
+    private DmnDecision decision;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DmnDecisionCache dmnDecisionCache = new DmnDecisionCache(16);
+        DmnIndexedEvaluator dmnIndexedEvaluator = new DmnIndexedEvaluator(dmnDecisionCache, false, true);
+        DmnService dmnService = new DmnService(dmnDefinitionRepository, dmnLatestVersionRepository,
+                dmnDefinitionXmlRepository, repositoryService, dmnDecisionCache, dmnIndexedEvaluator,
+                new DmnResultCache(new DmnResultCacheProperties()), dmnHistoryService,
+                new DmnDrdEvaluator(dmnDecisionCache, dmnIndexedEvaluator, 2),
+                new DmnMetrics(new SimpleMeterRegistry(), dmnDecisionCache, true, 100, 200));
+        dmnBatchService = new DmnBatchService(dmnService, objectMapper, 4, 100, 10);
+
+        try (InputStream inputStream = getClass().getResourceAsStream("/dmn/eligibility_decision.dmn")) {
+            decision = dmnDecisionCache.getDmnEngine().parseDecision("eligibility", inputStream);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        dmnBatchService.shutdown();
+    }
+
+    @Test
+    void testCsvBatchKeepsRowOrderAndReportsFailedRows() throws Exception {
+        // Given
+        StringBuilder csv = new StringBuilder("age\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append(i % 90).append('\n');
+        }
+        csv.append("10,20\n");
+
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DmnBatchSummaryDto summary = dmnBatchService.evaluateBatch("eligibility", decision, DmnBatchService.FORMAT_CSV,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), output);
+
+        // Then
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(202, lines.size());
+        for (int i = 0; i < 200; i++) {
+            JsonNode line = objectMapper.readTree(lines.get(i));
+            assertEquals(i, line.get("row").asInt());
+            boolean expected = (i % 90) >= 18 && (i % 90) < 65;
+            assertEquals(expected, line.get("result").get("eligible").asBoolean());
+        }
+        assertEquals("ERROR", objectMapper.readTree(lines.get(200)).get("status").asText());
+        assertEquals(201, summary.getRows());
+        assertEquals(1, summary.getFailed());
+        assertEquals(200L, summary.getFailedRows().get(0).getRow());
+        assertTrue(objectMapper.readTree(lines.get(201)).has("summary"));
+    }
+
+    @Test
+    void testNdjsonAndJsonArrayProduceSameResults() throws Exception {
+        // Given
+        String ndjson = "{\"age\": 12}\n\n{\"age\": 40}\nnot json\n{\"age\": 70}\n";
+        String jsonArray = "[{\"age\": 12}, {\"age\": 40}, {\"age\": 70}]";
+
+        // When
+        ByteArrayOutputStream ndjsonOutput = new ByteArrayOutputStream();
+        DmnBatchSummaryDto ndjsonSummary = dmnBatchService.evaluateBatch("eligibility", decision, DmnBatchService.FORMAT_NDJSON,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ndjsonOutput);
+        ByteArrayOutputStream jsonOutput = new ByteArrayOutputStream();
+        DmnBatchSummaryDto jsonSummary = dmnBatchService.evaluateBatch("eligibility", decision, DmnBatchService.FORMAT_JSON,
+                new ByteArrayInputStream(jsonArray.getBytes(StandardCharsets.UTF_8)), jsonOutput);
+
+        // Then
+        assertEquals(4, ndjsonSummary.getRows());
+        assertEquals(1, ndjsonSummary.getFailed());
+        assertEquals(3, jsonSummary.getRows());
+        assertEquals(0, jsonSummary.getFailed());
+        assertFalse(jsonSummary.isAborted());
+    }
+
+    @Test
+    void testDetectFormat() {
+        assertEquals(DmnBatchService.FORMAT_CSV, DmnBatchService.detectFormat("text/csv; charset=UTF-8"));
+        assertEquals(DmnBatchService.FORMAT_NDJSON, DmnBatchService.detectFormat("application/x-ndjson"));
+        assertEquals(DmnBatchService.FORMAT_JSON, DmnBatchService.detectFormat("application/json"));
+        assertEquals(DmnBatchService.FORMAT_JSON, DmnBatchService.detectFormat(null));
+    }
+}
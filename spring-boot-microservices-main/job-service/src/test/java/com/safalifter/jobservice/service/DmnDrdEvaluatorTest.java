@@ -0,0 +1,104 @@
+package com.safalifter.jobservice.service;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que l'évaluation parallèle d'un DRD donne les mêmes résultats que le moteur standard
+ * et que la trace respecte les dépendances du graphe.
+ */
+public class DmnDrdEvaluatorTest {
+
+    private DmnDecisionCache dmnDecisionCache;
+    private DmnDrdEvaluator drdEvaluator;
+    private DmnDecision loanOffer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dmnDecisionCache = new DmnDecisionCache(16);
+        drdEvaluator = new DmnDrdEvaluator(dmnDecisionCache, new DmnIndexedEvaluator(dmnDecisionCache, true, true), 4);
+        try (InputStream inputStream = getClass().getResourceAsStream("/dmn/loan_offer_drd.dmn")) {
+            loanOffer = dmnDecisionCache.getDmnEngine().parseDecision("loan_offer", inputStream);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        drdEvaluator.shutdown();
+    }
+
+    @Test
+    void testDrdEvaluationMatchesStandardEngine() {
+        for (Object income : Arrays.asList(0, 15000, 19999.5, 20000, 49000L, 50000, 60000, 90000.0)) {
+            for (String clientType : Arrays.asList("VIP", "PRO", null)) {
+                for (String channel : Arrays.asList("WEB", "BRANCH", "PHONE")) {
+                    // Given
+                    Map<String, Object> variables = new HashMap<>();
+                    variables.put("income", income);
+                    variables.put("clientType", clientType);
+                    variables.put("channel", channel);
+
+                    // When
+                    Object expected = outcome(() -> dmnDecisionCache.getDmnEngine().evaluateDecision(loanOffer, variables).getResultList());
+                    Object actual = outcome(() -> drdEvaluator.evaluate(loanOffer, variables).getResultList());
+
+                    // Then
+                    assertEquals(expected, actual, "Résultat différent pour " + variables);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testTraceEvaluatesSharedDecisionOnceAndRespectsDependencies() {
+        // When
+        DmnDrdEvaluator.Trace trace = drdEvaluator.trace(loanOffer,
+                Map.of("income", 30000, "clientType", "VIP", "channel", "BRANCH"));
+
+        // Then
+        assertEquals("PREMIUM", trace.getResult().getSingleResult().getEntry("offer"));
+        List<DmnDrdEvaluator.NodeTrace> nodes = trace.getNodes();
+        assertEquals(List.of("customer_score", "risk_class", "segment", "channel_fees", "loan_offer"),
+                nodes.stream().map(DmnDrdEvaluator.NodeTrace::getDecisionKey).collect(Collectors.toList()));
+        assertEquals(3, nodes.get(3).getResult().size());
+
+        Map<String, DmnDrdEvaluator.NodeTrace> byKey = nodes.stream()
+                .collect(Collectors.toMap(DmnDrdEvaluator.NodeTrace::getDecisionKey, node -> node));
+        for (DmnDrdEvaluator.NodeTrace node : nodes) {
+            for (String required : node.getRequiredDecisions()) {
+                DmnDrdEvaluator.NodeTrace dependency = byKey.get(required);
+                assertTrue(node.getStartMicros() >= dependency.getStartMicros() + dependency.getDurationMicros(),
+                        node.getDecisionKey() + " démarré avant la fin de " + required);
+            }
+        }
+        assertTrue(trace.getDurationMicros() >= byKey.get("loan_offer").getDurationMicros());
+    }
+
+    @Test
+    void testErrorsAreReportedLikeStandardEngine() {
+        // Given: la variable income est absente
+        Map<String, Object> variables = Map.of("clientType", "VIP", "channel", "WEB");
+
+        // When / Then
+        Object expected = outcome(() -> dmnDecisionCache.getDmnEngine().evaluateDecision(loanOffer, variables));
+        assertTrue(expected instanceof Class);
+        assertEquals(expected, outcome(() -> drdEvaluator.evaluate(loanOffer, variables)));
+    }
+
+    private Object outcome(Supplier<Object> evaluation) {
+        try {
+            return evaluation.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.safalifter.jobservice.service;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.impl.DefaultDmnEngineConfiguration;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableInputImpl;
+import org.camunda.bpm.dmn.engine.impl.DmnDecisionTableRuleImpl;
+import org.camunda.bpm.dmn.feel.impl.FeelEngine;
+import org.camunda.bpm.engine.variable.Variables;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que les expressions compilées produisent les mêmes résultats que l'interpréteur FEEL,
+ * test par test puis sur les fichiers DMN d'exemple des ressources de test (/dmn).
+ */
+public class DmnFeelCompilerTest {
+
+    private static final String SAMPLE_DIRECTORY = "/dmn";
+
+    private static final Pattern QUOTED = Pattern.compile("\"([^\"]*)\"");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    private DmnDecisionCache dmnDecisionCache;
+    private FeelEngine feelEngine;
+
+    @BeforeEach
+    void setUp() {
+        dmnDecisionCache = new DmnDecisionCache(16);
+        feelEngine = ((DefaultDmnEngineConfiguration) dmnDecisionCache.getDmnEngine().getConfiguration()).getFeelEngine();
+    }
+
+    @Test
+    void testCompiledUnaryTestsAgreeWithFeelInterpreter() {
+        // Given
+        List<String> expressions = List.of("\"A\"", "\"A\",\"B\"", "not(\"A\")", "true", "false", "5", "-1.5",
+                "< 18", "<= 18", "> 18", ">= 18", "[18..65)", "]18..65]", "(1..2)", "1, 2, 3", "\"A\", < 5",
+                "not(< 18)", "not(1, 2)", "not([1..5])", "-", "");
+        List<Object> values = Arrays.asList(null, "A", "B", "", true, false, 0, 5, 18, 65, -1.5, 17.999, 18.0,
+                65L, new BigDecimal("18.00"), 1.0);
+
+        // When / Then
+        int decided = 0;
+        for (String expression : expressions) {
+            DmnFeelCompiler.UnaryTest test = DmnFeelCompiler.compileUnaryTests(expression);
+            assertNotNull(test, "Expression non compilée: " + expression);
+            for (Object value : values) {
+                Boolean compiled = test.test(value);
+                if (compiled == null) {
+                    continue;
+                }
+                decided++;
+                boolean interpreted = expression.isEmpty() || feelEngine.evaluateSimpleUnaryTests(expression, "cellInput",
+                        Variables.createVariables().putValue("cellInput", value).asVariableContext());
+                assertEquals(interpreted, compiled, "Résultat différent pour " + expression + " avec " + value);
+            }
+        }
+        assertTrue(decided > expressions.size() * values.size() / 2);
+    }
+
+    @Test
+    void testUnsupportedExpressionsAreNotCompiled() {
+        assertNull(DmnFeelCompiler.compileUnaryTests("date(\"2024-01-01\")"));
+        assertNull(DmnFeelCompiler.compileUnaryTests("< limit"));
+        assertNull(DmnFeelCompiler.compileUnaryTests("\"a\\\"b\""));
+        assertNull(DmnFeelCompiler.compilePath("amount * 2"));
+        assertNull(DmnFeelCompiler.compilePath("not"));
+        assertEquals(5L, DmnFeelCompiler.toFeelResult(5));
+        assertEquals(5L, DmnFeelCompiler.toFeelResult(new BigDecimal("5.00")));
+        assertEquals(5.5, DmnFeelCompiler.toFeelResult(new BigDecimal("5.50")));
+        assertSame(DmnFeelCompiler.UNRESOLVED, DmnFeelCompiler.compilePath("client.segment").resolve(Map.of("client", "x")));
+    }
+
+    @Test
+    void testTablesAreCompiledWhenDecisionIsLoaded() throws Exception {
+        // Given: configuration par défaut (expressions compilées, sans index)
+        DmnIndexedEvaluator evaluator = new DmnIndexedEvaluator(dmnDecisionCache, false, true);
+        Path sample = sampleDirectory().resolve("eligibility_decision.dmn");
+
+        // When
+        DmnDecision decision = dmnDecisionCache.getOrLoad("eligibility", "1", () -> parse(sample).get(0));
+
+        // Then: compilée au chargement, avant toute évaluation
+        assertEquals(1L, evaluator.getStatistics().get("compiledTables"));
+        evaluator.evaluate(decision, Map.of("age", 30));
+        assertEquals(1L, evaluator.getStatistics().get("compiledEvaluations"));
+        assertEquals(0L, evaluator.getStatistics().get("standardEvaluations"));
+    }
+
+    @Test
+    void testSampleDmnFilesEvaluateIdenticallyCompiledAndInterpreted() throws Exception {
+        DmnIndexedEvaluator interpreted = new DmnIndexedEvaluator(dmnDecisionCache, true, false);
+        DmnIndexedEvaluator compiled = new DmnIndexedEvaluator(dmnDecisionCache, true, true);
+        DmnIndexedEvaluator compiledWithoutIndex = new DmnIndexedEvaluator(dmnDecisionCache, false, true);
+
+        Set<String> hitPolicies = new TreeSet<>();
+        for (Path file : sampleDmnFiles()) {
+            // Given
+            List<DmnDecision> decisions = parse(file);
+
+            for (DmnDecision decision : decisions) {
+                // Décisions littérales et DRD : évaluées par le moteur standard (DmnDrdEvaluatorTest)
+                if (!decision.isDecisionTable() || !decision.getRequiredDecisions().isEmpty()) {
+                    continue;
+                }
+                hitPolicies.add(table(decision).getHitPolicyHandler().getHitPolicyEntry().getHitPolicy().name());
+                assertNotNull(dmnDecisionCache.getCompiledTable(decision), "Décision non compilable: " + decision.getKey());
+                List<DmnDecisionTableInputImpl> inputs = table(decision).getInputs();
+                List<List<Object>> pools = new ArrayList<>();
+                for (int i = 0; i < inputs.size(); i++) {
+                    pools.add(valuePool(decision, i));
+                }
+
+                // When / Then
+                Random random = new Random(decision.getKey().hashCode());
+                for (int n = 0; n < 400; n++) {
+                    Map<String, Object> variables = new HashMap<>();
+                    for (int i = 0; i < inputs.size(); i++) {
+                        List<Object> pool = pools.get(i);
+                        put(variables, inputs.get(i).getExpression().getExpression().trim(),
+                                pool.get(random.nextInt(pool.size())));
+                    }
+                    Object expected = outcome(() -> dmnDecisionCache.getDmnEngine().evaluateDecision(decision, variables).getResultList());
+                    assertEquals(expected, outcome(() -> interpreted.evaluate(decision, variables).getResultList()),
+                            decision.getKey() + " (interprété) " + variables);
+                    assertEquals(expected, outcome(() -> compiled.evaluate(decision, variables).getResultList()),
+                            decision.getKey() + " (compilé) " + variables);
+                    assertEquals(expected, outcome(() -> compiledWithoutIndex.evaluate(decision, variables).getResultList()),
+                            decision.getKey() + " (compilé, sans index) " + variables);
+                }
+            }
+        }
+        assertEquals(Set.of("ANY", "COLLECT", "FIRST", "RULE_ORDER", "UNIQUE"), hitPolicies);
+        assertTrue((Long) compiled.getStatistics().get("indexedEvaluations") > 0);
+        assertTrue((Long) compiledWithoutIndex.getStatistics().get("compiledEvaluations") > 0);
+    }
+
+    /**
+     * Fichiers DMN d'exemple des ressources de test
+     */
+    private static List<Path> sampleDmnFiles() throws IOException {
+        try (Stream<Path> files = Files.list(sampleDirectory())) {
+            List<Path> samples = files.filter(file -> file.getFileName().toString().endsWith(".dmn"))
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertFalse(samples.isEmpty(), "Aucun fichier DMN d'exemple dans " + SAMPLE_DIRECTORY);
+            return samples;
+        }
+    }
+
+    private static Path sampleDirectory() {
+        try {
+            return Paths.get(DmnFeelCompilerTest.class.getResource(SAMPLE_DIRECTORY).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<DmnDecision> parse(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return dmnDecisionCache.getDmnEngine().parseDecisions(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Valeurs de test d'une colonne: constantes des règles et leurs voisines, null et un type inattendu
+     */
+    private List<Object> valuePool(DmnDecision decision, int column) {
+        DmnDecisionTableImpl table = table(decision);
+        String type = table.getInputs().get(column).getExpression().getTypeDefinition().getTypeName();
+        Set<Object> pool = new LinkedHashSet<>();
+        pool.add(null);
+        for (DmnDecisionTableRuleImpl rule : table.getRules()) {
+            String entry = rule.getConditions().get(column).getExpression();
+            if (entry == null) {
+                continue;
+            }
+            Matcher quoted = QUOTED.matcher(entry);
+            while (quoted.find()) {
+                pool.add(quoted.group(1));
+            }
+            Matcher number = NUMBER.matcher(entry.replaceAll("\"[^\"]*\"", ""));
+            while (number.find()) {
+                BigDecimal value = new BigDecimal(number.group());
+                pool.add(value.intValue());
+                pool.add(value.intValue() - 1);
+                pool.add(value.intValue() + 1);
+                pool.add(value.doubleValue() + 0.5);
+            }
+        }
+        switch (type) {
+            case "string":
+                pool.add("AUTRE");
+                pool.add(12);
+                break;
+            case "boolean":
+                pool.add(true);
+                pool.add(false);
+                break;
+            default:
+                pool.add("texte");
+        }
+        return new ArrayList<>(pool);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(Map<String, Object> variables, String path, Object value) {
+        String[] segments = path.split("\\.");
+        Map<String, Object> current = variables;
+        for (int i = 0; i < segments.length - 1; i++) {
+            current = (Map<String, Object>) current.computeIfAbsent(segments[i], k -> new HashMap<String, Object>());
+        }
+        current.put(segments[segments.length - 1], value);
+    }
+
+    private DmnDecisionTableImpl table(DmnDecision decision) {
+        return (DmnDecisionTableImpl) ((DmnDecisionImpl) decision).getDecisionLogic();
+    }
+
+    private Object outcome(java.util.function.Supplier<Object> evaluation) {
+        try {
+            return evaluation.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.safalifter.jobservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safalifter.jobservice.repository.DmnDecisionHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DmnHistoryServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DmnDecisionHistoryRepository historyRepository;
+
+    private DmnHistoryService dmnHistoryService;
+
+    @AfterEach
+    void tearDown() {
+        if (dmnHistoryService != null) {
+            dmnHistoryService.shutdown();
+        }
+    }
+
+    @Test
+    void testEventsAreWrittenInJdbcBatches() throws Exception {
+        // Given
+        dmnHistoryService = historyService(100, 10, DmnHistoryService.OverflowPolicy.DROP);
+        ArgumentCaptor<BatchPreparedStatementSetter> setters = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        when(jdbcTemplate.batchUpdate(anyString(), setters.capture())).thenReturn(new int[0]);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(dmnHistoryService.record(event(i)));
+        }
+
+        // When
+        dmnHistoryService.drain();
+
+        // Then
+        List<BatchPreparedStatementSetter> batches = setters.getAllValues();
+        assertEquals(List.of(10, 10, 5), batches.stream().map(BatchPreparedStatementSetter::getBatchSize).toList());
+        PreparedStatement statement = mock(PreparedStatement.class);
+        batches.get(0).setValues(statement, 0);
+        verify(statement).setObject(2, "eligibility");
+        verify(statement).setObject(7, "{\"age\":0}");
+        assertEquals(25L, dmnHistoryService.getStatistics().get("written"));
+    }
+
+    @Test
+    void testFullQueueDropsOrBlocksThenDrops() {
+        // Given: le thread d'écriture n'est pas démarré, la file se remplit
+        dmnHistoryService = historyService(2, 10, DmnHistoryService.OverflowPolicy.DROP);
+        dmnHistoryService.record(event(1));
+        dmnHistoryService.record(event(2));
+
+        // When / Then
+        assertFalse(dmnHistoryService.record(event(3)));
+        assertEquals(1L, dmnHistoryService.getStatistics().get("dropped"));
+
+        DmnHistoryService blocking = historyService(1, 10, DmnHistoryService.OverflowPolicy.BLOCK);
+        blocking.record(event(1));
+        long start = System.nanoTime();
+        assertFalse(blocking.record(event(2)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testBackgroundWriterFlushesWithoutBlockingCallers() throws Exception {
+        // Given
+        dmnHistoryService = historyService(100, 50, DmnHistoryService.OverflowPolicy.DROP);
+        CountDownLatch written = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            written.countDown();
+            return new int[0];
+        });
+        dmnHistoryService.start();
+
+        // When
+        dmnHistoryService.record(event(1));
+
+        // Then
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        Map<String, Object> stats = dmnHistoryService.getStatistics();
+        assertEquals(1L, stats.get("recorded"));
+        assertEquals(0L, stats.get("dropped"));
+    }
+
+    private DmnHistoryService historyService(int capacity, int batchSize, DmnHistoryService.OverflowPolicy policy) {
+        return new DmnHistoryService(jdbcTemplate, historyRepository, new ObjectMapper(), true, capacity,
+                batchSize, 50, policy, 20);
+    }
+
+    private DmnHistoryService.Event event(int age) {
+        return DmnHistoryService.Event.builder()
+                .decisionKey("eligibility")
+                .decisionVersion("1")
+                .source(DmnHistoryService.SOURCE_API)
+                .inputs(Map.of("age", age))
+                .outputs(List.of(Map.of("eligible", age >= 18)))
+                .durationMicros(12L)
+                .build();
+    }
+}
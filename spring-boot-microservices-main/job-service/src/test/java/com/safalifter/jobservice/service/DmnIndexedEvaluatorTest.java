@@ -0,0 +1,157 @@
+package com.safalifter.jobservice.service;
+
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DmnIndexedEvaluatorTest {
+
+    private static final String[] CATEGORIES = {"A", "B", "C", "D", "E"};
+
+    private DmnDecisionCache dmnDecisionCache;
+    private DmnIndexedEvaluator indexedEvaluator;
+    private int ruleId;
+
+    @BeforeEach
+    void setUp() {
+        dmnDecisionCache = new DmnDecisionCache(16);
+        indexedEvaluator = new DmnIndexedEvaluator(dmnDecisionCache, true, false);
+    }
+
+    @Test
+    void testEligibilityDecisionMatchesStandardEngine() throws Exception {
+        // Given
+        DmnDecision decision;
+        try (InputStream inputStream = getClass().getResourceAsStream("/dmn/eligibility_decision.dmn")) {
+            decision = dmnDecisionCache.getDmnEngine().parseDecision("eligibility", inputStream);
+        }
+
+        // When / Then
+        for (int age = -5; age <= 100; age++) {
+            assertSameOutcome(decision, Map.of("age", age));
+        }
+        assertSameOutcome(decision, Map.of("age", "42"));
+        assertSameOutcome(decision, Collections.singletonMap("age", null));
+        assertSameOutcome(decision, Map.of());
+        assertTrue((Long) indexedEvaluator.getStatistics().get("indexedEvaluations") > 100);
+    }
+
+    @Test
+    void testGeneratedTableMatchesStandardEngineForAllHitPolicies() {
+        for (String hitPolicy : List.of("FIRST", "UNIQUE", "ANY", "COLLECT", "RULE ORDER")) {
+            // Given
+            DmnDecision decision = parse(generateTable(hitPolicy, 300));
+            Random random = new Random(42);
+
+            // When / Then
+            for (int i = 0; i < 500; i++) {
+                Map<String, Object> variables = new HashMap<>();
+                variables.put("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                variables.put("amount", random.nextInt(1200) - 100);
+                variables.put("vip", random.nextBoolean());
+                assertSameOutcome(decision, variables);
+            }
+        }
+        assertTrue((Long) indexedEvaluator.getStatistics().get("indexedEvaluations") > 1000);
+    }
+
+    @Test
+    void testUniqueTableWithoutOverlapIsEvaluatedByIndex() {
+        // Given
+        StringBuilder rules = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            rules.append(rule("\"C" + i + "\"", "[" + (i * 10) + ".." + (i * 10 + 10) + "[", "-", "\"R" + i + "\"", String.valueOf(i)));
+        }
+        DmnDecision decision = parse(table("UNIQUE", rules.toString()));
+
+        // When
+        DmnDecisionResult result = indexedEvaluator.evaluate(decision, Map.of("category", "C7", "amount", 75, "vip", false));
+
+        // Then
+        assertEquals("R7", result.getSingleResult().get("label"));
+        assertEquals(1L, indexedEvaluator.getStatistics().get("indexedEvaluations"));
+        assertEquals(0L, indexedEvaluator.getStatistics().get("fallbacks"));
+    }
+
+    private void assertSameOutcome(DmnDecision decision, Map<String, Object> variables) {
+        Object expected;
+        try {
+            expected = dmnDecisionCache.getDmnEngine().evaluateDecision(decision, variables).getResultList();
+        } catch (RuntimeException e) {
+            expected = e.getClass();
+        }
+        Object actual;
+        try {
+            actual = indexedEvaluator.evaluate(decision, variables).getResultList();
+        } catch (RuntimeException e) {
+            actual = e.getClass();
+        }
+        assertEquals(expected, actual, "Résultat différent pour " + variables);
+    }
+
+    private DmnDecision parse(String xml) {
+        return dmnDecisionCache.getDmnEngine().parseDecision("generated",
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String generateTable(String hitPolicy, int ruleCount) {
+        Random random = new Random(7);
+        StringBuilder rules = new StringBuilder();
+        for (int i = 0; i < ruleCount; i++) {
+            String category;
+            switch (random.nextInt(5)) {
+                case 0: category = "-"; break;
+                case 1: category = "\"A\",\"B\""; break;
+                case 2: category = "not(\"C\")"; break;
+                default: category = "\"" + CATEGORIES[random.nextInt(CATEGORIES.length)] + "\"";
+            }
+            int low = random.nextInt(1000);
+            String amount;
+            switch (random.nextInt(6)) {
+                case 0: amount = ""; break;
+                case 1: amount = "&lt; " + low; break;
+                case 2: amount = "&gt;= " + low; break;
+                case 3: amount = "]" + low + ".." + (low + random.nextInt(200)) + "]"; break;
+                case 4: amount = String.valueOf(low) + "," + (low + 1); break;
+                default: amount = "[" + low + ".." + (low + random.nextInt(200)) + ")";
+            }
+            String vip = random.nextInt(3) == 0 ? "-" : String.valueOf(random.nextBoolean());
+            rules.append(rule(category, amount, vip, "\"R" + i + "\"", String.valueOf(random.nextInt(10))));
+        }
+        return table(hitPolicy, rules.toString());
+    }
+
+    private String rule(String category, String amount, String vip, String label, String score) {
+        ruleId++;
+        return "<rule id=\"rule_" + ruleId + "\">"
+                + "<inputEntry><text>" + category + "</text></inputEntry>"
+                + "<inputEntry><text>" + amount + "</text></inputEntry>"
+                + "<inputEntry><text>" + vip + "</text></inputEntry>"
+                + "<outputEntry><text>" + label + "</text></outputEntry>"
+                + "<outputEntry><text>" + score + "</text></outputEntry>"
+                + "</rule>";
+    }
+
+    private String table(String hitPolicy, String rules) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<definitions xmlns=\"https://www.omg.org/spec/DMN/20191111/MODEL/\" id=\"generated_definitions\""
+                + " name=\"Generated\" namespace=\"http://camunda.org/schema/1.0/dmn\">"
+                + "<decision id=\"generated\" name=\"Generated\">"
+                + "<decisionTable id=\"generated_table\" hitPolicy=\"" + hitPolicy + "\">"
+                + "<input id=\"in_category\"><inputExpression typeRef=\"string\"><text>category</text></inputExpression></input>"
+                + "<input id=\"in_amount\"><inputExpression typeRef=\"integer\"><text>amount</text></inputExpression></input>"
+                + "<input id=\"in_vip\"><inputExpression typeRef=\"boolean\"><text>vip</text></inputExpression></input>"
+                + "<output id=\"out_label\" name=\"label\" typeRef=\"string\"/>"
+                + "<output id=\"out_score\" name=\"score\" typeRef=\"integer\"/>"
+                + rules
+                + "</decisionTable></decision></definitions>";
+    }
+}
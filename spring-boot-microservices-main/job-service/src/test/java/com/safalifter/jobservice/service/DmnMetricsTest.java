@@ -0,0 +1,151 @@
+package com.safalifter.jobservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.engine.impl.dmn.invocation.DecisionInvocation;
+import org.camunda.bpm.engine.repository.DecisionDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DmnMetricsTest {
+
+    @Test
+    void testIndexedAndStandardEvaluationsCountSameRules() throws IOException {
+        for (boolean indexed : new boolean[]{true, false}) {
+            // Given
+            MeterRegistry registry = new SimpleMeterRegistry();
+            DmnDecisionCache dmnDecisionCache = new DmnDecisionCache(16);
+            new DmnMetrics(registry, dmnDecisionCache, true, 100, 200);
+            DmnIndexedEvaluator evaluator = new DmnIndexedEvaluator(dmnDecisionCache, indexed, true);
+            DmnDecision decision = parse(dmnDecisionCache, "/dmn/eligibility_decision.dmn", "eligibility");
+
+            // When
+            for (int age : new int[]{10, 30, 40, 70}) {
+                evaluator.evaluate(decision, Map.of("age", age));
+            }
+            Map<String, Object> noAge = new HashMap<>();
+            noAge.put("age", null);
+            evaluator.evaluate(decision, noAge);
+
+            // Then
+            assertEquals(1.0, ruleHits(registry, "eligibility", "Rule_1"), "indexé: " + indexed);
+            assertEquals(2.0, ruleHits(registry, "eligibility", "Rule_2"), "indexé: " + indexed);
+            assertEquals(1.0, ruleHits(registry, "eligibility", "Rule_3"), "indexé: " + indexed);
+            assertEquals(1.0, registry.get("dmn.rule.no.match").tag("decision", "eligibility")
+                    .tag("source", DmnMetrics.SOURCE_API).counter().count(), "indexé: " + indexed);
+        }
+    }
+
+    @Test
+    void testRulesNeverMatchedAreVisibleAtZero() throws IOException {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DmnDecisionCache dmnDecisionCache = new DmnDecisionCache(16);
+        new DmnMetrics(registry, dmnDecisionCache, true, 100, 200);
+        DmnDecision decision = parse(dmnDecisionCache, "/dmn/eligibility_decision.dmn", "eligibility");
+
+        // When
+        dmnDecisionCache.getDmnEngine().evaluateDecision(decision, Map.of("age", 30));
+
+        // Then
+        assertEquals(0.0, ruleHits(registry, "eligibility", "Rule_1"));
+        assertEquals(1.0, ruleHits(registry, "eligibility", "Rule_2"));
+        assertEquals(0.0, ruleHits(registry, "eligibility", "Rule_3"));
+    }
+
+    @Test
+    void testDrdNodesRecordRulesOncePerEvaluation() throws IOException {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DmnDecisionCache dmnDecisionCache = new DmnDecisionCache(16);
+        new DmnMetrics(registry, dmnDecisionCache, true, 100, 200);
+        DmnDrdEvaluator drdEvaluator = new DmnDrdEvaluator(dmnDecisionCache,
+                new DmnIndexedEvaluator(dmnDecisionCache, true, true), 2);
+        DmnDecision loanOffer = parse(dmnDecisionCache, "/dmn/loan_offer_drd.dmn", "loan_offer");
+
+        try {
+            // When
+            drdEvaluator.evaluate(loanOffer, Map.of("income", 70000, "clientType", "VIP", "channel", "BRANCH"));
+
+            // Then: COLLECT retient les trois règles, les autres tables une seule
+            assertEquals(1.0, ruleHits(registry, "channel_fees", "channel_fees_rule_1"));
+            assertEquals(1.0, ruleHits(registry, "channel_fees", "channel_fees_rule_2"));
+            assertEquals(1.0, ruleHits(registry, "channel_fees", "channel_fees_rule_3"));
+            assertEquals(1.0, ruleHits(registry, "risk_class", "risk_class_rule_3"));
+            assertEquals(1.0, ruleHits(registry, "segment", "segment_rule_1"));
+            assertEquals(1.0, ruleHits(registry, "loan_offer", "loan_offer_rule_3"));
+            assertEquals(1.0, registry.find("dmn.rule.hits").tag("decision", "loan_offer").counters().stream()
+                    .mapToDouble(Counter::count).sum());
+        } finally {
+            drdEvaluator.shutdown();
+        }
+    }
+
+    @Test
+    void testDecisionTagsAreBounded() {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DmnMetrics dmnMetrics = new DmnMetrics(registry, new DmnDecisionCache(16), true, 2, 200);
+
+        // When
+        for (String decisionKey : new String[]{"a", "b", "c", "d", "a"}) {
+            dmnMetrics.recordEvaluation(decisionKey, DmnMetrics.SOURCE_API, 1_000_000, true);
+        }
+
+        // Then
+        assertEquals(2, timer(registry, "a").count());
+        assertEquals(1, timer(registry, "b").count());
+        assertEquals(2, timer(registry, DmnMetrics.OTHER).count());
+        assertNull(registry.find("dmn.evaluation").tag("decision", "c").timer());
+    }
+
+    @Test
+    void testEngineInterceptorTimesDecisionInvocations() throws Exception {
+        // Given
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DmnMetrics dmnMetrics = new DmnMetrics(registry, new DmnDecisionCache(16), true, 100, 200);
+        DecisionDefinition definition = mock(DecisionDefinition.class);
+        when(definition.getKey()).thenReturn("eligibility");
+        DecisionInvocation invocation = mock(DecisionInvocation.class);
+        when(invocation.getDecisionDefinition()).thenReturn(definition);
+        DmnMetricsDelegateInterceptor succeeding = new DmnMetricsDelegateInterceptor(i -> { }, dmnMetrics);
+        DmnMetricsDelegateInterceptor failing = new DmnMetricsDelegateInterceptor(i -> {
+            throw new IllegalStateException("échec");
+        }, dmnMetrics);
+
+        // When
+        succeeding.handleInvocation(invocation);
+        assertThrows(IllegalStateException.class, () -> failing.handleInvocation(invocation));
+
+        // Then
+        assertEquals(1, registry.get("dmn.evaluation").tag("decision", "eligibility")
+                .tag("source", DmnMetrics.SOURCE_ENGINE).tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("dmn.evaluation").tag("decision", "eligibility")
+                .tag("source", DmnMetrics.SOURCE_ENGINE).tag("outcome", "error").timer().count());
+    }
+
+    private double ruleHits(MeterRegistry registry, String decisionKey, String ruleId) {
+        return registry.get("dmn.rule.hits").tag("decision", decisionKey).tag("rule", ruleId).counter().count();
+    }
+
+    private Timer timer(MeterRegistry registry, String decisionTag) {
+        return registry.get("dmn.evaluation").tag("decision", decisionTag).timer();
+    }
+
+    private DmnDecision parse(DmnDecisionCache dmnDecisionCache, String path, String decisionKey) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream(path)) {
+            return dmnDecisionCache.getDmnEngine().parseDecision(decisionKey, inputStream);
+        }
+    }
+}
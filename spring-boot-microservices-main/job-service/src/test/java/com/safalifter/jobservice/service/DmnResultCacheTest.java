@@ -0,0 +1,184 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.config.DmnResultCacheProperties;
+import org.camunda.bpm.dmn.engine.DmnDecision;
+import org.camunda.bpm.dmn.engine.DmnDecisionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DmnResultCacheTest {
+
+    private DmnDecisionCache dmnDecisionCache;
+    private DmnResultCacheProperties properties;
+    private DmnResultCache dmnResultCache;
+    private DmnDecision decision;
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dmnDecisionCache = new DmnDecisionCache(16);
+        properties = new DmnResultCacheProperties();
+        dmnResultCache = new DmnResultCache(properties);
+        try (InputStream inputStream = getClass().getResourceAsStream("/dmn/eligibility_decision.dmn")) {
+            decision = dmnDecisionCache.getDmnEngine().parseDecision("eligibility", inputStream);
+        }
+    }
+
+    @Test
+    void testResultIsMemoizedOnReadVariablesOnly() {
+        // Given
+        enable("eligibility", 100, Duration.ofMinutes(5), DmnResultCacheProperties.EvictionPolicy.LRU);
+
+        // When
+        DmnDecisionResult first = evaluate(Map.of("age", 30, "requestId", "a"));
+        DmnDecisionResult second = evaluate(Map.of("age", 30, "requestId", "b"));
+        evaluate(Map.of("age", 30L));
+
+        // Then
+        assertSame(first, second);
+        assertEquals(true, second.getSingleResult().getEntry("eligible"));
+        assertEquals(2, evaluations.get());
+        Map<String, Object> stats = stats("eligibility");
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(List.of("age"), stats.get("readVariables"));
+    }
+
+    @Test
+    void testDisabledDecisionIsNotCached() {
+        // When
+        evaluate(Map.of("age", 30));
+        evaluate(Map.of("age", 30));
+
+        // Then
+        assertEquals(2, evaluations.get());
+        assertTrue(dmnResultCache.getStatistics().isEmpty());
+    }
+
+    @Test
+    void testLruAndLfuEviction() {
+        // Given
+        enable("eligibility", 2, Duration.ZERO, DmnResultCacheProperties.EvictionPolicy.LFU);
+
+        // When: 10 est lu souvent, 20 une seule fois, puis 30 force une éviction
+        evaluate(Map.of("age", 10));
+        evaluate(Map.of("age", 10));
+        evaluate(Map.of("age", 10));
+        evaluate(Map.of("age", 20));
+        evaluate(Map.of("age", 30));
+        int before = evaluations.get();
+        evaluate(Map.of("age", 10));
+
+        // Then
+        assertEquals(before, evaluations.get());
+        assertEquals(1L, stats("eligibility").get("evictions"));
+
+        // Given: en LRU, l'entrée la moins récemment utilisée part en premier
+        enable("lru", 2, Duration.ZERO, DmnResultCacheProperties.EvictionPolicy.LRU);
+        evaluations.set(0);
+        evaluate("lru", Map.of("age", 10));
+        evaluate("lru", Map.of("age", 20));
+        evaluate("lru", Map.of("age", 10));
+        evaluate("lru", Map.of("age", 30));
+        evaluate("lru", Map.of("age", 20));
+        assertEquals(4, evaluations.get());
+    }
+
+    @Test
+    void testExpiredEntriesAndInvalidation() throws InterruptedException {
+        // Given
+        enable("eligibility", 10, Duration.ofMillis(20), DmnResultCacheProperties.EvictionPolicy.LRU);
+        evaluate(Map.of("age", 40));
+
+        // When
+        Thread.sleep(40);
+        evaluate(Map.of("age", 40));
+        dmnResultCache.invalidate("eligibility");
+        evaluate(Map.of("age", 40));
+
+        // Then
+        assertEquals(3, evaluations.get());
+        Map<String, Object> stats = stats("eligibility");
+        assertEquals(1L, stats.get("expirations"));
+        assertEquals(1L, stats.get("flushes"));
+    }
+
+    @Test
+    void testDecisionReadingOtherVariablesIsNotMemoizable() {
+        // Given
+        String xml = readResource().replace("&lt; 18", "&lt; limit");
+        DmnDecision dynamic = dmnDecisionCache.getDmnEngine().parseDecision("eligibility",
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        enable("eligibility", 10, Duration.ZERO, DmnResultCacheProperties.EvictionPolicy.LRU);
+
+        // When
+        Map<String, Object> variables = new HashMap<>(Map.of("age", 20, "limit", 21));
+        dmnResultCache.getOrEvaluate("eligibility", dynamic, "1", variables, () -> count(dynamic, variables));
+        dmnResultCache.getOrEvaluate("eligibility", dynamic, "1", variables, () -> count(dynamic, variables));
+
+        // Then
+        assertEquals(2, evaluations.get());
+        assertEquals(false, stats("eligibility").get("memoizable"));
+    }
+
+    @Test
+    void testCanonicalKeyDistinguishesTypesAndIgnoresMapOrder() {
+        List<DmnFeelCompiler.VariablePath> paths = List.of(DmnFeelCompiler.compilePath("client"));
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", "x");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", "x");
+        second.put("a", 1);
+
+        assertEquals(DmnResultCache.encodeKey("1", paths, Map.of("client", first)),
+                DmnResultCache.encodeKey("1", paths, Map.of("client", second)));
+        assertNotEquals(DmnResultCache.encodeKey("1", paths, Map.of("client", 5)),
+                DmnResultCache.encodeKey("1", paths, Map.of("client", 5.0)));
+        assertNotEquals(DmnResultCache.encodeKey("1", paths, Map.of("client", 5)),
+                DmnResultCache.encodeKey("2", paths, Map.of("client", 5)));
+        assertNull(DmnResultCache.encodeKey("1", paths, Map.of("client", new Object())));
+    }
+
+    private void enable(String decisionKey, int maxSize, Duration ttl, DmnResultCacheProperties.EvictionPolicy eviction) {
+        DmnResultCacheProperties.DecisionSettings settings = new DmnResultCacheProperties.DecisionSettings();
+        settings.setMaxSize(maxSize);
+        settings.setTtl(ttl);
+        settings.setEviction(eviction);
+        properties.getDecisions().put(decisionKey, settings);
+    }
+
+    private DmnDecisionResult evaluate(Map<String, Object> variables) {
+        return evaluate("eligibility", variables);
+    }
+
+    private DmnDecisionResult evaluate(String decisionKey, Map<String, Object> variables) {
+        return dmnResultCache.getOrEvaluate(decisionKey, decision, "1", variables, () -> count(decision, variables));
+    }
+
+    private DmnDecisionResult count(DmnDecision target, Map<String, Object> variables) {
+        evaluations.incrementAndGet();
+        return dmnDecisionCache.getDmnEngine().evaluateDecision(target, variables);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String decisionKey) {
+        return (Map<String, Object>) dmnResultCache.getStatistics().get(decisionKey);
+    }
+
+    private String readResource() {
+        try (InputStream inputStream = getClass().getResourceAsStream("/dmn/eligibility_decision.dmn")) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.config.DmnResultCacheProperties;
+import com.safalifter.jobservice.dto.DmnDecisionNodeTraceDto;
+import com.safalifter.jobservice.dto.DmnDecisionTraceDto;
+import com.safalifter.jobservice.dto.DmnDefinitionVersionView;
+import com.safalifter.jobservice.dto.DmnDeploymentResponseDto;
+import com.safalifter.jobservice.dto.DmnXmlUpdateDto;
+import com.safalifter.jobservice.model.DmnDefinition;
+import com.safalifter.jobservice.model.DmnLatestVersion;
+import com.safalifter.jobservice.repository.DmnDefinitionRepository;
+import com.safalifter.jobservice.repository.DmnDefinitionXmlRepository;
+import com.safalifter.jobservice.repository.DmnLatestVersionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.repository.Deployment;
+import org.camunda.bpm.engine.repository.DeploymentBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DmnServiceTest {
+
+    @Mock
+    private DmnDefinitionRepository dmnDefinitionRepository;
+
+    @Mock
+    private DmnLatestVersionRepository dmnLatestVersionRepository;
+
+    @Mock
+    private DmnDefinitionXmlRepository dmnDefinitionXmlRepository;
+
+    @Mock
+    private RepositoryService repositoryService;
+
+    @Mock
+    private DmnHistoryService dmnHistoryService;
+
+    private DmnDecisionCache dmnDecisionCache;
+    private DmnService dmnService;
+    private DmnDefinition dmnDefinition;
+
+    private final String decisionKey = "eligibility";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dmnDecisionCache = new DmnDecisionCache(16);
+        DmnIndexedEvaluator dmnIndexedEvaluator = new DmnIndexedEvaluator(dmnDecisionCache, false, true);
+        dmnService = new DmnService(dmnDefinitionRepository, dmnLatestVersionRepository,
+                dmnDefinitionXmlRepository, repositoryService, dmnDecisionCache, dmnIndexedEvaluator,
+                new DmnResultCache(new DmnResultCacheProperties()), dmnHistoryService,
+                new DmnDrdEvaluator(dmnDecisionCache, dmnIndexedEvaluator, 2),
+                new DmnMetrics(new SimpleMeterRegistry(), dmnDecisionCache, true, 100, 200));
+
+        dmnDefinition = DmnDefinition.builder()
+                .id("dmn-1")
+                .decisionKey(decisionKey)
+                .version(1)
+                .deployed(true)
+                .xml(readResource("/dmn/eligibility_decision.dmn"))
+                .build();
+    }
+
+    @Test
+    void testEvaluateDecisionParsesOnlyOncePerVersion() {
+        // Given
+        when(dmnLatestVersionRepository.findById(decisionKey)).thenReturn(Optional.of(latestVersion(dmnDefinition)));
+        when(dmnDefinitionRepository.findById("dmn-1")).thenReturn(Optional.of(dmnDefinition));
+
+        // When
+        Map<String, Object> young = dmnService.evaluateDecision(decisionKey, Map.of("age", 10));
+        Map<String, Object> adult = dmnService.evaluateDecision(decisionKey, Map.of("age", 30));
+
+        // Then
+        assertEquals(false, young.get("eligible"));
+        assertEquals(true, adult.get("eligible"));
+        verify(dmnDefinitionRepository, times(1)).findById("dmn-1");
+        verify(dmnHistoryService, times(2)).record(any());
+
+        Map<String, Object> stats = dmnService.getDecisionCacheStatistics();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testUpdateDmnXmlInvalidatesCachedDecision() {
+        // Given
+        when(dmnLatestVersionRepository.findById(decisionKey)).thenReturn(Optional.of(latestVersion(dmnDefinition)));
+        when(dmnDefinitionRepository.findById("dmn-1")).thenReturn(Optional.of(dmnDefinition));
+        when(dmnDefinitionRepository.save(any(DmnDefinition.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        dmnService.evaluateDecision(decisionKey, Map.of("age", 30));
+
+        // When
+        String updatedXml = dmnDefinition.getXml().replace("[18..65)", "[18..70)");
+        dmnService.updateDmnXml("dmn-1", DmnXmlUpdateDto.builder().xml(updatedXml).build());
+        Map<String, Object> result = dmnService.evaluateDecision(decisionKey, Map.of("age", 67));
+
+        // Then
+        assertEquals(true, result.get("eligible"));
+        assertEquals(1L, dmnService.getDecisionCacheStatistics().get("invalidations"));
+    }
+
+    @Test
+    void testEvaluateDrdUsesRootDecisionAndReturnsTrace() throws IOException {
+        // Given: la première décision du fichier est une décision requise, pas la racine
+        DmnDefinition drd = DmnDefinition.builder()
+                .id("dmn-2")
+                .decisionKey("loan_offer")
+                .version(1)
+                .deployed(true)
+                .xml(readResource("/dmn/loan_offer_drd.dmn"))
+                .build();
+        when(dmnLatestVersionRepository.findById("loan_offer")).thenReturn(Optional.of(latestVersion(drd)));
+        when(dmnDefinitionRepository.findById("dmn-2")).thenReturn(Optional.of(drd));
+        Map<String, Object> variables = Map.of("income", 70000, "clientType", "PRO", "channel", "WEB");
+
+        // When
+        Map<String, Object> result = dmnService.evaluateDecision("loan_offer", variables);
+        DmnDecisionTraceDto trace = dmnService.evaluateDecisionWithTrace("loan_offer", variables);
+
+        // Then
+        assertEquals("PREMIUM_FREE", result.get("offer"));
+        assertEquals("PREMIUM_FREE", trace.getResult().get("offer"));
+        assertEquals(List.of("customer_score", "risk_class", "segment", "channel_fees", "loan_offer"),
+                trace.getNodes().stream().map(DmnDecisionNodeTraceDto::getDecisionKey).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testDeployComputesNextVersionNumerically() throws Exception {
+        // Given: la version 9 est la dernière ("10" était trié avant "9" quand la version était une chaîne)
+        when(dmnLatestVersionRepository.findById(decisionKey)).thenReturn(Optional.of(DmnLatestVersion.builder()
+                .decisionKey(decisionKey).definitionId("dmn-9").version(9).deployed(true).build()));
+        DeploymentBuilder deploymentBuilder = mock(DeploymentBuilder.class);
+        Deployment deployment = mock(Deployment.class);
+        when(repositoryService.createDeployment()).thenReturn(deploymentBuilder);
+        when(deploymentBuilder.addString(anyString(), anyString())).thenReturn(deploymentBuilder);
+        when(deploymentBuilder.name(anyString())).thenReturn(deploymentBuilder);
+        when(deploymentBuilder.deploy()).thenReturn(deployment);
+        when(deployment.getId()).thenReturn("deployment-10");
+        when(dmnDefinitionRepository.save(any(DmnDefinition.class))).thenAnswer(invocation -> {
+            DmnDefinition saved = invocation.getArgument(0);
+            saved.setId("dmn-10");
+            return saved;
+        });
+        MockMultipartFile file = new MockMultipartFile("file", "eligibility.dmn", "application/xml",
+                dmnDefinition.getXml().getBytes(StandardCharsets.UTF_8));
+
+        // When
+        DmnDeploymentResponseDto response = dmnService.deployDmnFile(file);
+
+        // Then
+        assertEquals("10", response.getVersion());
+        ArgumentCaptor<DmnLatestVersion> pointer = ArgumentCaptor.forClass(DmnLatestVersion.class);
+        verify(dmnLatestVersionRepository).save(pointer.capture());
+        assertEquals(10, pointer.getValue().getVersion());
+        assertEquals("dmn-10", pointer.getValue().getDefinitionId());
+        verify(dmnDefinitionRepository, never()).findFirstByDecisionKeyOrderByVersionDesc(anyString());
+    }
+
+    @Test
+    void testDeletingLatestVersionMovesPointerBack() {
+        // Given
+        DmnDefinition previous = DmnDefinition.builder().id("dmn-0").decisionKey(decisionKey).version(1).deployed(true).build();
+        dmnDefinition.setVersion(2);
+        when(dmnDefinitionRepository.findById("dmn-1")).thenReturn(Optional.of(dmnDefinition));
+        when(dmnLatestVersionRepository.findById(decisionKey)).thenReturn(Optional.of(latestVersion(dmnDefinition)));
+        when(dmnDefinitionRepository.findFirstByDecisionKeyOrderByVersionDesc(decisionKey))
+                .thenReturn(Optional.of(versionView(previous)));
+
+        // When
+        dmnService.deleteDmnDefinition("dmn-1");
+
+        // Then
+        ArgumentCaptor<DmnLatestVersion> pointer = ArgumentCaptor.forClass(DmnLatestVersion.class);
+        verify(dmnLatestVersionRepository).save(pointer.capture());
+        assertEquals(1, pointer.getValue().getVersion());
+        assertEquals("dmn-0", pointer.getValue().getDefinitionId());
+    }
+
+    @Test
+    void testSearchUsesProjectionAndEscapesPrefix() {
+        // Given
+        when(dmnDefinitionRepository.findSummaries(isNull(), eq(true), eq("Loan!_50!%"), any(Pageable.class)))
+                .thenReturn(Page.empty());
+
+        // When
+        dmnService.searchDmnDefinitions("", true, "Loan_50%", 0, 1000);
+
+        // Then: le XML n'est jamais chargé et la taille de page est plafonnée
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(dmnDefinitionRepository).findSummaries(isNull(), eq(true), eq("Loan!_50!%"), pageable.capture());
+        assertEquals(200, pageable.getValue().getPageSize());
+        verify(dmnDefinitionRepository, never()).findAll();
+    }
+
+    private DmnLatestVersion latestVersion(DmnDefinition definition) {
+        return DmnLatestVersion.builder()
+                .decisionKey(definition.getDecisionKey())
+                .definitionId(definition.getId())
+                .version(definition.getVersion())
+                .deployed(definition.isDeployed())
+                .build();
+    }
+
+    private DmnDefinitionVersionView versionView(DmnDefinition definition) {
+        return new DmnDefinitionVersionView() {
+            @Override
+            public String getId() {
+                return definition.getId();
+            }
+
+            @Override
+            public String getDecisionKey() {
+                return definition.getDecisionKey();
+            }
+
+            @Override
+            public Integer getVersion() {
+                return definition.getVersion();
+            }
+
+            @Override
+            public boolean isDeployed() {
+                return definition.isDeployed();
+            }
+        };
+    }
+
+    private String readResource(String path) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream(path)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
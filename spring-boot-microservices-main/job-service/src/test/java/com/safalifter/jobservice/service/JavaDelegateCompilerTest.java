@@ -0,0 +1,87 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.util.JavaDelegateTemplates;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaDelegateCompilerTest {
+
+    private static final String SOURCE = String.join("\n",
+            "package com.example.delegates;",
+            "",
+            "import org.camunda.bpm.engine.delegate.DelegateExecution;",
+            "",
+            "public class ScoringDelegate implements org.camunda.bpm.engine.delegate.JavaDelegate {",
+            "    static class Rule {",
+            "        int points() { return 10; }",
+            "    }",
+            "",
+            "    public void execute(DelegateExecution execution) {",
+            "        execution.setVariable(\"score\", new Rule().points());",
+            "    }",
+            "}");
+
+    private static JavaDelegateCompiler compiler;
+
+    @BeforeAll
+    static void setUp() {
+        compiler = new JavaDelegateCompiler();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        compiler.close();
+    }
+
+    @Test
+    void testCompiledClassesAreKeptInMemory() throws Exception {
+        // When
+        JavaDelegateCompiler.Result result = compiler.compile("com.example.delegates.ScoringDelegate", SOURCE);
+
+        // Then: classe principale et classe interne, chargeables depuis le bytecode empaqueté
+        assertTrue(result.isSuccess(), () -> result.getErrors().toString());
+        Map<String, byte[]> classes = JavaDelegateCompiler.unpack(JavaDelegateCompiler.pack(result.getClasses()));
+        assertEquals(Set.of("com.example.delegates.ScoringDelegate", "com.example.delegates.ScoringDelegate$Rule"),
+                classes.keySet());
+        Class<?> delegateClass = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytecode = classes.get(name);
+                if (bytecode == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytecode, 0, bytecode.length);
+            }
+        }.loadClass("com.example.delegates.ScoringDelegate");
+        assertTrue(JavaDelegate.class.isAssignableFrom(delegateClass));
+    }
+
+    @Test
+    void testSeveralSourcesInOneTaskAndErrorsPerClass() {
+        // Given: un source valide (modèle par défaut) et un source invalide
+        String logger = JavaDelegateTemplates.getLoggerTemplate("com.example.delegates", "LoggerJavaDelegate");
+        String broken = SOURCE.replace("ScoringDelegate", "BrokenDelegate").replace("new Rule().points()", "unknown()");
+
+        // When
+        JavaDelegateCompiler.Result together = compiler.compile(Map.of(
+                "com.example.delegates.LoggerJavaDelegate", logger,
+                "com.example.delegates.BrokenDelegate", broken));
+        JavaDelegateCompiler.Result alone = compiler.compile("com.example.delegates.LoggerJavaDelegate", logger);
+
+        // Then
+        assertFalse(together.isSuccess());
+        assertTrue(together.getClasses().isEmpty());
+        assertEquals(Set.of("com.example.delegates.BrokenDelegate"), together.getErrors().keySet());
+        assertTrue(together.getErrors().get("com.example.delegates.BrokenDelegate").get(0).startsWith("ligne 11"));
+        assertTrue(alone.isSuccess(), () -> alone.getErrors().toString());
+        assertTrue(alone.getClasses().containsKey("com.example.delegates.LoggerJavaDelegate"));
+    }
+}
@@ -0,0 +1,149 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.repository.JavaDelegateRepository;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JavaDelegateRegistryTest {
+
+    private static final String CLASS_NAME = "com.example.delegates.ScoringDelegate";
+
+    private static JavaDelegateCompiler compiler;
+    private DefaultListableBeanFactory beanFactory;
+    private JavaDelegateRegistry registry;
+
+    @BeforeAll
+    static void setUpCompiler() {
+        compiler = new JavaDelegateCompiler();
+    }
+
+    @AfterAll
+    static void tearDownCompiler() throws IOException {
+        compiler.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+        registry = new JavaDelegateRegistry(beanFactory, mock(JavaDelegateRepository.class));
+    }
+
+    @Test
+    void testUpdateSwapsVersionBehindSameBean() throws Exception {
+        // Given
+        load(1);
+        JavaDelegate bean = (JavaDelegate) beanFactory.getBean("scoringDelegate");
+        DelegateExecution execution = mock(DelegateExecution.class);
+
+        // When
+        bean.execute(execution);
+        load(2);
+        bean.execute(execution);
+
+        // Then: même bean, nouvelle version ; l'ancienne, inutilisée, est déchargée aussitôt
+        verify(execution).setVariable("score", 1);
+        verify(execution).setVariable("score", 2);
+        assertSame(bean, beanFactory.getBean("scoringDelegate"));
+        Map<String, Object> stats = registry.getStatistics();
+        assertEquals(1L, stats.get("unloadedVersions"));
+        assertEquals(0, stats.get("retiredVersions"));
+    }
+
+    @Test
+    void testOldVersionIsUnloadedWhenInFlightExecutionEnds() throws Exception {
+        // Given: une exécution de la version 1 bloquée
+        load(1);
+        JavaDelegate bean = (JavaDelegate) beanFactory.getBean("scoringDelegate");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        DelegateExecution slow = mock(DelegateExecution.class);
+        when(slow.getVariable("started")).thenReturn(started);
+        when(slow.getVariable("finish")).thenReturn(finish);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> inFlight = executor.submit(() -> {
+            bean.execute(slow);
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // When: mise à jour pendant l'exécution
+        load(2);
+        DelegateExecution fast = mock(DelegateExecution.class);
+        bean.execute(fast);
+
+        // Then: la version 1 attend la fin de son exécution pour être déchargée
+        verify(fast).setVariable("score", 2);
+        assertEquals(1, registry.getStatistics().get("retiredVersions"));
+        assertEquals(0L, registry.getStatistics().get("unloadedVersions"));
+        finish.countDown();
+        inFlight.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        verify(slow).setVariable("score", 1);
+        assertEquals(0, registry.getStatistics().get("retiredVersions"));
+        assertEquals(1L, registry.getStatistics().get("unloadedVersions"));
+    }
+
+    @Test
+    void testUnloadedDelegateRejectsExecutions() throws Exception {
+        // Given
+        load(1);
+        JavaDelegate bean = (JavaDelegate) beanFactory.getBean("scoringDelegate");
+
+        // When
+        registry.unload(CLASS_NAME);
+
+        // Then
+        assertFalse(registry.isLoaded(CLASS_NAME));
+        assertThrows(ProcessEngineException.class, () -> bean.execute(mock(DelegateExecution.class)));
+    }
+
+    @Test
+    void testExistingBeanNameIsNotReplaced() {
+        // Given
+        beanFactory.registerSingleton("scoringDelegate", new Object());
+
+        // When / Then
+        assertFalse(registry.load(CLASS_NAME, "v1", compile(1)));
+        assertFalse(registry.isLoaded(CLASS_NAME));
+    }
+
+    private void load(int score) {
+        assertTrue(registry.load(CLASS_NAME, "v" + score, compile(score)));
+    }
+
+    private static byte[] compile(int score) {
+        String source = String.join("\n",
+                "package com.example.delegates;",
+                "",
+                "import java.util.concurrent.CountDownLatch;",
+                "import java.util.concurrent.TimeUnit;",
+                "import org.camunda.bpm.engine.delegate.DelegateExecution;",
+                "",
+                "public class ScoringDelegate implements org.camunda.bpm.engine.delegate.JavaDelegate {",
+                "    public void execute(DelegateExecution execution) throws Exception {",
+                "        Object started = execution.getVariable(\"started\");",
+                "        if (started != null) {",
+                "            ((CountDownLatch) started).countDown();",
+                "            ((CountDownLatch) execution.getVariable(\"finish\")).await(10, TimeUnit.SECONDS);",
+                "        }",
+                "        execution.setVariable(\"score\", " + score + ");",
+                "    }",
+                "}");
+        JavaDelegateCompiler.Result result = compiler.compile(CLASS_NAME, source);
+        assertTrue(result.isSuccess(), () -> result.getErrors().toString());
+        return JavaDelegateCompiler.pack(result.getClasses());
+    }
+}
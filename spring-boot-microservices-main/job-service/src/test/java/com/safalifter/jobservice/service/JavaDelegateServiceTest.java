@@ -0,0 +1,155 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.JavaDelegateDTO;
+import com.safalifter.jobservice.dto.JavaDelegateRequest;
+import com.safalifter.jobservice.model.JavaDelegate;
+import com.safalifter.jobservice.repository.JavaDelegateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JavaDelegateServiceTest {
+
+    private static final String CLASS_NAME = "com.example.delegates.LoggerJavaDelegate";
+    private static final String SOURCE = String.join("\n",
+            "package com.example.delegates;",
+            "",
+            "public class LoggerJavaDelegate implements org.camunda.bpm.engine.delegate.JavaDelegate {",
+            "    public void execute(org.camunda.bpm.engine.delegate.DelegateExecution execution) {",
+            "        System.out.println(execution.getCurrentActivityId());",
+            "    }",
+            "}");
+
+    private JavaDelegateRepository javaDelegateRepository;
+    private JavaDelegateCompiler javaDelegateCompiler;
+    private JavaDelegateRegistry javaDelegateRegistry;
+    private JavaDelegateService javaDelegateService;
+
+    @BeforeEach
+    void setUp() {
+        javaDelegateRepository = mock(JavaDelegateRepository.class);
+        when(javaDelegateRepository.save(any(JavaDelegate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        javaDelegateCompiler = mock(JavaDelegateCompiler.class);
+        javaDelegateRegistry = mock(JavaDelegateRegistry.class);
+        javaDelegateService = new JavaDelegateService(javaDelegateRepository, javaDelegateCompiler, javaDelegateRegistry);
+    }
+
+    @Test
+    void testUnchangedSourceIsNotRecompiled() {
+        // Given: bytecode déjà enregistré pour ce source
+        byte[] bytecode = {1, 2, 3};
+        JavaDelegate existing = JavaDelegate.builder()
+                .className(CLASS_NAME)
+                .sourceCode(SOURCE)
+                .sourceHash(JavaDelegateCompiler.sourceHash(SOURCE))
+                .bytecode(bytecode)
+                .compiled(true)
+                .build();
+        when(javaDelegateRepository.findByClassName(CLASS_NAME)).thenReturn(Optional.of(existing));
+
+        // When
+        JavaDelegateDTO updated = javaDelegateService.updateJavaDelegate(CLASS_NAME, request(SOURCE));
+
+        // Then
+        assertTrue(updated.isCompiled());
+        assertSame(bytecode, existing.getBytecode());
+        verify(javaDelegateCompiler, never()).compile(anyString(), anyString());
+    }
+
+    @Test
+    void testChangedSourceStoresNewBytecode() {
+        // Given
+        String changedSource = SOURCE.replace("execute(", "execute (");
+        JavaDelegate existing = JavaDelegate.builder()
+                .className(CLASS_NAME)
+                .sourceCode(SOURCE)
+                .sourceHash(JavaDelegateCompiler.sourceHash(SOURCE))
+                .bytecode(new byte[]{1})
+                .build();
+        when(javaDelegateRepository.findByClassName(CLASS_NAME)).thenReturn(Optional.of(existing));
+        JavaDelegateCompiler.Result result = mock(JavaDelegateCompiler.Result.class);
+        when(result.isSuccess()).thenReturn(true);
+        when(result.getClasses()).thenReturn(Map.of(CLASS_NAME, new byte[]{7, 7}));
+        when(javaDelegateCompiler.compile(CLASS_NAME, changedSource)).thenReturn(result);
+
+        // When
+        JavaDelegateDTO updated = javaDelegateService.updateJavaDelegate(CLASS_NAME, request(changedSource));
+
+        // Then
+        assertTrue(updated.isCompiled());
+        assertEquals(JavaDelegateCompiler.sourceHash(changedSource), existing.getSourceHash());
+        assertArrayEquals(new byte[]{7, 7}, JavaDelegateCompiler.unpack(existing.getBytecode()).get(CLASS_NAME));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSyncCompilesChangedSourcesTogether() {
+        // Given: un delegate inchangé, deux nouveaux dont un en erreur
+        String scoring = SOURCE.replace("LoggerJavaDelegate", "ScoringDelegate");
+        String broken = SOURCE.replace("LoggerJavaDelegate", "BrokenDelegate");
+        when(javaDelegateRepository.findByClassNameIn(anyList())).thenReturn(List.of(JavaDelegate.builder()
+                .className(CLASS_NAME)
+                .sourceCode(SOURCE)
+                .sourceHash(JavaDelegateCompiler.sourceHash(SOURCE))
+                .bytecode(new byte[]{1})
+                .compiled(true)
+                .build()));
+        when(javaDelegateRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        JavaDelegateCompiler.Result failed = mock(JavaDelegateCompiler.Result.class);
+        when(failed.getErrors()).thenReturn(Map.of("com.example.delegates.BrokenDelegate", List.of("ligne 5: erreur")));
+        JavaDelegateCompiler.Result compiled = mock(JavaDelegateCompiler.Result.class);
+        when(compiled.isSuccess()).thenReturn(true);
+        when(compiled.getClasses("com.example.delegates.ScoringDelegate"))
+                .thenReturn(Map.of("com.example.delegates.ScoringDelegate", new byte[]{9}));
+        when(javaDelegateCompiler.compile(anyMap())).thenReturn(failed, compiled);
+
+        // When
+        JavaDelegateService.SyncResult result = javaDelegateService.syncJavaDelegates(List.of(
+                request(CLASS_NAME, SOURCE),
+                request("com.example.delegates.ScoringDelegate", scoring),
+                request("com.example.delegates.BrokenDelegate", broken)));
+
+        // Then: une passe pour les deux sources modifiés, puis une seconde sans le source en erreur
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getCompiled());
+        assertEquals(1, result.getFailed());
+        ArgumentCaptor<Map<String, String>> passes = ArgumentCaptor.forClass(Map.class);
+        verify(javaDelegateCompiler, times(2)).compile(passes.capture());
+        assertEquals(Set.of("com.example.delegates.ScoringDelegate", "com.example.delegates.BrokenDelegate"),
+                passes.getAllValues().get(0).keySet());
+        assertEquals(Set.of("com.example.delegates.ScoringDelegate"), passes.getAllValues().get(1).keySet());
+        verify(javaDelegateCompiler, never()).compile(anyString(), anyString());
+        ArgumentCaptor<List<JavaDelegate>> saved = ArgumentCaptor.forClass(List.class);
+        verify(javaDelegateRepository).saveAll(saved.capture());
+        Map<String, JavaDelegate> byClassName = saved.getValue().stream()
+                .collect(Collectors.toMap(JavaDelegate::getClassName, Function.identity()));
+        assertEquals(Set.of("com.example.delegates.ScoringDelegate", "com.example.delegates.BrokenDelegate"),
+                byClassName.keySet());
+        assertTrue(byClassName.get("com.example.delegates.ScoringDelegate").isCompiled());
+        assertNull(byClassName.get("com.example.delegates.BrokenDelegate").getBytecode());
+        verify(javaDelegateRegistry).loadAfterCommit(byClassName.get("com.example.delegates.ScoringDelegate"));
+    }
+
+    private static JavaDelegateRequest request(String sourceCode) {
+        return request(CLASS_NAME, sourceCode);
+    }
+
+    private static JavaDelegateRequest request(String className, String sourceCode) {
+        return JavaDelegateRequest.builder()
+                .name(className)
+                .description("Journalisation")
+                .sourceCode(sourceCode)
+                .build();
+    }
+}
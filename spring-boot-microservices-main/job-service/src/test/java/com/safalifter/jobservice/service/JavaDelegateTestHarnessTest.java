@@ -0,0 +1,89 @@
+package com.safalifter.jobservice.service;
+
+import com.safalifter.jobservice.dto.JavaDelegateTestResultDTO;
+import org.camunda.bpm.engine.delegate.JavaDelegate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JavaDelegateTestHarnessTest {
+
+    private static final String CLASS_NAME = "com.example.delegates.ApprovalDelegate";
+
+    private JavaDelegateRegistry registry;
+    private JavaDelegateTestHarness harness;
+
+    @BeforeEach
+    void setUp() {
+        registry = mock(JavaDelegateRegistry.class);
+        harness = new JavaDelegateTestHarness(registry, 10_000, 8, 30);
+    }
+
+    @Test
+    void testConcurrentRunMeasuresLatencyAndVariables() {
+        // Given: le delegate lit "amount" et écrit "approved"
+        JavaDelegate delegate = execution -> {
+            Integer amount = (Integer) execution.getVariable("amount");
+            execution.setVariable("approved", amount < 1000);
+        };
+        when(registry.getDelegate(CLASS_NAME)).thenReturn(delegate);
+
+        // When
+        JavaDelegateTestResultDTO result = harness.run(CLASS_NAME, Map.of(
+                "variables", Map.of("amount", 500, "customer", "ACME"),
+                "warmupIterations", 20,
+                "iterations", 400,
+                "concurrency", 4));
+
+        // Then
+        assertEquals(400, result.getIterations());
+        assertEquals(4, result.getConcurrency());
+        assertEquals(0, result.getErrors());
+        assertFalse(result.isTimedOut());
+        assertEquals(List.of("amount"), result.getVariablesRead());
+        assertEquals(Map.of("type", "Boolean", "value", true), result.getVariablesWritten().get("approved"));
+        assertTrue(result.getMinMs() <= result.getP50Ms());
+        assertTrue(result.getP50Ms() <= result.getP95Ms());
+        assertTrue(result.getP95Ms() <= result.getP99Ms());
+        assertTrue(result.getP99Ms() <= result.getMaxMs());
+        assertNotNull(result.getAllocatedBytesPerCall());
+    }
+
+    @Test
+    void testInlineVariablesAndErrorsAreReported() {
+        // Given: variables à la racine du corps, delegate en erreur
+        JavaDelegate delegate = execution -> {
+            if (execution.hasVariable("amount")) {
+                throw new IllegalStateException("montant refusé");
+            }
+        };
+        when(registry.getDelegate(CLASS_NAME)).thenReturn(delegate);
+
+        // When
+        JavaDelegateTestResultDTO result = harness.run(CLASS_NAME, Map.of("amount", 5000, "iterations", 10));
+
+        // Then
+        assertEquals(10, result.getErrors());
+        assertEquals("java.lang.IllegalStateException: montant refusé", result.getFirstError());
+        assertEquals(List.of("amount"), result.getVariablesRead());
+        assertTrue(result.getVariablesWritten().isEmpty());
+    }
+
+    @Test
+    void testInvalidRequestIsRejected() {
+        // Given
+        when(registry.getDelegate("inconnu")).thenThrow(new NoSuchElementException("JavaDelegate non chargé: inconnu"));
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> harness.run(CLASS_NAME, Map.of("iterations", 0)));
+        assertThrows(IllegalArgumentException.class, () -> harness.run(CLASS_NAME, Map.of("concurrency", 64)));
+        assertThrows(IllegalArgumentException.class, () -> harness.run(CLASS_NAME, Map.of("iterations", "beaucoup")));
+        assertThrows(NoSuchElementException.class, () -> harness.run("inconnu", Map.of()));
+    }
+}
@@ -0,0 +1,133 @@
+package com.safalifter.jobservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BpmnXmlSanitizerTest {
+
+    private static final String VALID = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<bpmn:definitions xmlns:bpmn=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" id=\"Definitions_1\">",
+            "  <!-- commentaire <bpmn:task/> -->",
+            "  <bpmn:process id=\"Process_1\" name=\"a > b &amp; c\">",
+            "    <bpmn:documentation><![CDATA[x < y && z]]></bpmn:documentation>",
+            "    <bpmn:startEvent id=\"Start_1\"/>",
+            "  </bpmn:process>",
+            "</bpmn:definitions>");
+
+    @Test
+    void testValidDocumentIsUnchanged() {
+        // Given
+        BpmnXmlSanitizer.Report report = new BpmnXmlSanitizer.Report();
+
+        // When
+        String result = BpmnXmlSanitizer.sanitize(VALID, report);
+
+        // Then
+        assertEquals(VALID, result);
+        assertFalse(report.isModified());
+        assertTrue(report.isDefinitionsRoot());
+        assertEquals(4, report.getOpeningTags());
+        assertEquals(4, report.getClosingTags());
+    }
+
+    @Test
+    void testInvalidCharactersAreRemovedAndSupplementaryCharactersKept() {
+        // Given: un caractère de contrôle, un demi-caractère isolé et un emoji (paire de substitution valide)
+        String xml = "<definitions xmlns=\"x\"><task name=\"a\u0001b\uD800c 🚀\"/></definitions>";
+        BpmnXmlSanitizer.Report report = new BpmnXmlSanitizer.Report();
+
+        // When
+        String result = BpmnXmlSanitizer.sanitize(xml, report);
+
+        // Then
+        assertEquals("<definitions xmlns=\"x\"><task name=\"abc 🚀\"/></definitions>", result);
+        assertEquals(2, report.getRemovedCharacters());
+    }
+
+    @Test
+    void testEncodingIsFixedOnlyInDeclaration() {
+        // Given
+        String xml = "\uFEFF<?xml version='1.0' encoding='ISO-8859-1'?><definitions xmlns=\"x\">"
+                + "<documentation>encoding=\"ISO-8859-1\"</documentation></definitions>";
+        BpmnXmlSanitizer.Report report = new BpmnXmlSanitizer.Report();
+
+        // When
+        String result = BpmnXmlSanitizer.sanitize(xml, report);
+
+        // Then
+        assertEquals("<?xml version='1.0' encoding='UTF-8'?><definitions xmlns=\"x\">"
+                + "<documentation>encoding=\"ISO-8859-1\"</documentation></definitions>", result);
+        assertEquals("ISO-8859-1", report.getReplacedEncoding());
+        assertTrue(report.isBomRemoved());
+    }
+
+    @Test
+    void testNamespacesAreAddedToDefinitionsWithoutNamespace() {
+        // Given: un '>' dans une valeur d'attribut et une racine auto-fermante
+        BpmnXmlSanitizer.Report report = new BpmnXmlSanitizer.Report();
+        BpmnXmlSanitizer.Report selfClosingReport = new BpmnXmlSanitizer.Report();
+
+        // When
+        String result = BpmnXmlSanitizer.sanitize("<bpmn:definitions id=\"a>b\"><process/></bpmn:definitions>", report);
+        String selfClosing = BpmnXmlSanitizer.sanitize("<definitions/>", selfClosingReport);
+
+        // Then
+        assertEquals("<bpmn:definitions id=\"a>b\"" + BpmnXmlSanitizer.BPMN_NAMESPACES
+                + "><process/></bpmn:definitions>", result);
+        assertTrue(report.isNamespacesAdded());
+        assertEquals("<definitions" + BpmnXmlSanitizer.BPMN_NAMESPACES + "/>", selfClosing);
+        assertEquals(1, selfClosingReport.getClosingTags());
+    }
+
+    @Test
+    void testStreamAndStringPathsAgree() throws IOException {
+        // Given: octets UTF-8 avec une séquence invalide (0xFF) et une séquence tronquée (0xC3 suivi de '<')
+        String xml = "<definitions><task name=\"é🚀\u0007\"/></definitions>";
+        byte[] valid = xml.getBytes(StandardCharsets.UTF_8);
+        byte[] corrupted = new byte[valid.length + 2];
+        System.arraycopy(valid, 0, corrupted, 0, 13);
+        corrupted[13] = (byte) 0xFF;
+        corrupted[14] = (byte) 0xC3;
+        System.arraycopy(valid, 13, corrupted, 15, valid.length - 13);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        BpmnXmlSanitizer.Report streamReport = BpmnXmlSanitizer.sanitize(new ByteArrayInputStream(corrupted), out);
+        byte[] fromBytes = BpmnXmlSanitizer.sanitize(corrupted, null);
+        String fromString = BpmnXmlSanitizer.sanitize(xml, null);
+
+        // Then
+        assertEquals(2, streamReport.getInvalidSequences());
+        assertEquals(1, streamReport.getRemovedCharacters());
+        assertArrayEquals(fromBytes, out.toByteArray());
+        assertEquals(fromString, new String(fromBytes, StandardCharsets.UTF_8));
+        assertTrue(fromString.contains("name=\"é🚀\""));
+    }
+
+    @Test
+    void testLargeDocumentSpanningSeveralBuffers() throws IOException {
+        // Given: un document bien plus grand que les tampons internes
+        StringBuilder sb = new StringBuilder("<definitions><process id=\"P\">");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("<task id=\"T").append(i).append("\" name=\"Tâche ").append(i).append(" 🚀\"/>");
+        }
+        String xml = sb.append("</process></definitions>").toString();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        BpmnXmlSanitizer.Report report = BpmnXmlSanitizer.sanitize(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), out);
+
+        // Then
+        assertEquals(BpmnXmlSanitizer.sanitize(xml, null), out.toString(StandardCharsets.UTF_8));
+        assertTrue(report.isNamespacesAdded());
+        assertEquals(report.getOpeningTags(), report.getClosingTags());
+    }
+}
@@ -0,0 +1,133 @@
+package com.safalifter.jobservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceArchiveReaderTest {
+
+    @Test
+    void testZipEntriesAreReadInOrder() throws IOException {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("processes/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("processes/loan.bpmn"));
+            zip.write("<loan/>".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("rules.dmn"));
+            zip.write("<rules/>".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        // When
+        List<ResourceArchiveReader.Entry> entries = readAll(bytes.toByteArray(), 1024);
+
+        // Then: le répertoire est ignoré
+        assertEquals(2, entries.size());
+        assertEquals("processes/loan.bpmn", entries.get(0).getName());
+        assertEquals("<loan/>", new String(entries.get(0).getContent(), StandardCharsets.UTF_8));
+        assertEquals("rules.dmn", entries.get(1).getName());
+    }
+
+    @Test
+    void testGzipTarWithLongNamesAndOversizedEntry() throws IOException {
+        // Given: nom long GNU, préfixe ustar, fichier trop grand puis fichier normal
+        String longName = "catalogue/" + "x".repeat(120) + ".bpmn";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeTarEntry(tar, "././@LongLink", 'L', longName.getBytes(StandardCharsets.UTF_8), null);
+        writeTarEntry(tar, "ignored", '0', "<long/>".getBytes(StandardCharsets.UTF_8), null);
+        writeTarEntry(tar, "dir", '5', new byte[0], null);
+        writeTarEntry(tar, "big.bpmn", '0', new byte[2000], "nested");
+        writeTarEntry(tar, "small.dmn", '0', "<small/>".getBytes(StandardCharsets.UTF_8), null);
+        tar.write(new byte[1024]);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(tar.toByteArray());
+        }
+
+        // When
+        ResourceArchiveReader reader = ResourceArchiveReader.open(new ByteArrayInputStream(gzip.toByteArray()), 1024);
+        List<ResourceArchiveReader.Entry> entries = readAll(reader);
+
+        // Then
+        assertEquals(ResourceArchiveReader.FORMAT_TAR_GZ, reader.getFormat());
+        assertEquals(3, entries.size());
+        assertEquals(longName, entries.get(0).getName());
+        assertEquals("<long/>", new String(entries.get(0).getContent(), StandardCharsets.UTF_8));
+        assertEquals("nested/big.bpmn", entries.get(1).getName());
+        assertTrue(entries.get(1).isTooLarge());
+        assertEquals(2000, entries.get(1).getSize());
+        assertEquals("<small/>", new String(entries.get(2).getContent(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() {
+        // Given
+        byte[] data = "ceci n'est pas une archive".repeat(40).getBytes(StandardCharsets.UTF_8);
+
+        // When / Then
+        assertThrows(IOException.class, () -> readAll(data, 1024));
+    }
+
+    private static List<ResourceArchiveReader.Entry> readAll(byte[] data, int maxEntryBytes) throws IOException {
+        return readAll(ResourceArchiveReader.open(new ByteArrayInputStream(data), maxEntryBytes));
+    }
+
+    private static List<ResourceArchiveReader.Entry> readAll(ResourceArchiveReader reader) throws IOException {
+        List<ResourceArchiveReader.Entry> entries = new ArrayList<>();
+        try (reader) {
+            ResourceArchiveReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * En-tête ustar minimal (nom, taille, type, préfixe, somme de contrôle) suivi du contenu complété à 512 octets
+     */
+    private static void writeTarEntry(ByteArrayOutputStream tar, String name, int type, byte[] content,
+                                      String prefix) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", content.length));
+        put(header, 136, String.format("%011o", 0));
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        if (prefix != null) {
+            put(header, 345, prefix);
+        }
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        put(header, 148, String.format("%06o", sum));
+        header[154] = 0;
+        tar.write(header);
+        tar.write(content);
+        tar.write(new byte[(512 - content.length % 512) % 512]);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}